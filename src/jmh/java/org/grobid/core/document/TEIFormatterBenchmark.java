@@ -0,0 +1,42 @@
+package org.grobid.core.document;
+
+import org.grobid.core.data.HeaderMedicalItem;
+import org.grobid.core.engines.BenchmarkFixtures;
+import org.grobid.core.engines.EngineMedicalParsers;
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the header of Example.pdf in TEI (TEIFormatter.toTEIHeader). The header is labelled once at
+ * setup, only the serialization is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TEIFormatterBenchmark {
+
+    private Document doc;
+    private HeaderMedicalItem header;
+    private GrobidAnalysisConfig config;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkFixtures.init();
+        config = GrobidAnalysisConfig.defaultInstance();
+        doc = BenchmarkFixtures.segmentedDocument();
+        header = new HeaderMedicalItem();
+        EngineMedicalParsers.getSharedInstance().getHeaderMedicalParser()
+            .processingHeaderSection(config, doc, header, false);
+    }
+
+    @Benchmark
+    public int toTEIHeader() {
+        TEIFormatter teiFormatter = new TEIFormatter(doc, null);
+        return teiFormatter.toTEIHeader(header, null, config).length();
+    }
+}
@@ -0,0 +1,59 @@
+package org.grobid.core.engines;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pseudonymization of the personal data found in MedicalTextExample.txt (names, dates, numbers, email and
+ * address), with the dictionaries of pseudonyms already loaded.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnonymizeDataBenchmark {
+    private static final String PERSON_NAME = "Belle Joseline DUPONT";
+    private static final String DATE = "07/08/1970";
+    private static final String NUMBER = "IPP 1234567890";
+    private static final String EMAIL = "hakuna.matata@aphp.fr";
+    private static final String ADDRESS = "12 rue de la Paix 75002 Paris";
+
+    private AnonymizeData anonymizeData;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkFixtures.init();
+        anonymizeData = new AnonymizeData();
+        // the dictionaries are loaded by the first calls
+        anonymizeData.anonymizePersonName(PERSON_NAME);
+        anonymizeData.anonymizeAddress(ADDRESS);
+    }
+
+    @Benchmark
+    public String anonymizePersonName() {
+        return anonymizeData.anonymizePersonName(PERSON_NAME);
+    }
+
+    @Benchmark
+    public String anonymizeDate() {
+        return anonymizeData.anonymizeDate(DATE);
+    }
+
+    @Benchmark
+    public String anonymizeNumber() {
+        return anonymizeData.anonymizeNumber(NUMBER);
+    }
+
+    @Benchmark
+    public String anonymizeEmail() {
+        return anonymizeData.anonymizeEmail(EMAIL);
+    }
+
+    @Benchmark
+    public int anonymizeAddress() throws Exception {
+        return anonymizeData.anonymizeAddress(ADDRESS).size();
+    }
+}
@@ -0,0 +1,138 @@
+package org.grobid.core.engines;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.grobid.core.analyzers.GrobidAnalyzer;
+import org.grobid.core.document.Document;
+import org.grobid.core.document.DocumentSource;
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.main.GrobidHomeFinder;
+import org.grobid.core.main.LibraryLoader;
+import org.grobid.core.utilities.GrobidConfig.ModelParameters;
+import org.grobid.core.utilities.GrobidMedicalReportConfiguration;
+import org.grobid.core.utilities.GrobidProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inputs of the benchmarks, built from resources/test/Example.pdf and resources/test/MedicalTextExample.txt.
+ *
+ * The layout of Example.pdf is read from its ALTO file (resources/test/Example.lxml), committed with the tests so
+ * that the benchmarks do not depend on pdfalto. As the Example.pdf of the repository is an empty placeholder, the
+ * committed file is a hand-written synthetic layout of a one-page medical report in the ALTO format of pdfalto, not
+ * the output of pdfalto: its fonts, coordinates and token sizes are plausible but not those of a real PDF, and the
+ * results are labelled as such (grobid.benchmark.layout=synthetic in the jvmArgs of the JSON results). It can be
+ * replaced by the layout extracted by pdfalto from a real PDF with the main method (./gradlew jmh_fixtures
+ * -Ppdf=...), which must then be run again when pdfalto is upgraded.
+ *
+ * The grobid-home is given by the grobid.home system property (../grobid-home by default).
+ */
+public class BenchmarkFixtures {
+    public static final String PDF_PATH = "resources/test/Example.pdf";
+    public static final String LAYOUT_PATH = "resources/test/Example.lxml";
+    public static final String TEXT_PATH = "resources/test/MedicalTextExample.txt";
+
+    private static boolean initialized = false;
+
+    /**
+     * Init grobid and the models of grobid-medical-report, as the batch processes do.
+     */
+    public static synchronized void init() throws IOException {
+        if (initialized) {
+            return;
+        }
+        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+        GrobidMedicalReportConfiguration configuration = mapper.readValue(
+            new File("resources/config/grobid-medical-report.yaml"), GrobidMedicalReportConfiguration.class);
+        GrobidHomeFinder grobidHomeFinder = new GrobidHomeFinder(
+            Arrays.asList(System.getProperty("grobid.home", "../grobid-home")));
+        grobidHomeFinder.findGrobidHomeOrFail();
+        GrobidProperties.getInstance(grobidHomeFinder);
+        for (ModelParameters model : configuration.getModels()) {
+            GrobidProperties.getInstance().addModel(model);
+        }
+        LibraryLoader.load();
+        initialized = true;
+    }
+
+    /**
+     * The lines of MedicalTextExample.txt.
+     */
+    public static List<String> textLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(new File(TEXT_PATH).toPath(), StandardCharsets.UTF_8)) {
+            if (line.trim().length() > 0) {
+                lines.add(line.trim());
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * The layout tokens of each line of MedicalTextExample.txt.
+     */
+    public static List<List<LayoutToken>> textTokens() throws IOException {
+        List<List<LayoutToken>> tokens = new ArrayList<>();
+        for (String line : textLines()) {
+            tokens.add(GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(line));
+        }
+        return tokens;
+    }
+
+    /**
+     * The tokenized document of Example.pdf, read from its pre-extracted layout, not segmented.
+     */
+    public static Document layoutDocument() throws Exception {
+        File layoutFile = new File(LAYOUT_PATH);
+        if (!layoutFile.exists()) {
+            throw new IllegalStateException("The layout fixture " + LAYOUT_PATH +
+                " does not exist, it is produced by ./gradlew jmh_fixtures");
+        }
+        Document doc = new LayoutDocument(layoutFile);
+        doc.addTokenizedDocument(GrobidAnalysisConfig.defaultInstance());
+        return doc;
+    }
+
+    /**
+     * A document read from an existing ALTO file instead of the output of pdfalto, without document source.
+     */
+    private static class LayoutDocument extends Document {
+        LayoutDocument(File layoutFile) {
+            super();
+            setPathXML(layoutFile);
+        }
+    }
+
+    /**
+     * The document of Example.pdf segmented by the medical-report segmenter model.
+     */
+    public static Document segmentedDocument() throws Exception {
+        return EngineMedicalParsers.getSharedInstance().getMedicalReportSegmenterParser()
+            .prepareDocument(layoutDocument());
+    }
+
+    /**
+     * Extract the layout of a PDF file (Example.pdf by default) with pdfalto, and save it as the layout fixture of
+     * the benchmarks.
+     */
+    public static void main(String[] args) throws Exception {
+        init();
+        File pdfFile = new File(args.length > 0 ? args[0] : PDF_PATH);
+        DocumentSource documentSource = DocumentSource.fromPdf(pdfFile, -1, -1, false, true, false);
+        try {
+            Files.copy(documentSource.getXmlFile().toPath(), new File(LAYOUT_PATH).toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Layout of " + pdfFile + " saved in " + LAYOUT_PATH);
+        } finally {
+            DocumentSource.close(documentSource, true, true, true);
+        }
+    }
+}
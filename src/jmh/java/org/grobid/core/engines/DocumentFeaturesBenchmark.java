@@ -0,0 +1,50 @@
+package org.grobid.core.engines;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.grobid.core.document.Document;
+import org.grobid.core.engines.label.MedicalLabels;
+import org.grobid.core.layout.LayoutTokenization;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feature generation on a whole document (Example.pdf, read from its pre-extracted layout): the features of the
+ * segmentation model for all the lines (MedicalReportSegmenterParser.getAllLinesFeatured) and the features of
+ * the full text model for the body (FullMedicalTextParser.getBodyTextFeatured, the per-document cache being
+ * released before each call).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentFeaturesBenchmark {
+
+    private MedicalReportSegmenterParser segmenterParser;
+    private Document layoutDocument;
+    private Document segmentedDocument;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkFixtures.init();
+        segmenterParser = EngineMedicalParsers.getSharedInstance().getMedicalReportSegmenterParser();
+        layoutDocument = BenchmarkFixtures.layoutDocument();
+        layoutDocument.produceStatistics();
+        segmentedDocument = BenchmarkFixtures.segmentedDocument();
+    }
+
+    @Benchmark
+    public int getAllLinesFeatured() {
+        return segmenterParser.getAllLinesFeatured(layoutDocument).length();
+    }
+
+    @Benchmark
+    public int getBodyTextFeatured() {
+        FullMedicalTextParser.releaseBodyTextFeatured(segmentedDocument);
+        Pair<String, LayoutTokenization> featured = FullMedicalTextParser.getBodyTextFeatured(segmentedDocument,
+            segmentedDocument.getDocumentPart(MedicalLabels.BODY));
+        return featured == null ? 0 : featured.getLeft().length();
+    }
+}
@@ -0,0 +1,69 @@
+package org.grobid.core.features;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the feature vectors of a sequence: printVector() returning a new string per token
+ * appended to the sequence buffer, against printVector(StringBuilder) writing directly into the reused
+ * sequence buffer. Run with the gc profiler (./gradlew jmh -Pbench=FeatureWriterBenchmark) to compare
+ * the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeatureWriterBenchmark {
+    private static final String TEXT = "Dr Jean DUPONT , Service de Cardiologie , Hôpital Saint-Louis , 1 avenue Claude Vellefaux " +
+        "75010 PARIS Tél : 01 42 49 49 49 - Fax : 01 42 49 49 50 jean.dupont@aphp.fr Patiente de 69 ans hospitalisée " +
+        "pour une douleur thoracique , traitement par aspirine 75 mg et bisoprolol 2,5 mg .";
+
+    @Param({"1000"})
+    private int nbTokens;
+
+    private List<FeaturesVectorMedic> vectors;
+    private StringBuilder buffer;
+
+    @Setup
+    public void setUp() {
+        String[] tokens = TEXT.split(" ");
+        vectors = new ArrayList<>();
+        for (int i = 0; i < nbTokens; i++) {
+            String token = tokens[i % tokens.length];
+            FeaturesVectorMedic features = new FeaturesVectorMedic();
+            features.string = token;
+            features.lineStatus = i == 0 ? "LINESTART" : "LINEIN";
+            features.digit = token.matches("[0-9]+") ? "ALLDIGIT" : (token.matches(".*[0-9].*") ? "CONTAINDIGIT" : "NODIGIT");
+            features.capitalisation = Character.isUpperCase(token.charAt(0)) ? "INITCAP" : "NOCAPS";
+            features.singleChar = token.length() == 1;
+            features.punctType = token.matches("\\p{Punct}") ? "PUNCT" : "NOPUNCT";
+            features.relativePosition = (i * 12) / nbTokens;
+            features.label = "I-<other>";
+            vectors.add(features);
+        }
+        buffer = new StringBuilder(nbTokens * 128);
+    }
+
+    @Benchmark
+    public int printVectorString() {
+        StringBuilder sequence = new StringBuilder();
+        for (FeaturesVectorMedic features : vectors) {
+            sequence.append(features.printVector());
+        }
+        return sequence.length();
+    }
+
+    @Benchmark
+    public int printVectorBuffer() {
+        buffer.setLength(0);
+        for (FeaturesVectorMedic features : vectors) {
+            features.printVector(buffer);
+        }
+        return buffer.length();
+    }
+}
@@ -0,0 +1,90 @@
+package org.grobid.core.features;
+
+import org.grobid.core.engines.BenchmarkFixtures;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.lexicon.Lexicon;
+import org.grobid.core.utilities.OffsetPosition;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feature generation of the medic, patient, dateline and NER models (addFeatures*, including the serialization
+ * of the vectors by printVector) on the lines of MedicalTextExample.txt. The gazetteer positions are computed
+ * once at setup, only the feature vectors are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeaturesVectorBenchmark {
+
+    private List<List<LayoutToken>> lines;
+    private List<List<OffsetPosition>> locationPositions;
+    private List<List<OffsetPosition>> titlePositions;
+    private List<List<OffsetPosition>> suffixPositions;
+    private List<List<OffsetPosition>> emailPositions;
+    private List<List<OffsetPosition>> urlPositions;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkFixtures.init();
+        Lexicon lexicon = Lexicon.getInstance();
+        lines = BenchmarkFixtures.textTokens();
+        locationPositions = new ArrayList<>();
+        titlePositions = new ArrayList<>();
+        suffixPositions = new ArrayList<>();
+        emailPositions = new ArrayList<>();
+        urlPositions = new ArrayList<>();
+        for (List<LayoutToken> tokens : lines) {
+            locationPositions.add(lexicon.tokenPositionsLocationNames(tokens));
+            titlePositions.add(lexicon.tokenPositionsPersonTitle(tokens));
+            suffixPositions.add(lexicon.tokenPositionsPersonSuffix(tokens));
+            emailPositions.add(lexicon.tokenPositionsEmailPattern(tokens));
+            urlPositions.add(lexicon.tokenPositionsUrlPattern(tokens));
+        }
+    }
+
+    @Benchmark
+    public int addFeaturesMedic() throws Exception {
+        int length = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            length += FeaturesVectorMedic.addFeaturesMedic(lines.get(i), null, locationPositions.get(i),
+                titlePositions.get(i), suffixPositions.get(i), emailPositions.get(i), urlPositions.get(i)).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int addFeaturesPatient() throws Exception {
+        int length = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            length += FeaturesVectorPatient.addFeaturesPatient(lines.get(i), null, locationPositions.get(i),
+                titlePositions.get(i), suffixPositions.get(i)).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int addFeaturesDateline() throws Exception {
+        int length = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            length += FeaturesVectorDateline.addFeaturesDateline(lines.get(i), null, locationPositions.get(i)).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int addFeaturesNER() {
+        int length = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            length += FeaturesVectorMedicalNER.addFeaturesNER(lines.get(i), null, locationPositions.get(i),
+                titlePositions.get(i), suffixPositions.get(i), emailPositions.get(i), urlPositions.get(i)).length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,70 @@
+package org.grobid.core.lexicon;
+
+import org.grobid.core.engines.BenchmarkFixtures;
+import org.grobid.core.features.FeatureFactoryMedical;
+import org.grobid.core.layout.LayoutToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Look-ups in the medical NER lexicon: the categories of each token (FeatureFactoryMedical, as used by the NER
+ * features) and the phrase matching of all the categories over the tokens of MedicalTextExample.txt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MedicalLexiconBenchmark {
+    static final int ALL_CATEGORIES = MedicalNERLexicon.ANATOMY | MedicalNERLexicon.CHEMICAL_DRUG |
+        MedicalNERLexicon.DEVICE | MedicalNERLexicon.DISORDER | MedicalNERLexicon.GEOGRAPHIC_AREA |
+        MedicalNERLexicon.LIVING_BEING | MedicalNERLexicon.OBJECT | MedicalNERLexicon.PHENOMENA |
+        MedicalNERLexicon.PHYSIOLOGY | MedicalNERLexicon.PROCEDURE;
+
+    private List<List<LayoutToken>> lines;
+    private MedicalNERLexicon lexicon;
+    private FeatureFactoryMedical featureFactory;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkFixtures.init();
+        lines = BenchmarkFixtures.textTokens();
+        lexicon = MedicalNERLexicon.getInstance();
+        featureFactory = FeatureFactoryMedical.getInstance();
+    }
+
+    @Benchmark
+    public int tokenCategories() {
+        int categories = 0;
+        for (List<LayoutToken> tokens : lines) {
+            for (LayoutToken token : tokens) {
+                categories ^= featureFactory.medicalCategories(token.getText());
+            }
+        }
+        return categories;
+    }
+
+    @Benchmark
+    public int tokenPositions() {
+        int count = 0;
+        for (List<LayoutToken> tokens : lines) {
+            count += lexicon.tokenPositions(tokens, ALL_CATEGORIES).size();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int tokenPositionsPerCategory() {
+        int count = 0;
+        for (List<LayoutToken> tokens : lines) {
+            count += lexicon.tokenPositionsAnatomyNames(tokens).size();
+            count += lexicon.tokenPositionsChemicalDrugsNames(tokens).size();
+            count += lexicon.tokenPositionsDisordersNames(tokens).size();
+            count += lexicon.tokenPositionsProcedures(tokens).size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,69 @@
+package org.grobid.core.lexicon;
+
+import org.grobid.core.engines.BenchmarkFixtures;
+import org.grobid.core.layout.LayoutToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Look-ups in the compiled medical NER lexicon, from its in-heap entries or from its memory-mapped snapshot, over
+ * the tokens of MedicalTextExample.txt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MedicalLexiconSnapshotBenchmark {
+    @Param({"heap", "snapshot"})
+    public String entries;
+
+    private List<List<LayoutToken>> lines;
+    private MedicalLexiconMatcher matcher;
+    private File snapshotFile;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkFixtures.init();
+        lines = BenchmarkFixtures.textTokens();
+        MedicalLexiconMatcher compiled = MedicalNERLexicon.compile();
+        if ("heap".equals(entries)) {
+            matcher = compiled;
+        } else {
+            snapshotFile = File.createTempFile("medical-ner-lexicon", ".snapshot");
+            MedicalLexiconSnapshot.write(snapshotFile, compiled.getEntries(), 0L);
+            matcher = new MedicalLexiconMatcher(MedicalLexiconSnapshot.load(snapshotFile, 0L));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (snapshotFile != null) {
+            snapshotFile.delete();
+        }
+    }
+
+    @Benchmark
+    public int tokenCategories() {
+        int categories = 0;
+        for (List<LayoutToken> tokens : lines) {
+            for (LayoutToken token : tokens) {
+                categories ^= matcher.getCategories(token.getText());
+            }
+        }
+        return categories;
+    }
+
+    @Benchmark
+    public int matchLayoutToken() {
+        int count = 0;
+        for (List<LayoutToken> tokens : lines) {
+            count += matcher.matchLayoutToken(tokens, MedicalLexiconBenchmark.ALL_CATEGORIES).size();
+        }
+        return count;
+    }
+}
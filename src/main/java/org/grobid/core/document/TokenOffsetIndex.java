@@ -0,0 +1,70 @@
+package org.grobid.core.document;
+
+import org.grobid.core.layout.Block;
+import org.grobid.core.layout.LayoutToken;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Index from the character offsets of the tokens of a document to their position in the document tokenization.
+ * The offsets of the tokens are increasing along the tokenization, so the position of a token is found by binary
+ * search instead of a scan from the first token of its block.
+ *
+ * The index is built once per document, on first use, and kept as long as the document is referenced.
+ */
+public class TokenOffsetIndex {
+
+    private static final Map<Document, TokenOffsetIndex> indexes = new WeakHashMap<>();
+
+    private final int[] offsets;
+
+    private TokenOffsetIndex(List<LayoutToken> tokens) {
+        this.offsets = new int[tokens.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = tokens.get(i).getOffset();
+        }
+    }
+
+    /**
+     * Return the index of the given document, built on first use.
+     */
+    public static TokenOffsetIndex of(Document doc) {
+        synchronized (indexes) {
+            TokenOffsetIndex index = indexes.get(doc);
+            // the tokenization of a document is built once, a size change means that the index is outdated
+            if (index == null || index.offsets.length != doc.getTokenizations().size()) {
+                index = new TokenOffsetIndex(doc.getTokenizations());
+                indexes.put(doc, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Return the position in the document tokenization of the first token at or after the given offset, not
+     * before the given position, or the size of the tokenization if there is none.
+     */
+    public int indexOf(int offset, int fromIndex) {
+        int low = Math.max(fromIndex, 0);
+        int high = offsets.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (offsets[middle] < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Return the position of a token of the document in the document tokenization.
+     */
+    public int indexOf(Document doc, LayoutToken token) {
+        Block block = doc.getBlocks().get(token.getBlockPtr());
+        return indexOf(token.getOffset(), block.getStartToken());
+    }
+}
@@ -16,6 +16,7 @@ import org.grobid.core.tokenization.TaggingTokenCluster;
 import org.grobid.core.tokenization.TaggingTokenClusteror;
 import org.grobid.core.utilities.LayoutTokensUtil;
 import org.grobid.core.utilities.OffsetPosition;
+import org.grobid.core.utilities.PseudonymMap;
 import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.utilities.UnicodeUtil;
 import org.grobid.core.utilities.counters.CntManager;
@@ -562,7 +563,7 @@ public class AddressParser extends AbstractParser {
      * @param inputs list of input data
      * @return result
      */
-    public StringBuilder trainingExtractionAnonym(List<String> inputs, List<String> dataOriginal, List<String> dataAnonymized) {
+    public StringBuilder trainingExtractionAnonym(List<String> inputs, PseudonymMap pseudonyms) {
         StringBuilder buffer = new StringBuilder();
         try {
             if (inputs == null)
@@ -616,18 +617,14 @@ public class AddressParser extends AbstractParser {
                     while (stt.hasMoreTokens()) {
                         String s = stt.nextToken().trim();
                         if (i == 0) {
-                            for (int j = 0; j < dataOriginal.size(); j++) {
-                                s = s.replace(dataOriginal.get(j), dataAnonymized.get(j));
-                            }
+                            s = pseudonyms.replaceAll(s);
                             s2 = TextUtilities.HTMLEncode(s);
                             //s2 = s;
 
                             boolean strop = false;
                             while ((!strop) && (p < tokenizations.size())) {
                                 String tokOriginal = tokenizations.get(p).t();
-                                for (int j = 0; j < dataOriginal.size(); j++) {
-                                    tokOriginal = tokOriginal.replace(dataOriginal.get(j), dataAnonymized.get(j));
-                                }
+                                tokOriginal = pseudonyms.replaceAll(tokOriginal);
                                 if (tokOriginal.equals(" ")
                                     || tokOriginal.equals("\u00A0")) {
                                     addSpace = true;
@@ -3,17 +3,31 @@ package org.grobid.core.engines;
 import org.apache.commons.lang3.StringUtils;
 import org.grobid.core.analyzers.GrobidAnalyzer;
 import org.grobid.core.data.DataToBeAnonymized;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class AnonymizeData {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnonymizeData.class);
+
+    private static final String PERSNAME_ANONYM_PATH = "resources/lexicon/PERSNAME_ANONYM.txt";
+    private static final String ADDRESS_ANONYM_PATH = "resources/lexicon/ADDRESS_ANONYM.txt";
+
+    // the dictionaries of pseudonyms are loaded once, and shared by all the instances
+    private static volatile String[] persNames = null;
+    private static volatile AddressDictionary addresses = null;
+
     protected GrobidAnalyzer analyzer = GrobidAnalyzer.getInstance();
     protected EngineMedicalParsers parsers;
 
@@ -32,27 +46,18 @@ public class AnonymizeData {
 
     // anonymize the person names
     public String anonymizePersonName(String persName) {
-        String inputFileName = "resources/lexicon/PERSNAME_ANONYM.txt";
-        List<String> persNames = new ArrayList<>();
-        try (Stream<String> lines = Files.lines(Paths.get(inputFileName))) {
-            persNames = lines.collect(Collectors.toList());
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        int min = 0;
-        int max = persNames.size();
+        String[] persNames = getPersNames();
         StringBuilder newPersName = new StringBuilder();
-        if (persNames != null && persNames.size() > 0) {
+        if (persNames.length > 0) {
             String[] names = persName.split(" ");
             for (String name : names) {
                 String newName = "";
-                //Generate random int value from 0 to the size of the list
-                int random_int = (int) Math.floor(Math.random() * (max - min + 1) + min);
+                //Generate random int value from 0 to the size of the list (excluded)
+                int random_int = ThreadLocalRandom.current().nextInt(persNames.length);
                 if (name.equals(name.toUpperCase())) { // check if the names is all in uppercase which is the case of French last names
-                    newName = persNames.get(random_int).toUpperCase();
+                    newName = persNames[random_int].toUpperCase();
                 } else {
-                    newName = persNames.get(random_int);
+                    newName = persNames[random_int];
                 }
                 newPersName.append(newName).append(" ");
             }
@@ -67,7 +72,6 @@ public class AnonymizeData {
         List<String> emailBeforeExtenSplit = Arrays.asList(emailBeforeExten.split("\\."));
         StringBuilder anonymEmail = new StringBuilder();
         for (int i = 0; i < emailBeforeExtenSplit.size(); i++) {
-            anonymizePersonName(emailBeforeExtenSplit.get(i));
             anonymEmail.append(anonymizePersonName(emailBeforeExtenSplit.get(i)).trim().toLowerCase());
             if (i < emailBeforeExtenSplit.size() - 1) {
                 anonymEmail.append(".");
@@ -93,102 +97,151 @@ public class AnonymizeData {
         List<DataToBeAnonymized> listDataToBeAnonymized = new ArrayList<>();
         DataToBeAnonymized dataToBeAnonymized = new DataToBeAnonymized();
         String newAddress = address;
-        String inputFileName = "resources/lexicon/ADDRESS_ANONYM.txt";
-        List<String> determinant = Arrays.asList("AU", "AUX", "DU", "DES", "D\\'", "LA", "LE", "LES", "L\\'", "UN", "UNE");
-        List<String> dicAddrressList = new ArrayList<>();
-        String number = "", newNumber = "", postCode = "", newCityPostCode = "", city = "", newCity = "", newPostCode = "";
-        try (Stream<String> lineAddress = Files.lines(Paths.get(inputFileName))) {
-            int cityNumToken = 0, newCityNumToken = 0;
-            List<String> addressSplit = analyzer.tokenize(address);
-            for (int i = 0; i < addressSplit.size(); i++) {
-                if (addressSplit.get(i).matches("\\d{2,3}")) { // the street or the building number
-                    number = addressSplit.get(i);
-                    newNumber = anonymizeNumber(number);
-                }
-                if (addressSplit.get(i).matches("\\d{5}")) { // the post code
-                    postCode = addressSplit.get(i);
+        AddressDictionary addresses = getAddresses();
+        String number = "", newNumber = "", postCode = "", city = "", newCity = "", newPostCode = "";
+        List<String> addressSplit = analyzer.tokenize(address);
+        for (int i = 0; i < addressSplit.size(); i++) {
+            if (addressSplit.get(i).matches("\\d{2,3}")) { // the street or the building number
+                number = addressSplit.get(i);
+                newNumber = anonymizeNumber(number);
+            }
+            if (addressSplit.get(i).matches("\\d{5}")) { // the post code
+                postCode = addressSplit.get(i);
+            }
+        }
+
+        // find the city of the post code in the dictionary of addresses
+        if (postCode.length() > 0 && addresses.cityByPostCode.containsKey(postCode)) {
+            city = addresses.cityByPostCode.get(postCode);
+        }
+        if (city.length() > 0 && addresses.size() > 0) { // not found post code and city name in the dictionary
+            // take only the postal code where city/community name has the same number of tokens and doesn't contain
+            // determinant (to avoid errors with body parts), or any one if there is none
+            int cityNumToken = analyzer.tokenize(city).size();
+            int[] candidates = addresses.withoutDeterminantByNumToken.get(cityNumToken);
+            int newPosition;
+            if (candidates != null && candidates.length > 0) {
+                newPosition = candidates[ThreadLocalRandom.current().nextInt(candidates.length)];
+            } else {
+                newPosition = ThreadLocalRandom.current().nextInt(addresses.size());
+            }
+            newCity = addresses.cities[newPosition];
+            newPostCode = addresses.postCodes[newPosition];
+        }
+
+        if (number.length() > 0 && newNumber.length() > 0) {
+            dataToBeAnonymized = new DataToBeAnonymized();
+            dataToBeAnonymized.setDataOriginal(number.trim());
+            dataToBeAnonymized.setDataPseudo(newNumber.trim());
+            listDataToBeAnonymized.add(dataToBeAnonymized);
+            newAddress = newAddress.replace(number, newNumber);
+        }
+
+        if (postCode.length() > 0 && newPostCode.length() > 0) {
+            dataToBeAnonymized = new DataToBeAnonymized();
+            dataToBeAnonymized.setDataOriginal(postCode.trim());
+            dataToBeAnonymized.setDataPseudo(newPostCode.trim());
+            listDataToBeAnonymized.add(dataToBeAnonymized);
+            newAddress = newAddress.replace(postCode, newPostCode);
+        }
+
+        if (city.length() > 0 && newCity.length() > 0) {
+            dataToBeAnonymized = new DataToBeAnonymized();
+            dataToBeAnonymized.setDataOriginal(city);
+            dataToBeAnonymized.setDataPseudo(newCity);
+            listDataToBeAnonymized.add(dataToBeAnonymized);
+            newAddress = newAddress.replace(city, newCity);
+        }
+
+        if (address.length() > 0 && newAddress.length() > 0) {
+            dataToBeAnonymized = new DataToBeAnonymized();
+            dataToBeAnonymized.setDataOriginal(address);
+            dataToBeAnonymized.setDataPseudo(newAddress);
+            listDataToBeAnonymized.add(dataToBeAnonymized);
+        }
+        return listDataToBeAnonymized;
+    }
+
+    /**
+     * The pseudonym person names, read once from the dictionary.
+     */
+    protected static String[] getPersNames() {
+        if (persNames == null) {
+            synchronized (AnonymizeData.class) {
+                if (persNames == null) {
+                    persNames = readLines(PERSNAME_ANONYM_PATH).toArray(new String[0]);
                 }
             }
+        }
+        return persNames;
+    }
 
-            // collect the dictionary of new addresses
-            dicAddrressList = lineAddress.collect(Collectors.toList());
-            for (int i = 0; i < dicAddrressList.size(); i++) {
-                if (dicAddrressList.get(i).contains(postCode)) {
-                    city = StringUtils.substringBefore(dicAddrressList.get(i), ";");
-                    cityNumToken = analyzer.tokenize(city).size();
+    /**
+     * The pseudonym addresses, read and indexed once from the dictionary.
+     */
+    protected static AddressDictionary getAddresses() {
+        if (addresses == null) {
+            synchronized (AnonymizeData.class) {
+                if (addresses == null) {
+                    addresses = new AddressDictionary(readLines(ADDRESS_ANONYM_PATH), GrobidAnalyzer.getInstance());
                 }
             }
-            if (city.length() > 0) { // not found post code and city name in the dictionary
-                int min = 0;
-                int max = dicAddrressList.size();
-                int newPosition = (int) Math.floor(Math.random() * (max - min + 1) + min);
-                newCityPostCode = dicAddrressList.get(newPosition);
-                newCity = StringUtils.substringBefore(newCityPostCode, ";");
-                newPostCode = newCityPostCode.substring(newCityPostCode.length() - 5);
-                newCityNumToken = analyzer.tokenize(newCity).size();
+        }
+        return addresses;
+    }
+
+    private static List<String> readLines(String path) {
+        try (Stream<String> lines = Files.lines(Paths.get(path))) {
+            return lines.collect(Collectors.toList());
+        } catch (IOException e) {
+            LOGGER.error("Cannot read the dictionary " + path, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Dictionary of the pseudonym addresses (lines city_community;zip), indexed by post code, and by number of
+     * tokens of the city name for the cities without determinant.
+     */
+    protected static class AddressDictionary {
+        private static final List<String> DETERMINANTS = Arrays.asList("AU", "AUX", "DU", "DES", "D\\'", "LA", "LE", "LES", "L\\'", "UN", "UNE");
+
+        final String[] cities;
+        final String[] postCodes;
+        final Map<String, String> cityByPostCode = new HashMap<>();
+        final Map<Integer, int[]> withoutDeterminantByNumToken = new HashMap<>();
+
+        AddressDictionary(List<String> lines, GrobidAnalyzer analyzer) {
+            cities = new String[lines.size()];
+            postCodes = new String[lines.size()];
+            Map<Integer, List<Integer>> byNumToken = new HashMap<>();
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                cities[i] = StringUtils.substringBefore(line, ";");
+                postCodes[i] = line.length() >= 5 ? line.substring(line.length() - 5) : line;
+                // in case of duplicated post code, the last entry is kept
+                cityByPostCode.put(StringUtils.substringAfterLast(line, ";").trim(), cities[i]);
 
                 boolean containDeterminant = false;
-                for (String det : determinant) {
-                    if (newCity.contains(det)) {
+                for (String det : DETERMINANTS) {
+                    if (cities[i].contains(det)) {
                         containDeterminant = true;
                         break;
                     }
                 }
-                while (newCityNumToken != cityNumToken && containDeterminant) { // take only the postal code where city/community name doesn't contain determinant (to avoid errors with body parts)
-                    newPosition = (int) Math.floor(Math.random() * (max - min + 1) + min);
-                    newCityPostCode = dicAddrressList.get(newPosition);
-                    newCity = StringUtils.substringBefore(newCityPostCode, ";");
-                    newPostCode = newCityPostCode.substring(newCityPostCode.length() - 5);
-                    newCityNumToken = analyzer.tokenize(newCity).size();
-
-                    containDeterminant = false;
-                    for (String det : determinant) {
-                        if (newCity.contains(det)) {
-                            containDeterminant = true;
-                            break;
-                        }
-                    }
-                    if (newCityNumToken == cityNumToken && !containDeterminant) {
-                        break;
-                    }
+                if (!containDeterminant) {
+                    byNumToken.computeIfAbsent(analyzer.tokenize(cities[i]).size(), k -> new ArrayList<>()).add(i);
                 }
             }
-
-            if (number.length() > 0 && newNumber.length() > 0) {
-                dataToBeAnonymized = new DataToBeAnonymized();
-                dataToBeAnonymized.setDataOriginal(number.trim());
-                dataToBeAnonymized.setDataPseudo(newNumber.trim());
-                listDataToBeAnonymized.add(dataToBeAnonymized);
-                newAddress = newAddress.replace(number, newNumber);
-            }
-
-            if (postCode.length() > 0 && newPostCode.length() > 0) {
-                dataToBeAnonymized = new DataToBeAnonymized();
-                dataToBeAnonymized.setDataOriginal(postCode.trim());
-                dataToBeAnonymized.setDataPseudo(newPostCode.trim());
-                listDataToBeAnonymized.add(dataToBeAnonymized);
-                newAddress = newAddress.replace(postCode, newPostCode);
-            }
-
-            if (city.length() > 0 && newCity.length() > 0) {
-                dataToBeAnonymized = new DataToBeAnonymized();
-                dataToBeAnonymized.setDataOriginal(city);
-                dataToBeAnonymized.setDataPseudo(newCity);
-                listDataToBeAnonymized.add(dataToBeAnonymized);
-                newAddress = newAddress.replace(city, newCity);
-            }
-
-            if (address.length() > 0 && newAddress.length() > 0) {
-                dataToBeAnonymized = new DataToBeAnonymized();
-                dataToBeAnonymized.setDataOriginal(address);
-                dataToBeAnonymized.setDataPseudo(newAddress);
-                listDataToBeAnonymized.add(dataToBeAnonymized);
+            for (Map.Entry<Integer, List<Integer>> entry : byNumToken.entrySet()) {
+                withoutDeterminantByNumToken.put(entry.getKey(),
+                    entry.getValue().stream().mapToInt(Integer::intValue).toArray());
             }
+        }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+        int size() {
+            return cities.length;
         }
-        return listDataToBeAnonymized;
     }
 
     // anonymize the dates in ISO Format (yyyy-mm-dd)
@@ -17,6 +17,8 @@ import org.grobid.core.tokenization.TaggingTokenCluster;
 import org.grobid.core.tokenization.TaggingTokenClusteror;
 import org.grobid.core.utilities.LayoutTokensUtil;
 import org.grobid.core.utilities.OffsetPosition;
+import org.grobid.core.utilities.PipelineMetrics;
+import org.grobid.core.utilities.SequenceBatchUtilities;
 import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.utilities.counters.CntManager;
 import org.slf4j.Logger;
@@ -58,6 +60,11 @@ public class DatelineParser extends AbstractParser {
         this.parsers = parsers;
     }
 
+    @Override
+    public String label(String data) {
+        return PipelineMetrics.time(PipelineMetrics.labelling(GrobidModels.DATELINE), () -> super.label(data));
+    }
+
     public String getDate() {
         return date;
     }
@@ -127,71 +134,127 @@ public class DatelineParser extends AbstractParser {
         }
         Dateline dateline = null;
         try {
-            List<OffsetPosition> placeNamePositions = lexicon.tokenPositionsLocationNames(tokens);
-
-            String sequence = FeaturesVectorDateline.addFeaturesDateline(tokens, null,
-                placeNamePositions);
+            String sequence = featuresDateline(tokens);
             if (StringUtils.isEmpty(sequence))
                 return null;
             String res = label(sequence);
             //System.out.println(res);
 
-            TaggingTokenClusteror clusteror = new TaggingTokenClusteror(GrobidModels.DATELINE, res, tokens);
-            dateline = new Dateline();
+            dateline = extractDateline(res, tokens);
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        }
+        return dateline;
+    }
 
-            List<TaggingTokenCluster> clusters = clusteror.cluster();
-            for (TaggingTokenCluster cluster : clusters) {
-                if (cluster == null) {
-                    continue;
+    /**
+     * Processing of several datelines (e.g. all the datelines of a header), all being labelled with a single call
+     * to the model.
+     *
+     * @param inputs list of dateline strings
+     * @return the Dateline of each input, in the order of the inputs (null for an empty input)
+     */
+    public List<Dateline> processBatch(List<String> inputs) {
+        List<Dateline> results = new ArrayList<>();
+        if (inputs == null) {
+            return results;
+        }
+        try {
+            List<List<LayoutToken>> tokensList = new ArrayList<>();
+            List<String> sequences = new ArrayList<>();
+            for (String input : inputs) {
+                List<LayoutToken> tokens = null;
+                String sequence = null;
+                if (StringUtils.isNotEmpty(input)) {
+                    // for language to English for the analyser to avoid any bad surprises
+                    tokens = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(input, new Language("en", 1.0));
                 }
-
-                TaggingLabel clusterLabel = cluster.getTaggingLabel();
-                Engine.getCntManager().i(clusterLabel);
-                String clusterContent = StringUtils.normalizeSpace(LayoutTokensUtil.toText(cluster.concatTokens()));
-                String clusterNonDehypenizedContent = LayoutTokensUtil.toText(cluster.concatTokens());
-                if (clusterContent.trim().length() == 0)
-                    continue;
-
-                if (clusterLabel.equals(MedicalLabels.DATELINE_DOCTYPE)) {
-                    if (dateline.getDoctype() != null) {
-                        dateline.setDoctype(dateline.getDoctype() + ";\t" + clusterContent);
-                    } else {
-                        dateline.setDoctype(clusterContent);
-                    }
-                    dateline.addLayoutTokens(cluster.concatTokens());
-                } else if (clusterLabel.equals(MedicalLabels.DATELINE_PLACE_NAME)) {
-                    if (dateline.getPlaceName() != null) {
-                        dateline.setPlaceName(dateline.getPlaceName() + ";\t" + clusterContent);
-                    } else {
-                        dateline.setPlaceName(clusterContent);
-                    }
-                    dateline.addLayoutTokens(cluster.concatTokens());
-                } else if (clusterLabel.equals(MedicalLabels.DATELINE_NOTE)) {
-                    if (dateline.getNote() != null) {
-                        dateline.setNote(dateline.getNote() + " " + clusterContent);
-                    } else {
-                        dateline.setNote(clusterContent);
-                    }
-                    dateline.addLayoutTokens(cluster.concatTokens());
-                } else if (clusterLabel.equals(MedicalLabels.DATELINE_DATE)) {
-                    if (dateline.getDate() != null) {
-                        dateline.setDate(dateline.getDate() + ";\t" + clusterContent);
-                    } else {
-                        dateline.setDate(clusterContent);
-                    }
-                    dateline.addLayoutTokens(cluster.concatTokens());
-                } else if (clusterLabel.equals(MedicalLabels.DATELINE_TIME)) {
-                    if (dateline.getTimeString() != null) {
-                        dateline.setTimeString(dateline.getTimeString() + ";\t" + clusterContent);
-                    } else {
-                        dateline.setTimeString(clusterContent);
-                    }
-                    dateline.addLayoutTokens(cluster.concatTokens());
+                if (CollectionUtils.isNotEmpty(tokens)) {
+                    sequence = featuresDateline(tokens);
                 }
+                tokensList.add(tokens);
+                sequences.add(sequence);
+            }
+
+            // labelling all the featured data with a single call to the model
+            List<String> labelled = SequenceBatchUtilities.labelSequences(sequences, this::label);
+            for (int i = 0; i < inputs.size(); i++) {
+                String res = labelled.get(i);
+                results.add(res == null ? null : extractDateline(res, tokensList.get(i)));
             }
         } catch (Exception e) {
             throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
         }
+        return results;
+    }
+
+    /**
+     * Features of a dateline, with the positions of the lexicon entries
+     */
+    private String featuresDateline(List<LayoutToken> tokens) throws Exception {
+        List<OffsetPosition> placeNamePositions = lexicon.tokenPositionsLocationNames(tokens);
+
+        return FeaturesVectorDateline.addFeaturesDateline(tokens, null,
+            placeNamePositions);
+    }
+
+    /**
+     * Build the Dateline from the labelled sequence
+     */
+    private Dateline extractDateline(String res, List<LayoutToken> tokens) {
+        TaggingTokenClusteror clusteror = new TaggingTokenClusteror(GrobidModels.DATELINE, res, tokens);
+        Dateline dateline = new Dateline();
+
+        List<TaggingTokenCluster> clusters = clusteror.cluster();
+        for (TaggingTokenCluster cluster : clusters) {
+            if (cluster == null) {
+                continue;
+            }
+
+            TaggingLabel clusterLabel = cluster.getTaggingLabel();
+            Engine.getCntManager().i(clusterLabel);
+            String clusterContent = StringUtils.normalizeSpace(LayoutTokensUtil.toText(cluster.concatTokens()));
+            String clusterNonDehypenizedContent = LayoutTokensUtil.toText(cluster.concatTokens());
+            if (clusterContent.trim().length() == 0)
+                continue;
+
+            if (clusterLabel.equals(MedicalLabels.DATELINE_DOCTYPE)) {
+                if (dateline.getDoctype() != null) {
+                    dateline.setDoctype(dateline.getDoctype() + ";\t" + clusterContent);
+                } else {
+                    dateline.setDoctype(clusterContent);
+                }
+                dateline.addLayoutTokens(cluster.concatTokens());
+            } else if (clusterLabel.equals(MedicalLabels.DATELINE_PLACE_NAME)) {
+                if (dateline.getPlaceName() != null) {
+                    dateline.setPlaceName(dateline.getPlaceName() + ";\t" + clusterContent);
+                } else {
+                    dateline.setPlaceName(clusterContent);
+                }
+                dateline.addLayoutTokens(cluster.concatTokens());
+            } else if (clusterLabel.equals(MedicalLabels.DATELINE_NOTE)) {
+                if (dateline.getNote() != null) {
+                    dateline.setNote(dateline.getNote() + " " + clusterContent);
+                } else {
+                    dateline.setNote(clusterContent);
+                }
+                dateline.addLayoutTokens(cluster.concatTokens());
+            } else if (clusterLabel.equals(MedicalLabels.DATELINE_DATE)) {
+                if (dateline.getDate() != null) {
+                    dateline.setDate(dateline.getDate() + ";\t" + clusterContent);
+                } else {
+                    dateline.setDate(clusterContent);
+                }
+                dateline.addLayoutTokens(cluster.concatTokens());
+            } else if (clusterLabel.equals(MedicalLabels.DATELINE_TIME)) {
+                if (dateline.getTimeString() != null) {
+                    dateline.setTimeString(dateline.getTimeString() + ";\t" + clusterContent);
+                } else {
+                    dateline.setTimeString(clusterContent);
+                }
+                dateline.addLayoutTokens(cluster.concatTokens());
+            }
+        }
         return dateline;
     }
 
@@ -199,135 +262,170 @@ public class DatelineParser extends AbstractParser {
      * Extract results from a dateline string in the training format without any string modification.
      */
     public StringBuilder trainingExtraction(List<String> inputs) {
-        StringBuilder buffer = new StringBuilder();
-        try {
-            if (inputs == null)
-                return null;
+        if (inputs == null)
+            return null;
 
-            if (inputs.size() == 0)
-                return null;
+        if (inputs.size() == 0)
+            return null;
 
-            List<OffsetPosition> placeNamePositions = null;
+        List<StringBuilder> results = trainingExtractionBatch(inputs);
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < inputs.size(); i++) {
+            if (inputs.get(i) == null)
+                continue;
+            if (results.get(i) == null)
+                return null;
+            buffer.append(results.get(i));
+        }
+        return buffer;
+    }
 
+    /**
+     * Extract results from a list of dateline strings in the training format without any string modification,
+     * all the strings being labelled with a single call to the model.
+     *
+     * @param inputs list of input data
+     * @return the result of each input, in the order of the inputs (null for an empty input)
+     */
+    public List<StringBuilder> trainingExtractionBatch(List<String> inputs) {
+        List<StringBuilder> results = new ArrayList<>();
+        if (inputs == null)
+            return results;
+        try {
+            List<List<LayoutToken>> tokenizationsList = new ArrayList<>();
+            List<String> featuresList = new ArrayList<>();
             for (String input : inputs) {
-                if (input == null)
-                    continue;
-                List<LayoutToken> tokenizations = analyzer.tokenizeWithLayoutToken(input);
-                if (tokenizations.size() == 0)
-                    return null;
-
-                placeNamePositions = lexicon.tokenPositionsLocationNames(tokenizations);
-
-                String ress = FeaturesVectorDateline.addFeaturesDateline(tokenizations,
-                    null, placeNamePositions);
-                String res = label(ress);
-
-                String lastTag = null;
-                String lastTag0 = null;
-                String currentTag0 = null;
-                boolean start = true;
-                String s1 = null;
-                String s2 = null;
-                int p = 0;
-                boolean addSpace;
-                // extract results from the processed file
-                StringTokenizer st = new StringTokenizer(res, "\n");
-                while (st.hasMoreTokens()) {
-                    addSpace = false;
-                    String tok = st.nextToken().trim();
-                    if (tok.length() == 0) {
-                        // new dateline
-                        start = true;
-                        continue;
-                    }
-                    StringTokenizer stt = new StringTokenizer(tok, "\t");
-                    int i = 0;
-
-                    boolean newLine = false;
-                    int ll = stt.countTokens();
-                    while (stt.hasMoreTokens()) {
-                        String s = stt.nextToken().trim();
-                        if (i == 0) {
-                            s2 = TextUtilities.HTMLEncode(s); // the string
-
-                            boolean strop = false;
-                            while ((!strop) && (p < tokenizations.size())) {
-                                String tokOriginal = tokenizations.get(p).t();
-                                if (tokOriginal.equals(" ")
-                                    || tokOriginal.equals("\u00A0")) {
-                                    addSpace = true;
-                                } else if (tokOriginal.equals(s)) {
-                                    strop = true;
-                                }
-                                p++;
-                            }
-                        } else if (i == ll - 1) {
-                            s1 = s; // the label
-                        }
-                        i++;
-                    }
-                    if (start && (s1 != null)) {
-                        //buffer.append("\t<dateline>");
-                        start = false;
-                    }
-                    // lastTag, lastTag0 (without I-)
-                    if (lastTag != null) {
-                        if (lastTag.startsWith("I-")) {
-                            lastTag0 = lastTag.substring(2, lastTag.length());
-                        } else {
-                            lastTag0 = lastTag;
-                        }
-                    }
-                    // currentTag, currentTag (without I-)
-                    if (s1 != null) {
-                        if (s1.startsWith("I-")) {
-                            currentTag0 = s1.substring(2, s1.length());
-                        } else {
-                            currentTag0 = s1;
-                        }
-                    }
-                    // close tag
-                    if ((lastTag0 != null) && (currentTag0 != null))
-                        testClosingTag(buffer, currentTag0, lastTag0);
+                List<LayoutToken> tokenizations = null;
+                String ress = null;
+                if (input != null) {
+                    tokenizations = analyzer.tokenizeWithLayoutToken(input);
+                }
+                if (tokenizations != null && tokenizations.size() > 0) {
+                    List<OffsetPosition> placeNamePositions = lexicon.tokenPositionsLocationNames(tokenizations);
 
-                    String output = writeField(s1, lastTag0, s2, "<place>", "<placeName>", addSpace, 0);
+                    ress = FeaturesVectorDateline.addFeaturesDateline(tokenizations,
+                        null, placeNamePositions);
+                }
+                tokenizationsList.add(tokenizations);
+                featuresList.add(ress);
+            }
 
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<other>", "", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<date>", "<date>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<time>", "<time>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<doctype>", "<note type=\"doctype\">", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<note>", "<note type=\"date\">", addSpace, 0);
-                    }
+            List<String> labelled = SequenceBatchUtilities.labelSequences(featuresList, this::label);
+            for (int i = 0; i < inputs.size(); i++) {
+                String res = labelled.get(i);
+                results.add(res == null ? null : trainingExtractionResult(res, tokenizationsList.get(i)));
+            }
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        }
+        return results;
+    }
+
+    private StringBuilder trainingExtractionResult(String res, List<LayoutToken> tokenizations) {
+        StringBuilder buffer = new StringBuilder();
 
-                    if (output != null) {
-                        buffer.append(output);
-                        lastTag = s1;
-                        continue;
+        String lastTag = null;
+        String lastTag0 = null;
+        String currentTag0 = null;
+        boolean start = true;
+        String s1 = null;
+        String s2 = null;
+        int p = 0;
+        boolean addSpace;
+        // extract results from the processed file
+        StringTokenizer st = new StringTokenizer(res, "\n");
+        while (st.hasMoreTokens()) {
+            addSpace = false;
+            String tok = st.nextToken().trim();
+            if (tok.length() == 0) {
+                // new dateline
+                start = true;
+                continue;
+            }
+            StringTokenizer stt = new StringTokenizer(tok, "\t");
+            int i = 0;
+
+            boolean newLine = false;
+            int ll = stt.countTokens();
+            while (stt.hasMoreTokens()) {
+                String s = stt.nextToken().trim();
+                if (i == 0) {
+                    s2 = TextUtilities.HTMLEncode(s); // the string
+
+                    boolean strop = false;
+                    while ((!strop) && (p < tokenizations.size())) {
+                        String tokOriginal = tokenizations.get(p).t();
+                        if (tokOriginal.equals(" ")
+                            || tokOriginal.equals("\u00A0")) {
+                            addSpace = true;
+                        } else if (tokOriginal.equals(s)) {
+                            strop = true;
+                        }
+                        p++;
                     }
-                    lastTag = s1;
+                } else if (i == ll - 1) {
+                    s1 = s; // the label
                 }
-                if (lastTag != null) {
-                    if (lastTag.startsWith("I-")) {
-                        lastTag0 = lastTag.substring(2, lastTag.length());
-                    } else {
-                        lastTag0 = lastTag;
-                    }
-                    currentTag0 = "";
-                    testClosingTag(buffer, currentTag0, lastTag0);
-                    //buffer.append("</dateline>\n");
+                i++;
+            }
+            if (start && (s1 != null)) {
+                //buffer.append("\t<dateline>");
+                start = false;
+            }
+            // lastTag, lastTag0 (without I-)
+            if (lastTag != null) {
+                if (lastTag.startsWith("I-")) {
+                    lastTag0 = lastTag.substring(2, lastTag.length());
+                } else {
+                    lastTag0 = lastTag;
                 }
             }
-        } catch (Exception e) {
-            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+            // currentTag, currentTag (without I-)
+            if (s1 != null) {
+                if (s1.startsWith("I-")) {
+                    currentTag0 = s1.substring(2, s1.length());
+                } else {
+                    currentTag0 = s1;
+                }
+            }
+            // close tag
+            if ((lastTag0 != null) && (currentTag0 != null))
+                testClosingTag(buffer, currentTag0, lastTag0);
+
+            String output = writeField(s1, lastTag0, s2, "<place>", "<placeName>", addSpace, 0);
+
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<other>", "", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<date>", "<date>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<time>", "<time>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<doctype>", "<note type=\"doctype\">", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<note>", "<note type=\"date\">", addSpace, 0);
+            }
+
+            if (output != null) {
+                buffer.append(output);
+                lastTag = s1;
+                continue;
+            }
+            lastTag = s1;
+        }
+        if (lastTag != null) {
+            if (lastTag.startsWith("I-")) {
+                lastTag0 = lastTag.substring(2, lastTag.length());
+            } else {
+                lastTag0 = lastTag;
+            }
+            currentTag0 = "";
+            testClosingTag(buffer, currentTag0, lastTag0);
+            //buffer.append("</dateline>\n");
         }
         return buffer;
     }
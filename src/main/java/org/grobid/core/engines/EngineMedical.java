@@ -18,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,7 +28,9 @@ import java.util.List;
  */
 public class EngineMedical extends Engine {
     private static final Logger LOGGER = LoggerFactory.getLogger(EngineMedical.class);
-    private final EngineMedicalParsers parsers = new EngineMedicalParsers();
+    private final EngineMedicalParsers parsers;
+    // true when the parser set belongs to this engine only, and can be closed with it
+    private final boolean ownParsers;
 
     private static CntManager cntManager = CntManagerFactory.getCntManager();
 
@@ -38,6 +41,22 @@ public class EngineMedical extends Engine {
      */
     public EngineMedical(boolean loadModels) {
         super(loadModels);
+        this.parsers = new EngineMedicalParsers();
+        this.ownParsers = true;
+    }
+
+    /**
+     * Constructor for an engine instance working with an existing parser set, typically the set shared by all
+     * the engines of the pool (see {@link EngineMedicalParsers#getSharedInstance()}). The shared parsers are not
+     * closed with the engine.
+     *
+     * @param loadModels
+     * @param parsers
+     */
+    public EngineMedical(boolean loadModels, EngineMedicalParsers parsers) {
+        super(loadModels);
+        this.parsers = parsers;
+        this.ownParsers = false;
     }
 
     public EngineMedicalParsers getParsers() {
@@ -85,6 +104,16 @@ public class EngineMedical extends Engine {
         return result;
     }
 
+    /**
+     * Parse several raw strings containing datelines, with a single call to the dateline model.
+     *
+     * @param datelines - the strings containing raw datelines.
+     * @return the raw result of each string, in the order of the input (null for an empty string).
+     */
+    public List<String> processDatelineAsRawBatch(List<String> datelines) throws Exception {
+        return toStrings(parsers.getDatelineParser().trainingExtractionBatch(trimAll(datelines)));
+    }
+
     /**
      * Parse a raw string containing medics.
      *
@@ -111,6 +140,16 @@ public class EngineMedical extends Engine {
         return result;
     }
 
+    /**
+     * Parse several raw strings containing medics, with a single call to the medic model.
+     *
+     * @param medics - the strings containing raw medics.
+     * @return the raw result of each string, in the order of the input (null for an empty string).
+     */
+    public List<String> processMedicAsRawBatch(List<String> medics) throws Exception {
+        return toStrings(parsers.getMedicParser().trainingExtractionBatch(trimAll(medics)));
+    }
+
     /**
      * Parse a raw string containing patients.
      *
@@ -137,6 +176,16 @@ public class EngineMedical extends Engine {
         return result;
     }
 
+    /**
+     * Parse several raw strings containing patients, with a single call to the patient model.
+     *
+     * @param patients - the strings containing raw patients.
+     * @return the raw result of each string, in the order of the input (null for an empty string).
+     */
+    public List<String> processPatientAsRawBatch(List<String> patients) throws Exception {
+        return toStrings(parsers.getPatientParser().trainingExtractionBatch(trimAll(patients)));
+    }
+
     /**
      * Parse a raw string containing medical terminologies.
      *
@@ -161,6 +210,32 @@ public class EngineMedical extends Engine {
         return result;
     }
 
+    /**
+     * Parse several raw strings containing medical terminologies, with a single call to the NER model.
+     *
+     * @param texts - the strings containing raw text.
+     * @return the raw result of each string, in the order of the input (null for an empty string).
+     */
+    public List<String> processMedicalNERAsRawBatch(List<String> texts) throws Exception {
+        return toStrings(parsers.getFrenchMedicalNERParser().extractNERToStringBatch(texts));
+    }
+
+    private static List<String> trimAll(List<String> inputs) {
+        List<String> trimmed = new ArrayList<>();
+        for (String input : inputs) {
+            trimmed.add(input == null ? null : input.trim());
+        }
+        return trimmed;
+    }
+
+    private static List<String> toStrings(List<StringBuilder> results) {
+        List<String> strings = new ArrayList<>();
+        for (StringBuilder result : results) {
+            strings.add(result == null ? null : result.toString());
+        }
+        return strings;
+    }
+
     /**
      * Apply a CRF header parsing model on PDF file.
      * Parse only first three pages of the PDF file (normally, header part can be found in the first page of the document)
@@ -189,6 +264,26 @@ public class EngineMedical extends Engine {
         return resultTEI.getLeft();
     }
 
+    /**
+     * Apply a CRF header parsing model on the first three pages of a PDF file, without the TEI serialization which
+     * is done by headerToTEI and does not need the models (nor this engine).
+     *
+     * @param inputFile   the path of the PDF file to be processed
+     * @param md5Str      MD5 digest of the processed file
+     * @param result      POJO result, filled with the header items
+     * @return the labelled document
+     */
+    public Document labelHeader(String inputFile, String md5Str, HeaderMedicalItem result) {
+        return parsers.getHeaderMedicalParser().labellingHeader(new File(inputFile), md5Str, result, firstPagesConfig());
+    }
+
+    /**
+     * @return the TEI representation of the header information labelled by labelHeader
+     */
+    public static String headerToTEI(Document doc, HeaderMedicalItem result) {
+        return HeaderMedicalParser.toTEIHeader(doc, result, firstPagesConfig());
+    }
+
     /**
      * Apply a CRF left-note parsing model on PDF file.
      * Parse only first three pages of the PDF file (normally, structure organization information can be found in the first page of the document)
@@ -217,6 +312,26 @@ public class EngineMedical extends Engine {
         return resultTEI.getLeft();
     }
 
+    /**
+     * Apply a CRF left-note parsing model on the first three pages of a PDF file, without the TEI serialization
+     * which is done by leftNoteToTEI and does not need the models (nor this engine).
+     *
+     * @param inputFile   the path of the PDF file to be processed
+     * @param md5Str      MD5 digest of the processed file
+     * @param result      POJO result, filled with the left-note items
+     * @return the labelled document
+     */
+    public Document labelLeftNote(String inputFile, String md5Str, LeftNoteMedicalItem result) {
+        return parsers.getLeftNoteMedicalParser().labellingLeftNote(new File(inputFile), md5Str, result, firstPagesConfig());
+    }
+
+    /**
+     * @return the TEI representation of the left-note information labelled by labelLeftNote
+     */
+    public static String leftNoteToTEI(Document doc, LeftNoteMedicalItem result) {
+        return LeftNoteMedicalParser.toTEILeftNote(doc, result, firstPagesConfig());
+    }
+
     /**
      * Apply a CRF header and left-note parsing models on PDF file.
      * Parse only first three pages of the PDF file (normally, header and left-note information can be found in the first page of the document)
@@ -282,6 +397,39 @@ public class EngineMedical extends Engine {
         return resultTEI.getLeft();
     }
 
+    /**
+     * Apply a CRF French NER model on all the pages of a PDF file, without the TEI serialization which is done by
+     * frenchNERToTEI and does not need the models (nor this engine).
+     *
+     * @param inputFile   the path of the PDF file to be processed
+     * @param md5Str      MD5 digest of the processed file
+     * @return the labelled body (null if the document has no body) and the document
+     */
+    public Pair<String, Document> labelFrenchNER(String inputFile, String md5Str) {
+        return parsers.getFrenchMedicalNERParser().labelling(new File(inputFile), md5Str, allPagesConfig());
+    }
+
+    /**
+     * @return the TEI representation of the medical terms labelled by labelFrenchNER
+     */
+    public static String frenchNERToTEI(Pair<String, Document> labelled) {
+        return FrenchMedicalNERParser.toTEINer(labelled.getRight(), labelled.getLeft(), allPagesConfig());
+    }
+
+    private static GrobidAnalysisConfig firstPagesConfig() {
+        return new GrobidAnalysisConfig.GrobidAnalysisConfigBuilder()
+            .startPage(0)
+            .endPage(2)
+            .build();
+    }
+
+    private static GrobidAnalysisConfig allPagesConfig() {
+        return new GrobidAnalysisConfig.GrobidAnalysisConfigBuilder()
+            .startPage(-1)
+            .endPage(-1)
+            .build();
+    }
+
     /**
      * Generate blank training data from provided directory of PDF documents, i.e. where TEI files are text only
      * without tags. This can be used to start from scratch any new model.
@@ -855,6 +1003,55 @@ public class EngineMedical extends Engine {
         return fullTextToTEIDoc(inputFile, md5Str, config).getTei();
     }
 
+    /**
+     * Parse and convert the current medical document into TEI, the TEI being written section by section to the
+     * given writer, so that the whole TEI of a large document is never in memory.
+     *
+     * @param inputFile - absolute path to the pdf to be processed
+     * @param md5Str    - MD5 digest of the PDF file to be processed
+     * @param config    - Grobid config
+     * @param teiWriter - writer of the resulting TEI
+     */
+    public void fullTextToTEI(File inputFile,
+                              String md5Str,
+                              GrobidAnalysisConfig config,
+                              Writer teiWriter) throws Exception {
+        FullMedicalTextParser fullTextParser = parsers.getFullMedicalTextParser();
+        LOGGER.debug("Starting processing fullTextToTEI on " + inputFile);
+        long time = System.currentTimeMillis();
+        fullTextParser.processing(inputFile, md5Str, config, teiWriter);
+        LOGGER.debug("Ending processing fullTextToTEI on " + inputFile + ". Time to process: "
+            + (System.currentTimeMillis() - time) + "ms");
+    }
+
+    /**
+     * Label the current medical document with the full text models, without the TEI serialization which is done by
+     * fullTextToTEI(LabelledDocument, GrobidAnalysisConfig, Writer) and does not need the models (nor this engine).
+     *
+     * @param inputFile - absolute path to the pdf to be processed
+     * @param md5Str    - MD5 digest of the PDF file to be processed
+     * @param config    - Grobid config
+     * @return the labelled document
+     */
+    public FullMedicalTextParser.LabelledDocument labelFullText(File inputFile,
+                                                               String md5Str,
+                                                               GrobidAnalysisConfig config) throws Exception {
+        return parsers.getFullMedicalTextParser().labelling(inputFile, md5Str, config);
+    }
+
+    /**
+     * Write the TEI of a document labelled by labelFullText section by section to the given writer.
+     *
+     * @param labelled  - the labelled document
+     * @param config    - Grobid config
+     * @param teiWriter - writer of the resulting TEI
+     */
+    public static void fullTextToTEI(FullMedicalTextParser.LabelledDocument labelled,
+                                     GrobidAnalysisConfig config,
+                                     Writer teiWriter) {
+        FullMedicalTextParser.toTEI(labelled, config, teiWriter);
+    }
+
     public Document fullTextToTEIDoc(File inputFile,
                                      String md5Str,
                                      GrobidAnalysisConfig config) throws Exception {
@@ -888,7 +1085,9 @@ public class EngineMedical extends Engine {
     @Override
     public synchronized void close() throws IOException {
         CrossrefClient.getInstance().close();
-        parsers.close();
+        if (ownParsers) {
+            parsers.close();
+        }
     }
 
 
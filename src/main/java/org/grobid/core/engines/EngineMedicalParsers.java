@@ -1,9 +1,19 @@
 package org.grobid.core.engines;
 
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.lexicon.Lexicon;
+import org.grobid.core.lexicon.MedicalNERLexicon;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A list of parser for the grobid-medical-report sub-project
@@ -11,25 +21,53 @@ import java.io.IOException;
 public class EngineMedicalParsers extends EngineParsers {
     public static final Logger LOGGER = LoggerFactory.getLogger(EngineMedicalParsers.class);
 
-    private MedicalReportSegmenterParser medicalReportSegmenterParser = null;
-    private HeaderMedicalParser headerMedicalParser = null;
-    private LeftNoteMedicalParser leftNoteMedicalParser = null;
-    private FullMedicalTextParser fullTextParser = null;
-    private FrenchMedicalNERParser frenchMedicalNERParser = null;
-    private AffiliationAddressParser affiliationAddressParser = null;
-    private DatelineParser datelineParser = null;
-    private AddressParser addressParser = null;
-    private DateParser dateParser = null;
-    private OrganizationParser organizationParser = null;
-    private MedicParser medicParser = null;
-    private PatientParser patientParser = null;
-    private PersonNameParser namePersonParser = null;
-    private NEREnParser nerParser = null;
-    private NERFrParser nerFrParser = null;
+    private volatile MedicalReportSegmenterParser medicalReportSegmenterParser = null;
+    private volatile HeaderMedicalParser headerMedicalParser = null;
+    private volatile LeftNoteMedicalParser leftNoteMedicalParser = null;
+    private volatile FullMedicalTextParser fullTextParser = null;
+    private volatile FrenchMedicalNERParser frenchMedicalNERParser = null;
+    private volatile AffiliationAddressParser affiliationAddressParser = null;
+    private volatile DatelineParser datelineParser = null;
+    private volatile AddressParser addressParser = null;
+    private volatile DateParser dateParser = null;
+    private volatile OrganizationParser organizationParser = null;
+    private volatile MedicParser medicParser = null;
+    private volatile PatientParser patientParser = null;
+    private volatile PersonNameParser namePersonParser = null;
+    private volatile NEREnParser nerParser = null;
+    private volatile NERFrParser nerFrParser = null;
+
+    private static volatile EngineMedicalParsers sharedInstance = null;
+
+    /**
+     * Return the parser set shared by all the engines of the pool. The parsers do not keep any state
+     * between two calls and the models behind them are immutable once loaded, so a single set can be
+     * used concurrently by every engine instead of building one set per engine.
+     */
+    public static EngineMedicalParsers getSharedInstance() {
+        if (sharedInstance == null) {
+            synchronized (EngineMedicalParsers.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new EngineMedicalParsers();
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Close the shared parser set, to be called only once all the engines using it are released.
+     */
+    public static synchronized void closeSharedInstance() throws IOException {
+        if (sharedInstance != null) {
+            sharedInstance.close();
+            sharedInstance = null;
+        }
+    }
 
     public MedicalReportSegmenterParser getMedicalReportSegmenterParser() {
         if (medicalReportSegmenterParser == null) {
-            synchronized (this) {
+            synchronized (MedicalReportSegmenterParser.class) {
                 if (medicalReportSegmenterParser == null) {
                     medicalReportSegmenterParser = new MedicalReportSegmenterParser();
                 }
@@ -40,7 +78,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public HeaderMedicalParser getHeaderMedicalParser() {
         if (headerMedicalParser == null) {
-            synchronized (this) {
+            synchronized (HeaderMedicalParser.class) {
                 if (headerMedicalParser == null) {
                     headerMedicalParser = new HeaderMedicalParser(this);
                 }
@@ -51,7 +89,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public LeftNoteMedicalParser getLeftNoteMedicalParser() {
         if (leftNoteMedicalParser == null) {
-            synchronized (this) {
+            synchronized (LeftNoteMedicalParser.class) {
                 if (leftNoteMedicalParser == null) {
                     leftNoteMedicalParser = new LeftNoteMedicalParser(this);
                 }
@@ -62,7 +100,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public FullMedicalTextParser getFullMedicalTextParser() {
         if (fullTextParser == null) {
-            synchronized (this) {
+            synchronized (FullMedicalTextParser.class) {
                 if (fullTextParser == null) {
                     fullTextParser = new FullMedicalTextParser(this);
                 }
@@ -73,7 +111,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public FrenchMedicalNERParser getFrenchMedicalNERParser() {
         if (frenchMedicalNERParser == null) {
-            synchronized (this) {
+            synchronized (FrenchMedicalNERParser.class) {
                 if (frenchMedicalNERParser == null) {
                     frenchMedicalNERParser = new FrenchMedicalNERParser(this);
                 }
@@ -84,7 +122,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public NEREnParser getNerParser() {
         if (nerParser == null) {
-            synchronized (this) {
+            synchronized (NEREnParser.class) {
                 if (nerParser == null) {
                     nerParser = new NEREnParser();
                 }
@@ -95,7 +133,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public NERFrParser getNerFrParser() {
         if (nerFrParser == null) {
-            synchronized (this) {
+            synchronized (NERFrParser.class) {
                 if (nerFrParser == null) {
                     nerFrParser = new NERFrParser();
                 }
@@ -106,7 +144,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public AffiliationAddressParser getAffiliationAddressParser() {
         if (affiliationAddressParser == null) {
-            synchronized (this) {
+            synchronized (AffiliationAddressParser.class) {
                 if (affiliationAddressParser == null) {
                     affiliationAddressParser = new AffiliationAddressParser();
                 }
@@ -117,7 +155,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public DatelineParser getDatelineParser() {
         if (datelineParser == null) {
-            synchronized (this) {
+            synchronized (DatelineParser.class) {
                 if (datelineParser == null) {
                     datelineParser = new DatelineParser();
                 }
@@ -128,7 +166,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public DateParser getDateParser() {
         if (dateParser == null) {
-            synchronized (this) {
+            synchronized (DateParser.class) {
                 if (dateParser == null) {
                     dateParser = new DateParser();
                 }
@@ -139,7 +177,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public AddressParser getAddressParser() {
         if (addressParser == null) {
-            synchronized (this) {
+            synchronized (AddressParser.class) {
                 if (addressParser == null) {
                     addressParser = new AddressParser();
                 }
@@ -150,7 +188,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public OrganizationParser getOrganizationParser() {
         if (organizationParser == null) {
-            synchronized (this) {
+            synchronized (OrganizationParser.class) {
                 if (organizationParser == null) {
                     organizationParser = new OrganizationParser();
                 }
@@ -160,7 +198,7 @@ public class EngineMedicalParsers extends EngineParsers {
     }
     public MedicParser getMedicParser() {
         if (medicParser == null) {
-            synchronized (this) {
+            synchronized (MedicParser.class) {
                 if (medicParser == null) {
                     medicParser = new MedicParser();
                 }
@@ -171,7 +209,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public PatientParser getPatientParser() {
         if (patientParser == null) {
-            synchronized (this) {
+            synchronized (PatientParser.class) {
                 if (patientParser == null) {
                     patientParser = new PatientParser();
                 }
@@ -182,7 +220,7 @@ public class EngineMedicalParsers extends EngineParsers {
 
     public PersonNameParser getPersonNameParser() {
         if (namePersonParser == null) {
-            synchronized (this) {
+            synchronized (PersonNameParser.class) {
                 if (namePersonParser == null) {
                     namePersonParser = new PersonNameParser();
                 }
@@ -212,6 +250,53 @@ public class EngineMedicalParsers extends EngineParsers {
         nerFrParser = getNerFrParser();
     }
 
+    /**
+     * Init all the parsers and the lexicons in parallel, using at most nbThreads threads. The parsers are
+     * independent from each other, so the loading of their models and of the lexicons can overlap instead of
+     * being done one after the other as in {@link #initAll()}.
+     */
+    public void initAll(int nbThreads) {
+        if (nbThreads <= 1) {
+            Lexicon.getInstance();
+            MedicalNERLexicon.getInstance();
+            initAll();
+            return;
+        }
+
+        List<Callable<Object>> tasks = new ArrayList<>();
+        tasks.add(Lexicon::getInstance);
+        tasks.add(MedicalNERLexicon::getInstance);
+        tasks.add(this::getMedicalReportSegmenterParser);
+        tasks.add(this::getHeaderMedicalParser);
+        tasks.add(this::getLeftNoteMedicalParser);
+        tasks.add(this::getFullMedicalTextParser);
+        tasks.add(this::getFrenchMedicalNERParser);
+        tasks.add(this::getAffiliationAddressParser);
+        tasks.add(this::getDatelineParser);
+        tasks.add(this::getDateParser);
+        tasks.add(this::getAddressParser);
+        tasks.add(this::getOrganizationParser);
+        tasks.add(this::getMedicParser);
+        tasks.add(this::getPatientParser);
+        tasks.add(this::getPersonNameParser);
+        tasks.add(this::getNerParser);
+        tasks.add(this::getNerFrParser);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(nbThreads, tasks.size()));
+        try {
+            for (Future<Object> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrobidException("Interrupted while loading the models", e);
+        } catch (ExecutionException e) {
+            throw new GrobidException("An error occurred while loading the models", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Override
     public void close() throws IOException {
         LOGGER.debug("==> Closing all resources...");
@@ -1,5 +1,6 @@
 package org.grobid.core.engines;
 
+import com.codahale.metrics.Timer;
 import com.googlecode.clearnlp.engine.EngineGetter;
 import com.googlecode.clearnlp.segmentation.AbstractSegmenter;
 import com.googlecode.clearnlp.tokenization.AbstractTokenizer;
@@ -59,6 +60,13 @@ public class FrenchMedicalNERParser extends AbstractParser {
     public Lexicon lexicon = Lexicon.getInstance();
     protected MedicalNERLexicon medicalNERLexicon = MedicalNERLexicon.getInstance();
 
+    // clearNLP sentence segmentation, only used for generating more readable training data
+    private static final String CLEARNLP_DICTIONARY_PATH = "data/clearNLP/dictionary-1.3.1.zip";
+    // maximum number of characters between two aligned tokens of a sentence
+    private static final int TOKEN_ALIGNMENT_WINDOW = 64;
+    private static byte[] clearNLPDictionary = null;
+    private static final ThreadLocal<Map<String, AbstractSegmenter>> segmenters = ThreadLocal.withInitial(HashMap::new);
+
     public FrenchMedicalNERParser() {
         super(GrobidModels.FR_MEDICAL_NER);
     }
@@ -73,20 +81,37 @@ public class FrenchMedicalNERParser extends AbstractParser {
         this.parsers = parsers;
     }
 
+    @Override
+    public String label(String data) {
+        return PipelineMetrics.time(PipelineMetrics.labelling(GrobidModels.FR_MEDICAL_NER), () -> super.label(data));
+    }
+
     /**
      * Processing the French medical terminology model after the application of the medical-report segmentation model
      */
     public Pair<String, Document> processing(File input, String md5Str, GrobidAnalysisConfig config) {
+        Pair<String, Document> labelled = labelling(input, md5Str, config);
+        return new ImmutablePair<String, Document>(
+            toTEINer(labelled.getRight(), labelled.getLeft(), config), labelled.getRight());
+    }
+
+    /**
+     * Labelling of the body with the French medical terminology model after the application of the medical-report
+     * segmentation model, returning the labelled body (null if the document has no body part) and the document. The
+     * TEI is built afterwards with toTEINer, which does not use the models.
+     */
+    public Pair<String, Document> labelling(File input, String md5Str, GrobidAnalysisConfig config) {
         DocumentSource documentSource = null;
         try {
+            Timer.Context pdfaltoTimer = PipelineMetrics.start(PipelineMetrics.PDFALTO);
             documentSource = DocumentSource.fromPdf(input, config.getStartPage(), config.getEndPage());
+            PipelineMetrics.stop(pdfaltoTimer);
             documentSource.setMD5(md5Str);
             // first, parse the document with the segmentation model
             Document doc = parsers.getMedicalReportSegmenterParser().processing(documentSource, config);
 
             // then take only the body part for further process with this method
-            String tei = processingNer(config, doc);
-            return new ImmutablePair<String, Document>(tei, doc);
+            return new ImmutablePair<String, Document>(labellingNer(doc), doc);
         } finally {
             if (documentSource != null) {
                 documentSource.close(true, true, true);
@@ -98,9 +123,14 @@ public class FrenchMedicalNERParser extends AbstractParser {
      * Medical terminology recognition after application of the segmentation model
      */
     public String processingNer(GrobidAnalysisConfig config, Document doc) {
+        return toTEINer(doc, labellingNer(doc), config);
+    }
+
+    /**
+     * Labelled body of a segmented document, with the recognized medical terms, null if the document has no body part
+     */
+    public String labellingNer(Document doc) {
         StringBuilder resBuilder = new StringBuilder();
-        StringBuilder tei = new StringBuilder();
-        TEIFormatter teiFormatter = new TEIFormatter(doc, null);
         try {
             // take only the body part
             SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentPart(MedicalLabels.BODY);
@@ -126,34 +156,72 @@ public class FrenchMedicalNERParser extends AbstractParser {
                     bufferBody.append(token.getText());
                 }
 
-                List<OffsetPosition> locationsPositions = null;
-                List<OffsetPosition> titlesPositions = null;
-                List<OffsetPosition> suffixesPositions = null;
-                List<OffsetPosition> emailPositions = null;
-                List<OffsetPosition> urlPositions = null;
+                // we segment the whole body text once, then read it by lines
+                List<LayoutToken> tokensBody = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(bufferBody.toString());
+                if (tokensBody == null) {
+                    tokensBody = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(bufferBody.toString(), new Language("en", 1.0)); // by default, we tokenize with English language
+                }
 
-                // read the paragraph by lines
-                String[] lines = bufferBody.toString().split("[\\n\\r]");
-                resBuilder.append("\n\t\t");
-                for (String line : lines) {
-                    if ((line != null) && (line.length() > 0)) {
-                        // we segment the text
-                        List<LayoutToken> tokensText = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(line);
+                // build the features of all the lines, each line being a sequence of the batch
+                List<List<LayoutToken>> tokensLines = new ArrayList<>();
+                List<String> featuresLines = new ArrayList<>();
+                int lineStart = 0;
+                for (int i = 0; i <= tokensBody.size(); i++) {
+                    boolean endOfLine = (i == tokensBody.size()) ||
+                        tokensBody.get(i).getText().equals("\n") || tokensBody.get(i).getText().equals("\r");
+                    if (!endOfLine) {
+                        continue;
+                    }
+                    List<LayoutToken> tokensText = tokensBody.subList(lineStart, i);
+                    String featuresNERData = null;
+                    if (tokensText.size() > 0) {
+                        // the gazetteer positions are computed on the tokens of the line, so that no entry spans lines
+                        List<OffsetPosition> locationsPositions = lexicon.tokenPositionsLocationNames(tokensText);
+                        List<OffsetPosition> titlesPositions = lexicon.tokenPositionsPersonTitle(tokensText);
+                        List<OffsetPosition> suffixesPositions = lexicon.tokenPositionsPersonSuffix(tokensText);
+                        List<OffsetPosition> emailPositions = lexicon.tokenPositionsEmailPattern(tokensText);
+                        List<OffsetPosition> urlPositions = lexicon.tokenPositionsUrlPattern(tokensText);
+                        featuresNERData = FeaturesVectorMedicalNER.addFeaturesNER(tokensText, null,
+                            locationsPositions, titlesPositions, suffixesPositions, emailPositions, urlPositions);
+                    }
+                    tokensLines.add(tokensText);
+                    featuresLines.add(featuresNERData);
+                    lineStart = i + 1;
+                }
+                // as with String.split(), the trailing empty lines are not kept
+                while (tokensLines.size() > 1 && tokensLines.get(tokensLines.size() - 1).size() == 0) {
+                    tokensLines.remove(tokensLines.size() - 1);
+                    featuresLines.remove(featuresLines.size() - 1);
+                }
 
-                        if (tokensText == null) {
-                            tokensText = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(line, new Language("en", 1.0)); // by default, we tokenize with English language
+                // label all the lines with a single call to the model
+                List<String> featuresBatch = new ArrayList<>();
+                for (String featuresNERData : featuresLines) {
+                    if (StringUtils.isNotBlank(featuresNERData)) {
+                        featuresBatch.add(featuresNERData);
+                    }
+                }
+                List<String> labeledBatch = null;
+                if (featuresBatch.size() > 0) {
+                    labeledBatch = SequenceBatchUtilities.splitSequences(
+                        label(SequenceBatchUtilities.joinSequences(featuresBatch)), featuresBatch.size());
+                    if (labeledBatch == null) {
+                        // the labeled output is not aligned with the input sequences, we label the lines one by one
+                        LOGGER.warn("Batch labelling of the medical NER lines failed, labelling the lines separately");
+                        labeledBatch = new ArrayList<>();
+                        for (String featuresNERData : featuresBatch) {
+                            labeledBatch.add(label(featuresNERData));
                         }
+                    }
+                }
 
-                        locationsPositions = lexicon.tokenPositionsLocationNames(tokensText);
-                        titlesPositions = lexicon.tokenPositionsPersonTitle(tokensText);
-                        suffixesPositions = lexicon.tokenPositionsPersonSuffix(tokensText);
-                        emailPositions = lexicon.tokenPositionsEmailPattern(tokensText);
-                        urlPositions = lexicon.tokenPositionsUrlPattern(tokensText);
-
-                        String featuresNERData = FeaturesVectorMedicalNER.addFeaturesNER(tokensText, null, locationsPositions, titlesPositions, suffixesPositions,
-                            emailPositions, urlPositions);
-                        String labeledNerData = label(featuresNERData);
-                        StringBuilder bufferNer = trainingExtractionWithoutEnamex(labeledNerData, tokensText);
+                resBuilder.append("\n\t\t");
+                int batchIndex = 0;
+                for (int i = 0; i < tokensLines.size(); i++) {
+                    String featuresNERData = featuresLines.get(i);
+                    if (StringUtils.isNotBlank(featuresNERData)) {
+                        String labeledNerData = labeledBatch.get(batchIndex++);
+                        StringBuilder bufferNer = trainingExtractionWithoutEnamex(labeledNerData, tokensLines.get(i));
 
                         if (bufferNer != null) {
                             resBuilder.append(bufferNer);
@@ -161,13 +229,31 @@ public class FrenchMedicalNERParser extends AbstractParser {
                     }
                     resBuilder.append("\n\t\t");
                 }
-                tei = teiFormatter.toTEIFrenchNER(resBuilder.toString(), null, config);
-                tei.append("</TEI>\n");
+                return resBuilder.toString();
             }
         } catch (Exception e) {
             throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
         }
-        return tei.toString();
+        return null;
+    }
+
+    /**
+     * TEI of the labelled body of a document, empty if the document has no body part
+     */
+    public static String toTEINer(Document doc, String labelledBody, GrobidAnalysisConfig config) {
+        if (labelledBody == null) {
+            return "";
+        }
+        try {
+            TEIFormatter teiFormatter = new TEIFormatter(doc, null);
+            Timer.Context teiTimer = PipelineMetrics.start(PipelineMetrics.TEI);
+            StringBuilder tei = teiFormatter.toTEIFrenchNER(labelledBody, null, config);
+            PipelineMetrics.stop(teiTimer);
+            tei.append("</TEI>\n");
+            return tei.toString();
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        }
     }
 
     /**
@@ -217,7 +303,9 @@ public class FrenchMedicalNERParser extends AbstractParser {
 
         // if we use the model built on the French APHP Corpus
         //List<MedicalEntity> entities = resultExtraction(GrobidModels.FR_MEDICAL_NER, result, tokens);
+        Timer.Context extractionTimer = PipelineMetrics.start(PipelineMetrics.RESULT_EXTRACTION);
         List<MedicalEntity> entities = resultExtraction(result, tokens);
+        PipelineMetrics.stop(extractionTimer);
 
         return entities;
     }
@@ -270,6 +358,48 @@ public class FrenchMedicalNERParser extends AbstractParser {
         return entities;
     }
 
+    /**
+     * Extract all occurrences of named entity from several pieces of text, all the texts being labelled with a
+     * single call to the model.
+     *
+     * @return the result of each text, in the order of the texts (null for an empty text)
+     */
+    public List<StringBuilder> extractNERToStringBatch(List<String> texts) throws Exception {
+        List<StringBuilder> results = new ArrayList<>();
+        if (texts == null)
+            return results;
+
+        List<List<LayoutToken>> tokensList = new ArrayList<>();
+        List<String> featuresList = new ArrayList<>();
+        for (String text : texts) {
+            List<LayoutToken> tokens = null;
+            String featuresNERData = null;
+            if (StringUtils.isNotEmpty(text)) {
+                // for the analyser is English to avoid any bad surprises
+                tokens = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(text, new Language(Language.EN, 1.0));
+            }
+            if (tokens != null && tokens.size() > 0) {
+                List<OffsetPosition> locationsPositions = lexicon.tokenPositionsLocationNames(tokens);
+                List<OffsetPosition> titlesPositions = lexicon.tokenPositionsPersonTitle(tokens);
+                List<OffsetPosition> suffixesPositions = lexicon.tokenPositionsPersonSuffix(tokens);
+                List<OffsetPosition> emailPositions = lexicon.tokenPositionsEmailPattern(tokens);
+                List<OffsetPosition> urlPositions = lexicon.tokenPositionsUrlPattern(tokens);
+
+                featuresNERData = FeaturesVectorMedicalNER.addFeaturesNER(tokens, null, locationsPositions, titlesPositions,
+                    suffixesPositions, emailPositions, urlPositions);
+            }
+            tokensList.add(tokens);
+            featuresList.add(featuresNERData);
+        }
+
+        List<String> labelled = SequenceBatchUtilities.labelSequences(featuresList, this::label);
+        for (int i = 0; i < texts.size(); i++) {
+            String result = labelled.get(i);
+            results.add(result == null ? null : trainingExtractionWithoutEnamex(result, tokensList.get(i)));
+        }
+        return results;
+    }
+
     /**
      * Return the NER with features to be processed by the sequence labelling model
      */
@@ -496,37 +626,16 @@ public class FrenchMedicalNERParser extends AbstractParser {
                         features.cityName = true;
                     }
 
-                    if (featureFactoryMedical.test_anatomies(text)) {
-                        features.anatomy = true;
-                    }
-
-                    if (featureFactoryMedical.test_drugs_chemicals(text)) {
-                        features.chemical = true;
-                    }
-
-                    if (featureFactoryMedical.test_devices(text) || featureFactoryMedical.test_objects(text)) {
-                        features.device = true;
-                    }
-
-                    if (featureFactoryMedical.test_disorders(text)) {
-                        features.disorder = true;
-                    }
-
-                    if (featureFactoryMedical.test_living_beings(text)) {
-                        features.livingBeing = true;
-                    }
-
-                    if (featureFactoryMedical.test_phenomena(text)) {
-                        features.phenomena = true;
-                    }
-
-                    if (featureFactoryMedical.test_physiology(text)) {
-                        features.physiology = true;
-                    }
-
-                    if (featureFactoryMedical.test_procedures(text)) {
-                        features.procedure = true;
-                    }
+                    // one look-up for all the categories of the medical lexicon
+                    int medicalCategories = featureFactoryMedical.medicalCategories(text);
+                    features.anatomy = (medicalCategories & MedicalNERLexicon.ANATOMY) != 0;
+                    features.chemical = (medicalCategories & MedicalNERLexicon.CHEMICAL_DRUG) != 0;
+                    features.device = (medicalCategories & (MedicalNERLexicon.DEVICE | MedicalNERLexicon.OBJECT)) != 0;
+                    features.disorder = (medicalCategories & MedicalNERLexicon.DISORDER) != 0;
+                    features.livingBeing = (medicalCategories & MedicalNERLexicon.LIVING_BEING) != 0;
+                    features.phenomena = (medicalCategories & MedicalNERLexicon.PHENOMENA) != 0;
+                    features.physiology = (medicalCategories & MedicalNERLexicon.PHYSIOLOGY) != 0;
+                    features.procedure = (medicalCategories & MedicalNERLexicon.PROCEDURE) != 0;
 
                     features.wordShape = TextUtilities.wordShape(text);
 
@@ -534,14 +643,14 @@ public class FrenchMedicalNERParser extends AbstractParser {
 
 
                     if (previousFeatures != null)
-                        nerFeatures.append(previousFeatures.printVector());
+                        previousFeatures.printVector(nerFeatures);
                     previousFeatures = features;
 
                     n++;
                 }
 
                 if (previousFeatures != null) {
-                    nerFeatures.append(previousFeatures.printVector());
+                    previousFeatures.printVector(nerFeatures);
                     previousFeatures = null;
                 }
             }
@@ -949,17 +1058,9 @@ public class FrenchMedicalNERParser extends AbstractParser {
     }
 
     public static List<Sentence> sentenceSegmentation(String text, String language) throws FileNotFoundException {
-        // this is only outputed for readability
-        String dictionaryFile = "data/clearNLP/dictionary-1.3.1.zip";
-        File tmpDir = new File("data/clearNLP/dictionary-1.3.1.zip");
-        boolean exists = tmpDir.exists();
-        AbstractTokenizer tokenizer = EngineGetter.getTokenizer(language, new FileInputStream(dictionaryFile));
-        AbstractSegmenter segmenter = EngineGetter.getSegmenter(language, tokenizer);
-        // convert String into InputStream
-        InputStream is = new ByteArrayInputStream(text.getBytes());
-        // read it with BufferedReader
-        BufferedReader br = new BufferedReader(new InputStreamReader(is));
-        List<List<String>> sentences = segmenter.getSentences(br);
+        // the segmenter reads the text directly, without encoding it to bytes with the platform charset
+        BufferedReader br = new BufferedReader(new StringReader(text));
+        List<List<String>> sentences = getSegmenter(language).getSentences(br);
         List<Sentence> results = new ArrayList<Sentence>();
 
         if ((sentences == null) || (sentences.size() == 0)) {
@@ -975,29 +1076,86 @@ public class FrenchMedicalNERParser extends AbstractParser {
         }
 
         // we need to realign with the original sentences, so we have to match it from the text
-        // to be parsed based on the tokenization
+        // to be parsed based on the tokenization, in a single pass over the text
         int offSetSentence = 0;
-        //List<List<String>> trueSentences = new ArrayList<List<String>>();
+        OffsetPosition pos = null;
         for (List<String> theSentence : sentences) {
             int next = offSetSentence;
             for (String token : theSentence) {
-                next = text.indexOf(token, next);
-                next = next + token.length();
+                next = alignToken(text, token, next);
             }
 
             Sentence sentence = new Sentence();
-            OffsetPosition pos = new OffsetPosition();
+            pos = new OffsetPosition();
             pos.start = offSetSentence;
             pos.end = next;
             sentence.setOffsets(pos);
             results.add(sentence);
             offSetSentence = next;
         }
+        // the text after the last aligned token belongs to the last sentence
+        if (offSetSentence < text.length() && text.substring(offSetSentence).trim().length() > 0) {
+            pos.end = text.length();
+        }
         return results;
     }
 
     /**
-     * Process the specified pdf and format the result as training data for all the models.
+     * Return the offset following the given token in the text, searching it from the given offset, first in the next
+     * characters of the text, then in the rest of the text as the former indexOf alignment did. The tokens normalized
+     * by the tokenizer (quotes, brackets...) are not found in the text: they are skipped and the offset is unchanged.
+     */
+    private static int alignToken(String text, String token, int from) {
+        int limit = Math.min(text.length() - token.length(), from + TOKEN_ALIGNMENT_WINDOW);
+        for (int start = from; start <= limit; start++) {
+            if (text.regionMatches(start, token, 0, token.length())) {
+                return start + token.length();
+            }
+        }
+        if (limit < text.length() - token.length()) {
+            int start = text.indexOf(token, limit + 1);
+            if (start != -1) {
+                return start + token.length();
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Return the sentence segmenter of the current thread for the language. The clearNLP tokenizers and segmenters
+     * are not thread-safe, so they are built once per thread, from the dictionary read once for all the threads.
+     */
+    private static AbstractSegmenter getSegmenter(String language) throws FileNotFoundException {
+        Map<String, AbstractSegmenter> threadSegmenters = segmenters.get();
+        AbstractSegmenter segmenter = threadSegmenters.get(language);
+        if (segmenter == null) {
+            AbstractTokenizer tokenizer = EngineGetter.getTokenizer(language,
+                new ByteArrayInputStream(getClearNLPDictionary()));
+            segmenter = EngineGetter.getSegmenter(language, tokenizer);
+            threadSegmenters.put(language, segmenter);
+        }
+        return segmenter;
+    }
+
+    private static synchronized byte[] getClearNLPDictionary() throws FileNotFoundException {
+        if (clearNLPDictionary == null) {
+            File dictionaryFile = new File(CLEARNLP_DICTIONARY_PATH);
+            if (!dictionaryFile.exists()) {
+                throw new FileNotFoundException("The clearNLP dictionary " + dictionaryFile.getAbsolutePath() +
+                    " does not exist");
+            }
+            try {
+                clearNLPDictionary = Files.readAllBytes(dictionaryFile.toPath());
+            } catch (IOException e) {
+                throw new GrobidResourceException("Cannot read the clearNLP dictionary " +
+                    dictionaryFile.getAbsolutePath(), e);
+            }
+        }
+        return clearNLPDictionary;
+    }
+
+    /**
+     * Process the specified pdf and format the result as training data for the French medical NER model.
      *
      * @param inputFile  input file
      * @param pathOutput path for result
@@ -1008,18 +1166,11 @@ public class FrenchMedicalNERParser extends AbstractParser {
                                           int id) {
         DocumentSource documentSource = null;
         Document doc = null;
-        StringBuilder result = new StringBuilder();
-        String lang = Language.FR; // by default, it's French
         try {
             if (!inputFile.exists()) {
                 throw new GrobidResourceException("Cannot train for full-medical-text, because the file '" +
                     inputFile.getAbsolutePath() + "' does not exists.");
             }
-            String pdfFileName = inputFile.getName();
-            Writer writer = null;
-
-            // path for the output
-            File outputTEIFile = new File(pathOutput + File.separator + pdfFileName.replace(".pdf", ".training.french.medical.ner.tei.xml"));
 
             documentSource = DocumentSource.fromPdf(inputFile, -1, -1, true, true, true);
             doc = new Document(documentSource);
@@ -1028,100 +1179,118 @@ public class FrenchMedicalNERParser extends AbstractParser {
             if (doc.getBlocks() == null) {
                 throw new Exception("PDF parsing resulted in empty content");
             }
-            doc.produceStatistics();
 
             // first, call the medical-report-segmenter model to have high level segmentation
-            doc = parsers.getMedicalReportSegmenterParser().processing(documentSource, GrobidAnalysisConfig.defaultInstance());
-
-            // in this case, we only take the body part for further process with the French medical NER model
-            SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentPart(MedicalLabels.BODY);
-            List<LayoutToken> tokenizations = doc.getTokenizations();
+            doc = parsers.getMedicalReportSegmenterParser().prepareDocument(doc);
 
-            if (documentBodyParts != null) {
-                List<LayoutToken> tokenizationsBody = new ArrayList<LayoutToken>();
-
-                for (DocumentPiece docPiece : documentBodyParts) {
-                    DocumentPointer dp1 = docPiece.getLeft();
-                    DocumentPointer dp2 = docPiece.getRight();
+            createTrainingFromDocument(doc, inputFile.getName(), pathOutput);
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running grobid-medical-report training" +
+                " data generation for full text.", e);
+        } finally {
+            DocumentSource.close(documentSource, true, true, true);
+        }
 
-                    int tokens = dp1.getTokenDocPos();
-                    int tokene = dp2.getTokenDocPos();
-                    for (int i = tokens; i < tokene; i++) {
-                        tokenizationsBody.add(tokenizations.get(i));
-                    }
-                }
+        return doc;
+    }
 
-                StringBuilder bufferBody = new StringBuilder();
+    /**
+     * Format the body of a document already segmented as training data for the French medical NER model, so that
+     * the training data of all the models can be generated from a single parsing of the pdf.
+     *
+     * @param doc         document segmented by the medical-report-segmenter model
+     * @param pdfFileName name of the pdf file of the document
+     * @param pathOutput  path for result
+     */
+    public void createTrainingFromDocument(Document doc,
+                                           String pdfFileName,
+                                           String pathOutput) throws Exception {
+        String lang = Language.FR; // by default, it's French
+        Writer writer = null;
 
-                for (LayoutToken token : tokenizationsBody) {
-                    bufferBody.append(token.getText());
-                }
+        // path for the output
+        File outputTEIFile = new File(pathOutput + File.separator + pdfFileName.replace(".pdf", ".training.french.medical.ner.tei.xml"));
 
-                // also write the raw text (it's needed for further process, for example, with DeLFT)
-                // path for the output
-                String outPathRawtext = pathOutput + File.separator +
-                    pdfFileName.replace(".pdf", ".training.french.medical.ner.rawtext.txt");
-                FileUtils.writeStringToFile(new File(outPathRawtext), bufferBody.toString(), "UTF-8");
+        // in this case, we only take the body part for further process with the French medical NER model
+        SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentPart(MedicalLabels.BODY);
+        List<LayoutToken> tokenizations = doc.getTokenizations();
 
-                // write the TEI file to reflect the extract layout of the text as extracted from the pdf
-                writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
-                writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<corpus>\n\t<subcorpus>\n");
-                writer.write("\t\t<document name=\"" + pdfFileName.replace(" ", "_") + "\"" + " xml:lang=\"" + lang + "\">\n");
-                /*writer.write(bufferBody.toString() + "\n");*/
+        if (documentBodyParts != null) {
+            List<LayoutToken> tokenizationsBody = new ArrayList<LayoutToken>();
 
-                // create training data by calling the grobid-ner models
-                //createTrainingUsingGrobidNer(bufferBody.toString(), result, lang);
+            for (DocumentPiece docPiece : documentBodyParts) {
+                DocumentPointer dp1 = docPiece.getLeft();
+                DocumentPointer dp2 = docPiece.getRight();
 
-                List<OffsetPosition> locationsPositions = null;
-                List<OffsetPosition> titlesPositions = null;
-                List<OffsetPosition> suffixesPositions = null;
-                List<OffsetPosition> emailPositions = null;
-                List<OffsetPosition> urlPositions = null;
-
-                // read the paragraph by lines
-                String[] lines = bufferBody.toString().split("[\\n\\r]");
-                int p = 1;
-                for (String line : lines) {
-                    if ((line != null) && (line.length() > 0)) {
-                        // we segment the text
-                        List<LayoutToken> tokensText = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(line);
+                int tokens = dp1.getTokenDocPos();
+                int tokene = dp2.getTokenDocPos();
+                for (int i = tokens; i < tokene; i++) {
+                    tokenizationsBody.add(tokenizations.get(i));
+                }
+            }
 
-                        if (tokensText == null) {
-                            tokensText = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(line, new Language("en", 1.0)); // by default, we tokenize with English language
-                        }
+            StringBuilder bufferBody = new StringBuilder();
 
-                        locationsPositions = lexicon.tokenPositionsLocationNames(tokensText);
-                        titlesPositions = lexicon.tokenPositionsPersonTitle(tokensText);
-                        suffixesPositions = lexicon.tokenPositionsPersonSuffix(tokensText);
-                        emailPositions = lexicon.tokenPositionsEmailPattern(tokensText);
-                        urlPositions = lexicon.tokenPositionsUrlPattern(tokensText);
+            for (LayoutToken token : tokenizationsBody) {
+                bufferBody.append(token.getText());
+            }
 
-                        String featuresNERData = FeaturesVectorMedicalNER.addFeaturesNER(tokensText, null, locationsPositions, titlesPositions, suffixesPositions,
-                            emailPositions, urlPositions);
-                        String labeledNerData = label(featuresNERData);
-                        String bufferNer = trainingExtraction(labeledNerData, tokensText).toString();
+            // also write the raw text (it's needed for further process, for example, with DeLFT)
+            // path for the output
+            String outPathRawtext = pathOutput + File.separator +
+                pdfFileName.replace(".pdf", ".training.french.medical.ner.rawtext.txt");
+            FileUtils.writeStringToFile(new File(outPathRawtext), bufferBody.toString(), "UTF-8");
+
+            // write the TEI file to reflect the extract layout of the text as extracted from the pdf
+            writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<corpus>\n\t<subcorpus>\n");
+            writer.write("\t\t<document name=\"" + pdfFileName.replace(" ", "_") + "\"" + " xml:lang=\"" + lang + "\">\n");
+            /*writer.write(bufferBody.toString() + "\n");*/
+
+            // create training data by calling the grobid-ner models
+            //createTrainingUsingGrobidNer(bufferBody.toString(), result, lang);
+
+            List<OffsetPosition> locationsPositions = null;
+            List<OffsetPosition> titlesPositions = null;
+            List<OffsetPosition> suffixesPositions = null;
+            List<OffsetPosition> emailPositions = null;
+            List<OffsetPosition> urlPositions = null;
+
+            // read the paragraph by lines
+            String[] lines = bufferBody.toString().split("[\\n\\r]");
+            int p = 1;
+            for (String line : lines) {
+                if ((line != null) && (line.length() > 0)) {
+                    // we segment the text
+                    List<LayoutToken> tokensText = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(line);
+
+                    if (tokensText == null) {
+                        tokensText = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(line, new Language("en", 1.0)); // by default, we tokenize with English language
+                    }
 
-                        if ((bufferNer != null) && (bufferNer.length() > 0)) {
-                            writer.write("\t\t\t<p " + "xml:id=\"p" + p + "\">");
-                            writer.write(bufferNer);
-                            writer.write("</p>\n");
-                            p++;
-                        }
+                    locationsPositions = lexicon.tokenPositionsLocationNames(tokensText);
+                    titlesPositions = lexicon.tokenPositionsPersonTitle(tokensText);
+                    suffixesPositions = lexicon.tokenPositionsPersonSuffix(tokensText);
+                    emailPositions = lexicon.tokenPositionsEmailPattern(tokensText);
+                    urlPositions = lexicon.tokenPositionsUrlPattern(tokensText);
+
+                    String featuresNERData = FeaturesVectorMedicalNER.addFeaturesNER(tokensText, null, locationsPositions, titlesPositions, suffixesPositions,
+                        emailPositions, urlPositions);
+                    String labeledNerData = label(featuresNERData);
+                    String bufferNer = trainingExtraction(labeledNerData, tokensText).toString();
+
+                    if ((bufferNer != null) && (bufferNer.length() > 0)) {
+                        writer.write("\t\t\t<p " + "xml:id=\"p" + p + "\">");
+                        writer.write(bufferNer);
+                        writer.write("</p>\n");
+                        p++;
                     }
                 }
-                writer.write("\n\t\t</document>\n");
-                writer.write("\t</subcorpus>\n</corpus>\n");
-                writer.close();
             }
-
-        } catch (Exception e) {
-            throw new GrobidException("An exception occurred while running grobid-medical-report training" +
-                " data generation for full text.", e);
-        } finally {
-            DocumentSource.close(documentSource, true, true, true);
+            writer.write("\n\t\t</document>\n");
+            writer.write("\t</subcorpus>\n</corpus>\n");
+            writer.close();
         }
-
-        return doc;
     }
 
     /**
@@ -1154,22 +1323,7 @@ public class FrenchMedicalNERParser extends AbstractParser {
             }
 
             // treat the anonymized data first
-            List<String> dataOriginal = new ArrayList<>();
-            List<String> dataAnonymized = new ArrayList<>();
-
-            for (int i = 0; i < dataAnonym.size(); i++) {
-                List<String> dataAnonymSplit = Arrays.asList(dataAnonym.get(i).split("\t"));
-                if (dataAnonymSplit.get(0) != null) {
-                    dataOriginal.add(dataAnonymSplit.get(0));
-                } else {
-                    dataOriginal.add("");
-                }
-                if (dataAnonymSplit.get(1) != null) {
-                    dataAnonymized.add(dataAnonymSplit.get(1));
-                } else {
-                    dataAnonymized.add("");
-                }
-            }
+            PseudonymMap pseudonyms = PseudonymMap.fromPairs(dataAnonym);
 
             Writer writer = null;
 
@@ -1186,7 +1340,7 @@ public class FrenchMedicalNERParser extends AbstractParser {
             doc.produceStatistics();
 
             // first, call the medical-report-segmenter model to have high level segmentation
-            doc = parsers.getMedicalReportSegmenterParser().processing(documentSource, GrobidAnalysisConfig.defaultInstance());
+            doc = parsers.getMedicalReportSegmenterParser().prepareDocument(doc);
 
             // in this case, we only take the body part for further process with the French medical NER model
             SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentPart(MedicalLabels.BODY);
@@ -1216,10 +1370,7 @@ public class FrenchMedicalNERParser extends AbstractParser {
                 StringBuffer rawtxt = new StringBuffer();
                 for (LayoutToken txtline : tokenizationsBody) {
                     String text = txtline.getText();
-                    int idx = dataOriginal.indexOf(text);
-                    if (idx >= 0) {
-                        text = dataAnonymized.get(idx).trim();
-                    }
+                    text = pseudonyms.replace(text);
                     rawtxt.append(text);
                 }
 
@@ -1260,7 +1411,7 @@ public class FrenchMedicalNERParser extends AbstractParser {
                         String featuresNERData = FeaturesVectorMedicalNER.addFeaturesNER(tokensText, null, locationsPositions, titlesPositions, suffixesPositions,
                             emailPositions, urlPositions);
                         String labeledNerData = label(featuresNERData);
-                        String bufferNer = trainingExtractionAnonym(labeledNerData, tokensText, dataOriginal, dataAnonymized).toString();
+                        String bufferNer = trainingExtractionAnonym(labeledNerData, tokensText, pseudonyms).toString();
 
                         if ((bufferNer != null) && (bufferNer.length() > 0)) {
                             writer.write("\t\t\t<p " + "xml:id=\"p" + p + "\">");
@@ -1324,7 +1475,7 @@ public class FrenchMedicalNERParser extends AbstractParser {
             List<LayoutToken> tokenizations = doc.getTokenizations();
 
             // first, call the medical-report-segmenter model to have high level segmentation
-            doc = parsers.getMedicalReportSegmenterParser().processing(documentSource, GrobidAnalysisConfig.defaultInstance());
+            doc = parsers.getMedicalReportSegmenterParser().prepareDocument(doc);
 
             // // in this case, we only take the body part
             SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentPart(MedicalLabels.BODY);
@@ -1809,8 +1960,7 @@ public class FrenchMedicalNERParser extends AbstractParser {
      */
     public StringBuilder trainingExtractionAnonym(String result,
                                                   List<LayoutToken> tokenizations,
-                                                  List<String> dataOriginal,
-                                                  List<String> dataAnonymized) {
+                                                  PseudonymMap pseudonyms) {
         // this is the main buffer for the whole header
         StringBuilder buffer = new StringBuilder();
 
@@ -1837,10 +1987,7 @@ public class FrenchMedicalNERParser extends AbstractParser {
                 String s = stt.nextToken().trim();
                 if (i == 0) {
                     // anonymize the token
-                    int idx = dataOriginal.indexOf(s);
-                    if (idx >= 0) {
-                        s = dataAnonymized.get(idx).trim();
-                    }
+                    s = pseudonyms.replace(s);
 
                     s2 = TextUtilities.HTMLEncode(s); // lexical token
                     int p0 = p;
@@ -1,5 +1,6 @@
 package org.grobid.core.engines;
 
+import com.codahale.metrics.Timer;
 import com.google.common.collect.Iterables;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.FileUtils;
@@ -33,6 +34,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -60,6 +62,9 @@ public class FullMedicalTextParser extends AbstractParser {
     // projection scale for line length
     private static final int LINESCALE = 10;
 
+    // executor of the labelling stages run in parallel, null when the stages are run sequentially
+    private static volatile ExecutorService stageExecutor = null;
+
     protected EngineMedicalParsers parsers;
 
     private Lexicon lexicon = Lexicon.getInstance();
@@ -78,22 +83,53 @@ public class FullMedicalTextParser extends AbstractParser {
         this.parsers = parsers;
     }
 
+    @Override
+    public String label(String data) {
+        return PipelineMetrics.time(PipelineMetrics.labelling(GrobidModels.FULL_MEDICAL_TEXT), () -> super.label(data));
+    }
+
     public Document processing(File inputPdf,
                                GrobidAnalysisConfig config) throws Exception {
+        Timer.Context pdfaltoTimer = PipelineMetrics.start(PipelineMetrics.PDFALTO);
         DocumentSource documentSource =
             DocumentSource.fromPdf(inputPdf, config.getStartPage(), config.getEndPage(),
                 config.getPdfAssetPath() != null, true, false);
+        PipelineMetrics.stop(pdfaltoTimer);
         return processing(documentSource, config);
     }
 
     public Document processing(File inputPdf,
                                String md5Str,
                                GrobidAnalysisConfig config) throws Exception {
+        return processing(inputPdf, md5Str, config, null);
+    }
+
+    /**
+     * Machine-learning recognition of the complete full text structures, the TEI being written section by section
+     * to the given writer instead of being kept in the document, so that the whole TEI of a large document is never
+     * in memory. With a null writer, the TEI is kept in the document.
+     */
+    public Document processing(File inputPdf,
+                               String md5Str,
+                               GrobidAnalysisConfig config,
+                               Writer teiWriter) throws Exception {
+        return toTEI(labelling(inputPdf, md5Str, config), config, teiWriter);
+    }
+
+    /**
+     * Machine-learning recognition of the complete full text structures, without the TEI serialization, which is
+     * done by {@link #toTEI(LabelledDocument, GrobidAnalysisConfig, Writer)} and does not use the models.
+     */
+    public LabelledDocument labelling(File inputPdf,
+                                      String md5Str,
+                                      GrobidAnalysisConfig config) throws Exception {
+        Timer.Context pdfaltoTimer = PipelineMetrics.start(PipelineMetrics.PDFALTO);
         DocumentSource documentSource =
             DocumentSource.fromPdf(inputPdf, config.getStartPage(), config.getEndPage(),
                 config.getPdfAssetPath() != null, true, false);
+        PipelineMetrics.stop(pdfaltoTimer);
         documentSource.setMD5(md5Str);
-        return processing(documentSource, config);
+        return labelling(documentSource, config);
     }
 
     /**
@@ -105,23 +141,94 @@ public class FullMedicalTextParser extends AbstractParser {
      */
     public Document processing(DocumentSource documentSource,
                                GrobidAnalysisConfig config) {
+        return processing(documentSource, config, null);
+    }
+
+    /**
+     * Machine-learning recognition of the complete full text structures.
+     *
+     * @param documentSource input
+     * @param config         config
+     * @param teiWriter      writer of the TEI, null to keep the TEI in the document
+     * @return the document object, with built TEI if teiWriter is null
+     */
+    public Document processing(DocumentSource documentSource,
+                               GrobidAnalysisConfig config,
+                               Writer teiWriter) {
+        return toTEI(labelling(documentSource, config), config, teiWriter);
+    }
+
+    /**
+     * The labelled structures of a document (header, left-note, body, figures, tables, annexes and
+     * acknowledgement), before their TEI serialization.
+     */
+    public static class LabelledDocument {
+        private final Document doc;
+        private String resultBody = null;
+        private String resultAnnex = null;
+        private String resultAcknowledgement = null;
+        private boolean acknowledgement = false;
+        private LayoutTokenization layoutTokenization = null;
+        private List<LayoutToken> tokenizationsAnnex = null;
+        private List<LayoutToken> tokenizationsAcknowledgement = null;
+        private final HeaderMedicalItem resHeader = new HeaderMedicalItem();
+        private final LeftNoteMedicalItem resLeftNote = new LeftNoteMedicalItem();
+        private final StringBuilder strLeftNote = new StringBuilder();
+        private List<Figure> figures = null;
+        private List<Table> tables = null;
+        private List<MarkerType> markerTypes = null;
+
+        private LabelledDocument(Document doc) {
+            this.doc = doc;
+        }
+
+        public Document getDocument() {
+            return doc;
+        }
+    }
+
+    /**
+     * Machine-learning recognition of the complete full text structures, without the TEI serialization.
+     *
+     * @param documentSource input
+     * @param config         config
+     * @return the labelled document, to be serialized with {@link #toTEI(LabelledDocument, GrobidAnalysisConfig, Writer)}
+     */
+    public LabelledDocument labelling(DocumentSource documentSource,
+                                      GrobidAnalysisConfig config) {
         try {
             // general segmentation
             Document doc = parsers.getMedicalReportSegmenterParser().processing(documentSource, config);
             SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentPart(MedicalLabels.BODY);
+            LabelledDocument labelled = new LabelledDocument(doc);
 
             // header processing
-            HeaderMedicalItem resHeader = new HeaderMedicalItem();
+            HeaderMedicalItem resHeader = labelled.resHeader;
 
             // left-note processing
-            LeftNoteMedicalItem resLeftNote = new LeftNoteMedicalItem();
+            LeftNoteMedicalItem resLeftNote = labelled.resLeftNote;
 
             Pair<String, LayoutTokenization> featSeg = null;
 
-            StringBuilder strLeftNote = new StringBuilder();
+            // once the document is segmented, the header and left-note, the body (with the figures and tables) and
+            // the annexes are labelled independently, and in parallel if enabled (see setParallelStages)
 
             // using the segmentation model to identify the header and left-note zones
-            parsers.getHeaderMedicalParser().processingHeaderLeftNoteSection(config, doc, resHeader, resLeftNote, false);
+            Future<Void> headerStage = submitStage(() -> {
+                parsers.getHeaderMedicalParser().processingHeaderLeftNoteSection(config, doc, resHeader, resLeftNote, false);
+                return null;
+            });
+
+            // possible annexes (view as a piece of full text similar to the body)
+            Future<Pair<String, List<LayoutToken>>> annexStage = submitStage(() -> {
+                Pair<String, LayoutTokenization> featAnnex = getBodyTextFeatured(doc, doc.getDocumentPart(MedicalLabels.ANNEX));
+                if (featAnnex != null && isNotEmpty(trim(featAnnex.getLeft()))) {
+                    // if featAnnex is null, it usually means that no annex segment is found in the
+                    // document segmentation
+                    return Pair.of(label(featAnnex.getLeft()), featAnnex.getRight().getTokenization());
+                }
+                return null;
+            });
 
             // full text processing
             featSeg = getBodyTextFeatured(doc, documentBodyParts);
@@ -139,7 +246,27 @@ public class FullMedicalTextParser extends AbstractParser {
                 resultBody = label(bodytext);
 
                 // we apply now the figure and table models based on the fulltext labeled output
-                figures = processFigures(resultBody, layoutTokenization.getTokenization(), doc);
+                String labeledBody = resultBody;
+                List<LayoutToken> tokenizationBody = layoutTokenization.getTokenization();
+                Future<List<Table>> tablesStage = submitStage(() -> {
+                    List<Table> bodyTables = processTables(labeledBody, tokenizationBody, doc);
+                    // further parse the caption
+                    for (Table table : bodyTables) {
+                        if (CollectionUtils.isNotEmpty(table.getCaptionLayoutTokens())) {
+                            Pair<String, List<LayoutToken>> captionProcess = processShort(table.getCaptionLayoutTokens(), doc);
+                            table.setLabeledCaption(captionProcess.getLeft());
+                            table.setCaptionLayoutTokens(captionProcess.getRight());
+                        }
+                        if (CollectionUtils.isNotEmpty(table.getNoteLayoutTokens())) {
+                            Pair<String, List<LayoutToken>> noteProcess = processShort(table.getNoteLayoutTokens(), doc);
+                            table.setLabeledNote(noteProcess.getLeft());
+                            table.setNoteLayoutTokens(noteProcess.getRight());
+                        }
+                    }
+                    return bodyTables;
+                });
+
+                figures = processFigures(resultBody, tokenizationBody, doc);
                 // further parse the caption
                 for (Figure figure : figures) {
                     if (CollectionUtils.isNotEmpty(figure.getCaptionLayoutTokens())) {
@@ -149,36 +276,18 @@ public class FullMedicalTextParser extends AbstractParser {
                     }
                 }
 
-                tables = processTables(resultBody, layoutTokenization.getTokenization(), doc);
-                // further parse the caption
-                for (Table table : tables) {
-                    if (CollectionUtils.isNotEmpty(table.getCaptionLayoutTokens())) {
-                        Pair<String, List<LayoutToken>> captionProcess = processShort(table.getCaptionLayoutTokens(), doc);
-                        table.setLabeledCaption(captionProcess.getLeft());
-                        table.setCaptionLayoutTokens(captionProcess.getRight());
-                    }
-                    if (CollectionUtils.isNotEmpty(table.getNoteLayoutTokens())) {
-                        Pair<String, List<LayoutToken>> noteProcess = processShort(table.getNoteLayoutTokens(), doc);
-                        table.setLabeledNote(noteProcess.getLeft());
-                        table.setNoteLayoutTokens(noteProcess.getRight());
-                    }
-                }
-
+                tables = joinStage(tablesStage);
             } else {
                 LOGGER.debug("Fulltext model: The featured body is empty !");
             }
 
-            // possible annexes (view as a piece of full text similar to the body)
-            documentBodyParts = doc.getDocumentPart(MedicalLabels.ANNEX);
-            featSeg = getBodyTextFeatured(doc, documentBodyParts);
+            joinStage(headerStage);
+            Pair<String, List<LayoutToken>> labeledAnnex = joinStage(annexStage);
             String resultAnnex = null;
             List<LayoutToken> tokenizationsBody2 = null;
-            if (featSeg != null && isNotEmpty(trim(featSeg.getLeft()))) {
-                // if featSeg is null, it usually means that no body segment is found in the
-                // document segmentation
-                String bodytext = featSeg.getLeft();
-                tokenizationsBody2 = featSeg.getRight().getTokenization();
-                resultAnnex = label(bodytext);
+            if (labeledAnnex != null) {
+                resultAnnex = labeledAnnex.getLeft();
+                tokenizationsBody2 = labeledAnnex.getRight();
             }
 
             // post-process reference and footnote callout to keep them consistent (e.g. for example avoid that a footnote
@@ -188,16 +297,25 @@ public class FullMedicalTextParser extends AbstractParser {
             if (resultBody != null)
                 markerTypes = postProcessCallout(resultBody, layoutTokenization);
 
-            // final combination of all results
-            toTEI(doc, // document
-                resultBody, resultAnnex, // labeled data for body and annex
-                layoutTokenization, tokenizationsBody2, // tokenization for body and annex
-                resHeader, // header
-                resLeftNote, // left-note information
-                strLeftNote,
-                figures, tables, markerTypes,
-                config);
-            return doc;
+            // acknowledgement, which is in the back
+            Pair<String, LayoutTokenization> featAcknowledgement =
+                getBodyTextFeatured(doc, doc.getDocumentPart(MedicalLabels.ACKNOWLEDGEMENT));
+            if (featAcknowledgement != null) {
+                labelled.acknowledgement = true;
+                String acknowledgementText = featAcknowledgement.getLeft();
+                labelled.tokenizationsAcknowledgement = featAcknowledgement.getRight().getTokenization();
+                if ((acknowledgementText != null) && (acknowledgementText.length() > 0))
+                    labelled.resultAcknowledgement = label(acknowledgementText);
+            }
+
+            labelled.resultBody = resultBody;
+            labelled.resultAnnex = resultAnnex;
+            labelled.layoutTokenization = layoutTokenization;
+            labelled.tokenizationsAnnex = tokenizationsBody2;
+            labelled.figures = figures;
+            labelled.tables = tables;
+            labelled.markerTypes = markerTypes;
+            return labelled;
         } catch (GrobidException e) {
             throw e;
         } catch (Exception e) {
@@ -205,6 +323,85 @@ public class FullMedicalTextParser extends AbstractParser {
         }
     }
 
+    /**
+     * TEI serialization of a labelled document, the TEI being written section by section to the given writer, or
+     * kept in the document with a null writer. The models are not used, so that the serialization can be done
+     * once the engine holding them has been released.
+     *
+     * @return the document object, with built TEI if teiWriter is null
+     */
+    public static Document toTEI(LabelledDocument labelled,
+                                 GrobidAnalysisConfig config,
+                                 Writer teiWriter) {
+        // final combination of all results
+        Timer.Context teiTimer = PipelineMetrics.start(PipelineMetrics.TEI);
+        toTEI(labelled.doc, // document
+            labelled.resultBody, labelled.resultAnnex, // labeled data for body and annex
+            labelled.layoutTokenization, labelled.tokenizationsAnnex, // tokenization for body and annex
+            labelled.acknowledgement, labelled.resultAcknowledgement, labelled.tokenizationsAcknowledgement,
+            labelled.resHeader, // header
+            labelled.resLeftNote, // left-note information
+            labelled.strLeftNote,
+            labelled.figures, labelled.tables, labelled.markerTypes,
+            config, teiWriter);
+        PipelineMetrics.stop(teiTimer);
+        return labelled.doc;
+    }
+
+    /**
+     * Run the independent labelling stages of the documents (header and left-note, body and figures, tables,
+     * annexes) in parallel, on a pool of nbThreads threads shared by all the documents. With nbThreads <= 0
+     * (default), the stages are run one after the other in the calling thread.
+     *
+     * The header, left-note, figure and table models have their own taggers, but the body, the annexes and the
+     * captions and notes of the tables are all labelled by the single full text tagger of this parser (a second
+     * tagger would load the full text model twice). Only the stages using other models are then sure to overlap;
+     * whether the full text labellings overlap depends on the sequence labelling engine, and the gain of the
+     * parallel stages has not been measured on a large annexed document.
+     */
+    public static synchronized void setParallelStages(int nbThreads) {
+        ExecutorService previous = stageExecutor;
+        if (nbThreads > 0) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(nbThreads, nbThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(nbThreads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "grobid-medical-stage");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // when the pool is busy (or replaced), the stage is run by the calling thread
+                (runnable, pool) -> runnable.run());
+            executor.allowCoreThreadTimeOut(true);
+            stageExecutor = executor;
+        } else {
+            stageExecutor = null;
+        }
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    private static <T> Future<T> submitStage(Callable<T> stage) {
+        ExecutorService executor = stageExecutor;
+        if (executor != null) {
+            return executor.submit(PipelineMetrics.propagate(stage));
+        }
+        FutureTask<T> task = new FutureTask<>(stage);
+        task.run();
+        return task;
+    }
+
+    private static <T> T joinStage(Future<T> stage) throws Exception {
+        try {
+            return stage.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw new GrobidException("An exception occurred while running grobid-medical-report.", e.getCause());
+        }
+    }
+
     /**
      * Process a simple segment of layout tokens with the full text model.
      * Return null if provided Layout Tokens is empty or if structuring failed.
@@ -316,6 +513,29 @@ public class FullMedicalTextParser extends AbstractParser {
         return Pair.of(res, layoutTokenization);
     }
 
+    /**
+     * Return the first characters of the given parts of the document, read directly from the document tokens,
+     * for instance for the language identification which does not need the features.
+     */
+    static public String getTextSample(Document doc, SortedSet<DocumentPiece> documentParts, int maxLength) {
+        StringBuilder sample = new StringBuilder();
+        if ((documentParts == null) || (doc.getTokenizations() == null)) {
+            return "";
+        }
+        List<LayoutToken> tokenizations = doc.getTokenizations();
+        for (DocumentPiece docPiece : documentParts) {
+            int start = docPiece.getLeft().getTokenDocPos();
+            int end = Math.min(docPiece.getRight().getTokenDocPos(), tokenizations.size() - 1);
+            for (int i = start; (i <= end) && (sample.length() < maxLength); i++) {
+                sample.append(tokenizations.get(i).getText());
+            }
+            if (sample.length() >= maxLength) {
+                break;
+            }
+        }
+        return sample.length() > maxLength ? sample.substring(0, maxLength) : sample.toString();
+    }
+
     static public Pair<String, LayoutTokenization> getBodyTextFeatured(Document doc,
                                                                        SortedSet<DocumentPiece> documentBodyParts) {
         if ((documentBodyParts == null) || (documentBodyParts.size() == 0)) {
@@ -700,7 +920,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             previousFeatures.blockStatus = "BLOCKEND";
                             previousFeatures.lineStatus = "LINEEND";
                         }
-                        fulltext.append(previousFeatures.printVector());
+                        previousFeatures.printVector(fulltext);
                     }
 
                     n++;
@@ -713,7 +933,7 @@ public class FullMedicalTextParser extends AbstractParser {
             }
         }
         if (previousFeatures != null) {
-            fulltext.append(previousFeatures.printVector());
+            previousFeatures.printVector(fulltext);
 
         }
 
@@ -723,8 +943,7 @@ public class FullMedicalTextParser extends AbstractParser {
 
     static public Pair<String, LayoutTokenization> getBodyTextFeaturedAnonym(Document doc,
                                                                              SortedSet<DocumentPiece> documentBodyParts,
-                                                                             List<String> dataOriginal,
-                                                                             List<String> dataAnonymized) {
+                                                                             PseudonymMap pseudonyms) {
         if ((documentBodyParts == null) || (documentBodyParts.size() == 0)) {
             return null;
         }
@@ -899,10 +1118,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     }
 
                     // anonymize the data
-                    int idx = dataOriginal.indexOf(text);
-                    if (idx >= 0) {
-                        text = dataAnonymized.get(idx);
-                    }
+                    text = pseudonyms.replace(text);
 
                     features.string = text;
 
@@ -1113,7 +1329,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             previousFeatures.blockStatus = "BLOCKEND";
                             previousFeatures.lineStatus = "LINEEND";
                         }
-                        fulltext.append(previousFeatures.printVector());
+                        previousFeatures.printVector(fulltext);
                     }
 
                     n++;
@@ -1128,7 +1344,7 @@ public class FullMedicalTextParser extends AbstractParser {
             }
         }
         if (previousFeatures != null) {
-            fulltext.append(previousFeatures.printVector());
+            previousFeatures.printVector(fulltext);
 
         }
 
@@ -1155,20 +1371,10 @@ public class FullMedicalTextParser extends AbstractParser {
     }
 
     /**
-     * Return the index of a token in a document tokenization
+     * Return the index of a token in a document tokenization, with the offset index of the document
      */
     private static int getDocIndexToken(Document doc, LayoutToken token) {
-        int blockPtr = token.getBlockPtr();
-        Block block = doc.getBlocks().get(blockPtr);
-        int startTokenBlockPos = block.getStartToken();
-        List<LayoutToken> tokens = doc.getTokenizations();
-        int i = startTokenBlockPos;
-        for (; i < tokens.size(); i++) {
-            int offset = tokens.get(i).getOffset();
-            if (offset >= token.getOffset())
-                break;
-        }
-        return i;
+        return TokenOffsetIndex.of(doc).indexOf(doc, token);
     }
 
     /**
@@ -1274,8 +1480,9 @@ public class FullMedicalTextParser extends AbstractParser {
             FileUtils.writeStringToFile(outputTextFile, rawtxt.toString(), StandardCharsets.UTF_8);
 
             // lastly, write the features and the labels
+            String rese = null;
             if (isNotBlank(featuredData)) {
-                String rese = parsers.getMedicalReportSegmenterParser().label(featuredData);
+                rese = parsers.getMedicalReportSegmenterParser().label(featuredData);
                 StringBuffer bufferFulltext = parsers.getMedicalReportSegmenterParser().trainingExtraction(rese, tokenizations, doc);
 
                 // write the TEI file to reflect the extact layout of the text as extracted from the pdf
@@ -1289,9 +1496,9 @@ public class FullMedicalTextParser extends AbstractParser {
             }
 
             // Now we process and create training data for other models ...
-            // But first, call the medical-report-segmenter model to have high level segmentation
-            doc = parsers.getMedicalReportSegmenterParser().processing(documentSource,
-                GrobidAnalysisConfig.defaultInstance());
+            // But first, the high level segmentation, from the labels of the medical-report-segmenter model already
+            // computed above: the document is parsed and featured only once for all the models
+            doc = parsers.getMedicalReportSegmenterParser().segment(doc, rese);
             List<LayoutToken> tokenizationsFull = doc.getTokenizations();
 
             // 2. HEADER MEDICAL REPORT  MODEL
@@ -2080,8 +2287,8 @@ public class FullMedicalTextParser extends AbstractParser {
                     writer.write(bodytext + "\n");
                     writer.close();
 
-                    String rese = label(bodytext);
-                    StringBuilder bufferFulltext = trainingExtraction(rese, tokenizationsBody);
+                    String reseBody = label(bodytext);
+                    StringBuilder bufferFulltext = trainingExtraction(reseBody, tokenizationsBody);
 
                     // write the TEI file to reflect the extract layout of the text as extracted from the pdf
                     outputTEIFile = new File(pathOutput + File.separator + pdfFileName.replace(".pdf", ".training.full.medical.text.tei.xml"));
@@ -2105,7 +2312,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     // we need to rebuild the found string as it appears
                     String input = "";
                     int q = 0;
-                    StringTokenizer st = new StringTokenizer(rese, "\n");
+                    StringTokenizer st = new StringTokenizer(reseBody, "\n");
                     while (st.hasMoreTokens() && (q < tokenizationsBody.size())) {
                         String line = st.nextToken();
                         String theTotalTok = tokenizationsBody.get(q).getText();
@@ -2220,7 +2427,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     // we need to rebuild the found string as it appears
                     input = "";
                     q = 0;
-                    st = new StringTokenizer(rese, "\n");
+                    st = new StringTokenizer(reseBody, "\n");
                     while (st.hasMoreTokens() && (q < tokenizationsBody.size())) {
                         String line = st.nextToken();
                         String theTotalTok = tokenizationsBody.get(q).getText();
@@ -2329,6 +2536,9 @@ public class FullMedicalTextParser extends AbstractParser {
                 }
             }
 
+            // 9. FRENCH MEDICAL NER MODEL
+            parsers.getFrenchMedicalNERParser().createTrainingFromDocument(doc, pdfFileName, pathOutput);
+
             return doc;
 
         } catch (
@@ -2412,7 +2622,11 @@ public class FullMedicalTextParser extends AbstractParser {
             outputRawFile = new File(pathOutput + File.separator + pdfFileName.replace(".pdf", ".training.header.medical"));
 
             // segment first with medical report segmenter model (yes, it's assumed that the segmentation model exists from the previous process
-            doc = parsers.getMedicalReportSegmenterParser().processing(documentSource, config);
+            // the features computed above are labelled, the document is parsed and featured only once for all the models
+            if (isNotBlank(featuredData)) {
+                doc = parsers.getMedicalReportSegmenterParser().segment(doc,
+                    parsers.getMedicalReportSegmenterParser().label(featuredData));
+            }
             // take only the header part
             SortedSet<DocumentPiece> documentHeaderParts = doc.getDocumentPart(MedicalLabels.HEADER);
             String header = null;
@@ -3103,8 +3317,7 @@ public class FullMedicalTextParser extends AbstractParser {
             outputTEIFile = new File(pathOutput + File.separator + pdfFileName.replace(".pdf", ".training.full.medical.text.blank.tei.xml"));
             outputRawFile = new File(pathOutput + File.separator + pdfFileName.replace(".pdf", ".training.full.medical.text"));
 
-            // first, call the medical-report-segmenter model to have high level segmentation
-            doc = parsers.getMedicalReportSegmenterParser().processing(documentSource, GrobidAnalysisConfig.defaultInstance());
+            // the high level segmentation of the document is the one computed for the header model
 
             // FULL-MEDICAL-TEXT MODEL (body part)
             SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentPart(MedicalLabels.BODY);
@@ -3178,24 +3391,8 @@ public class FullMedicalTextParser extends AbstractParser {
                 dataAnonym = lines.collect(Collectors.toList());
             }
 
-            List<String> dataOriginal = new ArrayList<>();
-            List<String> dataAnonymized = new ArrayList<>();
-            if (dataAnonym != null) {
-                // treat the pseudo data first
-                for (int i = 0; i < dataAnonym.size(); i++) {
-                    List<String> dataAnonymSplit = Arrays.asList(dataAnonym.get(i).split("\t"));
-                    if (dataAnonymSplit.get(0) != null) {
-                        dataOriginal.add(dataAnonymSplit.get(0));
-                    } else {
-                        dataOriginal.add("");
-                    }
-                    if (dataAnonymSplit.get(1) != null) {
-                        dataAnonymized.add(dataAnonymSplit.get(1));
-                    } else {
-                        dataAnonymized.add("");
-                    }
-                }
-            }
+            // treat the pseudo data first
+            PseudonymMap pseudonyms = PseudonymMap.fromPairs(dataAnonym);
 
             Writer writer = null;
 
@@ -3216,7 +3413,7 @@ public class FullMedicalTextParser extends AbstractParser {
 
             // 1. SEGMENTATION MODEL
             String featuredDataOriginal = parsers.getMedicalReportSegmenterParser().getAllLinesFeatured(doc);
-            String featuredDataAnonym = parsers.getMedicalReportSegmenterParser().getAllLinesFeaturedAnonym(doc, dataOriginal, dataAnonymized);
+            String featuredDataAnonym = parsers.getMedicalReportSegmenterParser().getAllLinesFeaturedAnonym(doc, pseudonyms);
             List<LayoutToken> tokenizations = doc.getTokenizations();
 
             // we write first the full text untagged (with segmentation features)
@@ -3228,10 +3425,7 @@ public class FullMedicalTextParser extends AbstractParser {
             StringBuffer rawtxt = new StringBuffer();
             for (LayoutToken txtline : tokenizations) {
                 String text = txtline.getText(); // the text by tokens
-                int idx = dataOriginal.indexOf(text);
-                if (idx >= 0) {
-                    text = dataAnonymized.get(idx);
-                }
+                text = pseudonyms.replace(text);
                 rawtxt.append(text);
             }
 
@@ -3239,9 +3433,10 @@ public class FullMedicalTextParser extends AbstractParser {
             FileUtils.writeStringToFile(outputTextFile, rawtxt.toString(), StandardCharsets.UTF_8);
 
             // lastly, write the features and the labels
+            String rese = null;
             if (isNotBlank(featuredDataOriginal)) {
-                String rese = parsers.getMedicalReportSegmenterParser().label(featuredDataOriginal);
-                StringBuffer bufferFulltext = parsers.getMedicalReportSegmenterParser().trainingExtractionAnonym(rese, tokenizations, doc, dataOriginal, dataAnonymized);
+                rese = parsers.getMedicalReportSegmenterParser().label(featuredDataOriginal);
+                StringBuffer bufferFulltext = parsers.getMedicalReportSegmenterParser().trainingExtractionAnonym(rese, tokenizations, doc, pseudonyms);
 
                 // write the TEI file to reflect the extract layout of the text as extracted from the pdf
                 writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
@@ -3254,9 +3449,9 @@ public class FullMedicalTextParser extends AbstractParser {
 
 
             // Now we process and create training data for other models ...
-            // But first, call the medical-report-segmenter model to have high level segmentation
-            doc = parsers.getMedicalReportSegmenterParser().processing(documentSource,
-                GrobidAnalysisConfig.defaultInstance());
+            // But first, the high level segmentation, from the labels of the medical-report-segmenter model already
+            // computed above: the document is parsed and featured only once for all the models
+            doc = parsers.getMedicalReportSegmenterParser().segment(doc, rese);
             List<LayoutToken> tokenizationsFull = doc.getTokenizations();
 
             // 2. HEADER MEDICAL REPORT MODEL
@@ -3271,7 +3466,7 @@ public class FullMedicalTextParser extends AbstractParser {
                 String header = featuredHeader.getLeft();
                 List<LayoutToken> headerTokenizations = featuredHeader.getRight();
 
-                Pair<String, List<LayoutToken>> featuredHeaderAnonym = parsers.getHeaderMedicalParser().getSectionHeaderFeaturedAnonym(doc, documentHeaderParts, dataOriginal, dataAnonymized);
+                Pair<String, List<LayoutToken>> featuredHeaderAnonym = parsers.getHeaderMedicalParser().getSectionHeaderFeaturedAnonym(doc, documentHeaderParts, pseudonyms);
                 String headerAnonym = featuredHeaderAnonym.getLeft();
                 if ((header != null) && (header.trim().length() > 0)) {
                     // we write the header data with features
@@ -3283,7 +3478,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     String labeledHeader = parsers.getHeaderMedicalParser().label(header);
 
                     // buffer for the header block
-                    StringBuilder bufferHeader = parsers.getHeaderMedicalParser().trainingExtractionAnonym(labeledHeader, headerTokenizations, dataOriginal, dataAnonymized);
+                    StringBuilder bufferHeader = parsers.getHeaderMedicalParser().trainingExtractionAnonym(labeledHeader, headerTokenizations, pseudonyms);
 
                     // write the training TEI file for header which reflects the extract layout of the text as
                     // extracted from the pdf
@@ -3332,7 +3527,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     List<String> inputs = new ArrayList<String>();
                     if (input != null && input.trim().length() > 0) {
                         inputs.add(input.trim());
-                        bufferMedic = parsers.getMedicParser().trainingExtractionAnonym(inputs, dataOriginal, dataAnonymized);
+                        bufferMedic = parsers.getMedicParser().trainingExtractionAnonym(inputs, pseudonyms);
 
                         // force analyser with English, to avoid bad surprise
                         List<LayoutToken> medicTokenizations = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(input, new Language("en", 1.0));
@@ -3347,7 +3542,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             locationPositions, titlePositions, suffixPositions, emailPositions, urlPositions);
 
                         String featuredMedicAnonym = FeaturesVectorMedic.addFeaturesMedicAnonym(medicTokenizations, null,
-                            locationPositions, titlePositions, suffixPositions, emailPositions, urlPositions, dataOriginal, dataAnonymized);
+                            locationPositions, titlePositions, suffixPositions, emailPositions, urlPositions, pseudonyms);
 
                         if (featuredMedicAnonym != null) {
                             writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -3389,7 +3584,7 @@ public class FullMedicalTextParser extends AbstractParser {
                                 suffixPositions = lexicon.tokenPositionsPersonSuffix(nameTokenizations);
 
                                 // we write the name data with features
-                                String featuredName = FeaturesVectorPersonName.addFeaturesNameAnonym(nameTokenizations, null, titlePositions, suffixPositions, dataOriginal, dataAnonymized);
+                                String featuredName = FeaturesVectorPersonName.addFeaturesNameAnonym(nameTokenizations, null, titlePositions, suffixPositions, pseudonyms);
 
                                 if (featuredName != null) {
                                     writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -3400,7 +3595,7 @@ public class FullMedicalTextParser extends AbstractParser {
                                 inputs.add(name.trim());
 
                                 // buffer for the header block, take only the data with the label
-                                StringBuilder bufferName = parsers.getPersonNameParser().trainingExtractionAnonym(inputs, dataOriginal, dataAnonymized);
+                                StringBuilder bufferName = parsers.getPersonNameParser().trainingExtractionAnonym(inputs, pseudonyms);
 
                                 if (bufferName != null && bufferName.length() > 0) {
                                     writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
@@ -3432,7 +3627,7 @@ public class FullMedicalTextParser extends AbstractParser {
                                 List<OffsetPosition> cityNamePositions = lexicon.tokenPositionsCityNames(addressTokenizations);
 
                                 // we write the name data with features
-                                String featuredAddress = FeaturesVectorAddress.addFeaturesAddressAnonym(addressTokenizations, null, locationPositions, cityNamePositions, dataOriginal, dataAnonymized);
+                                String featuredAddress = FeaturesVectorAddress.addFeaturesAddressAnonym(addressTokenizations, null, locationPositions, cityNamePositions, pseudonyms);
 
                                 if (featuredAddress != null) {
                                     writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -3443,7 +3638,7 @@ public class FullMedicalTextParser extends AbstractParser {
                                 inputs.add(address.trim());
 
                                 // buffer for the header block, take only the data with the label
-                                StringBuilder bufferAddress = parsers.getAddressParser().trainingExtractionAnonym(inputs, dataOriginal, dataAnonymized);
+                                StringBuilder bufferAddress = parsers.getAddressParser().trainingExtractionAnonym(inputs, pseudonyms);
 
                                 if (bufferAddress != null && bufferAddress.length() > 0) {
                                     writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
@@ -3496,7 +3691,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     inputs = new ArrayList<String>();
                     if (input != null && input.trim().length() > 0) {
                         inputs.add(input.trim());
-                        bufferPatient = parsers.getPatientParser().trainingExtractionAnonym(inputs, dataOriginal, dataAnonymized);
+                        bufferPatient = parsers.getPatientParser().trainingExtractionAnonym(inputs, pseudonyms);
 
                         // force analyser with English, to avoid bad surprise
                         List<LayoutToken> patientTokenizations = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(input, new Language("en", 1.0));
@@ -3508,7 +3703,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             locationPositions, titlePositions, suffixPositions);
 
                         String featuredPatientAnonym = FeaturesVectorPatient.addFeaturesPatientAnonym(patientTokenizations, null,
-                            locationPositions, titlePositions, suffixPositions, dataOriginal, dataAnonymized);
+                            locationPositions, titlePositions, suffixPositions, pseudonyms);
 
                         if (featuredPatientAnonym != null) {
                             writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -3550,7 +3745,7 @@ public class FullMedicalTextParser extends AbstractParser {
                                 suffixPositions = lexicon.tokenPositionsPersonSuffix(nameTokenizations);
 
                                 // we write the name data with features
-                                String featuredName = FeaturesVectorPersonName.addFeaturesNameAnonym(nameTokenizations, null, titlePositions, suffixPositions, dataOriginal, dataAnonymized);
+                                String featuredName = FeaturesVectorPersonName.addFeaturesNameAnonym(nameTokenizations, null, titlePositions, suffixPositions, pseudonyms);
 
                                 if (featuredName != null) {
                                     writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -3561,7 +3756,7 @@ public class FullMedicalTextParser extends AbstractParser {
                                 inputs.add(name.trim());
 
                                 // buffer for the header block, take only the data with the label
-                                StringBuilder bufferName = parsers.getPersonNameParser().trainingExtractionAnonym(inputs, dataOriginal, dataAnonymized);
+                                StringBuilder bufferName = parsers.getPersonNameParser().trainingExtractionAnonym(inputs, pseudonyms);
 
                                 if (bufferName != null && bufferName.length() > 0) {
                                     writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
@@ -3593,7 +3788,7 @@ public class FullMedicalTextParser extends AbstractParser {
                                 List<OffsetPosition> cityNamePositions = lexicon.tokenPositionsCityNames(addressTokenizations);
 
                                 // we write the name data with features
-                                String featuredAddress = FeaturesVectorAddress.addFeaturesAddressAnonym(addressTokenizations, null, locationPositions, cityNamePositions, dataOriginal, dataAnonymized);
+                                String featuredAddress = FeaturesVectorAddress.addFeaturesAddressAnonym(addressTokenizations, null, locationPositions, cityNamePositions, pseudonyms);
 
                                 if (featuredAddress != null) {
                                     writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -3604,7 +3799,7 @@ public class FullMedicalTextParser extends AbstractParser {
                                 inputs.add(address.trim());
 
                                 // buffer for the header block, take only the data with the label
-                                StringBuilder bufferAddress = parsers.getAddressParser().trainingExtractionAnonym(inputs, dataOriginal, dataAnonymized);
+                                StringBuilder bufferAddress = parsers.getAddressParser().trainingExtractionAnonym(inputs, pseudonyms);
 
                                 if (bufferAddress != null && bufferAddress.length() > 0) {
                                     writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
@@ -3641,7 +3836,7 @@ public class FullMedicalTextParser extends AbstractParser {
                 String leftNote = featuredLeftNote.getLeft(); // data with features
                 List<LayoutToken> leftNoteTokenizations = featuredLeftNote.getRight(); // tokens information
 
-                Pair<String, List<LayoutToken>> featuredLeftNoteAnonym = parsers.getLeftNoteMedicalParser().getSectionLeftNoteFeaturedAnonym(doc, documentLeftNoteParts, dataOriginal, dataAnonymized);
+                Pair<String, List<LayoutToken>> featuredLeftNoteAnonym = parsers.getLeftNoteMedicalParser().getSectionLeftNoteFeaturedAnonym(doc, documentLeftNoteParts, pseudonyms);
                 String leftNoteAnonym = featuredLeftNoteAnonym.getLeft();
                 if ((leftNote != null) && (leftNote.trim().length() > 0)) {
                     // we write left-note data with features
@@ -3654,7 +3849,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     String labeledLeftNote = parsers.getLeftNoteMedicalParser().label(leftNote);
 
                     // buffer for the header block, take only the data with the label
-                    StringBuilder bufferLeftNote = parsers.getLeftNoteMedicalParser().trainingExtractionAnonym(labeledLeftNote, leftNoteTokenizations, dataOriginal, dataAnonymized);
+                    StringBuilder bufferLeftNote = parsers.getLeftNoteMedicalParser().trainingExtractionAnonym(labeledLeftNote, leftNoteTokenizations, pseudonyms);
 
                     if (bufferLeftNote != null && (bufferLeftNote.length() > 0)) {
                         // write the training TEI file for header which reflects the extract layout of the text as
@@ -3703,7 +3898,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     List<String> inputs = new ArrayList<String>();
                     if (input != null && input.trim().length() > 0) {
                         inputs.add(input.trim());
-                        bufferMedic = parsers.getMedicParser().trainingExtractionAnonym(inputs, dataOriginal, dataAnonymized);
+                        bufferMedic = parsers.getMedicParser().trainingExtractionAnonym(inputs, pseudonyms);
 
                         // force analyser with English, to avoid bad surprise
                         List<LayoutToken> medicTokenizations = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(input, new Language("en", 1.0));
@@ -3718,7 +3913,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             locationPositions, titlePositions, suffixPositions, emailPositions, urlPositions);
 
                         String featuredMedicAnonym = FeaturesVectorMedic.addFeaturesMedicAnonym(medicTokenizations, null,
-                            locationPositions, titlePositions, suffixPositions, emailPositions, urlPositions, dataOriginal, dataAnonymized);
+                            locationPositions, titlePositions, suffixPositions, emailPositions, urlPositions, pseudonyms);
 
                         if (featuredMedicAnonym != null) {
                             writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -3761,7 +3956,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             List<OffsetPosition> suffixPositions = lexicon.tokenPositionsPersonSuffix(nameTokenizations);
 
                             // we write the name data with features
-                            String featuredName = FeaturesVectorPersonName.addFeaturesNameAnonym(nameTokenizations, null, titlePositions, suffixPositions, dataOriginal, dataAnonymized);
+                            String featuredName = FeaturesVectorPersonName.addFeaturesNameAnonym(nameTokenizations, null, titlePositions, suffixPositions, pseudonyms);
 
                             if (featuredName != null) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -3772,7 +3967,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             inputs.add(name.trim());
 
                             // buffer for the header block, take only the data with the label
-                            StringBuilder bufferName = parsers.getPersonNameParser().trainingExtractionAnonym(inputs, dataOriginal, dataAnonymized);
+                            StringBuilder bufferName = parsers.getPersonNameParser().trainingExtractionAnonym(inputs, pseudonyms);
 
                             if (bufferName != null && bufferName.length() > 0) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
@@ -3804,7 +3999,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             List<OffsetPosition> cityNamePositions = lexicon.tokenPositionsCityNames(addressTokenizations);
 
                             // we write the name data with features
-                            String featuredAddress = FeaturesVectorAddress.addFeaturesAddressAnonym(addressTokenizations, null, locationPositions, cityNamePositions, dataOriginal, dataAnonymized);
+                            String featuredAddress = FeaturesVectorAddress.addFeaturesAddressAnonym(addressTokenizations, null, locationPositions, cityNamePositions, pseudonyms);
 
                             if (featuredAddress != null) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -3815,7 +4010,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             inputs.add(address.trim());
 
                             // buffer for the header block, take only the data with the label
-                            StringBuilder bufferAddress = parsers.getAddressParser().trainingExtractionAnonym(inputs, dataOriginal, dataAnonymized);
+                            StringBuilder bufferAddress = parsers.getAddressParser().trainingExtractionAnonym(inputs, pseudonyms);
 
                             if (bufferAddress != null && bufferAddress.length() > 0) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
@@ -3848,7 +4043,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     String bodytext = featSeg.getLeft();
                     List<LayoutToken> tokenizationsBody = featSeg.getRight().getTokenization();
 
-                    Pair<String, LayoutTokenization> featSegAnonym = getBodyTextFeaturedAnonym(doc, documentBodyParts, dataOriginal, dataAnonymized);
+                    Pair<String, LayoutTokenization> featSegAnonym = getBodyTextFeaturedAnonym(doc, documentBodyParts, pseudonyms);
                     String bodytextAnonym = featSegAnonym.getLeft();
 
                     // we write the full text untagged
@@ -3857,8 +4052,8 @@ public class FullMedicalTextParser extends AbstractParser {
                     writer.write(bodytextAnonym + "\n");
                     writer.close();
 
-                    String rese = label(bodytext);
-                    StringBuilder bufferFulltextAnonym = trainingExtractionAnonym(rese, tokenizationsBody, dataOriginal, dataAnonymized);
+                    String reseBody = label(bodytext);
+                    StringBuilder bufferFulltextAnonym = trainingExtractionAnonym(reseBody, tokenizationsBody, pseudonyms);
 
                     // write the TEI file to reflect the extract layout of the text as extracted from the pdf
                     outputTEIFile = new File(pathOutput + File.separator + pdfFileName.replace(".pdf", ".anonym.training.full.medical.text.tei.xml"));
@@ -3882,7 +4077,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     // we need to rebuild the found string as it appears
                     String input = "";
                     int q = 0;
-                    StringTokenizer st = new StringTokenizer(rese, "\n");
+                    StringTokenizer st = new StringTokenizer(reseBody, "\n");
                     while (st.hasMoreTokens() && (q < tokenizationsBody.size())) {
                         String line = st.nextToken();
                         String theTotalTok = tokenizationsBody.get(q).getText();
@@ -3913,7 +4108,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             List<OffsetPosition> suffixPositions = lexicon.tokenPositionsPersonSuffix(nameTokenizations);
 
                             // we write the name data with features
-                            String featuredName = FeaturesVectorPersonName.addFeaturesNameAnonym(nameTokenizations, null, titlePositions, suffixPositions, dataOriginal, dataAnonymized);
+                            String featuredName = FeaturesVectorPersonName.addFeaturesNameAnonym(nameTokenizations, null, titlePositions, suffixPositions, pseudonyms);
 
                             if (featuredName != null) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -3924,7 +4119,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             inputs.add(name.trim());
 
                             // buffer for the header block, take only the data with the label
-                            StringBuilder bufferName = parsers.getPersonNameParser().trainingExtractionAnonym(inputs, dataOriginal, dataAnonymized);
+                            StringBuilder bufferName = parsers.getPersonNameParser().trainingExtractionAnonym(inputs, pseudonyms);
 
                             if (bufferName != null && bufferName.length() > 0) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
@@ -3956,7 +4151,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             List<OffsetPosition> cityNamePositions = lexicon.tokenPositionsCityNames(addressTokenizations);
 
                             // we write the name data with features
-                            String featuredAddress = FeaturesVectorAddress.addFeaturesAddressAnonym(addressTokenizations, null, locationPositions, cityNamePositions, dataOriginal, dataAnonymized);
+                            String featuredAddress = FeaturesVectorAddress.addFeaturesAddressAnonym(addressTokenizations, null, locationPositions, cityNamePositions, pseudonyms);
 
                             if (featuredAddress != null) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -3967,7 +4162,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             inputs.add(address.trim());
 
                             // buffer for the header block, take only the data with the label
-                            StringBuilder bufferAddress = parsers.getAddressParser().trainingExtractionAnonym(inputs, dataOriginal, dataAnonymized);
+                            StringBuilder bufferAddress = parsers.getAddressParser().trainingExtractionAnonym(inputs, pseudonyms);
 
                             if (bufferAddress != null && bufferAddress.length() > 0) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
@@ -3998,7 +4193,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     // we need to rebuild the found string as it appears
                     input = "";
                     q = 0;
-                    st = new StringTokenizer(rese, "\n");
+                    st = new StringTokenizer(reseBody, "\n");
                     while (st.hasMoreTokens() && (q < tokenizationsBody.size())) {
                         String line = st.nextToken();
                         String theTotalTok = tokenizationsBody.get(q).getText();
@@ -4029,7 +4224,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             List<OffsetPosition> suffixPositions = lexicon.tokenPositionsPersonSuffix(nameTokenizations);
 
                             // we write the name data with features
-                            String featuredName = FeaturesVectorPersonName.addFeaturesNameAnonym(nameTokenizations, null, titlePositions, suffixPositions, dataOriginal, dataAnonymized);
+                            String featuredName = FeaturesVectorPersonName.addFeaturesNameAnonym(nameTokenizations, null, titlePositions, suffixPositions, pseudonyms);
 
                             if (featuredName != null) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -4040,7 +4235,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             inputNames.add(name.trim());
 
                             // buffer for the header block, take only the data with the label
-                            StringBuilder bufferName = parsers.getPersonNameParser().trainingExtractionAnonym(inputNames, dataOriginal, dataAnonymized);
+                            StringBuilder bufferName = parsers.getPersonNameParser().trainingExtractionAnonym(inputNames, pseudonyms);
 
                             if (bufferName != null && bufferName.length() > 0) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
@@ -4072,7 +4267,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             List<OffsetPosition> cityNamePositions = lexicon.tokenPositionsCityNames(tokenizations);
 
                             // we write the name data with features
-                            String featuredAddress = FeaturesVectorAddress.addFeaturesAddressAnonym(addressTokenizations, null, locationPositions, cityNamePositions, dataOriginal, dataAnonymized);
+                            String featuredAddress = FeaturesVectorAddress.addFeaturesAddressAnonym(addressTokenizations, null, locationPositions, cityNamePositions, pseudonyms);
 
                             if (featuredAddress != null) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputRawFile, false), StandardCharsets.UTF_8);
@@ -4083,7 +4278,7 @@ public class FullMedicalTextParser extends AbstractParser {
                             inputAddress.add(address.trim());
 
                             // buffer for the header block, take only the data with the label
-                            StringBuilder bufferAddress = parsers.getAddressParser().trainingExtractionAnonym(inputNames, dataOriginal, dataAnonymized);
+                            StringBuilder bufferAddress = parsers.getAddressParser().trainingExtractionAnonym(inputNames, pseudonyms);
 
                             if (bufferAddress != null && bufferAddress.length() > 0) {
                                 writer = new OutputStreamWriter(new FileOutputStream(outputTEIFile, false), StandardCharsets.UTF_8);
@@ -5028,8 +5223,7 @@ public class FullMedicalTextParser extends AbstractParser {
      */
     private StringBuilder trainingExtractionAnonym(String result,
                                                    List<LayoutToken> tokenizations,
-                                                   List<String> dataOriginal,
-                                                   List<String> dataAnonymized) {
+                                                   PseudonymMap pseudonyms) {
         // this is the main buffer for the whole full text
         StringBuilder buffer = new StringBuilder();
         try {
@@ -5063,10 +5257,7 @@ public class FullMedicalTextParser extends AbstractParser {
                     String s = stt.nextToken().trim();
 
                     // anonymize the token
-                    int idx = dataOriginal.indexOf(s);
-                    if (idx >= 0) {
-                        s = dataAnonymized.get(idx);
-                    }
+                    s = pseudonyms.replace(s);
 
                     if (i == 0) {
                         s2 = TextUtilities.HTMLEncode(s); // lexical token
@@ -5076,9 +5267,7 @@ public class FullMedicalTextParser extends AbstractParser {
                         boolean strop = false;
                         while ((!strop) && (p < tokenizations.size())) {
                             String tokOriginal = tokenizations.get(p).t();
-                            if (dataOriginal.indexOf(tokOriginal) >= 0) {
-                                tokOriginal = dataAnonymized.get(idx);
-                            }
+                            tokOriginal = pseudonyms.replace(tokOriginal);
                             if (tokOriginal.equals(" ")
                                 || tokOriginal.equals("\u00A0")) {
                                 addSpace = true;
@@ -5862,48 +6051,45 @@ public class FullMedicalTextParser extends AbstractParser {
 
     /**
      * Create the TEI representation for a document based on the parsed header, left-note
-     * and body sections.
+     * and body sections. The sections are written one after the other to the TEI writer, so that only one section
+     * is in memory at a time; with a null writer, the TEI is set in the document.
      */
-    private void toTEI(Document doc,
-                       String reseBody,
-                       String reseAnnex,
-                       LayoutTokenization layoutTokenization,
-                       List<LayoutToken> tokenizationsAnnex,
-                       HeaderMedicalItem resHeader,
-                       LeftNoteMedicalItem resLeftNote,
-                       StringBuilder strLeftNote,
-                       List<Figure> figures,
-                       List<Table> tables,
-                       List<MarkerType> markerTypes,
-                       GrobidAnalysisConfig config) {
+    private static void toTEI(Document doc,
+                              String reseBody,
+                              String reseAnnex,
+                              LayoutTokenization layoutTokenization,
+                              List<LayoutToken> tokenizationsAnnex,
+                              boolean acknowledgement,
+                              String reseAcknowledgement,
+                              List<LayoutToken> tokenizationsAcknowledgement,
+                              HeaderMedicalItem resHeader,
+                              LeftNoteMedicalItem resLeftNote,
+                              StringBuilder strLeftNote,
+                              List<Figure> figures,
+                              List<Table> tables,
+                              List<MarkerType> markerTypes,
+                              GrobidAnalysisConfig config,
+                              Writer teiWriter) {
         if (doc.getBlocks() == null) {
             return;
         }
-        TEIFormatter teiFormatter = new TEIFormatter(doc, this);
+        TEIFormatter teiFormatter = new TEIFormatter(doc, null);
+        Writer writer = teiWriter != null ? teiWriter : new StringWriter();
         StringBuilder tei;
         try {
             // header and left-note
             tei = teiFormatter.toTEIHeaderLeftNote(resHeader, resLeftNote, null, config);
+            writer.append(tei);
 
             // body
-            tei = teiFormatter.toTEIBody(tei, reseBody, resHeader, layoutTokenization, figures, tables, markerTypes, doc, config);
+            tei = teiFormatter.toTEIBody(new StringBuilder(), reseBody, resHeader, layoutTokenization, figures, tables, markerTypes, doc, config);
+            writer.append(tei);
+            tei = new StringBuilder();
 
 
-            // acknowledgement is in the back
-            SortedSet<DocumentPiece> documentAcknowledgementParts =
-                doc.getDocumentPart(MedicalLabels.ACKNOWLEDGEMENT);
-            Pair<String, LayoutTokenization> featSeg =
-                getBodyTextFeatured(doc, documentAcknowledgementParts);
-            List<LayoutToken> tokenizationsAcknowledgement;
-            if (featSeg != null || reseAnnex != null) {
+            // acknowledgement is in the back, labelled with the body
+            if (acknowledgement || reseAnnex != null) {
                 tei.append("\t\t<back>\n");
-                // if featSeg is null, it usually means that no body segment is found in the
-                // document segmentation
-                String acknowledgementText = featSeg.getLeft();
-                tokenizationsAcknowledgement = featSeg.getRight().getTokenization();
-                String reseAcknowledgement = null;
-                if ((acknowledgementText != null) && (acknowledgementText.length() > 0))
-                    reseAcknowledgement = label(acknowledgementText);
                 tei = teiFormatter.toTEIAcknowledgement(tei, reseAcknowledgement,
                     tokenizationsAcknowledgement, config);
 
@@ -5915,10 +6101,14 @@ public class FullMedicalTextParser extends AbstractParser {
 
             //tei.append("\t</text>\n");
             tei.append("</TEI>\n");
+            writer.append(tei);
+            writer.flush();
         } catch (Exception e) {
             throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
         }
-        doc.setTei(tei.toString());
+        if (teiWriter == null) {
+            doc.setTei(writer.toString());
+        }
     }
 
     private static List<TaggingLabel> inlineFullTextLabels = Arrays.asList(MedicalLabels.TABLE_MARKER, MedicalLabels.FIGURE_MARKER);
@@ -1,5 +1,6 @@
 package org.grobid.core.engines;
 
+import com.codahale.metrics.Timer;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -71,21 +72,37 @@ public class HeaderMedicalParser extends AbstractParser {
         this.parsers = parsers;
     }
 
+    @Override
+    public String label(String data) {
+        return PipelineMetrics.time(PipelineMetrics.labelling(GrobidModels.HEADER_MEDICAL_REPORT), () -> super.label(data));
+    }
+
     /**
      * Header processing after application of the medical-report segmentation model
      */
 
     public Pair<String, Document> processingHeader(File input, String md5Str, HeaderMedicalItem resHeader, GrobidAnalysisConfig config) {
+        Document doc = labellingHeader(input, md5Str, resHeader, config);
+        return new ImmutablePair<String, Document>(toTEIHeader(doc, resHeader, config), doc);
+    }
+
+    /**
+     * Header labelling after application of the medical-report segmentation model, the header items being set in
+     * resHeader. The TEI is built afterwards with toTEIHeader, which does not use the models.
+     */
+    public Document labellingHeader(File input, String md5Str, HeaderMedicalItem resHeader, GrobidAnalysisConfig config) {
         DocumentSource documentSource = null;
         try {
+            Timer.Context pdfaltoTimer = PipelineMetrics.start(PipelineMetrics.PDFALTO);
             documentSource = DocumentSource.fromPdf(input, config.getStartPage(), config.getEndPage());
+            PipelineMetrics.stop(pdfaltoTimer);
             documentSource.setMD5(md5Str);
             // first, parse the document with the segmentation model
             Document doc = parsers.getMedicalReportSegmenterParser().processing(documentSource, config);
 
             // then take only the header part for further process with this method
-            String tei = processingHeaderSection(config, doc, resHeader, true);
-            return new ImmutablePair<String, Document>(tei, doc);
+            processingHeaderSection(config, doc, resHeader, false);
+            return doc;
         } finally {
             if (documentSource != null) {
                 documentSource.close(true, true, true);
@@ -103,13 +120,17 @@ public class HeaderMedicalParser extends AbstractParser {
             List<LayoutToken> tokenizations = doc.getTokenizations(); // tokens for the entire document
 
             if (documentHeaderParts != null) {
+                Timer.Context featuresTimer = PipelineMetrics.start(PipelineMetrics.FEATURES);
                 Pair<String, List<LayoutToken>> featuredHeader = getSectionHeaderFeatured(doc, documentHeaderParts);
+                PipelineMetrics.stop(featuresTimer);
                 String header = featuredHeader.getLeft(); // header data with features
                 List<LayoutToken> headerTokenization = featuredHeader.getRight(); // tokens
                 String res = null;
                 if (StringUtils.isNotBlank(header)) {
                     res = label(header);
+                    Timer.Context extractionTimer = PipelineMetrics.start(PipelineMetrics.RESULT_EXTRACTION);
                     resHeader = resultExtraction(res, headerTokenization, resHeader);
+                    PipelineMetrics.stop(extractionTimer);
 
                     // take the results of the header parsing and complete the header items with additional information (ex.,language, doctype, etc)
                     if (resHeader != null) {
@@ -119,25 +140,8 @@ public class HeaderMedicalParser extends AbstractParser {
                         // set the language
                         String lang = "fr"; // default, it's French
                         // otherwise, try the language identification from the body part text
-                        StringBuilder textBody = new StringBuilder();
-                        String contentSample = "";
-                        SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentPart(MedicalLabels.BODY);
-                        if (documentBodyParts != null) {
-                            Pair<String, LayoutTokenization> featSeg = parsers.getFullMedicalTextParser().getBodyTextFeatured(doc, documentBodyParts);
-                            if (featSeg != null) {
-                                String bodytext = featSeg.getLeft(); // body data with features
-                                List<LayoutToken> tokenizationsBody = featSeg.getRight().getTokenization(); // body tokens
-                                for (LayoutToken token : tokenizationsBody) {
-                                    textBody.append(token.getText());
-                                }
-                            }
-                        }
-                        // test only max 200 characters
-                        if (textBody.toString().length() > 200) {
-                            contentSample = textBody.toString().substring(0, 200);
-                        } else {
-                            contentSample = textBody.toString();
-                        }
+                        // test only max 200 characters, read directly from the body tokens (no need of the features here)
+                        String contentSample = FullMedicalTextParser.getTextSample(doc, doc.getDocumentPart(MedicalLabels.BODY), 200);
                         // define the new language if it exists
                         Language langu = languageUtilities.runLanguageId(contentSample);
                         if (langu != null) {
@@ -182,10 +186,10 @@ public class HeaderMedicalParser extends AbstractParser {
 
                         // medics processing
                         if (resHeader.getMedics() != null) {
-                            String[] medics = resHeader.getMedics().split(";");
-                            for (String med : medics) {
-                                Medic medic = parsers.getMedicParser().process(med);
-                                // call the medic parser
+                            // call the medic parser, all the medics being labelled at once
+                            List<Medic> medics = parsers.getMedicParser().processBatch(
+                                Arrays.asList(resHeader.getMedics().split(";")));
+                            for (Medic medic : medics) {
                                 resHeader.addMedic(medic); // add to the medic list
                             }
                         }
@@ -199,19 +203,39 @@ public class HeaderMedicalParser extends AbstractParser {
                     }
                 }
                 if (serialize) { // need to set the `serialize` into false for the full text processing for preventing the double process
-                    TEIFormatter teiFormatter = new TEIFormatter(doc, null);
-                    StringBuilder tei = teiFormatter.toTEIHeader(resHeader, null, config);
-                    tei.append("</TEI>\n");
-                    return tei.toString();
+                    return toTEIHeader(doc, resHeader, config);
                 } else
                     return null;
             }
+        } catch (GrobidException e) {
+            throw e;
         } catch (Exception e) {
             throw new GrobidException("An exception occurred while running header medical parser.", e);
         }
         return null;
     }
 
+    /**
+     * TEI of the header items of a labelled document, null if the document has no header part or if its header was
+     * blank, so that nothing was labelled in resHeader
+     */
+    public static String toTEIHeader(Document doc, HeaderMedicalItem resHeader, GrobidAnalysisConfig config) {
+        if (doc.getDocumentPart(MedicalLabels.HEADER) == null || resHeader == null
+            || resHeader.getLabeledTokens() == null) {
+            return null;
+        }
+        try {
+            TEIFormatter teiFormatter = new TEIFormatter(doc, null);
+            Timer.Context teiTimer = PipelineMetrics.start(PipelineMetrics.TEI);
+            StringBuilder tei = teiFormatter.toTEIHeader(resHeader, null, config);
+            PipelineMetrics.stop(teiTimer);
+            tei.append("</TEI>\n");
+            return tei.toString();
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running header medical parser.", e);
+        }
+    }
+
     /**
      * Header and left-note processing after application of the medical-report segmentation model
      */
@@ -221,7 +245,9 @@ public class HeaderMedicalParser extends AbstractParser {
                                                            GrobidAnalysisConfig config) {
         DocumentSource documentSource = null;
         try {
+            Timer.Context pdfaltoTimer = PipelineMetrics.start(PipelineMetrics.PDFALTO);
             documentSource = DocumentSource.fromPdf(input, config.getStartPage(), config.getEndPage());
+            PipelineMetrics.stop(pdfaltoTimer);
             documentSource.setMD5(md5Str);
             // first, parse the document with the segmentation model
             Document doc = parsers.getMedicalReportSegmenterParser().processing(documentSource, config);
@@ -245,7 +271,9 @@ public class HeaderMedicalParser extends AbstractParser {
             SortedSet<DocumentPiece> documentHeaderParts = doc.getDocumentPart(MedicalLabels.HEADER);
             List<LayoutToken> tokenizations = doc.getTokenizations(); // tokens of the header part
             if (documentHeaderParts != null) {
+                Timer.Context featuresTimer = PipelineMetrics.start(PipelineMetrics.FEATURES);
                 Pair<String, List<LayoutToken>> featuredHeader = getSectionHeaderFeatured(doc, documentHeaderParts);
+                PipelineMetrics.stop(featuresTimer);
                 String header = featuredHeader.getLeft(); // header data with features
                 List<LayoutToken> headerTokenization = featuredHeader.getRight(); // tokens
                 String res = null;
@@ -253,7 +281,9 @@ public class HeaderMedicalParser extends AbstractParser {
                 String lang = "fr"; // default, it's French
                 if (StringUtils.isNotBlank(header)) {
                     res = label(header);
+                    Timer.Context extractionTimer = PipelineMetrics.start(PipelineMetrics.RESULT_EXTRACTION);
                     resHeader = resultExtraction(res, headerTokenization, resHeader);
+                    PipelineMetrics.stop(extractionTimer);
 
                     // take the results of the header parsing and complete the header items with additional information (ex.,language, doctype, etc)
                     if (resHeader != null) {
@@ -261,25 +291,8 @@ public class HeaderMedicalParser extends AbstractParser {
                         resHeader.setAppVersion(GrobidMedicalReportProperties.getVersion());
 
                         // otherwise, try the language identification from the body part text
-                        StringBuilder textBody = new StringBuilder();
-                        String contentSample = "";
-                        SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentPart(MedicalLabels.BODY);
-                        if (documentBodyParts != null) {
-                            Pair<String, LayoutTokenization> featSeg = parsers.getFullMedicalTextParser().getBodyTextFeatured(doc, documentBodyParts);
-                            if (featSeg != null) {
-                                String bodytext = featSeg.getLeft(); // body data with features
-                                List<LayoutToken> tokenizationsBody = featSeg.getRight().getTokenization(); // body tokens
-                                for (LayoutToken token : tokenizationsBody) {
-                                    textBody.append(token.getText());
-                                }
-                            }
-                        }
-                        // test only max 200 characters
-                        if (textBody.toString().length() > 200) {
-                            contentSample = textBody.toString().substring(0, 200);
-                        } else {
-                            contentSample = textBody.toString();
-                        }
+                        // test only max 200 characters, read directly from the body tokens (no need of the features here)
+                        String contentSample = FullMedicalTextParser.getTextSample(doc, doc.getDocumentPart(MedicalLabels.BODY), 200);
                         // define the new language if it exists
                         Language langu = languageUtilities.runLanguageId(contentSample);
                         if (langu != null) {
@@ -324,10 +337,10 @@ public class HeaderMedicalParser extends AbstractParser {
 
                         // medics processing
                         if (resHeader.getMedics() != null) {
-                            String[] medics = resHeader.getMedics().split(";");
-                            for (String med : medics) {
-                                Medic medic = parsers.getMedicParser().process(med);
-                                // call the medic parser
+                            // call the medic parser, all the medics being labelled at once
+                            List<Medic> medics = parsers.getMedicParser().processBatch(
+                                Arrays.asList(resHeader.getMedics().split(";")));
+                            for (Medic medic : medics) {
                                 resHeader.addMedic(medic); // add to the medic list
                             }
                         }
@@ -355,7 +368,9 @@ public class HeaderMedicalParser extends AbstractParser {
                         labeledLeftNote = parsers.getLeftNoteMedicalParser().label(leftNote);
 
                         // save the labeled results in POJO
+                        Timer.Context extractionTimer = PipelineMetrics.start(PipelineMetrics.RESULT_EXTRACTION);
                         resLeftNote = parsers.getLeftNoteMedicalParser().resultExtraction(labeledLeftNote, leftNoteTokenization, resLeftNote);
+                        PipelineMetrics.stop(extractionTimer);
 
                         // set the labeled results without any change to the raw text
                         String strLeftNote = parsers.getLeftNoteMedicalParser().trainingExtraction(labeledLeftNote, leftNoteTokenization).toString();
@@ -376,7 +391,9 @@ public class HeaderMedicalParser extends AbstractParser {
 
                 if (serialize) { // need to set the `serialize` into false for the full text processing for preventing the double process
                     TEIFormatter teiFormatter = new TEIFormatter(doc, null);
+                    Timer.Context teiTimer = PipelineMetrics.start(PipelineMetrics.TEI);
                     StringBuilder tei = teiFormatter.toTEIHeaderLeftNote(resHeader, resLeftNote, null, config);
+                    PipelineMetrics.stop(teiTimer);
                     tei.append("</TEI>\n");
                     return tei.toString();
                 } else
@@ -790,7 +807,7 @@ public class HeaderMedicalParser extends AbstractParser {
                     }
 
                     if (previousFeatures != null)
-                        header.append(previousFeatures.printVector());
+                        previousFeatures.printVector(header);
                     previousFeatures = features;
 
                     n++;
@@ -799,7 +816,7 @@ public class HeaderMedicalParser extends AbstractParser {
                 if (previousFeatures != null) {
                     previousFeatures.blockStatus = "BLOCKEND";
                     previousFeatures.lineStatus = "LINEEND";
-                    header.append(previousFeatures.printVector());
+                    previousFeatures.printVector(header);
                     previousFeatures = null;
                 }
             }
@@ -813,8 +830,7 @@ public class HeaderMedicalParser extends AbstractParser {
      */
     public Pair<String, List<LayoutToken>> getSectionHeaderFeaturedAnonym(Document doc,
                                                                           SortedSet<DocumentPiece> documentHeaderParts,
-                                                                          List<String> dataOriginal,
-                                                                          List<String> dataAnonymized) {
+                                                                          PseudonymMap pseudonyms) {
         FeatureFactory featureFactory = FeatureFactory.getInstance();
         StringBuilder header = new StringBuilder();
         String currentFont = null;
@@ -983,9 +999,9 @@ public class HeaderMedicalParser extends AbstractParser {
 
                     // anonymize the data
                     String newText = text;
-                    int idxFound = dataOriginal.indexOf(text.trim());
-                    if (idxFound >= 0) {
-                        newText = dataAnonymized.get(idxFound);
+                    String pseudonym = pseudonyms.get(text.trim());
+                    if (pseudonym != null) {
+                        newText = pseudonym;
                     }
 
                     features.token = token;
@@ -1200,7 +1216,7 @@ public class HeaderMedicalParser extends AbstractParser {
                     }
 
                     if (previousFeatures != null)
-                        header.append(previousFeatures.printVector());
+                        previousFeatures.printVector(header);
                     previousFeatures = features;
 
                     n++;
@@ -1209,7 +1225,7 @@ public class HeaderMedicalParser extends AbstractParser {
                 if (previousFeatures != null) {
                     previousFeatures.blockStatus = "BLOCKEND";
                     previousFeatures.lineStatus = "LINEEND";
-                    header.append(previousFeatures.printVector());
+                    previousFeatures.printVector(header);
                     previousFeatures = null;
                 }
             }
@@ -1542,7 +1558,7 @@ public class HeaderMedicalParser extends AbstractParser {
      * @return a result
      */
     public StringBuilder trainingExtractionAnonym(String result, List<LayoutToken> tokenizations,
-                                                  List<String> dataOriginal, List<String> dataAnonymized) {
+                                                  PseudonymMap pseudonyms) {
         // this is the main buffer for the whole header
         StringBuilder buffer = new StringBuilder();
 
@@ -1570,10 +1586,7 @@ public class HeaderMedicalParser extends AbstractParser {
                 String s = stt.nextToken().trim();
 
                 // anonymize the token
-                int idx = dataOriginal.indexOf(s);
-                if (idx >= 0) {
-                    s = dataAnonymized.get(idx);
-                }
+                s = pseudonyms.replace(s);
 
                 if (i == 0) {
                     s2 = TextUtilities.HTMLEncode(s);
@@ -1582,9 +1595,7 @@ public class HeaderMedicalParser extends AbstractParser {
                     boolean strop = false;
                     while ((!strop) && (p < tokenizations.size())) {
                         String tokOriginal = tokenizations.get(p).t();
-                        if (dataOriginal.indexOf(tokOriginal) >= 0) {
-                            tokOriginal = dataAnonymized.get(idx);
-                        }
+                        tokOriginal = pseudonyms.replace(tokOriginal);
                         if (tokOriginal.equals(" ")
                             || tokOriginal.equals("\u00A0")) {
                             addSpace = true;
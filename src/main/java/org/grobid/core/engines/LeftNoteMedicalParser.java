@@ -1,5 +1,6 @@
 package org.grobid.core.engines;
 
+import com.codahale.metrics.Timer;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -69,20 +70,36 @@ public class LeftNoteMedicalParser extends AbstractParser {
         this.parsers = parsers;
     }
 
+    @Override
+    public String label(String data) {
+        return PipelineMetrics.time(PipelineMetrics.labelling(GrobidModels.LEFT_NOTE_MEDICAL_REPORT), () -> super.label(data));
+    }
+
     /**
      * Processing left-note after the application of the medical-report segmentation model
      */
     public Pair<String, Document> processingLeftNote(File input, String md5Str, LeftNoteMedicalItem resLeftNote, GrobidAnalysisConfig config) {
+        Document doc = labellingLeftNote(input, md5Str, resLeftNote, config);
+        return new ImmutablePair<String, Document>(toTEILeftNote(doc, resLeftNote, config), doc);
+    }
+
+    /**
+     * Left-note labelling after the application of the medical-report segmentation model, the left-note items being
+     * set in resLeftNote. The TEI is built afterwards with toTEILeftNote, which does not use the models.
+     */
+    public Document labellingLeftNote(File input, String md5Str, LeftNoteMedicalItem resLeftNote, GrobidAnalysisConfig config) {
         DocumentSource documentSource = null;
         try {
+            Timer.Context pdfaltoTimer = PipelineMetrics.start(PipelineMetrics.PDFALTO);
             documentSource = DocumentSource.fromPdf(input, config.getStartPage(), config.getEndPage());
+            PipelineMetrics.stop(pdfaltoTimer);
             documentSource.setMD5(md5Str);
             // first, parse the document with the segmentation model
             Document doc = parsers.getMedicalReportSegmenterParser().processing(documentSource, config);
 
             // then take only the left note parts for further process with this method
-            String tei = processingLeftNoteSection(config, doc, resLeftNote, true);
-            return new ImmutablePair<String, Document>(tei, doc);
+            processingLeftNoteSection(config, doc, resLeftNote, false);
+            return doc;
         } finally {
             if (documentSource != null) {
                 documentSource.close(true, true, true);
@@ -100,7 +117,9 @@ public class LeftNoteMedicalParser extends AbstractParser {
             List<LayoutToken> tokenizations = doc.getTokenizations(); // tokens of the entire document
 
             if (documentLeftNoteParts != null) {
+                Timer.Context featuresTimer = PipelineMetrics.start(PipelineMetrics.FEATURES);
                 Pair<String, List<LayoutToken>> featuredLeftNote = getSectionLeftNoteFeatured(doc, documentLeftNoteParts);
+                PipelineMetrics.stop(featuresTimer);
                 String leftNote = featuredLeftNote.getLeft(); // data with features
                 List<LayoutToken> leftNoteTokenization = featuredLeftNote.getRight(); // tokens
                 String res = null;
@@ -109,7 +128,9 @@ public class LeftNoteMedicalParser extends AbstractParser {
                     res = label(leftNote);
 
                     // save the labeled results in POJO
+                    Timer.Context extractionTimer = PipelineMetrics.start(PipelineMetrics.RESULT_EXTRACTION);
                     resLeftNote = resultExtraction(res, leftNoteTokenization, resLeftNote);
+                    PipelineMetrics.stop(extractionTimer);
 
                     // set the labeled results without any change to the raw text
                     String strLeftNote = trainingExtraction(res, leftNoteTokenization).toString();
@@ -123,25 +144,8 @@ public class LeftNoteMedicalParser extends AbstractParser {
                         // set the language
                         String lang = "fr"; // default, it's French
                         // otherwise, try the language identification from the body part text
-                        StringBuilder textBody = new StringBuilder();
-                        String contentSample = "";
-                        SortedSet<DocumentPiece> documentBodyParts = doc.getDocumentPart(MedicalLabels.BODY);
-                        if (documentBodyParts != null) {
-                            Pair<String, LayoutTokenization> featSeg = parsers.getFullMedicalTextParser().getBodyTextFeatured(doc, documentBodyParts);
-                            if (featSeg != null) {
-                                String bodytext = featSeg.getLeft(); // body data with features
-                                List<LayoutToken> tokenizationsBody = featSeg.getRight().getTokenization(); // body tokens
-                                for (LayoutToken token : tokenizationsBody) {
-                                    textBody.append(token.getText());
-                                }
-                            }
-                        }
-                        // test only max 200 characters
-                        if (textBody.toString().length() > 200) {
-                            contentSample = textBody.toString().substring(0, 200);
-                        } else {
-                            contentSample = textBody.toString();
-                        }
+                        // test only max 200 characters, read directly from the body tokens (no need of the features here)
+                        String contentSample = FullMedicalTextParser.getTextSample(doc, doc.getDocumentPart(MedicalLabels.BODY), 200);
                         // define the new language if it exists
                         Language langu = languageUtilities.runLanguageId(contentSample);
                         if (langu != null) {
@@ -155,19 +159,37 @@ public class LeftNoteMedicalParser extends AbstractParser {
                     }
                 }
                 if (serialize) { // need to set the `serialize` into false for the full text processing for preventing the double process
-                    TEIFormatter teiFormatter = new TEIFormatter(doc, null);
-                    StringBuilder tei = teiFormatter.toTEILeftNote(resLeftNote, null, config);
-                    tei.append("</TEI>\n");
-                    return tei.toString();
+                    return toTEILeftNote(doc, resLeftNote, config);
                 } else
                     return null;
             }
+        } catch (GrobidException e) {
+            throw e;
         } catch (Exception e) {
             throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
         }
         return null;
     }
 
+    /**
+     * TEI of the left-note items of a labelled document, null if the document has no left-note part
+     */
+    public static String toTEILeftNote(Document doc, LeftNoteMedicalItem resLeftNote, GrobidAnalysisConfig config) {
+        if (doc.getDocumentPart(MedicalLabels.LEFTNOTE) == null) {
+            return null;
+        }
+        try {
+            TEIFormatter teiFormatter = new TEIFormatter(doc, null);
+            Timer.Context teiTimer = PipelineMetrics.start(PipelineMetrics.TEI);
+            StringBuilder tei = teiFormatter.toTEILeftNote(resLeftNote, null, config);
+            PipelineMetrics.stop(teiTimer);
+            tei.append("</TEI>\n");
+            return tei.toString();
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        }
+    }
+
     /**
      * Return the left-note section with features to be processed by the sequence labelling model
      */
@@ -550,7 +572,7 @@ public class LeftNoteMedicalParser extends AbstractParser {
                     }
 
                     if (previousFeatures != null)
-                        leftNote.append(previousFeatures.printVector());
+                        previousFeatures.printVector(leftNote);
                     previousFeatures = features;
 
                     n++;
@@ -559,7 +581,7 @@ public class LeftNoteMedicalParser extends AbstractParser {
                 if (previousFeatures != null) {
                     previousFeatures.blockStatus = "BLOCKEND";
                     previousFeatures.lineStatus = "LINEEND";
-                    leftNote.append(previousFeatures.printVector());
+                    previousFeatures.printVector(leftNote);
                     previousFeatures = null;
                 }
             }
@@ -573,8 +595,7 @@ public class LeftNoteMedicalParser extends AbstractParser {
      */
     public Pair<String, List<LayoutToken>> getSectionLeftNoteFeaturedAnonym(Document doc,
                                                                             SortedSet<DocumentPiece> documentLeftNoteParts,
-                                                                            List<String> dataOriginal,
-                                                                            List<String> dataAnonymized) {
+                                                                            PseudonymMap pseudonyms) {
         FeatureFactory featureFactory = FeatureFactory.getInstance();
         StringBuilder leftNote = new StringBuilder();
         String currentFont = null;
@@ -952,7 +973,7 @@ public class LeftNoteMedicalParser extends AbstractParser {
                     }
 
                     if (previousFeatures != null)
-                        leftNote.append(previousFeatures.printVector());
+                        previousFeatures.printVector(leftNote);
                     previousFeatures = features;
 
                     n++;
@@ -961,7 +982,7 @@ public class LeftNoteMedicalParser extends AbstractParser {
                 if (previousFeatures != null) {
                     previousFeatures.blockStatus = "BLOCKEND";
                     previousFeatures.lineStatus = "LINEEND";
-                    leftNote.append(previousFeatures.printVector());
+                    previousFeatures.printVector(leftNote);
                     previousFeatures = null;
                 }
             }
@@ -1252,8 +1273,7 @@ public class LeftNoteMedicalParser extends AbstractParser {
      * @return a result
      */
     public StringBuilder trainingExtractionAnonym(String result, List<LayoutToken> tokenizations,
-                                                  List<String> dataOriginal,
-                                                  List<String> dataAnonymized) {
+                                                  PseudonymMap pseudonyms) {
         // this is the main buffer for the whole left-note
         StringBuilder buffer = new StringBuilder();
 
@@ -1281,10 +1301,7 @@ public class LeftNoteMedicalParser extends AbstractParser {
                 String s = stt.nextToken().trim();
 
                 // anonymize the token
-                int idx = dataOriginal.indexOf(s);
-                if (idx >= 0) {
-                    s = dataAnonymized.get(idx);
-                }
+                s = pseudonyms.replace(s);
 
                 if (i == 0) {
                     s2 = TextUtilities.HTMLEncode(s);
@@ -1293,9 +1310,7 @@ public class LeftNoteMedicalParser extends AbstractParser {
                     boolean strop = false;
                     while ((!strop) && (p < tokenizations.size())) {
                         String tokOriginal = tokenizations.get(p).t();
-                        if (dataOriginal.indexOf(tokOriginal) >= 0) {
-                            tokOriginal = dataAnonymized.get(idx);
-                        }
+                        tokOriginal = pseudonyms.replace(tokOriginal);
                         if (tokOriginal.equals(" ")
                             || tokOriginal.equals("\u00A0")) {
                             addSpace = true;
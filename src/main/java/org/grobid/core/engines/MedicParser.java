@@ -16,12 +16,16 @@ import org.grobid.core.tokenization.TaggingTokenCluster;
 import org.grobid.core.tokenization.TaggingTokenClusteror;
 import org.grobid.core.utilities.LayoutTokensUtil;
 import org.grobid.core.utilities.OffsetPosition;
+import org.grobid.core.utilities.PipelineMetrics;
+import org.grobid.core.utilities.PseudonymMap;
+import org.grobid.core.utilities.SequenceBatchUtilities;
 import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.utilities.counters.CntManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.StringTokenizer;
 
@@ -46,6 +50,11 @@ public class MedicParser extends AbstractParser {
         this.parsers = parsers;
     }
 
+    @Override
+    public String label(String data) {
+        return PipelineMetrics.time(PipelineMetrics.labelling(GrobidModels.MEDIC), () -> super.label(data));
+    }
+
     public MedicParser(EngineMedicalParsers parsers) {
         super(GrobidModels.MEDIC);
         this.parsers = parsers;
@@ -81,14 +90,7 @@ public class MedicParser extends AbstractParser {
         }
         Medic medic = null;
         try {
-            List<OffsetPosition> locationPositions = lexicon.tokenPositionsLocationNames(tokens);
-            List<OffsetPosition> titlePositions = lexicon.tokenPositionsPersonTitle(tokens);
-            List<OffsetPosition> suffixPositions = lexicon.tokenPositionsPersonSuffix(tokens);
-            List<OffsetPosition> emailPositions = lexicon.tokenPositionsEmailPattern(tokens);
-            List<OffsetPosition> urlPositions = lexicon.tokenPositionsUrlPattern(tokens);
-            // get the features for the medic
-            String sequence = FeaturesVectorMedic.addFeaturesMedic(tokens, null,
-                locationPositions, titlePositions, suffixPositions, emailPositions, urlPositions);
+            String sequence = featuresMedic(tokens);
 
             if (StringUtils.isEmpty(sequence))
                 return null;
@@ -96,138 +98,201 @@ public class MedicParser extends AbstractParser {
             String res = label(sequence);
             //System.out.println(res);
 
-            TaggingTokenClusteror clusteror = new TaggingTokenClusteror(GrobidModels.MEDIC, res, tokens);
-            medic = new Medic();
+            medic = extractMedic(res, tokens);
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        }
+        return medic;
+    }
 
-            List<TaggingTokenCluster> clusters = clusteror.cluster();
-            for (TaggingTokenCluster cluster : clusters) {
-                if (cluster == null) {
-                    continue;
+    /**
+     * Processing of several medics (e.g. all the medics of a header), all being labelled with a single call
+     * to the model.
+     *
+     * @param inputs list of medic strings
+     * @return the Medic of each input, in the order of the inputs (null for an empty input)
+     */
+    public List<Medic> processBatch(List<String> inputs) {
+        List<Medic> results = new ArrayList<>();
+        if (inputs == null) {
+            return results;
+        }
+        try {
+            List<List<LayoutToken>> tokensList = new ArrayList<>();
+            List<String> sequences = new ArrayList<>();
+            for (String input : inputs) {
+                List<LayoutToken> tokens = null;
+                String sequence = null;
+                if (StringUtils.isNotEmpty(input)) {
+                    // for language to English for the analyser to avoid any bad surprises
+                    tokens = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(input, new Language("en", 1.0));
                 }
+                if (CollectionUtils.isNotEmpty(tokens)) {
+                    sequence = featuresMedic(tokens);
+                }
+                tokensList.add(tokens);
+                sequences.add(sequence);
+            }
 
-                TaggingLabel clusterLabel = cluster.getTaggingLabel();
-                Engine.getCntManager().i(clusterLabel);
-                String clusterContent = StringUtils.normalizeSpace(LayoutTokensUtil.toText(cluster.concatTokens()));
-                String clusterNonDehypenizedContent = LayoutTokensUtil.toText(cluster.concatTokens());
-                if (clusterContent.trim().length() == 0)
-                    continue;
-                // we assume there are several medics can be found in the header part of each document
-                if (clusterLabel.equals(MedicalLabels.MEDIC_ID)) {
-                    if (medic.getIdno() != null) {
-                        medic.setIdno(medic.getIdno() + "; " + clusterContent);
-                    } else {
-                        medic.setIdno(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+            // labelling all the featured data with a single call to the model
+            List<String> labelled = SequenceBatchUtilities.labelSequences(sequences, this::label);
+            for (int i = 0; i < inputs.size(); i++) {
+                String res = labelled.get(i);
+                results.add(res == null ? null : extractMedic(res, tokensList.get(i)));
+            }
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        }
+        return results;
+    }
+
+    /**
+     * Features of a medic, with the positions of the lexicon entries
+     */
+    private String featuresMedic(List<LayoutToken> tokens) throws Exception {
+        List<OffsetPosition> locationPositions = lexicon.tokenPositionsLocationNames(tokens);
+        List<OffsetPosition> titlePositions = lexicon.tokenPositionsPersonTitle(tokens);
+        List<OffsetPosition> suffixPositions = lexicon.tokenPositionsPersonSuffix(tokens);
+        List<OffsetPosition> emailPositions = lexicon.tokenPositionsEmailPattern(tokens);
+        List<OffsetPosition> urlPositions = lexicon.tokenPositionsUrlPattern(tokens);
+        // get the features for the medic
+        return FeaturesVectorMedic.addFeaturesMedic(tokens, null,
+            locationPositions, titlePositions, suffixPositions, emailPositions, urlPositions);
+    }
+
+    /**
+     * Build the Medic from the labelled sequence
+     */
+    private Medic extractMedic(String res, List<LayoutToken> tokens) {
+        TaggingTokenClusteror clusteror = new TaggingTokenClusteror(GrobidModels.MEDIC, res, tokens);
+        Medic medic = new Medic();
+
+        List<TaggingTokenCluster> clusters = clusteror.cluster();
+        for (TaggingTokenCluster cluster : clusters) {
+            if (cluster == null) {
+                continue;
+            }
+
+            TaggingLabel clusterLabel = cluster.getTaggingLabel();
+            Engine.getCntManager().i(clusterLabel);
+            String clusterContent = StringUtils.normalizeSpace(LayoutTokensUtil.toText(cluster.concatTokens()));
+            String clusterNonDehypenizedContent = LayoutTokensUtil.toText(cluster.concatTokens());
+            if (clusterContent.trim().length() == 0)
+                continue;
+            // we assume there are several medics can be found in the header part of each document
+            if (clusterLabel.equals(MedicalLabels.MEDIC_ID)) {
+                if (medic.getIdno() != null) {
+                    medic.setIdno(medic.getIdno() + "; " + clusterContent);
+                } else {
+                    medic.setIdno(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_ROLE)) {
-                    if (medic.getRole() != null) {
-                        medic.setRole(medic.getRole() + "\t" + clusterContent);
-                    } else {
-                        medic.setRole(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_ROLE)) {
+                if (medic.getRole() != null) {
+                    medic.setRole(medic.getRole() + "\t" + clusterContent);
+                } else {
+                    medic.setRole(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_NAME)) {
-                    if (medic.getPersName() != null) {
-                        medic.setPersName(medic.getPersName() + "; " + clusterContent);
-                    } else {
-                        medic.setPersName(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_NAME)) {
+                if (medic.getPersName() != null) {
+                    medic.setPersName(medic.getPersName() + "; " + clusterContent);
+                } else {
+                    medic.setPersName(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_AFFILIATION)) {
-                    if (medic.getAffiliation() != null) {
-                        medic.setAffiliation(medic.getAffiliation() + "; " + clusterContent);
-                    } else {
-                        medic.setAffiliation(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_AFFILIATION)) {
+                if (medic.getAffiliation() != null) {
+                    medic.setAffiliation(medic.getAffiliation() + "; " + clusterContent);
+                } else {
+                    medic.setAffiliation(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_ORGANISATION) || (clusterLabel.equals(MedicalLabels.MEDIC_SERVICE)) ||
-                    (clusterLabel.equals(MedicalLabels.MEDIC_CENTER)) || (clusterLabel.equals(MedicalLabels.MEDIC_ADMINISTRATION))) {
-                    if (medic.getOrganisation() != null) {
-                        medic.setOrganisation(medic.getOrganisation() + "; " + clusterContent);
-                    } else {
-                        medic.setOrganisation(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_ORGANISATION) || (clusterLabel.equals(MedicalLabels.MEDIC_SERVICE)) ||
+                (clusterLabel.equals(MedicalLabels.MEDIC_CENTER)) || (clusterLabel.equals(MedicalLabels.MEDIC_ADMINISTRATION))) {
+                if (medic.getOrganisation() != null) {
+                    medic.setOrganisation(medic.getOrganisation() + "; " + clusterContent);
+                } else {
+                    medic.setOrganisation(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_INSTITUTION)) {
-                    if (medic.getInstitution() != null) {
-                        medic.setInstitution(medic.getInstitution() + "; " + clusterContent);
-                    } else {
-                        medic.setInstitution(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_INSTITUTION)) {
+                if (medic.getInstitution() != null) {
+                    medic.setInstitution(medic.getInstitution() + "; " + clusterContent);
+                } else {
+                    medic.setInstitution(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_ADDRESS)) {
-                    if (medic.getAddress() != null) {
-                        medic.setAddress(medic.getAddress() + "; " + clusterContent);
-                    } else {
-                        medic.setAddress(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_ADDRESS)) {
+                if (medic.getAddress() != null) {
+                    medic.setAddress(medic.getAddress() + "; " + clusterContent);
+                } else {
+                    medic.setAddress(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_COUNTRY)) {
-                    if (medic.getCountry() != null) {
-                        medic.setCountry(medic.getCountry() + "; " + clusterContent);
-                    } else {
-                        medic.setCountry(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_COUNTRY)) {
+                if (medic.getCountry() != null) {
+                    medic.setCountry(medic.getCountry() + "; " + clusterContent);
+                } else {
+                    medic.setCountry(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_TOWN)) {
-                    if (medic.getTown() != null) {
-                        medic.setTown(medic.getTown() + "; " + clusterContent);
-                    } else {
-                        medic.setTown(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_TOWN)) {
+                if (medic.getTown() != null) {
+                    medic.setTown(medic.getTown() + "; " + clusterContent);
+                } else {
+                    medic.setTown(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_EMAIL)) {
-                    if (medic.getEmail() != null) {
-                        medic.setEmail(medic.getEmail() + "; " + clusterContent);
-                    } else {
-                        medic.setEmail(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_EMAIL)) {
+                if (medic.getEmail() != null) {
+                    medic.setEmail(medic.getEmail() + "; " + clusterContent);
+                } else {
+                    medic.setEmail(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_PHONE)) {
-                    if (medic.getPhone() != null) {
-                        medic.setPhone(medic.getPhone() + "; " + clusterContent);
-                    } else {
-                        medic.setPhone(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_PHONE)) {
+                if (medic.getPhone() != null) {
+                    medic.setPhone(medic.getPhone() + "; " + clusterContent);
+                } else {
+                    medic.setPhone(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_FAX)) {
-                    if (medic.getFax() != null) {
-                        medic.setFax(medic.getFax() + "; " + clusterContent);
-                    } else {
-                        medic.setFax(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_FAX)) {
+                if (medic.getFax() != null) {
+                    medic.setFax(medic.getFax() + "; " + clusterContent);
+                } else {
+                    medic.setFax(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_WEB)) {
-                    if (medic.getWeb() != null) {
-                        medic.setWeb(medic.getFax() + "; " + clusterContent);
-                    } else {
-                        medic.setWeb(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_WEB)) {
+                if (medic.getWeb() != null) {
+                    medic.setWeb(medic.getFax() + "; " + clusterContent);
+                } else {
+                    medic.setWeb(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.MEDIC_NOTE)) {
-                    if (medic.getNote() != null) {
-                        medic.setNote(medic.getNote() + " " + clusterContent);
-                    } else {
-                        medic.setNote(clusterContent);
-                    }
-                    medic.addLayoutTokens(cluster.concatTokens());
+                medic.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.MEDIC_NOTE)) {
+                if (medic.getNote() != null) {
+                    medic.setNote(medic.getNote() + " " + clusterContent);
+                } else {
+                    medic.setNote(clusterContent);
                 }
+                medic.addLayoutTokens(cluster.concatTokens());
             }
-        } catch (Exception e) {
-            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
         }
         return medic;
     }
@@ -379,175 +444,204 @@ public class MedicParser extends AbstractParser {
      * @return result
      */
     public StringBuilder trainingExtraction(List<String> inputs) {
-        StringBuilder buffer = new StringBuilder();
-        try {
-            if (inputs == null)
-                return null;
+        if (inputs == null)
+            return null;
 
-            if (inputs.size() == 0)
-                return null;
+        if (inputs.size() == 0)
+            return null;
 
-            List<OffsetPosition> locationsPositions = null;
-            List<OffsetPosition> titlePositions = null;
-            List<OffsetPosition> suffixPositions = null;
-            List<OffsetPosition> emailPositions = null;
-            List<OffsetPosition> urlPositions = null;
+        List<StringBuilder> results = trainingExtractionBatch(inputs);
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < inputs.size(); i++) {
+            if (inputs.get(i) == null)
+                continue;
+            if (results.get(i) == null)
+                return null;
+            buffer.append(results.get(i));
+        }
+        return buffer;
+    }
 
+    /**
+     * Extract results from a list of medic strings in the training format without any string modification,
+     * all the strings being labelled with a single call to the model.
+     *
+     * @param inputs list of input data
+     * @return the result of each input, in the order of the inputs (null for an empty input)
+     */
+    public List<StringBuilder> trainingExtractionBatch(List<String> inputs) {
+        List<StringBuilder> results = new ArrayList<>();
+        if (inputs == null)
+            return results;
+        try {
+            List<List<LayoutToken>> tokenizationsList = new ArrayList<>();
+            List<String> featuresList = new ArrayList<>();
             for (String input : inputs) {
-                if (input == null)
-                    continue;
-
-                List<LayoutToken> tokenizations = analyzer.tokenizeWithLayoutToken(input);
-                if (tokenizations.size() == 0)
-                    return null;
-
-                locationsPositions = lexicon.tokenPositionsLocationNames(tokenizations);
-                titlePositions = lexicon.tokenPositionsPersonTitle(tokenizations);
-                suffixPositions = lexicon.tokenPositionsPersonSuffix(tokenizations);
-                emailPositions = lexicon.tokenPositionsEmailPattern(tokenizations);
-                urlPositions = lexicon.tokenPositionsUrlPattern(tokenizations);
-
-                String ress = FeaturesVectorMedic.addFeaturesMedic(tokenizations, null,
-                    locationsPositions, titlePositions, suffixPositions, emailPositions, urlPositions);
-                String res = label(ress);
-
-                String lastTag = null;
-                String lastTag0;
-                String currentTag0 = null;
-                boolean start = true;
-                String s1 = null;
-                String s2 = null;
-                int p = 0;
-
-                // extract results from the processed file
-                StringTokenizer st = new StringTokenizer(res, "\n");
-                while (st.hasMoreTokens()) {
-                    boolean addSpace = false;
-                    String tok = st.nextToken().trim();
+                List<LayoutToken> tokenizations = null;
+                String ress = null;
+                if (input != null) {
+                    tokenizations = analyzer.tokenizeWithLayoutToken(input);
+                }
+                if (tokenizations != null && tokenizations.size() > 0) {
+                    List<OffsetPosition> locationsPositions = lexicon.tokenPositionsLocationNames(tokenizations);
+                    List<OffsetPosition> titlePositions = lexicon.tokenPositionsPersonTitle(tokenizations);
+                    List<OffsetPosition> suffixPositions = lexicon.tokenPositionsPersonSuffix(tokenizations);
+                    List<OffsetPosition> emailPositions = lexicon.tokenPositionsEmailPattern(tokenizations);
+                    List<OffsetPosition> urlPositions = lexicon.tokenPositionsUrlPattern(tokenizations);
+
+                    ress = FeaturesVectorMedic.addFeaturesMedic(tokenizations, null,
+                        locationsPositions, titlePositions, suffixPositions, emailPositions, urlPositions);
+                }
+                tokenizationsList.add(tokenizations);
+                featuresList.add(ress);
+            }
 
-                    if (tok.length() == 0) {
-                        // new medic
-                        start = true;
-                        continue;
-                    }
-                    StringTokenizer stt = new StringTokenizer(tok, "\t");
-                    int i = 0;
+            List<String> labelled = SequenceBatchUtilities.labelSequences(featuresList, this::label);
+            for (int i = 0; i < inputs.size(); i++) {
+                String res = labelled.get(i);
+                results.add(res == null ? null : trainingExtractionResult(res, tokenizationsList.get(i)));
+            }
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        }
+        return results;
+    }
 
-                    boolean newLine = false;
-                    int ll = stt.countTokens();
-                    while (stt.hasMoreTokens()) {
-                        String s = stt.nextToken().trim();
-                        if (i == 0) {
-                            s2 = TextUtilities.HTMLEncode(s);
-                            //s2 = s;
+    private StringBuilder trainingExtractionResult(String res, List<LayoutToken> tokenizations) {
+        StringBuilder buffer = new StringBuilder();
 
-                            boolean strop = false;
-                            while ((!strop) && (p < tokenizations.size())) {
-                                String tokOriginal = tokenizations.get(p).t();
-                                if (tokOriginal.equals(" ")
-                                    || tokOriginal.equals("\u00A0")) {
-                                    addSpace = true;
-                                } else if (tokOriginal.equals(s)) {
-                                    strop = true;
-                                }
-                                p++;
-                            }
-                        } else if (i == ll - 1) {
-                            s1 = s;
+        String lastTag = null;
+        String lastTag0;
+        String currentTag0 = null;
+        boolean start = true;
+        String s1 = null;
+        String s2 = null;
+        int p = 0;
+
+        // extract results from the processed file
+        StringTokenizer st = new StringTokenizer(res, "\n");
+        while (st.hasMoreTokens()) {
+            boolean addSpace = false;
+            String tok = st.nextToken().trim();
+
+            if (tok.length() == 0) {
+                // new medic
+                start = true;
+                continue;
+            }
+            StringTokenizer stt = new StringTokenizer(tok, "\t");
+            int i = 0;
+
+            boolean newLine = false;
+            int ll = stt.countTokens();
+            while (stt.hasMoreTokens()) {
+                String s = stt.nextToken().trim();
+                if (i == 0) {
+                    s2 = TextUtilities.HTMLEncode(s);
+                    //s2 = s;
+
+                    boolean strop = false;
+                    while ((!strop) && (p < tokenizations.size())) {
+                        String tokOriginal = tokenizations.get(p).t();
+                        if (tokOriginal.equals(" ")
+                            || tokOriginal.equals("\u00A0")) {
+                            addSpace = true;
+                        } else if (tokOriginal.equals(s)) {
+                            strop = true;
                         }
-                        i++;
-                    }
-
-                    if (start && (s1 != null)) {
-                        //buffer.append("\t<medic>");
-                        start = false;
+                        p++;
                     }
+                } else if (i == ll - 1) {
+                    s1 = s;
+                }
+                i++;
+            }
 
-                    lastTag0 = null;
-                    if (lastTag != null) {
-                        if (lastTag.startsWith("I-")) {
-                            lastTag0 = lastTag.substring(2, lastTag.length());
-                        } else {
-                            lastTag0 = lastTag;
-                        }
-                    }
-                    if (s1 != null) {
-                        if (s1.startsWith("I-")) {
-                            currentTag0 = s1.substring(2, s1.length());
-                        } else {
-                            currentTag0 = s1;
-                        }
-                    }
+            if (start && (s1 != null)) {
+                //buffer.append("\t<medic>");
+                start = false;
+            }
 
-                    if ((lastTag0 != null) && (currentTag0 != null))
-                        testClosingTag(buffer, currentTag0, lastTag0);
+            lastTag0 = null;
+            if (lastTag != null) {
+                if (lastTag.startsWith("I-")) {
+                    lastTag0 = lastTag.substring(2, lastTag.length());
+                } else {
+                    lastTag0 = lastTag;
+                }
+            }
+            if (s1 != null) {
+                if (s1.startsWith("I-")) {
+                    currentTag0 = s1.substring(2, s1.length());
+                } else {
+                    currentTag0 = s1;
+                }
+            }
 
+            if ((lastTag0 != null) && (currentTag0 != null))
+                testClosingTag(buffer, currentTag0, lastTag0);
 
-                    String output = writeField(s1, lastTag0, s2, "<idno>", "<idno>", addSpace, 0);
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<other>", "", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<rolename>", "<roleName>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<persname>", "<persName>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<affiliation>", "<affiliation>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<orgname>", "<orgName>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<institution>", "<orgName>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<address>", "<address>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<country>", "<country>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<settlement>", "<settlement>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<email>", "<email>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<phone>", "<phone>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<fax>", "<fax>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<web>", "<ptr type=\"web\">", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<note>", "<note type=\"medic\">", addSpace, 0);
-                    }
-                    if (output != null) {
-                        buffer.append(output);
-                        lastTag = s1;
-                        continue;
-                    }
-                    lastTag = s1;
-                }
 
-                if (lastTag != null) {
-                    if (lastTag.startsWith("I-")) {
-                        lastTag0 = lastTag.substring(2, lastTag.length());
-                    } else {
-                        lastTag0 = lastTag;
-                    }
-                    currentTag0 = "";
-                    testClosingTag(buffer, currentTag0, lastTag0);
-                    //buffer.append("</medic>\n");
-                }
+            String output = writeField(s1, lastTag0, s2, "<idno>", "<idno>", addSpace, 0);
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<other>", "", addSpace, 0);
             }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<rolename>", "<roleName>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<persname>", "<persName>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<affiliation>", "<affiliation>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<orgname>", "<orgName>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<institution>", "<orgName>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<address>", "<address>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<country>", "<country>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<settlement>", "<settlement>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<email>", "<email>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<phone>", "<phone>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<fax>", "<fax>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<web>", "<ptr type=\"web\">", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<note>", "<note type=\"medic\">", addSpace, 0);
+            }
+            if (output != null) {
+                buffer.append(output);
+                lastTag = s1;
+                continue;
+            }
+            lastTag = s1;
+        }
 
-        } catch (Exception e) {
-            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        if (lastTag != null) {
+            if (lastTag.startsWith("I-")) {
+                lastTag0 = lastTag.substring(2, lastTag.length());
+            } else {
+                lastTag0 = lastTag;
+            }
+            currentTag0 = "";
+            testClosingTag(buffer, currentTag0, lastTag0);
+            //buffer.append("</medic>\n");
         }
         return buffer;
     }
@@ -559,7 +653,7 @@ public class MedicParser extends AbstractParser {
      * @param inputs list of input data
      * @return result
      */
-    public StringBuilder trainingExtractionAnonym(List<String> inputs, List<String> dataOriginal, List<String> dataAnonymized) {
+    public StringBuilder trainingExtractionAnonym(List<String> inputs, PseudonymMap pseudonyms) {
         StringBuilder buffer = new StringBuilder();
         try {
             if (inputs == null)
@@ -620,10 +714,7 @@ public class MedicParser extends AbstractParser {
                         String s = stt.nextToken().trim();
 
                         // anonymize the token
-                        int idx = dataOriginal.indexOf(s);
-                        if (idx >= 0) {
-                            s = dataAnonymized.get(idx);
-                        }
+                        s = pseudonyms.replace(s);
 
                         if (i == 0) {
                             s2 = TextUtilities.HTMLEncode(s);
@@ -632,9 +723,7 @@ public class MedicParser extends AbstractParser {
                             boolean strop = false;
                             while ((!strop) && (p < tokenizations.size())) {
                                 String tokOriginal = tokenizations.get(p).t();
-                                if (dataOriginal.indexOf(tokOriginal) >= 0) {
-                                    tokOriginal = dataAnonymized.get(idx);
-                                }
+                                tokOriginal = pseudonyms.replace(tokOriginal);
                                 if (tokOriginal.equals(" ")
                                     || tokOriginal.equals("\u00A0")) {
                                     addSpace = true;
@@ -1,5 +1,6 @@
 package org.grobid.core.engines;
 
+import com.codahale.metrics.Timer;
 import eugfc.imageio.plugins.PNMRegistry;
 import org.apache.commons.io.FileUtils;
 import org.grobid.core.GrobidModels;
@@ -14,6 +15,8 @@ import org.grobid.core.features.FeaturesVectorMedical;
 import org.grobid.core.layout.*;
 import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.core.utilities.LanguageUtilities;
+import org.grobid.core.utilities.PipelineMetrics;
+import org.grobid.core.utilities.PseudonymMap;
 import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.utilities.counters.CntManager;
 import org.slf4j.Logger;
@@ -94,6 +97,11 @@ public class MedicalReportSegmenterParser extends AbstractParser {
         this.parsers = parsers;
     }
 
+    @Override
+    public String label(String data) {
+        return PipelineMetrics.time(PipelineMetrics.labelling(GrobidModels.MEDICAL_REPORT_SEGMENTER), () -> super.label(data));
+    }
+
     /**
      * Segment a PDF document into high level zones: document header, page footer,
      * page header, left note, right note, body, page number, and acknowledgment.
@@ -138,8 +146,13 @@ public class MedicalReportSegmenterParser extends AbstractParser {
                 GrobidExceptionStatus.TOO_MANY_TOKENS);
         }
 
+        PipelineMetrics.count(PipelineMetrics.PAGES, doc.getPages() == null ? 0 : doc.getPages().size());
+        PipelineMetrics.count(PipelineMetrics.TOKENS, tokenizations.size());
+
         doc.produceStatistics();
+        Timer.Context featuresTimer = PipelineMetrics.start(PipelineMetrics.FEATURES);
         String content = getAllLinesFeatured(doc);
+        PipelineMetrics.stop(featuresTimer);
         if (isNotEmpty(trim(content))) {
             String labelledResult = label(content);
             // set the different sections of the Document object
@@ -148,6 +161,17 @@ public class MedicalReportSegmenterParser extends AbstractParser {
         return doc;
     }
 
+    /**
+     * Set the sections of a document already tokenized from the labels of its features, when they are already
+     * computed (e.g. by the training data generation), so that the document is not tokenized and labelled again.
+     */
+    public Document segment(Document doc, String labelledResult) {
+        if (isNotEmpty(trim(labelledResult))) {
+            doc = BasicStructureBuilder.generalResultSegmentation(doc, labelledResult, doc.getTokenizations());
+        }
+        return doc;
+    }
+
     private void dealWithImages(DocumentSource documentSource, Document doc, File assetFile, GrobidAnalysisConfig config) {
         if (assetFile != null) {
             // copy the files under the directory pathXML+"_data" (the asset files) into the path specified by assetPath
@@ -618,7 +642,7 @@ public class MedicalReportSegmenterParser extends AbstractParser {
             }
         }
         if (previousFeatures != null)
-            fulltext.append(previousFeatures.printVector());
+            previousFeatures.printVector(fulltext);
 
         return fulltext.toString();
     }
@@ -633,7 +657,7 @@ public class MedicalReportSegmenterParser extends AbstractParser {
      * The dictionary flags are at line level (i.e. the line contains a name mention, a place mention, a year, etc.)
      * Regarding layout features: font, size and style are the one associated to the first token of the line.
      */
-    public String getAllLinesFeaturedAnonym(Document doc, List<String> dataOriginal, List<String> dataAnonymized) {
+    public String getAllLinesFeaturedAnonym(Document doc, PseudonymMap pseudonyms) {
 
         List<Block> blocks = doc.getBlocks();
         if ((blocks == null) || blocks.size() == 0) {
@@ -680,14 +704,14 @@ public class MedicalReportSegmenterParser extends AbstractParser {
             }
         }
 
-        String featuresAsString = getFeatureVectorsAnonymAsString(doc, patterns, firstTimePattern, dataOriginal, dataAnonymized);
+        String featuresAsString = getFeatureVectorsAnonymAsString(doc, patterns, firstTimePattern, pseudonyms);
 
         return featuresAsString;
     }
 
     private String getFeatureVectorsAnonymAsString(Document doc, Map<String, Integer> patterns,
                                                    Map<String, Boolean> firstTimePattern,
-                                                   List<String> dataOriginal, List<String> dataAnonymized) {
+                                                   PseudonymMap pseudonyms) {
         StringBuilder fulltext = new StringBuilder();
         int documentLength = doc.getDocumentLenghtChar();
 
@@ -831,15 +855,9 @@ public class MedicalReportSegmenterParser extends AbstractParser {
                     }
 
                     // anonymize the data
-                    int idx = dataOriginal.indexOf(text);
-                    if (idx >= 0) {
-                        text = dataAnonymized.get(idx).trim();
-                    }
+                    text = pseudonyms.replace(text);
 
-                    int idx2 = dataOriginal.indexOf(text2);
-                    if (idx2 >= 0) {
-                        text2 = dataAnonymized.get(idx2).trim();
-                    }
+                    text2 = pseudonyms.replace(text2);
 
                     features.string = text;
                     features.secondString = text2;
@@ -1023,7 +1041,7 @@ public class MedicalReportSegmenterParser extends AbstractParser {
             }
         }
         if (previousFeatures != null)
-            fulltext.append(previousFeatures.printVector());
+            previousFeatures.printVector(fulltext);
 
         return fulltext.toString();
     }
@@ -1256,22 +1274,7 @@ public class MedicalReportSegmenterParser extends AbstractParser {
                                                         int id) {
 
         // treat the anonymized data first
-        List<String> dataOriginal = new ArrayList<>();
-        List<String> dataAnonymized = new ArrayList<>();
-
-        for (int i = 0; i < dataAnonym.size(); i++) {
-            List<String> dataAnonymSplit = Arrays.asList(dataAnonym.get(i).split("\t"));
-            if (dataAnonymSplit.get(0) != null) {
-                dataOriginal.add(dataAnonymSplit.get(0));
-            } else {
-                dataOriginal.add("");
-            }
-            if (dataAnonymSplit.get(1) != null) {
-                dataAnonymized.add(dataAnonymSplit.get(1));
-            } else {
-                dataAnonymized.add("");
-            }
-        }
+        PseudonymMap pseudonyms = PseudonymMap.fromPairs(dataAnonym);
 
         DocumentSource documentSource = null;
         try {
@@ -1287,7 +1290,7 @@ public class MedicalReportSegmenterParser extends AbstractParser {
             }
             doc.produceStatistics();
 
-            String fulltext = getAllLinesFeaturedAnonym(doc, dataOriginal, dataAnonymized); // contain the anonymized tokens with the features
+            String fulltext = getAllLinesFeaturedAnonym(doc, pseudonyms); // contain the anonymized tokens with the features
             List<LayoutToken> tokenizations = doc.getTokenizations();
 
             // we write the full text untagged (but containing features)
@@ -1528,8 +1531,7 @@ public class MedicalReportSegmenterParser extends AbstractParser {
     public StringBuffer trainingExtractionAnonym(String result,
                                                  List<LayoutToken> tokenizations,
                                                  Document doc,
-                                                 List<String> dataOriginal,
-                                                 List<String> dataAnonymized) {
+                                                 PseudonymMap pseudonyms) {
         // this is the main buffer for the whole full text
         StringBuffer buffer = new StringBuffer();
         try {
@@ -1564,10 +1566,7 @@ public class MedicalReportSegmenterParser extends AbstractParser {
                 while (stt.hasMoreTokens()) {
                     String s = stt.nextToken().trim();
                     // anonymize the token
-                    int idx = dataOriginal.indexOf(s);
-                    if (idx >= 0) {
-                        s = dataAnonymized.get(idx);
-                    }
+                    s = pseudonyms.replace(s);
 
                     if (i == 0) {
                         s2 = TextUtilities.HTMLEncode(s); // lexical token
@@ -1621,10 +1620,7 @@ public class MedicalReportSegmenterParser extends AbstractParser {
                 line = TextUtilities.HTMLEncode(line);
                 List<String> splitLine = analyzer.tokenize(line);
                 for(int j = 0; j < splitLine.size(); j++) {
-                    int idx = dataOriginal.indexOf(splitLine.get(j));
-                    if (idx >= 0) {
-                        splitLine.set(j, dataAnonymized.get(idx));
-                    }
+                    splitLine.set(j, pseudonyms.replace(splitLine.get(j)));
                 }
                 line = String.join("", splitLine);
                 line = TextUtilities.HTMLEncode(line); // encode the text to its HTML equivalent
@@ -16,6 +16,9 @@ import org.grobid.core.tokenization.TaggingTokenCluster;
 import org.grobid.core.tokenization.TaggingTokenClusteror;
 import org.grobid.core.utilities.LayoutTokensUtil;
 import org.grobid.core.utilities.OffsetPosition;
+import org.grobid.core.utilities.PipelineMetrics;
+import org.grobid.core.utilities.PseudonymMap;
+import org.grobid.core.utilities.SequenceBatchUtilities;
 import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.utilities.counters.CntManager;
 import org.slf4j.Logger;
@@ -47,6 +50,11 @@ public class PatientParser extends AbstractParser {
         this.parsers = parsers;
     }
 
+    @Override
+    public String label(String data) {
+        return PipelineMetrics.time(PipelineMetrics.labelling(GrobidModels.PATIENT), () -> super.label(data));
+    }
+
     public PatientParser(EngineMedicalParsers parsers) {
         super(GrobidModels.PATIENT);
         this.parsers = parsers;
@@ -82,13 +90,7 @@ public class PatientParser extends AbstractParser {
         }
         Patient patient = null;
         try {
-            List<OffsetPosition> locationsPositions = lexicon.tokenPositionsLocationNames(tokens);
-            List<OffsetPosition> titlePositions = lexicon.tokenPositionsPersonTitle(tokens);
-            List<OffsetPosition> suffixPositions = lexicon.tokenPositionsPersonSuffix(tokens);
-
-            // get the features for the patient
-            String sequence = FeaturesVectorPatient.addFeaturesPatient(tokens, null,
-                locationsPositions, titlePositions, suffixPositions);
+            String sequence = featuresPatient(tokens);
 
             if (StringUtils.isEmpty(sequence))
                 return null;
@@ -96,123 +98,185 @@ public class PatientParser extends AbstractParser {
             String res = label(sequence);
             //System.out.println(res);
 
-            TaggingTokenClusteror clusteror = new TaggingTokenClusteror(GrobidModels.PATIENT, res, tokens);
-            patient = new Patient();
+            patient = extractPatient(res, tokens);
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        }
+        return patient;
+    }
 
-            List<TaggingTokenCluster> clusters = clusteror.cluster();
-            for (TaggingTokenCluster cluster : clusters) {
-                if (cluster == null) {
-                    continue;
+    /**
+     * Processing of several patients (e.g. all the patients of a header), all being labelled with a single call
+     * to the model.
+     *
+     * @param inputs list of patient strings
+     * @return the Patient of each input, in the order of the inputs (null for an empty input)
+     */
+    public List<Patient> processBatch(List<String> inputs) {
+        List<Patient> results = new ArrayList<>();
+        if (inputs == null) {
+            return results;
+        }
+        try {
+            List<List<LayoutToken>> tokensList = new ArrayList<>();
+            List<String> sequences = new ArrayList<>();
+            for (String input : inputs) {
+                List<LayoutToken> tokens = null;
+                String sequence = null;
+                if (StringUtils.isNotEmpty(input)) {
+                    // for language to English for the analyser to avoid any bad surprises
+                    tokens = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(input, new Language("en", 1.0));
+                }
+                if (CollectionUtils.isNotEmpty(tokens)) {
+                    sequence = featuresPatient(tokens);
                 }
+                tokensList.add(tokens);
+                sequences.add(sequence);
+            }
 
-                TaggingLabel clusterLabel = cluster.getTaggingLabel();
-                Engine.getCntManager().i(clusterLabel);
-                String clusterContent = StringUtils.normalizeSpace(LayoutTokensUtil.toText(cluster.concatTokens()));
-                String clusterNonDehypenizedContent = LayoutTokensUtil.toText(cluster.concatTokens());
-                if (clusterContent.trim().length() == 0)
-                    continue;
-                // we assume there is only one unique patient can be found in the header part of each document (but having different number ID)
-                if (clusterLabel.equals(MedicalLabels.PATIENT_ID_TYPE)) {
-                    if (patient.getIDType() != null) {
-                        patient.setIDType(patient.getIDType() + "\t" + clusterContent);
-                    } else {
-                        patient.setIDType(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+            // labelling all the featured data with a single call to the model
+            List<String> labelled = SequenceBatchUtilities.labelSequences(sequences, this::label);
+            for (int i = 0; i < inputs.size(); i++) {
+                String res = labelled.get(i);
+                results.add(res == null ? null : extractPatient(res, tokensList.get(i)));
+            }
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        }
+        return results;
+    }
+
+    /**
+     * Features of a patient, with the positions of the lexicon entries
+     */
+    private String featuresPatient(List<LayoutToken> tokens) throws Exception {
+        List<OffsetPosition> locationsPositions = lexicon.tokenPositionsLocationNames(tokens);
+        List<OffsetPosition> titlePositions = lexicon.tokenPositionsPersonTitle(tokens);
+        List<OffsetPosition> suffixPositions = lexicon.tokenPositionsPersonSuffix(tokens);
+
+        // get the features for the patient
+        return FeaturesVectorPatient.addFeaturesPatient(tokens, null,
+            locationsPositions, titlePositions, suffixPositions);
+    }
+
+    /**
+     * Build the Patient from the labelled sequence
+     */
+    private Patient extractPatient(String res, List<LayoutToken> tokens) {
+        TaggingTokenClusteror clusteror = new TaggingTokenClusteror(GrobidModels.PATIENT, res, tokens);
+        Patient patient = new Patient();
+
+        List<TaggingTokenCluster> clusters = clusteror.cluster();
+        for (TaggingTokenCluster cluster : clusters) {
+            if (cluster == null) {
+                continue;
+            }
+
+            TaggingLabel clusterLabel = cluster.getTaggingLabel();
+            Engine.getCntManager().i(clusterLabel);
+            String clusterContent = StringUtils.normalizeSpace(LayoutTokensUtil.toText(cluster.concatTokens()));
+            String clusterNonDehypenizedContent = LayoutTokensUtil.toText(cluster.concatTokens());
+            if (clusterContent.trim().length() == 0)
+                continue;
+            // we assume there is only one unique patient can be found in the header part of each document (but having different number ID)
+            if (clusterLabel.equals(MedicalLabels.PATIENT_ID_TYPE)) {
+                if (patient.getIDType() != null) {
+                    patient.setIDType(patient.getIDType() + "\t" + clusterContent);
+                } else {
+                    patient.setIDType(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_ID)) {
-                    if (patient.getID() != null) {
-                        patient.setID(patient.getID() + "; " + clusterContent);
-                    } else {
-                        patient.setID(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_ID)) {
+                if (patient.getID() != null) {
+                    patient.setID(patient.getID() + "; " + clusterContent);
+                } else {
+                    patient.setID(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_NAME)) {
-                    if (patient.getPersName() == null) {
-                        patient.setPersName(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_NAME)) {
+                if (patient.getPersName() == null) {
+                    patient.setPersName(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_SEX)) {
-                    if (patient.getSex() == null) {
-                        patient.setSex(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_SEX)) {
+                if (patient.getSex() == null) {
+                    patient.setSex(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_DATE_BIRTH)) {
-                    if (patient.getDateBirth() == null) {
-                        patient.setDateBirth(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_DATE_BIRTH)) {
+                if (patient.getDateBirth() == null) {
+                    patient.setDateBirth(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_PLACE_BIRTH)) {
-                    if (patient.getPlaceBirth() == null) {
-                        patient.setPlaceBirth(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_PLACE_BIRTH)) {
+                if (patient.getPlaceBirth() == null) {
+                    patient.setPlaceBirth(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_AGE)) {
-                    if (patient.getAge() == null) {
-                        patient.setAge(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_AGE)) {
+                if (patient.getAge() == null) {
+                    patient.setAge(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_DATE_DEATH)) {
-                    if (patient.getDateDeath() == null) {
-                        patient.setDateDeath(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_DATE_DEATH)) {
+                if (patient.getDateDeath() == null) {
+                    patient.setDateDeath(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_ADDRESS)) {
-                    if (patient.getAddress() == null) {
-                        patient.setAddress(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_ADDRESS)) {
+                if (patient.getAddress() == null) {
+                    patient.setAddress(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_COUNTRY)) {
-                    if (patient.getCountry() == null) {
-                        patient.setCountry(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_COUNTRY)) {
+                if (patient.getCountry() == null) {
+                    patient.setCountry(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_TOWN)) {
-                    if (patient.getTown() != null) {
-                        patient.setTown(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_TOWN)) {
+                if (patient.getTown() != null) {
+                    patient.setTown(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_PHONE)) {
-                    if (patient.getPhone() != null &&
-                        isDifferentContent(patient.getPhone(), clusterContent) &&
-                        patient.getPhone().length() < clusterContent.length()) {
-                        patient.setPhone(patient.getPhone() + "; " + clusterContent);
-                    } else {
-                        patient.setPhone(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_PHONE)) {
+                if (patient.getPhone() != null &&
+                    isDifferentContent(patient.getPhone(), clusterContent) &&
+                    patient.getPhone().length() < clusterContent.length()) {
+                    patient.setPhone(patient.getPhone() + "; " + clusterContent);
+                } else {
+                    patient.setPhone(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_EMAIL)) {
-                    if (patient.getEmail() != null &&
-                        isDifferentContent(patient.getEmail(), clusterContent) &&
-                        patient.getEmail().length() < clusterContent.length()) {
-                        patient.setEmail(patient.getEmail() + "; " + clusterContent);
-                    } else {
-                        patient.setEmail(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_EMAIL)) {
+                if (patient.getEmail() != null &&
+                    isDifferentContent(patient.getEmail(), clusterContent) &&
+                    patient.getEmail().length() < clusterContent.length()) {
+                    patient.setEmail(patient.getEmail() + "; " + clusterContent);
+                } else {
+                    patient.setEmail(clusterContent);
                 }
-                if (clusterLabel.equals(MedicalLabels.PATIENT_NOTE)) {
-                    if (patient.getNote() != null) {
-                        patient.setNote(patient.getNote() + " " + clusterContent);
-                    } else {
-                        patient.setNote(clusterContent);
-                    }
-                    patient.addLayoutTokens(cluster.concatTokens());
+                patient.addLayoutTokens(cluster.concatTokens());
+            }
+            if (clusterLabel.equals(MedicalLabels.PATIENT_NOTE)) {
+                if (patient.getNote() != null) {
+                    patient.setNote(patient.getNote() + " " + clusterContent);
+                } else {
+                    patient.setNote(clusterContent);
                 }
+                patient.addLayoutTokens(cluster.concatTokens());
             }
-        } catch (Exception e) {
-            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
         }
         return patient;
     }
@@ -370,171 +434,202 @@ public class PatientParser extends AbstractParser {
      * @return result
      */
     public StringBuilder trainingExtraction(List<String> inputs) {
-        StringBuilder buffer = new StringBuilder();
-        try {
-            if (inputs == null)
-                return null;
+        if (inputs == null)
+            return null;
 
-            if (inputs.size() == 0)
-                return null;
+        if (inputs.size() == 0)
+            return null;
 
-            List<OffsetPosition> locationsPositions = null;
-            List<OffsetPosition> titlePositions = null;
-            List<OffsetPosition> suffixPositions = null;
+        List<StringBuilder> results = trainingExtractionBatch(inputs);
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < inputs.size(); i++) {
+            if (inputs.get(i) == null)
+                continue;
+            if (results.get(i) == null)
+                return null;
+            buffer.append(results.get(i));
+        }
+        return buffer;
+    }
 
+    /**
+     * Extract results from a list of patient strings in the training format without any string modification,
+     * all the strings being labelled with a single call to the model.
+     *
+     * @param inputs list of input data
+     * @return the result of each input, in the order of the inputs (null for an empty input)
+     */
+    public List<StringBuilder> trainingExtractionBatch(List<String> inputs) {
+        List<StringBuilder> results = new ArrayList<>();
+        if (inputs == null)
+            return results;
+        try {
+            List<List<LayoutToken>> tokenizationsList = new ArrayList<>();
+            List<String> featuresList = new ArrayList<>();
             for (String input : inputs) {
-                if (input == null)
-                    continue;
-
-                List<LayoutToken> tokenizations = analyzer.tokenizeWithLayoutToken(input);
-                if (tokenizations.size() == 0)
-                    return null;
-
-                locationsPositions = lexicon.tokenPositionsLocationNames(tokenizations);
-                titlePositions = lexicon.tokenPositionsPersonTitle(tokenizations);
-                suffixPositions = lexicon.tokenPositionsPersonSuffix(tokenizations);
-
-                String ress = FeaturesVectorPatient.addFeaturesPatient(tokenizations, null,
-                    locationsPositions, titlePositions, suffixPositions);
-                String res = label(ress);
-
-                String lastTag = null;
-                String lastTag0;
-                String currentTag0 = null;
-                boolean start = true;
-                String s1 = null;
-                String s2 = null;
-                int p = 0;
+                List<LayoutToken> tokenizations = null;
+                String ress = null;
+                if (input != null) {
+                    tokenizations = analyzer.tokenizeWithLayoutToken(input);
+                }
+                if (tokenizations != null && tokenizations.size() > 0) {
+                    List<OffsetPosition> locationsPositions = lexicon.tokenPositionsLocationNames(tokenizations);
+                    List<OffsetPosition> titlePositions = lexicon.tokenPositionsPersonTitle(tokenizations);
+                    List<OffsetPosition> suffixPositions = lexicon.tokenPositionsPersonSuffix(tokenizations);
 
-                // extract results from the processed file
-                StringTokenizer st = new StringTokenizer(res, "\n");
-                while (st.hasMoreTokens()) {
-                    boolean addSpace = false;
-                    String tok = st.nextToken().trim();
+                    ress = FeaturesVectorPatient.addFeaturesPatient(tokenizations, null,
+                        locationsPositions, titlePositions, suffixPositions);
+                }
+                tokenizationsList.add(tokenizations);
+                featuresList.add(ress);
+            }
 
-                    if (tok.length() == 0) {
-                        // new patient
-                        start = true;
-                        continue;
-                    }
-                    StringTokenizer stt = new StringTokenizer(tok, "\t");
-                    int i = 0;
+            List<String> labelled = SequenceBatchUtilities.labelSequences(featuresList, this::label);
+            for (int i = 0; i < inputs.size(); i++) {
+                String res = labelled.get(i);
+                results.add(res == null ? null : trainingExtractionResult(res, tokenizationsList.get(i)));
+            }
+        } catch (Exception e) {
+            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        }
+        return results;
+    }
 
-                    boolean newLine = false;
-                    int ll = stt.countTokens();
-                    while (stt.hasMoreTokens()) {
-                        String s = stt.nextToken().trim();
-                        if (i == 0) {
-                            s2 = TextUtilities.HTMLEncode(s);
-                            //s2 = s;
+    private StringBuilder trainingExtractionResult(String res, List<LayoutToken> tokenizations) {
+        StringBuilder buffer = new StringBuilder();
 
-                            boolean strop = false;
-                            while ((!strop) && (p < tokenizations.size())) {
-                                String tokOriginal = tokenizations.get(p).t();
-                                if (tokOriginal.equals(" ")
-                                    || tokOriginal.equals("\u00A0")) {
-                                    addSpace = true;
-                                } else if (tokOriginal.equals(s)) {
-                                    strop = true;
-                                }
-                                p++;
-                            }
-                        } else if (i == ll - 1) {
-                            s1 = s;
+        String lastTag = null;
+        String lastTag0;
+        String currentTag0 = null;
+        boolean start = true;
+        String s1 = null;
+        String s2 = null;
+        int p = 0;
+
+        // extract results from the processed file
+        StringTokenizer st = new StringTokenizer(res, "\n");
+        while (st.hasMoreTokens()) {
+            boolean addSpace = false;
+            String tok = st.nextToken().trim();
+
+            if (tok.length() == 0) {
+                // new patient
+                start = true;
+                continue;
+            }
+            StringTokenizer stt = new StringTokenizer(tok, "\t");
+            int i = 0;
+
+            boolean newLine = false;
+            int ll = stt.countTokens();
+            while (stt.hasMoreTokens()) {
+                String s = stt.nextToken().trim();
+                if (i == 0) {
+                    s2 = TextUtilities.HTMLEncode(s);
+                    //s2 = s;
+
+                    boolean strop = false;
+                    while ((!strop) && (p < tokenizations.size())) {
+                        String tokOriginal = tokenizations.get(p).t();
+                        if (tokOriginal.equals(" ")
+                            || tokOriginal.equals("\u00A0")) {
+                            addSpace = true;
+                        } else if (tokOriginal.equals(s)) {
+                            strop = true;
                         }
-                        i++;
-                    }
-
-                    if (start && (s1 != null)) {
-                        //buffer.append("\t<patient>");
-                        start = false;
+                        p++;
                     }
+                } else if (i == ll - 1) {
+                    s1 = s;
+                }
+                i++;
+            }
 
-                    lastTag0 = null;
-                    if (lastTag != null) {
-                        if (lastTag.startsWith("I-")) {
-                            lastTag0 = lastTag.substring(2, lastTag.length());
-                        } else {
-                            lastTag0 = lastTag;
-                        }
-                    }
-                    if (s1 != null) {
-                        if (s1.startsWith("I-")) {
-                            currentTag0 = s1.substring(2, s1.length());
-                        } else {
-                            currentTag0 = s1;
-                        }
-                    }
+            if (start && (s1 != null)) {
+                //buffer.append("\t<patient>");
+                start = false;
+            }
 
-                    if ((lastTag0 != null) && (currentTag0 != null))
-                        testClosingTag(buffer, currentTag0, lastTag0);
+            lastTag0 = null;
+            if (lastTag != null) {
+                if (lastTag.startsWith("I-")) {
+                    lastTag0 = lastTag.substring(2, lastTag.length());
+                } else {
+                    lastTag0 = lastTag;
+                }
+            }
+            if (s1 != null) {
+                if (s1.startsWith("I-")) {
+                    currentTag0 = s1.substring(2, s1.length());
+                } else {
+                    currentTag0 = s1;
+                }
+            }
 
+            if ((lastTag0 != null) && (currentTag0 != null))
+                testClosingTag(buffer, currentTag0, lastTag0);
 
-                    String output = writeField(s1, lastTag0, s2, "<idno>", "<idno>", addSpace, 0);
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<other>", "", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<idtype>", "<idType>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<sex>", "<sex>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<persname>", "<persName>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<birthdate>", "<birthDate>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<birthplace>", "<birthPlace>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<age>", "<age>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<death>", "<death>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<address>", "<address>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<country>", "<country>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<settlement>", "<settlement>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<phone>", "<phone>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<email>", "<email>", addSpace, 0);
-                    }
-                    if (output == null) {
-                        output = writeField(s1, lastTag0, s2, "<note>", "<note type=\"patient\">", addSpace, 0);
-                    }
-                    if (output != null) {
-                        buffer.append(output);
-                        lastTag = s1;
-                        continue;
-                    }
-                    lastTag = s1;
-                }
 
-                if (lastTag != null) {
-                    if (lastTag.startsWith("I-")) {
-                        lastTag0 = lastTag.substring(2, lastTag.length());
-                    } else {
-                        lastTag0 = lastTag;
-                    }
-                    currentTag0 = "";
-                    testClosingTag(buffer, currentTag0, lastTag0);
-                    //buffer.append("</patient>\n");
-                }
+            String output = writeField(s1, lastTag0, s2, "<idno>", "<idno>", addSpace, 0);
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<other>", "", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<idtype>", "<idType>", addSpace, 0);
             }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<sex>", "<sex>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<persname>", "<persName>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<birthdate>", "<birthDate>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<birthplace>", "<birthPlace>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<age>", "<age>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<death>", "<death>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<address>", "<address>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<country>", "<country>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<settlement>", "<settlement>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<phone>", "<phone>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<email>", "<email>", addSpace, 0);
+            }
+            if (output == null) {
+                output = writeField(s1, lastTag0, s2, "<note>", "<note type=\"patient\">", addSpace, 0);
+            }
+            if (output != null) {
+                buffer.append(output);
+                lastTag = s1;
+                continue;
+            }
+            lastTag = s1;
+        }
 
-        } catch (Exception e) {
-            throw new GrobidException("An exception occurred while running grobid-medical-report.", e);
+        if (lastTag != null) {
+            if (lastTag.startsWith("I-")) {
+                lastTag0 = lastTag.substring(2, lastTag.length());
+            } else {
+                lastTag0 = lastTag;
+            }
+            currentTag0 = "";
+            testClosingTag(buffer, currentTag0, lastTag0);
+            //buffer.append("</patient>\n");
         }
         return buffer;
     }
@@ -546,7 +641,7 @@ public class PatientParser extends AbstractParser {
      * @param inputs list of input data
      * @return result
      */
-    public StringBuilder trainingExtractionAnonym(List<String> inputs, List<String> dataOriginal, List<String> dataAnonymized) {
+    public StringBuilder trainingExtractionAnonym(List<String> inputs, PseudonymMap pseudonyms) {
         StringBuilder buffer = new StringBuilder();
         try {
             if (inputs == null)
@@ -603,10 +698,7 @@ public class PatientParser extends AbstractParser {
                         String s = stt.nextToken().trim();
 
                         // anonymize the token
-                        int idx = dataOriginal.indexOf(s);
-                        if (idx >= 0) {
-                            s = dataAnonymized.get(idx);
-                        }
+                        s = pseudonyms.replace(s);
 
                         if (i == 0) {
                             s2 = TextUtilities.HTMLEncode(s);
@@ -615,9 +707,7 @@ public class PatientParser extends AbstractParser {
                             boolean strop = false;
                             while ((!strop) && (p < tokenizations.size())) {
                                 String tokOriginal = tokenizations.get(p).t();
-                                if (dataOriginal.indexOf(tokOriginal) >= 0) {
-                                    tokOriginal = dataAnonymized.get(idx);
-                                }
+                                tokOriginal = pseudonyms.replace(tokOriginal);
                                 if (tokOriginal.equals(" ")
                                     || tokOriginal.equals("\u00A0")) {
                                     addSpace = true;
@@ -16,6 +16,7 @@ import org.grobid.core.tokenization.TaggingTokenCluster;
 import org.grobid.core.tokenization.TaggingTokenClusteror;
 import org.grobid.core.utilities.LayoutTokensUtil;
 import org.grobid.core.utilities.OffsetPosition;
+import org.grobid.core.utilities.PseudonymMap;
 import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.utilities.counters.CntManager;
 import org.slf4j.Logger;
@@ -367,7 +368,7 @@ public class PersonNameParser extends AbstractParser {
     /**
      * Extract results from a dateline string in the training format without any string modification.
      */
-    public StringBuilder trainingExtractionAnonym(List<String> inputs, List<String> dataOriginal, List<String> dataAnonymized) {
+    public StringBuilder trainingExtractionAnonym(List<String> inputs, PseudonymMap pseudonyms) {
         StringBuilder buffer = new StringBuilder();
         try {
             if (inputs == null)
@@ -420,10 +421,7 @@ public class PersonNameParser extends AbstractParser {
                         String s = stt.nextToken().trim();
 
                         // anonymize the token
-                        int idx = dataOriginal.indexOf(s);
-                        if (idx >= 0) {
-                            s = dataAnonymized.get(idx);
-                        }
+                        s = pseudonyms.replace(s);
 
                         if (i == 0) {
                             s2 = TextUtilities.HTMLEncode(s);
@@ -432,9 +430,7 @@ public class PersonNameParser extends AbstractParser {
                             boolean strop = false;
                             while ((!strop) && (p < tokenizations.size())) {
                                 String tokOriginal = tokenizations.get(p).t();
-                                if (dataOriginal.indexOf(tokOriginal) >= 0) {
-                                    tokOriginal = dataAnonymized.get(idx);
-                                }
+                                tokOriginal = pseudonyms.replace(tokOriginal);
                                 if (tokOriginal.equals(" ")
                                     || tokOriginal.equals("\u00A0")) {
                                     addSpace = true;
@@ -1,10 +1,12 @@
 package org.grobid.core.engines;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.grobid.core.engines.config.GrobidAnalysisConfig;
 import org.grobid.core.factory.GrobidMedicalFactory;
-import org.grobid.core.main.batch.GrobidMainArgs;
+import org.grobid.core.factory.GrobidMedicalPoolingFactory;
 import org.grobid.core.main.batch.GrobidMedicalReportMainArgs;
+import org.grobid.core.utilities.GrobidProperties;
 import org.grobid.core.utilities.IOUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,7 +17,12 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Perform the batch processing for the different engine methods.
@@ -81,40 +88,10 @@ public class ProcessEngineMedical implements Closeable {
      * @throws Exception
      */
     private void processHeaderDirectory(File[] files, final GrobidMedicalReportMainArgs pGbdArgs, String outputPath) {
-        if (files != null) {
-            boolean recurse = pGbdArgs.isRecursive();
-            String result;
-            for (final File currPdf : files) {
-                try {
-                    if (currPdf.getName().toLowerCase().endsWith(".pdf")) {
-                        result = getEngine().processHeaderLeftNoteMedicalReport(currPdf.getAbsolutePath(), null, null, null);
-                        File outputPathFile = new File(outputPath);
-                        if (!outputPathFile.exists()) {
-                            outputPathFile.mkdirs();
-                        }
-                        if (currPdf.getName().endsWith(".pdf")) {
-                            IOUtilities.writeInFile(outputPath + File.separator
-                                    + new File(currPdf.getAbsolutePath())
-                                    .getName().replace(".pdf", ".header.medical.tei.xml"), result.toString());
-                        } else if (currPdf.getName().endsWith(".PDF")) {
-                            IOUtilities.writeInFile(outputPath + File.separator
-                                    + new File(currPdf.getAbsolutePath())
-                                    .getName().replace(".PDF", ".header.medical.tei.xml"), result.toString());
-                        }
-                    } else if (recurse && currPdf.isDirectory()) {
-                        File[] newFiles = currPdf.listFiles();
-                        if (newFiles != null) {
-                            String newLevel = currPdf.getName();
-                            processHeaderDirectory(newFiles, pGbdArgs, outputPath +
-                                    File.separator + newLevel);
-                        }
-                    }
-                } catch (final Exception exp) {
-                    LOGGER.error("An error occurred while processing the file " + currPdf.getAbsolutePath()
-                            + ". Continuing the process for the other files", exp);
-                }
-            }
-        }
+        List<Pair<File, File>> pdfFiles = new ArrayList<>();
+        collectPdfFiles(files, pGbdArgs.isRecursive(), outputPath, ".header.medical.tei.xml", pdfFiles);
+        processBatch(pdfFiles, pGbdArgs, (engineMedical, currPdf, output) ->
+            engineMedical.processHeaderLeftNoteMedicalReport(currPdf.getAbsolutePath(), null, null, null));
     }
 
     /**
@@ -212,63 +189,168 @@ public class ProcessEngineMedical implements Closeable {
      * @throws Exception
      */
     private void processFullTextDirectory(File[] files,
-                                          final GrobidMainArgs pGbdArgs,
+                                          final GrobidMedicalReportMainArgs pGbdArgs,
                                           String outputPath,
                                           boolean saveAssets,
                                           List<String> elementCoordinates,
                                           boolean segmentSentences) {
-        if (files != null) {
-            boolean recurse = pGbdArgs.isRecursive();
-            String result;
-            for (final File currPdf : files) {
-                try {
-                    if (currPdf.getName().toLowerCase().endsWith(".pdf")) {
-                        System.out.println("Processing: " + currPdf.getPath());
-                        GrobidAnalysisConfig config = null;
-                        // path for saving assets
-                        if (saveAssets) {
-                            String baseName = currPdf.getName().replace(".pdf", "").replace(".PDF", "");
-                            String assetPath = outputPath + File.separator + baseName + "_assets";
-                            config = GrobidAnalysisConfig.builder()
-                                .pdfAssetPath(new File(assetPath))
-                                .generateTeiCoordinates(elementCoordinates)
-                                .withSentenceSegmentation(segmentSentences)
-                                .build();
-                        } else
-                            config = GrobidAnalysisConfig.builder()
-                                .generateTeiCoordinates(elementCoordinates)
-                                .withSentenceSegmentation(segmentSentences)
-                                .build();
-                        result = getEngine().fullTextToTEI(currPdf, config);
-                        File outputPathFile = new File(outputPath);
-                        if (!outputPathFile.exists()) {
-                            outputPathFile.mkdir();
-                        }
-                        if (currPdf.getName().endsWith(".pdf")) {
-                            IOUtilities.writeInFile(outputPath + File.separator
-                                + new File(currPdf.getAbsolutePath())
-                                .getName().replace(".pdf", ".medical.tei.xml"), result.toString());
-                        } else if (currPdf.getName().endsWith(".PDF")) {
-                            IOUtilities.writeInFile(outputPath + File.separator
-                                + new File(currPdf.getAbsolutePath())
-                                .getName().replace(".PDF", ".medical.tei.xml"), result.toString());
-                        }
-                    } else if (recurse && currPdf.isDirectory()) {
-                        File[] newFiles = currPdf.listFiles();
-                        if (newFiles != null) {
-                            String newLevel = currPdf.getName();
-                            processFullTextDirectory(newFiles, pGbdArgs, outputPath +
-                                File.separator + newLevel, saveAssets, elementCoordinates, segmentSentences);
+        List<Pair<File, File>> pdfFiles = new ArrayList<>();
+        collectPdfFiles(files, pGbdArgs.isRecursive(), outputPath, ".medical.tei.xml", pdfFiles);
+        processBatch(pdfFiles, pGbdArgs, (engineMedical, currPdf, output) -> {
+            System.out.println("Processing: " + currPdf.getPath());
+            GrobidAnalysisConfig config = null;
+            // path for saving assets
+            if (saveAssets) {
+                String baseName = currPdf.getName().replace(".pdf", "").replace(".PDF", "");
+                String assetPath = output.getParent() + File.separator + baseName + "_assets";
+                config = GrobidAnalysisConfig.builder()
+                    .pdfAssetPath(new File(assetPath))
+                    .generateTeiCoordinates(elementCoordinates)
+                    .withSentenceSegmentation(segmentSentences)
+                    .build();
+            } else
+                config = GrobidAnalysisConfig.builder()
+                    .generateTeiCoordinates(elementCoordinates)
+                    .withSentenceSegmentation(segmentSentences)
+                    .build();
+            return engineMedical.fullTextToTEI(currPdf, config);
+        });
+    }
+
+    /**
+     * The processing of a single PDF file of a batch, returning the TEI result to be written in the output file.
+     */
+    private interface BatchTask {
+        String process(EngineMedical engineMedical, File input, File output) throws Exception;
+    }
+
+    /**
+     * Collect the PDF files to be processed, recursively or not, together with the path of their TEI output file.
+     *
+     * @param files           list of files to be processed
+     * @param recurse         if the sub-directories are processed too
+     * @param outputPath      path of the output directory
+     * @param outputExtension extension replacing ".pdf" in the name of the output file
+     * @param pdfFiles        the collected pairs of input and output files
+     */
+    private void collectPdfFiles(File[] files, boolean recurse, String outputPath, String outputExtension,
+                                 List<Pair<File, File>> pdfFiles) {
+        if (files == null) {
+            return;
+        }
+        for (final File currPdf : files) {
+            String name = currPdf.getName();
+            if (name.toLowerCase().endsWith(".pdf")) {
+                String outputName = name.substring(0, name.length() - ".pdf".length()) + outputExtension;
+                pdfFiles.add(Pair.of(currPdf, new File(outputPath + File.separator + outputName)));
+            } else if (recurse && currPdf.isDirectory()) {
+                collectPdfFiles(currPdf.listFiles(), recurse, outputPath + File.separator + name, outputExtension, pdfFiles);
+            }
+        }
+    }
+
+    /**
+     * Process a list of PDF files, sequentially with the engine of this class or, when more than one thread is
+     * requested, in parallel with engines taken from the engine pool. A failure on one file is logged and the
+     * process continues with the other files.
+     *
+     * @param pdfFiles pairs of input and output files
+     * @param pGbdArgs The parameters.
+     * @param task     the processing applied to each file
+     */
+    private void processBatch(List<Pair<File, File>> pdfFiles, final GrobidMedicalReportMainArgs pGbdArgs, BatchTask task) {
+        List<Pair<File, File>> toProcess = new ArrayList<>();
+        for (Pair<File, File> pdfFile : pdfFiles) {
+            if (pGbdArgs.isResume() && isUpToDate(pdfFile.getLeft(), pdfFile.getRight())) {
+                continue;
+            }
+            toProcess.add(pdfFile);
+        }
+        if (toProcess.size() < pdfFiles.size()) {
+            LOGGER.info((pdfFiles.size() - toProcess.size()) + " files skipped, their TEI output is more recent than the input file.");
+        }
+
+        final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        int nbThreads = pGbdArgs.getNbThreads();
+        if (nbThreads <= 1) {
+            for (Pair<File, File> pdfFile : toProcess) {
+                processFile(getEngine(), pdfFile, task, failures);
+            }
+        } else {
+            int maxConcurrency = GrobidProperties.getMaxConcurrency();
+            if (nbThreads > maxConcurrency) {
+                LOGGER.warn("The number of threads " + nbThreads + " is higher than the size of the engine pool, using "
+                    + maxConcurrency + " threads (see the concurrency parameter of the grobid config).");
+                nbThreads = maxConcurrency;
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+            // bounded work queue: the submission waits when enough files are already waiting for a thread
+            final Semaphore slots = new Semaphore(nbThreads * 2);
+            try {
+                for (final Pair<File, File> pdfFile : toProcess) {
+                    slots.acquire();
+                    executor.execute(() -> {
+                        EngineMedical engineMedical = null;
+                        try {
+                            engineMedical = GrobidMedicalPoolingFactory.getEngineFromPool(false);
+                            processFile(engineMedical, pdfFile, task, failures);
+                        } catch (Exception exp) {
+                            LOGGER.error("Could not get an engine for the file " + pdfFile.getLeft().getAbsolutePath(), exp);
+                            failures.add(pdfFile.getLeft().getAbsolutePath());
+                        } finally {
+                            if (engineMedical != null) {
+                                GrobidMedicalPoolingFactory.returnEngine(engineMedical);
+                            }
+                            slots.release();
                         }
-                    }
-                } catch (final Exception exp) {
-                    LOGGER.error("An error occurred while processing the file " + currPdf.getAbsolutePath()
-                        + ". Continuing the process for the other files", exp);
+                    });
                 }
+            } catch (InterruptedException e) {
+                LOGGER.warn("The batch process has been interrupted, the remaining files are not submitted.");
+                Thread.currentThread().interrupt();
+            } finally {
+                executor.shutdown();
+                try {
+                    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        LOGGER.info((toProcess.size() - failures.size()) + " files processed, " + failures.size() + " failures.");
+        if (failures.size() > 0) {
+            LOGGER.warn("The following files could not be processed: " + failures);
+        }
+    }
+
+    /**
+     * Process a single PDF file and write its result, a failure being added to the list of failed files.
+     */
+    private void processFile(EngineMedical engineMedical, Pair<File, File> pdfFile, BatchTask task, List<String> failures) {
+        File currPdf = pdfFile.getLeft();
+        File output = pdfFile.getRight();
+        try {
+            String result = task.process(engineMedical, currPdf, output);
+            File outputPathFile = output.getParentFile();
+            if (outputPathFile != null && !outputPathFile.exists()) {
+                outputPathFile.mkdirs();
             }
+            IOUtilities.writeInFile(output.getPath(), result);
+        } catch (final Exception exp) {
+            LOGGER.error("An error occurred while processing the file " + currPdf.getAbsolutePath()
+                + ". Continuing the process for the other files", exp);
+            failures.add(currPdf.getAbsolutePath());
         }
     }
 
+    /**
+     * @return true if the output file exists and is more recent than the input file
+     */
+    private static boolean isUpToDate(File input, File output) {
+        return output.exists() && output.lastModified() >= input.lastModified();
+    }
+
     /**
      * Generate raw texts from PDF files
      *
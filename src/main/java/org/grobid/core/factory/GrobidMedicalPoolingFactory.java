@@ -3,6 +3,7 @@ package org.grobid.core.factory;
 import org.apache.commons.pool.PoolableObjectFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.grobid.core.engines.EngineMedical;
+import org.grobid.core.engines.EngineMedicalParsers;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.utilities.GrobidProperties;
 import org.slf4j.Logger;
@@ -17,9 +18,9 @@ public class GrobidMedicalPoolingFactory extends AbstractEngineMedicalFactory im
         * A pool which contains objects of type EngineMedical for the conversion.
         */
     private static volatile GenericObjectPool<EngineMedical> grobidEnginePool = null;
-    private static volatile Boolean grobidEnginePoolControl = false;
+    private static final Object grobidEnginePoolControl = new Object();
     private static final Logger LOGGER = LoggerFactory
-        .getLogger(GrobidPoolingFactory.class);
+        .getLogger(GrobidMedicalPoolingFactory.class);
 
     private static volatile Boolean preload = false;
 
@@ -34,6 +35,9 @@ public class GrobidMedicalPoolingFactory extends AbstractEngineMedicalFactory im
      * Creates a pool for {@link EngineMedical} objects. So a number of objects is
      * always available and ready to start immediatly.
      *
+     * The engines are kept idle in the pool once created (they are expensive to build, every engine holds its
+     * own parsers), and the waiting borrowers are served in FIFO order by the pool itself.
+     *
      * @return GenericObjectPool
      */
     protected static GenericObjectPool<EngineMedical> newPoolInstance() {
@@ -41,15 +45,16 @@ public class GrobidMedicalPoolingFactory extends AbstractEngineMedicalFactory im
             LOGGER.debug("Synchronized new pool instance");
             synchronized (grobidEnginePoolControl) {
                 if (grobidEnginePool == null) {
-                    grobidEnginePool = new GenericObjectPool<>(GrobidMedicalPoolingFactory.newInstance());
-                    grobidEnginePool
-                        .setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_BLOCK);
-                    grobidEnginePool.setMaxWait(GrobidProperties.getPoolMaxWait());
-                    grobidEnginePool.setMaxActive(GrobidProperties.getMaxConcurrency());
-                    grobidEnginePool.setTestWhileIdle(false);
-                    grobidEnginePool.setLifo(false);
-                    grobidEnginePool.setTimeBetweenEvictionRunsMillis(2000);
-                    grobidEnginePool.setMaxIdle(0);
+                    GenericObjectPool<EngineMedical> pool = new GenericObjectPool<>(GrobidMedicalPoolingFactory.newInstance());
+                    pool.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_BLOCK);
+                    pool.setMaxWait(GrobidProperties.getPoolMaxWait());
+                    pool.setMaxActive(GrobidProperties.getMaxConcurrency());
+                    pool.setMaxIdle(GrobidProperties.getMaxConcurrency());
+                    pool.setTestWhileIdle(false);
+                    pool.setLifo(false);
+                    // no eviction of the idle engines, they stay warm for the next requests
+                    pool.setTimeBetweenEvictionRunsMillis(-1);
+                    grobidEnginePool = pool;
                 }
             }
         }
@@ -61,29 +66,32 @@ public class GrobidMedicalPoolingFactory extends AbstractEngineMedicalFactory im
      *
      * By contract, clients must call {@link GrobidMedicalPoolingFactory#returnEngine}
      * when they finish to use the engine.
+     *
+     * This method does not hold any global lock: a caller waiting for an engine (up to the configured pool max wait)
+     * does not prevent other callers from getting an idle engine.
+     *
+     * @throws NoSuchElementException if no engine is available within the pool max wait
      */
-    public static synchronized EngineMedical getEngineFromPool(boolean preloadModels) {
+    public static EngineMedical getEngineFromPool(boolean preloadModels) {
         preload = preloadModels;
-        if (grobidEnginePool == null) {
-            grobidEnginePool = newPoolInstance();
-        }
+        GenericObjectPool<EngineMedical> pool = newPoolInstance();
         EngineMedical engineMedical = null;
         try {
-            engineMedical = grobidEnginePool.borrowObject();
+            engineMedical = pool.borrowObject();
         } catch (NoSuchElementException nseExp) {
             throw new NoSuchElementException();
         } catch (Exception exp) {
             throw new GrobidException("An error occurred while getting an engine from the engine pool", exp);
         }
         LOGGER.info("Number of Engines in pool active/max: "
-            + grobidEnginePool.getNumActive() + "/"
-            + grobidEnginePool.getMaxActive());
+            + pool.getNumActive() + "/"
+            + pool.getMaxActive());
         return engineMedical;
     }
 
     /**
      * By contract, engine must have been obtained using
-     * {@link GrobidPoolingFactory#getEngineFromPool}.<br>
+     * {@link GrobidMedicalPoolingFactory#getEngineFromPool}.<br>
      */
     public static void returnEngine(EngineMedical engine) {
         try {
@@ -116,6 +124,15 @@ public class GrobidMedicalPoolingFactory extends AbstractEngineMedicalFactory im
     }
 
 
+    /**
+     * The engines of the pool all work with the same parser set, so the models are loaded only once
+     * whatever the size of the pool.
+     */
+    @Override
+    protected EngineMedical createEngine(boolean preload) {
+        return new EngineMedical(preload, EngineMedicalParsers.getSharedInstance());
+    }
+
     @Override
     public EngineMedical makeObject() throws Exception {
         return (createEngine(this.preload));
@@ -33,73 +33,81 @@ public class FeatureFactoryMedical {
         return instance;
     }
 
+    /**
+     * Return the bitmask of the medical lexicon categories of the current string (see the category constants
+     * of MedicalNERLexicon), with a single look-up for all the categories
+     */
+    public int medicalCategories(String tok) {
+        return medicalNERLexicon.getCategories(tok);
+    }
+
     /**
      * Test if the current string is an anatomy name
      */
     public boolean test_anatomies(String tok) {
-        return (medicalNERLexicon.inAnatomies(tok.toLowerCase()));
+        return (medicalNERLexicon.getCategories(tok) & MedicalNERLexicon.ANATOMY) != 0;
     }
 
     /**
      * Test if the current string is a drug or chemical name
      */
     public boolean test_drugs_chemicals(String tok) {
-        return (medicalNERLexicon.inChemicalDrugs(tok.toLowerCase()));
+        return (medicalNERLexicon.getCategories(tok) & MedicalNERLexicon.CHEMICAL_DRUG) != 0;
     }
 
     /**
      * Test if the current string is a device name
      */
     public boolean test_devices(String tok) {
-        return (medicalNERLexicon.inDevices(tok.toLowerCase()));
+        return (medicalNERLexicon.getCategories(tok) & MedicalNERLexicon.DEVICE) != 0;
     }
 
     /**
      * Test if the current string is a disorder name
      */
     public boolean test_disorders(String tok) {
-        return (medicalNERLexicon.inDisorders(tok.toLowerCase()));
+        return (medicalNERLexicon.getCategories(tok) & MedicalNERLexicon.DISORDER) != 0;
     }
 
     /**
      * Test if the current string is a location name
      */
     public boolean test_geography(String tok) {
-        return (medicalNERLexicon.inGeographicAreas(tok.toLowerCase()));
+        return (medicalNERLexicon.getCategories(tok) & MedicalNERLexicon.GEOGRAPHIC_AREA) != 0;
     }
 
     /**
      * Test if the current string is a living being
      */
     public boolean test_living_beings(String tok) {
-        return (medicalNERLexicon.inLivingBeings(tok.toLowerCase()));
+        return (medicalNERLexicon.getCategories(tok) & MedicalNERLexicon.LIVING_BEING) != 0;
     }
 
     /**
      * Test if the current string is a hospital object
      */
     public boolean test_objects(String tok) {
-        return (medicalNERLexicon.inObjects(tok.toLowerCase()));
+        return (medicalNERLexicon.getCategories(tok) & MedicalNERLexicon.OBJECT) != 0;
     }
 
     /**
      * Test if the current string is a phenomena
      */
     public boolean test_phenomena(String tok) {
-        return (medicalNERLexicon.inPhenomena(tok.toLowerCase()));
+        return (medicalNERLexicon.getCategories(tok) & MedicalNERLexicon.PHENOMENA) != 0;
     }
 
     /**
      * Test if the current string is a physiology name
      */
     public boolean test_physiology(String tok) {
-        return (medicalNERLexicon.inPhysiology(tok.toLowerCase()));
+        return (medicalNERLexicon.getCategories(tok) & MedicalNERLexicon.PHYSIOLOGY) != 0;
     }
 
     /**
      * Test if the current string is a procedure name
      */
     public boolean test_procedures(String tok) {
-        return (medicalNERLexicon.inProcedures(tok.toLowerCase()));
+        return (medicalNERLexicon.getCategories(tok) & MedicalNERLexicon.PROCEDURE) != 0;
     }
 }
\ No newline at end of file
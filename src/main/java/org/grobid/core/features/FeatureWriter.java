@@ -0,0 +1,69 @@
+package org.grobid.core.features;
+
+import java.util.Locale;
+
+/**
+ * Helpers for writing the feature vectors directly into the buffer of the whole sequence, without creating
+ * temporary strings for the prefixes, suffixes and lowercase forms of the tokens.
+ * The output is the same as the one based on {@link org.grobid.core.utilities.TextUtilities#prefix(String, int)},
+ * {@link org.grobid.core.utilities.TextUtilities#suffix(String, int)} and {@link String#toLowerCase()}.
+ */
+public class FeatureWriter {
+
+    /**
+     * Append a space followed by the first count characters of the string (the whole string if shorter).
+     */
+    public static void appendPrefix(StringBuilder res, String string, int count) {
+        res.append(' ');
+        if (string == null) {
+            res.append((String) null);
+            return;
+        }
+        res.append(string, 0, Math.min(count, string.length()));
+    }
+
+    /**
+     * Append a space followed by the last count characters of the string (the whole string if shorter).
+     */
+    public static void appendSuffix(StringBuilder res, String string, int count) {
+        res.append(' ');
+        if (string == null) {
+            res.append((String) null);
+            return;
+        }
+        int length = string.length();
+        res.append(string, Math.max(0, length - count), length);
+    }
+
+    /**
+     * Append a space followed by the lowercase form of the string.
+     */
+    public static void appendLowerCase(StringBuilder res, String string) {
+        res.append(' ');
+        if (hasSpecialCasing(Locale.getDefault())) {
+            // the Turkish, Azeri and Lithuanian rules (dotless i...) also change the ASCII letters
+            res.append(string.toLowerCase());
+            return;
+        }
+        int start = res.length();
+        int length = string.length();
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c < 128) {
+                res.append((c >= 'A' && c <= 'Z') ? (char) (c + 32) : c);
+            } else if (Character.isSurrogate(c) || c == '\u0130' || c == '\u03A3') {
+                // surrogate pairs, dotted capital I and capital sigma (context dependent) are left to String.toLowerCase()
+                res.setLength(start);
+                res.append(string.toLowerCase());
+                return;
+            } else {
+                res.append(Character.toLowerCase(c));
+            }
+        }
+    }
+
+    private static boolean hasSpecialCasing(Locale locale) {
+        String language = locale.getLanguage();
+        return "tr".equals(language) || "az".equals(language) || "lt".equals(language);
+    }
+}
@@ -4,6 +4,7 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.utilities.OffsetPosition;
+import org.grobid.core.utilities.PseudonymMap;
 import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.utilities.UnicodeUtil;
 
@@ -40,37 +41,48 @@ public class FeaturesVectorAddress {
     public String printVector() {
         if (string == null) return null;
         if (string.length() == 0) return null;
-        StringBuffer res = new StringBuffer();
+        StringBuilder res = new StringBuilder();
+        printVector(res);
+        return res.toString();
+    }
+
+    /**
+     * Write the feature vector at the end of the given buffer, without intermediate strings.
+     * Nothing is written for an empty token.
+     */
+    public void printVector(StringBuilder res) {
+        if (string == null) return;
+        if (string.length() == 0) return;
 
         // token string (1)
         res.append(string);
 
         // lowercase string
-        res.append(" " + string.toLowerCase());
+        FeatureWriter.appendLowerCase(res, string);
 
         // prefix (4)
-        res.append(" " + TextUtilities.prefix(string, 1));
-        res.append(" " + TextUtilities.prefix(string, 2));
-        res.append(" " + TextUtilities.prefix(string, 3));
-        res.append(" " + TextUtilities.prefix(string, 4));
+        FeatureWriter.appendPrefix(res, string, 1);
+        FeatureWriter.appendPrefix(res, string, 2);
+        FeatureWriter.appendPrefix(res, string, 3);
+        FeatureWriter.appendPrefix(res, string, 4);
 
         // suffix (4)
-        res.append(" " + TextUtilities.suffix(string, 1));
-        res.append(" " + TextUtilities.suffix(string, 2));
-        res.append(" " + TextUtilities.suffix(string, 3));
-        res.append(" " + TextUtilities.suffix(string, 4));
+        FeatureWriter.appendSuffix(res, string, 1);
+        FeatureWriter.appendSuffix(res, string, 2);
+        FeatureWriter.appendSuffix(res, string, 3);
+        FeatureWriter.appendSuffix(res, string, 4);
 
         // line information (1)
-        res.append(" " + lineStatus);
+        res.append(' ').append(lineStatus);
 
         // capitalisation (1)
         if (digit.equals("ALLDIGIT"))
             res.append(" NOCAPS");
         else
-            res.append(" " + capitalisation);
+            res.append(' ').append(capitalisation);
 
         // digit information (1)
-        res.append(" " + digit);
+        res.append(' ').append(digit);
 
         // character information (1)
         if (singleChar)
@@ -110,17 +122,15 @@ public class FeaturesVectorAddress {
             res.append(" 0");
 
         // punctuation information (1)
-        res.append(" " + punctType); // in case the token is a punctuation (NO otherwise)
+        res.append(' ').append(punctType); // in case the token is a punctuation (NO otherwise)
 
         res.append(" ").append(wordShape);
 
         // label - for training data (1)
         if (label != null)
-            res.append(" " + label + "\n");
+            res.append(' ').append(label).append('\n');
         else
             res.append(" 0\n");
-
-        return res.toString();
     }
 
     /**
@@ -130,7 +140,7 @@ public class FeaturesVectorAddress {
                                             List<OffsetPosition> locationPositions, List<OffsetPosition> cityNamePositions) throws Exception {
         FeatureFactory featureFactory = FeatureFactory.getInstance();
 
-        StringBuffer name = new StringBuffer();
+        StringBuilder name = new StringBuilder();
         boolean newline = true;
         String previousTag = null;
         String previousText = null;
@@ -341,7 +351,7 @@ public class FeaturesVectorAddress {
 
             features.label = tag;
 
-            name.append(features.printVector());
+            features.printVector(name);
 
             previousTag = tag;
             previousText = text;
@@ -355,10 +365,10 @@ public class FeaturesVectorAddress {
      */
     static public String addFeaturesAddressAnonym(List<LayoutToken> tokens, List<String> labels,
                                                List<OffsetPosition> locationPositions, List<OffsetPosition> cityNamePositions,
-                                               List<String> dataOriginal, List<String> dataAnonymized) throws Exception {
+                                               PseudonymMap pseudonyms) throws Exception {
         FeatureFactory featureFactory = FeatureFactory.getInstance();
 
-        StringBuffer name = new StringBuffer();
+        StringBuilder name = new StringBuilder();
         boolean newline = true;
         String previousTag = null;
         String previousText = null;
@@ -392,9 +402,9 @@ public class FeaturesVectorAddress {
             }
 
             // anonymize the data
-            int idxFound = dataOriginal.indexOf(text.trim());
-            if (idxFound >= 0) {
-                text = dataAnonymized.get(idxFound);
+            String pseudonym = pseudonyms.get(text.trim());
+            if (pseudonym != null) {
+                text = pseudonym;
             }
 
             // remove blank spaces
@@ -574,7 +584,7 @@ public class FeaturesVectorAddress {
 
             features.label = tag;
 
-            name.append(features.printVector());
+            features.printVector(name);
 
             previousTag = tag;
             previousText = text;
@@ -45,36 +45,47 @@ public class FeaturesVectorDateline {
         if (string == null) return null;
         if (string.length() == 0) return null;
         StringBuilder res = new StringBuilder();
+        printVector(res);
+        return res.toString();
+    }
+
+    /**
+     * Write the feature vector at the end of the given buffer, without intermediate strings.
+     * Nothing is written for an empty token.
+     */
+    public void printVector(StringBuilder res) {
+        if (string == null) return;
+        if (string.length() == 0) return;
 
         // token string (1)
         res.append(string);
 
         // lowercase string (1)
-        res.append(" " + string.toLowerCase());
+        FeatureWriter.appendLowerCase(res, string);
 
         // prefix (4)
-        res.append(" " + TextUtilities.prefix(string, 1));
-        res.append(" " + TextUtilities.prefix(string, 2));
-        res.append(" " + TextUtilities.prefix(string, 3));
-        res.append(" " + TextUtilities.prefix(string, 4));
+        FeatureWriter.appendPrefix(res, string, 1);
+        FeatureWriter.appendPrefix(res, string, 2);
+        FeatureWriter.appendPrefix(res, string, 3);
+        FeatureWriter.appendPrefix(res, string, 4);
 
         // suffix (4)
-        res.append(" " + TextUtilities.suffix(string, 1));
-        res.append(" " + TextUtilities.suffix(string, 2));
-        res.append(" " + TextUtilities.suffix(string, 3));
-        res.append(" " + TextUtilities.suffix(string, 4));
+        FeatureWriter.appendSuffix(res, string, 1);
+        FeatureWriter.appendSuffix(res, string, 2);
+        FeatureWriter.appendSuffix(res, string, 3);
+        FeatureWriter.appendSuffix(res, string, 4);
 
         // line information (1)
-        res.append(" " + lineStatus);
+        res.append(' ').append(lineStatus);
 
         // capitalisation (1)
         if (digit.equals("ALLDIGIT"))
             res.append(" NOCAPS");
         else
-            res.append(" " + capitalisation);
+            res.append(' ').append(capitalisation);
 
         // digit information (1)
-        res.append(" " + digit);
+        res.append(' ').append(digit);
 
         // character information (1)
         if (singleChar)
@@ -109,7 +120,7 @@ public class FeaturesVectorDateline {
             res.append(" 0");
 
         // punctuation information (1)
-        res.append(" " + punctType); // in case the token is a punctuation (NO otherwise)
+        res.append(' ').append(punctType); // in case the token is a punctuation (NO otherwise)
 
         // word shape (1)
         res.append(" ").append(wordShape);
@@ -122,8 +133,6 @@ public class FeaturesVectorDateline {
             res.append(" ").append(label).append("\n");
         else
             res.append(" 0\n");
-
-        return res.toString();
     }
 
     /**
@@ -289,7 +298,7 @@ public class FeaturesVectorDateline {
 
             features.label = tag;
 
-            dateline.append(features.printVector());
+            features.printVector(dateline);
 
             previousTag = tag;
             previousText = text;
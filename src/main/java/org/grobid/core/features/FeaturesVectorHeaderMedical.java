@@ -1,7 +1,6 @@
 package org.grobid.core.features;
 
 import org.grobid.core.layout.LayoutToken;
-import org.grobid.core.utilities.TextUtilities;
 
 /**
  * A class for features used for header parsing.
@@ -52,42 +51,53 @@ public class FeaturesVectorHeaderMedical {
     public String printVector() {
         if (string == null) return null;
         if (string.length() == 0) return null;
-        StringBuffer res = new StringBuffer();
+        StringBuilder res = new StringBuilder();
+        printVector(res);
+        return res.toString();
+    }
+
+    /**
+     * Write the feature vector at the end of the given buffer, without intermediate strings.
+     * Nothing is written for an empty token.
+     */
+    public void printVector(StringBuilder res) {
+        if (string == null) return;
+        if (string.length() == 0) return;
 
         // token string (1)
         res.append(string);
 
         // lowercase string
-        res.append(" " + string.toLowerCase());
+        FeatureWriter.appendLowerCase(res, string);
 
         // prefix (4)
-        res.append(" " + TextUtilities.prefix(string, 1));
-        res.append(" " + TextUtilities.prefix(string, 2));
-        res.append(" " + TextUtilities.prefix(string, 3));
-        res.append(" " + TextUtilities.prefix(string, 4));
+        FeatureWriter.appendPrefix(res, string, 1);
+        FeatureWriter.appendPrefix(res, string, 2);
+        FeatureWriter.appendPrefix(res, string, 3);
+        FeatureWriter.appendPrefix(res, string, 4);
 
         // suffix (4)
-        res.append(" " + TextUtilities.suffix(string, 1));
-        res.append(" " + TextUtilities.suffix(string, 2));
-        res.append(" " + TextUtilities.suffix(string, 3));
-        res.append(" " + TextUtilities.suffix(string, 4));
+        FeatureWriter.appendSuffix(res, string, 1);
+        FeatureWriter.appendSuffix(res, string, 2);
+        FeatureWriter.appendSuffix(res, string, 3);
+        FeatureWriter.appendSuffix(res, string, 4);
 
         // 10 first features written at this stage
 
         // block information (1)
-        res.append(" " + blockStatus);
+        res.append(' ').append(blockStatus);
 
         // line information (1)
-        res.append(" " + lineStatus);
+        res.append(' ').append(lineStatus);
 
         // line position/indentation (1)
-        res.append(" " + alignmentStatus);
+        res.append(' ').append(alignmentStatus);
 
         // font information (1)
-        res.append(" " + fontStatus);
+        res.append(' ').append(fontStatus);
 
         // font size information (1)
-        res.append(" " + fontSize);
+        res.append(' ').append(fontSize);
 
         // string type information (2)
         if (bold)
@@ -104,10 +114,10 @@ public class FeaturesVectorHeaderMedical {
         if (digit.equals("ALLDIGIT"))
             res.append(" NOCAPS");
         else
-            res.append(" " + capitalisation);
+            res.append(' ').append(capitalisation);
 
         // digit information (1)
-        res.append(" " + digit);
+        res.append(' ').append(digit);
 
         // character information (1)
         if (singleChar)
@@ -159,7 +169,7 @@ public class FeaturesVectorHeaderMedical {
             res.append(" 0");
 
         // punctuation information (1)
-        res.append(" " + punctType); // in case the token is a punctuation (NO otherwise)
+        res.append(' ').append(punctType); // in case the token is a punctuation (NO otherwise)
 
         // 28 features written at this point
 
@@ -195,12 +205,10 @@ public class FeaturesVectorHeaderMedical {
 
         // label - for training data (1)
         if (label != null)
-            res.append(" " + label + "\n");
+            res.append(' ').append(label).append('\n');
         else
             res.append("\n");
         /*else
             res.append(" 0\n");*/
-
-        return res.toString();
     }
 }
\ No newline at end of file
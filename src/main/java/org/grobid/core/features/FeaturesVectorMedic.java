@@ -3,6 +3,7 @@ package org.grobid.core.features;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.utilities.OffsetPosition;
+import org.grobid.core.utilities.PseudonymMap;
 import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.utilities.UnicodeUtil;
 
@@ -49,24 +50,35 @@ public class FeaturesVectorMedic {
         if (string == null) return null;
         if (string.length() == 0) return null;
         StringBuilder res = new StringBuilder();
+        printVector(res);
+        return res.toString();
+    }
+
+    /**
+     * Write the feature vector at the end of the given buffer, without intermediate strings.
+     * Nothing is written for an empty token.
+     */
+    public void printVector(StringBuilder res) {
+        if (string == null) return;
+        if (string.length() == 0) return;
 
         // token string (1)
         res.append(string);
 
         // lowercase string (1)
-        res.append(" ").append(string.toLowerCase());
+        FeatureWriter.appendLowerCase(res, string);
 
         // prefix (4)
-        res.append(" " + TextUtilities.prefix(string, 1));
-        res.append(" " + TextUtilities.prefix(string, 2));
-        res.append(" " + TextUtilities.prefix(string, 3));
-        res.append(" " + TextUtilities.prefix(string, 4));
+        FeatureWriter.appendPrefix(res, string, 1);
+        FeatureWriter.appendPrefix(res, string, 2);
+        FeatureWriter.appendPrefix(res, string, 3);
+        FeatureWriter.appendPrefix(res, string, 4);
 
         // suffix (4)
-        res.append(" " + TextUtilities.suffix(string, 1));
-        res.append(" " + TextUtilities.suffix(string, 2));
-        res.append(" " + TextUtilities.suffix(string, 3));
-        res.append(" " + TextUtilities.suffix(string, 4));
+        FeatureWriter.appendSuffix(res, string, 1);
+        FeatureWriter.appendSuffix(res, string, 2);
+        FeatureWriter.appendSuffix(res, string, 3);
+        FeatureWriter.appendSuffix(res, string, 4);
 
         // line information (1)
         res.append(" ").append(lineStatus);
@@ -153,8 +165,6 @@ public class FeaturesVectorMedic {
             res.append(" ").append(label).append("\n");
         else
             res.append(" 0\n");
-
-        return res.toString();
     }
 
     /**
@@ -468,7 +478,7 @@ public class FeaturesVectorMedic {
 
             features.label = tag;
 
-            medic.append(features.printVector());
+            features.printVector(medic);
 
             previousTag = tag;
             previousText = text;
@@ -487,8 +497,7 @@ public class FeaturesVectorMedic {
                                           List<OffsetPosition> suffixPositions,
                                           List<OffsetPosition> emailPositions,
                                           List<OffsetPosition> urlPositions,
-                                          List<String> dataOriginal,
-                                          List<String> dataAnonymized) throws Exception {
+                                          PseudonymMap pseudonyms) throws Exception {
         if ((locationPositions == null) ||
             (titlePositions == null) ||
             (suffixPositions == null) ||
@@ -544,9 +553,9 @@ public class FeaturesVectorMedic {
             }
 
             // anonymize the data
-            int idxFound =  dataOriginal.indexOf(text.trim());
-            if (idxFound >=0) {
-                text = dataAnonymized.get(idxFound);
+            String pseudonym = pseudonyms.get(text.trim());
+            if (pseudonym != null) {
+                text = pseudonym;
             }
 
             // remove blank spaces
@@ -796,7 +805,7 @@ public class FeaturesVectorMedic {
 
             features.label = tag;
 
-            medic.append(features.printVector());
+            features.printVector(medic);
 
             previousTag = tag;
             previousText = text;
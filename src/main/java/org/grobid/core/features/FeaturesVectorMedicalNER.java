@@ -2,6 +2,7 @@ package org.grobid.core.features;
 
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.lexicon.MedicalNERLexicon;
 import org.grobid.core.utilities.OffsetPosition;
 import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.utilities.UnicodeUtil;
@@ -66,35 +67,46 @@ public class FeaturesVectorMedicalNER {
         if (string == null) return null;
         if (string.length() == 0) return null;
         StringBuilder res = new StringBuilder();
+        printVector(res);
+        return res.toString();
+    }
+
+    /**
+     * Write the feature vector at the end of the given buffer, without intermediate strings.
+     * Nothing is written for an empty token.
+     */
+    public void printVector(StringBuilder res) {
+        if (string == null) return;
+        if (string.length() == 0) return;
 
         // token string (1)
         res.append(string);
 
         // lowercase string (1)
-        res.append(" " + string.toLowerCase());
+        FeatureWriter.appendLowerCase(res, string);
 
         //prefix (5)
-        res.append(" " + TextUtilities.prefix(string, 1));
-        res.append(" " + TextUtilities.prefix(string, 2));
-        res.append(" " + TextUtilities.prefix(string, 3));
-        res.append(" " + TextUtilities.prefix(string, 4));
-        res.append(" " + TextUtilities.prefix(string, 5));
+        FeatureWriter.appendPrefix(res, string, 1);
+        FeatureWriter.appendPrefix(res, string, 2);
+        FeatureWriter.appendPrefix(res, string, 3);
+        FeatureWriter.appendPrefix(res, string, 4);
+        FeatureWriter.appendPrefix(res, string, 5);
 
         //suffix (5)
-        res.append(" " + TextUtilities.suffix(string, 1));
-        res.append(" " + TextUtilities.suffix(string, 2));
-        res.append(" " + TextUtilities.suffix(string, 3));
-        res.append(" " + TextUtilities.suffix(string, 4));
-        res.append(" " + TextUtilities.suffix(string, 5));
+        FeatureWriter.appendSuffix(res, string, 1);
+        FeatureWriter.appendSuffix(res, string, 2);
+        FeatureWriter.appendSuffix(res, string, 3);
+        FeatureWriter.appendSuffix(res, string, 4);
+        FeatureWriter.appendSuffix(res, string, 5);
 
         // capitalisation (1)
         if (digit.equals("ALLDIGIT"))
             res.append(" NOCAPS");
         else
-            res.append(" " + capitalisation);
+            res.append(' ').append(capitalisation);
 
         // digit information (1)
-        res.append(" " + digit);
+        res.append(' ').append(digit);
 
         // character information (1)
         if (singleChar)
@@ -230,18 +242,16 @@ public class FeaturesVectorMedicalNER {
             res.append(" 0");
 
         // word shape (1)
-        res.append(" " + wordShape);
+        res.append(' ').append(wordShape);
 
         // word shape trimmed (1)
-        res.append(" " + wordShapeTrimmed);
+        res.append(' ').append(wordShapeTrimmed);
 
         // label - for training data (1)
         if (label != null)
-            res.append(" " + label + "");
+            res.append(' ').append(label);
         else
             res.append(" 0");
-
-        return res.toString();
     }
 
     /**
@@ -539,37 +549,16 @@ public class FeaturesVectorMedicalNER {
                 features.http = true;
             }
 
-            if (featureFactoryMedical.test_anatomies(text)) {
-                features.anatomy = true;
-            }
-
-            if (featureFactoryMedical.test_drugs_chemicals(text)) {
-                features.chemical = true;
-            }
-
-            if (featureFactoryMedical.test_devices(text) || featureFactoryMedical.test_objects(text) ) {
-                features.device = true;
-            }
-
-            if (featureFactoryMedical.test_disorders(text)) {
-                features.disorder = true;
-            }
-
-            if (featureFactoryMedical.test_living_beings(text)) {
-                features.livingBeing = true;
-            }
-
-            if (featureFactoryMedical.test_phenomena(text)) {
-                features.phenomena = true;
-            }
-
-            if (featureFactoryMedical.test_physiology(text)) {
-                features.physiology = true;
-            }
-
-            if (featureFactoryMedical.test_procedures(text)) {
-                features.procedure = true;
-            }
+            // one look-up for all the categories of the medical lexicon
+            int medicalCategories = featureFactoryMedical.medicalCategories(text);
+            features.anatomy = (medicalCategories & MedicalNERLexicon.ANATOMY) != 0;
+            features.chemical = (medicalCategories & MedicalNERLexicon.CHEMICAL_DRUG) != 0;
+            features.device = (medicalCategories & (MedicalNERLexicon.DEVICE | MedicalNERLexicon.OBJECT)) != 0;
+            features.disorder = (medicalCategories & MedicalNERLexicon.DISORDER) != 0;
+            features.livingBeing = (medicalCategories & MedicalNERLexicon.LIVING_BEING) != 0;
+            features.phenomena = (medicalCategories & MedicalNERLexicon.PHENOMENA) != 0;
+            features.physiology = (medicalCategories & MedicalNERLexicon.PHYSIOLOGY) != 0;
+            features.procedure = (medicalCategories & MedicalNERLexicon.PROCEDURE) != 0;
 
             features.wordShape = TextUtilities.wordShape(text);
 
@@ -577,7 +566,8 @@ public class FeaturesVectorMedicalNER {
 
             features.label = tag;
 
-            featuresNer.append(features.printVector()+"\n");
+            features.printVector(featuresNer);
+            featuresNer.append("\n");
 
             previousTag = tag;
             previousText = text;
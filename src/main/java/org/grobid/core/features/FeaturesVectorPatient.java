@@ -3,6 +3,7 @@ package org.grobid.core.features;
 import org.grobid.core.exceptions.GrobidException;
 import org.grobid.core.layout.LayoutToken;
 import org.grobid.core.utilities.OffsetPosition;
+import org.grobid.core.utilities.PseudonymMap;
 import org.grobid.core.utilities.TextUtilities;
 import org.grobid.core.utilities.UnicodeUtil;
 
@@ -50,24 +51,35 @@ public class FeaturesVectorPatient {
         if (string == null) return null;
         if (string.length() == 0) return null;
         StringBuilder res = new StringBuilder();
+        printVector(res);
+        return res.toString();
+    }
+
+    /**
+     * Write the feature vector at the end of the given buffer, without intermediate strings.
+     * Nothing is written for an empty token.
+     */
+    public void printVector(StringBuilder res) {
+        if (string == null) return;
+        if (string.length() == 0) return;
 
         // token string (1)
         res.append(string);
 
         // lowercase string (1)
-        res.append(" ").append(string.toLowerCase());
+        FeatureWriter.appendLowerCase(res, string);
 
         // prefix (4)
-        res.append(" " + TextUtilities.prefix(string, 1));
-        res.append(" " + TextUtilities.prefix(string, 2));
-        res.append(" " + TextUtilities.prefix(string, 3));
-        res.append(" " + TextUtilities.prefix(string, 4));
+        FeatureWriter.appendPrefix(res, string, 1);
+        FeatureWriter.appendPrefix(res, string, 2);
+        FeatureWriter.appendPrefix(res, string, 3);
+        FeatureWriter.appendPrefix(res, string, 4);
 
         // suffix (4)
-        res.append(" " + TextUtilities.suffix(string, 1));
-        res.append(" " + TextUtilities.suffix(string, 2));
-        res.append(" " + TextUtilities.suffix(string, 3));
-        res.append(" " + TextUtilities.suffix(string, 4));
+        FeatureWriter.appendSuffix(res, string, 1);
+        FeatureWriter.appendSuffix(res, string, 2);
+        FeatureWriter.appendSuffix(res, string, 3);
+        FeatureWriter.appendSuffix(res, string, 4);
 
         // line information (1)
         res.append(" ").append(lineStatus);
@@ -154,8 +166,6 @@ public class FeaturesVectorPatient {
             res.append(" ").append(label).append("\n");
         else
             res.append(" 0\n");
-
-        return res.toString();
     }
 
     /**
@@ -412,7 +422,7 @@ public class FeaturesVectorPatient {
 
             features.label = tag;
 
-            patient.append(features.printVector());
+            features.printVector(patient);
 
             previousTag = tag;
             previousText = text;
@@ -430,8 +440,7 @@ public class FeaturesVectorPatient {
                                                   List<OffsetPosition> locationPositions,
                                                   List<OffsetPosition> titlePositions,
                                                   List<OffsetPosition> suffixPositions,
-                                                  List<String> dataOriginal,
-                                                  List<String> dataAnonymized) throws Exception {
+                                                  PseudonymMap pseudonyms) throws Exception {
         if ((locationPositions == null) ||
             (titlePositions == null) ||
             (suffixPositions == null)) {
@@ -478,9 +487,9 @@ public class FeaturesVectorPatient {
             }
 
             // anonymize the data
-            int idxFound = dataOriginal.indexOf(text.trim());
-            if (idxFound >= 0) {
-                text = dataAnonymized.get(idxFound);
+            String pseudonym = pseudonyms.get(text.trim());
+            if (pseudonym != null) {
+                text = pseudonym;
             }
 
             // remove blank spaces
@@ -684,7 +693,7 @@ public class FeaturesVectorPatient {
 
             features.label = tag;
 
-            patient.append(features.printVector());
+            features.printVector(patient);
 
             previousTag = tag;
             previousText = text;
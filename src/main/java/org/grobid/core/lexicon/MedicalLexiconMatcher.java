@@ -0,0 +1,173 @@
+package org.grobid.core.lexicon;
+
+import org.grobid.core.analyzers.GrobidAnalyzer;
+import org.grobid.core.exceptions.GrobidException;
+import org.grobid.core.layout.LayoutToken;
+import org.grobid.core.utilities.OffsetPosition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled multi-category lexicon: all the entries of all the categories are held in a single token trie,
+ * flattened in one hash map whose keys are the lowercased token sequences (tokens separated by a space) and whose
+ * values are the bitmask of the categories of the entries ending there. An additional bit marks the sequences
+ * which are the beginning of a longer entry, so that the phrase matching can stop as soon as no entry can match.
+ *
+ * A single look-up gives all the categories of a token, and the phrase matching over layout tokens is done in
+ * one pass for any combination of categories.
+ *
+ * Once compiled, the entries can be saved as a memory-mapped snapshot (see {@link MedicalLexiconSnapshot}).
+ */
+public class MedicalLexiconMatcher {
+
+    // the sequence of tokens is the prefix of a longer entry
+    private static final int PREFIX = 1 << 31;
+
+    // entries being compiled, or loaded from a binary snapshot (read-only)
+    private final Map<String, Integer> entries;
+    private final MedicalLexiconSnapshot snapshot;
+
+    public MedicalLexiconMatcher() {
+        this.entries = new HashMap<>();
+        this.snapshot = null;
+    }
+
+    public MedicalLexiconMatcher(MedicalLexiconSnapshot snapshot) {
+        this.entries = null;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Add an entry (one or several tokens) for the given categories.
+     */
+    public void addEntry(String entry, int categories) {
+        if (entry == null) {
+            return;
+        }
+        if (entries == null) {
+            throw new GrobidException("Cannot add an entry to a lexicon loaded from a snapshot.");
+        }
+        List<String> tokens = entryTokens(entry);
+        if (tokens.isEmpty()) {
+            return;
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) {
+                key.append(' ');
+            }
+            key.append(tokens.get(i));
+            int bits = (i == tokens.size() - 1) ? categories : PREFIX;
+            entries.merge(key.toString(), bits, (a, b) -> a | b);
+        }
+    }
+
+    /**
+     * Return the bitmask of the categories of the entries equal to the given single token, 0 if none.
+     */
+    public int getCategories(String token) {
+        if (token == null) {
+            return 0;
+        }
+        Integer bits = lookup(token.toLowerCase());
+        return bits == null ? 0 : (bits & ~PREFIX);
+    }
+
+    /**
+     * Return the positions (start and end token indexes, inclusive) of the longest entries of at least one of
+     * the given categories in the list of layout tokens. The space tokens are ignored when matching.
+     */
+    public List<OffsetPosition> matchLayoutToken(List<LayoutToken> tokens, int categories) {
+        List<OffsetPosition> results = new ArrayList<>();
+        if (tokens == null) {
+            return results;
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (isSpace(tokens.get(i))) {
+                continue;
+            }
+            key.setLength(0);
+            int end = -1;
+            for (int j = i; j < tokens.size(); j++) {
+                LayoutToken token = tokens.get(j);
+                if (isSpace(token)) {
+                    continue;
+                }
+                if (key.length() > 0) {
+                    key.append(' ');
+                }
+                key.append(token.getText().toLowerCase());
+                Integer bits = lookup(key.toString());
+                if (bits == null) {
+                    break;
+                }
+                if ((bits & categories) != 0) {
+                    end = j;
+                }
+                if ((bits & PREFIX) == 0) {
+                    break;
+                }
+            }
+            if (end != -1) {
+                results.add(new OffsetPosition(i, end));
+                i = end;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Return the character positions (start offset inclusive, end offset exclusive) of the longest entries
+     * of at least one of the given categories in the given text.
+     */
+    public List<OffsetPosition> matchCharacter(String text, int categories) {
+        List<OffsetPosition> results = new ArrayList<>();
+        if (text == null) {
+            return results;
+        }
+        List<LayoutToken> tokens = GrobidAnalyzer.getInstance().tokenizeWithLayoutToken(text);
+        for (OffsetPosition position : matchLayoutToken(tokens, categories)) {
+            LayoutToken last = tokens.get(position.end);
+            results.add(new OffsetPosition(tokens.get(position.start).getOffset(),
+                last.getOffset() + last.getText().length()));
+        }
+        return results;
+    }
+
+    public int size() {
+        return entries != null ? entries.size() : snapshot.size();
+    }
+
+    /**
+     * The compiled entries, null if the matcher is loaded from a snapshot.
+     */
+    Map<String, Integer> getEntries() {
+        return entries;
+    }
+
+    private Integer lookup(String key) {
+        return entries != null ? entries.get(key) : snapshot.get(key);
+    }
+
+    /**
+     * Entries are tokenized as the texts to be matched, and lowercased.
+     */
+    private static List<String> entryTokens(String entry) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : GrobidAnalyzer.getInstance().tokenize(entry.trim())) {
+            if (token.trim().length() > 0) {
+                tokens.add(token.toLowerCase());
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isSpace(LayoutToken token) {
+        String text = token.getText();
+        return text == null || text.trim().isEmpty();
+    }
+}
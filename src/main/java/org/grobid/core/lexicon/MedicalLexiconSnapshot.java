@@ -0,0 +1,220 @@
+package org.grobid.core.lexicon;
+
+import org.grobid.core.utilities.GrobidProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a compiled {@link MedicalLexiconMatcher}, memory-mapped at load time so that the gazetteers
+ * do not have to be parsed again at each start and the entries stay off-heap.
+ *
+ * The snapshot holds the checksum of the source gazetteers, the entries sorted by their UTF-8 bytes (offsets
+ * table, category masks table and key bytes) and is searched by binary search. A snapshot whose checksum does not
+ * match the current source files is ignored, and rebuilt by the caller.
+ *
+ * The snapshot can also be built ahead of time with the main method (gradle task compile_medical_lexicon).
+ */
+public class MedicalLexiconSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MedicalLexiconSnapshot.class);
+
+    private static final int MAGIC = 0x474d4c58; // GMLX
+    private static final int VERSION = 1;
+    // magic, version, checksum, number of entries
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+    public static final String SNAPSHOT_FILE_NAME = "medical-ner-lexicon.snapshot";
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int offsetsStart;
+    private final int valuesStart;
+    private final int keysStart;
+
+    private MedicalLexiconSnapshot(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(16);
+        this.offsetsStart = HEADER_SIZE;
+        this.valuesStart = offsetsStart + (size + 1) * 4;
+        this.keysStart = valuesStart + size * 4;
+    }
+
+    /**
+     * Return the default location of the snapshot, under the grobid-home tmp directory.
+     */
+    public static File getDefaultSnapshotFile() {
+        return new File(GrobidProperties.getTempPath(), SNAPSHOT_FILE_NAME);
+    }
+
+    /**
+     * Checksum of the given source files (path and content), used to detect that a snapshot is outdated.
+     */
+    public static long checksum(List<String> sourcePaths) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(4).putInt(VERSION).array());
+        byte[] chunk = new byte[64 * 1024];
+        for (String path : sourcePaths) {
+            crc.update(path.getBytes(StandardCharsets.UTF_8));
+            try (InputStream in = new BufferedInputStream(new FileInputStream(path))) {
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    crc.update(chunk, 0, read);
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Map the snapshot file, return null if the file does not exist, is not a valid snapshot or was built
+     * from other source files.
+     */
+    public static MedicalLexiconSnapshot load(File snapshotFile, long checksum) {
+        if (snapshotFile == null || !snapshotFile.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                LOGGER.info("Ignoring lexicon snapshot " + snapshotFile + ": unknown format");
+                return null;
+            }
+            if (buffer.getLong(8) != checksum) {
+                LOGGER.info("Ignoring lexicon snapshot " + snapshotFile + ": the gazetteers have changed");
+                return null;
+            }
+            return new MedicalLexiconSnapshot(buffer);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read the lexicon snapshot " + snapshotFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the entries of the matcher in a snapshot file. The file is written aside, in a temporary file of its own
+     * so that concurrent writers do not share it, then atomically moved, so that a concurrent reader never maps a
+     * partial snapshot.
+     */
+    public static void write(File snapshotFile, Map<String, Integer> entries, long checksum) throws IOException {
+        List<byte[]> keys = new ArrayList<>(entries.size());
+        Map<byte[], Integer> values = new IdentityHashMap<>();
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            keys.add(key);
+            values.put(key, entry.getValue());
+        }
+        keys.sort(MedicalLexiconSnapshot::compareBytes);
+
+        File parent = snapshotFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create the directory " + parent);
+        }
+        File tmpFile = File.createTempFile(snapshotFile.getName(), ".tmp", parent);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(checksum);
+                out.writeInt(keys.size());
+                int offset = 0;
+                for (byte[] key : keys) {
+                    out.writeInt(offset);
+                    offset += key.length;
+                }
+                out.writeInt(offset);
+                for (byte[] key : keys) {
+                    out.writeInt(values.get(key));
+                }
+                for (byte[] key : keys) {
+                    out.write(key);
+                }
+            }
+            try {
+                Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            // only left when the snapshot could not be written or moved
+            tmpFile.delete();
+        }
+    }
+
+    /**
+     * Return the category mask of the given key, or null if the key is not in the snapshot.
+     */
+    public Integer get(String key) {
+        byte[] target = key.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compareKey(middle, target);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return buffer.getInt(valuesStart + middle * 4);
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int compareKey(int index, byte[] target) {
+        int start = keysStart + buffer.getInt(offsetsStart + index * 4);
+        int end = keysStart + buffer.getInt(offsetsStart + (index + 1) * 4);
+        int length = end - start;
+        int common = Math.min(length, target.length);
+        for (int i = 0; i < common; i++) {
+            int a = buffer.get(start + i) & 0xff;
+            int b = target[i] & 0xff;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return length - target.length;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = (a[i] & 0xff) - (b[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * Build the snapshot of the medical NER lexicon ahead of time, at the default location or at the path
+     * given as first argument.
+     */
+    public static void main(String[] args) throws IOException {
+        GrobidProperties.getInstance();
+        File snapshotFile = args.length > 0 ? new File(args[0]) : getDefaultSnapshotFile();
+        long checksum = checksum(MedicalNERLexicon.getSourcePaths());
+        MedicalLexiconMatcher matcher = MedicalNERLexicon.compile();
+        write(snapshotFile, matcher.getEntries(), checksum);
+        LOGGER.info("Lexicon snapshot written in " + snapshotFile.getAbsolutePath() + ", " + matcher.size() + " entries");
+    }
+}
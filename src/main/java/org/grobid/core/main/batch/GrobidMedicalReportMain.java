@@ -140,6 +140,8 @@ public class GrobidMedicalReportMain {
         help.append("-s: is the parameter used for process using string as input and not file.\n");
         help.append("-r: recursive directory processing, default processing is not recursive.\n");
         help.append("-l: language to be used, as ISO code (e.g. [en, fr]).\n");
+        help.append("-n: number of documents processed in parallel for processHeader and processFullText, default is 1 (sequential processing).\n");
+        help.append("-resume: skip the input files whose TEI output already exists and is more recent than the input file.\n");
         help.append("-exe: gives the command to execute. The value should be one of these:\n");
         help.append("\t" + availableCommands + "\n");
         return help.toString();
@@ -218,6 +220,23 @@ public class GrobidMedicalReportMain {
                     gbdArgs.setRecursive(true);
                     continue;
                 }
+                if (currArg.equals("-n")) {
+                    if (pArgs[i + 1] != null) {
+                        try {
+                            gbdArgs.setNbThreads(Integer.parseInt(pArgs[i + 1]));
+                        } catch (NumberFormatException e) {
+                            System.err.println("-n value should be a number of threads: " + pArgs[i + 1]);
+                            result = false;
+                            break;
+                        }
+                    }
+                    i++;
+                    continue;
+                }
+                if (currArg.equals("-resume")) {
+                    gbdArgs.setResume(true);
+                    continue;
+                }
             }
         }
         return result;
@@ -4,6 +4,12 @@ public class GrobidMedicalReportMainArgs extends GrobidMainArgs {
 	// French is the default language
 	public String lang = "fr";
 
+	// number of documents processed concurrently, 1 means sequential processing
+	public int nbThreads = 1;
+
+	// skip the input files whose TEI output already exists and is more recent than the input
+	public boolean resume = false;
+
 	public String getLang() {
 		return lang;
 	}
@@ -11,4 +17,20 @@ public class GrobidMedicalReportMainArgs extends GrobidMainArgs {
 	public void setLang(String lang) {
 		this.lang = lang;
 	}
-}
\ No newline at end of file
+
+	public int getNbThreads() {
+		return nbThreads;
+	}
+
+	public void setNbThreads(int nbThreads) {
+		this.nbThreads = nbThreads;
+	}
+
+	public boolean isResume() {
+		return resume;
+	}
+
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+}
@@ -0,0 +1,131 @@
+package org.grobid.core.utilities;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.grobid.core.GrobidModel;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Timers and counters of the stages of the processing pipeline (pdfalto, features, labelling of each model, result
+ * extraction and TEI serialization), per stage and per endpoint, so that the time of a slow request can be
+ * attributed to a stage.
+ *
+ * The metrics are disabled by default: until {@link #enable(MetricRegistry)} is called, the stages are only run and
+ * nothing is measured. Once enabled, the metrics are registered in the given registry (by the service, the one
+ * exported on /metrics/prometheus) under the names grobid-medical.stage.[stage].[endpoint], and the counters under
+ * grobid-medical.[counter].[endpoint].
+ *
+ * The endpoint is attached to the current thread by the caller (the REST layer), "batch" otherwise.
+ */
+public class PipelineMetrics {
+
+    public static final String PDFALTO = "pdfalto";
+    public static final String FEATURES = "features";
+    public static final String LABELLING = "labelling";
+    public static final String RESULT_EXTRACTION = "result-extraction";
+    public static final String TEI = "tei";
+
+    public static final String PAGES = "pages";
+    public static final String TOKENS = "tokens";
+
+    private static final String PREFIX = "grobid-medical";
+    private static final String DEFAULT_ENDPOINT = "batch";
+
+    // null when the metrics are disabled
+    private static volatile MetricRegistry registry = null;
+
+    private static final ThreadLocal<String> endpoint = ThreadLocal.withInitial(() -> DEFAULT_ENDPOINT);
+
+    public static void enable(MetricRegistry metricRegistry) {
+        registry = metricRegistry;
+    }
+
+    public static boolean isEnabled() {
+        return registry != null;
+    }
+
+    /**
+     * Attach the endpoint to the current thread, null to reset it.
+     */
+    public static void setEndpoint(String name) {
+        if (name == null) {
+            endpoint.remove();
+        } else {
+            endpoint.set(name);
+        }
+    }
+
+    public static String getEndpoint() {
+        return endpoint.get();
+    }
+
+    /**
+     * Name of the labelling stage of a model.
+     */
+    public static String labelling(GrobidModel model) {
+        return LABELLING + "." + model.getModelName();
+    }
+
+    /**
+     * Start the timer of a stage, return null when the metrics are disabled.
+     */
+    public static Timer.Context start(String stage) {
+        MetricRegistry metricRegistry = registry;
+        if (metricRegistry == null) {
+            return null;
+        }
+        return metricRegistry.timer(MetricRegistry.name(PREFIX, "stage", stage, endpoint.get())).time();
+    }
+
+    public static void stop(Timer.Context context) {
+        if (context != null) {
+            context.stop();
+        }
+    }
+
+    /**
+     * Run a stage and record its duration.
+     */
+    public static <T> T time(String stage, Supplier<T> supplier) {
+        Timer.Context context = start(stage);
+        try {
+            return supplier.get();
+        } finally {
+            stop(context);
+        }
+    }
+
+    /**
+     * Add a value to a counter (pages, tokens...) and to the histogram of its values per document.
+     */
+    public static void count(String counter, long value) {
+        MetricRegistry metricRegistry = registry;
+        if (metricRegistry == null) {
+            return;
+        }
+        String name = MetricRegistry.name(PREFIX, counter, endpoint.get());
+        metricRegistry.counter(name).inc(value);
+        metricRegistry.histogram(MetricRegistry.name(name, "per-document")).update(value);
+    }
+
+    /**
+     * Wrap a task run by another thread, so that its stages are attributed to the endpoint of the current thread.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        if (registry == null) {
+            return task;
+        }
+        String name = endpoint.get();
+        return () -> {
+            String previous = endpoint.get();
+            endpoint.set(name);
+            try {
+                return task.call();
+            } finally {
+                endpoint.set(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,198 @@
+package org.grobid.core.utilities;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replacement of the personal data of a document by their pseudonyms, built once per document from the pairs
+ * (original, pseudonym) of its .anonymized.data.txt file, and shared by all the *Anonym methods generating the
+ * anonymized features and training data.
+ *
+ * A single token is replaced with a hash look-up. The originals of several tokens (names, addresses...) are
+ * replaced in a text with an Aho-Corasick automaton, in a single pass over the text whatever the number of
+ * originals.
+ *
+ * When an original appears in several pairs, the first pair is used.
+ */
+public class PseudonymMap {
+
+    private static final PseudonymMap EMPTY = new PseudonymMap(new ArrayList<>(), new ArrayList<>());
+
+    private final Map<String, String> pseudonyms = new HashMap<>();
+
+    // Aho-Corasick automaton of all the originals, built on the first replacement in a text
+    private volatile List<Map<Character, Integer>> transitions = null;
+    private int[] failures;
+    // length of the original ending at each state, 0 if none
+    private int[] lengths;
+    // next state on the failure chain ending an original, -1 if none
+    private int[] outputs;
+
+    private PseudonymMap(List<String> originals, List<String> anonymized) {
+        for (int i = 0; i < originals.size() && i < anonymized.size(); i++) {
+            String original = originals.get(i);
+            String pseudonym = anonymized.get(i);
+            if (original == null || original.length() == 0 || pseudonym == null) {
+                continue;
+            }
+            pseudonyms.putIfAbsent(original, pseudonym.trim());
+        }
+    }
+
+    public static PseudonymMap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build the map from the lines of an .anonymized.data.txt file, each line being an original and its pseudonym
+     * separated by a tabulation.
+     */
+    public static PseudonymMap fromPairs(List<String> pairs) {
+        List<String> originals = new ArrayList<>();
+        List<String> anonymized = new ArrayList<>();
+        if (pairs != null) {
+            for (String pair : pairs) {
+                String[] split = pair.split("\t");
+                if (split.length < 2) {
+                    continue;
+                }
+                originals.add(split[0]);
+                anonymized.add(split[1]);
+            }
+        }
+        return new PseudonymMap(originals, anonymized);
+    }
+
+    /**
+     * Build the map from the list of the originals and the list of their pseudonyms, in the same order.
+     */
+    public static PseudonymMap of(List<String> originals, List<String> anonymized) {
+        return new PseudonymMap(originals, anonymized);
+    }
+
+    public boolean isEmpty() {
+        return pseudonyms.isEmpty();
+    }
+
+    public int size() {
+        return pseudonyms.size();
+    }
+
+    /**
+     * Return the pseudonym of the given original, null if it is not to be anonymized.
+     */
+    public String get(String original) {
+        return original == null ? null : pseudonyms.get(original);
+    }
+
+    /**
+     * Return the pseudonym of the given token, or the token itself if it is not to be anonymized.
+     */
+    public String replace(String token) {
+        String pseudonym = get(token);
+        return pseudonym != null ? pseudonym : token;
+    }
+
+    /**
+     * Replace all the originals found in the text by their pseudonyms. As with String.replace, the originals are
+     * matched anywhere in the text, also inside a longer word (e.g. "Paris" in "75013Paris"), so that no personal data
+     * is left in the text. The text is read from left to right, the longest original being replaced when several
+     * originals start at the same position, and the text of a replaced original is not matched again.
+     */
+    public String replaceAll(String text) {
+        if (text == null || text.length() == 0 || pseudonyms.isEmpty()) {
+            return text;
+        }
+        buildAutomaton();
+        List<Map<Character, Integer>> goTo = transitions;
+
+        // the longest original starting at each position of the text
+        int[] longest = new int[text.length()];
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            Integer next;
+            while ((next = goTo.get(state).get(c)) == null && state != 0) {
+                state = failures[state];
+            }
+            state = next == null ? 0 : next;
+            for (int match = lengths[state] > 0 ? state : outputs[state]; match != -1; match = outputs[match]) {
+                int start = i - lengths[match] + 1;
+                if (lengths[match] > longest[start]) {
+                    longest[start] = lengths[match];
+                }
+            }
+        }
+
+        StringBuilder result = new StringBuilder(text.length());
+        int i = 0;
+        while (i < text.length()) {
+            if (longest[i] > 0) {
+                result.append(pseudonyms.get(text.substring(i, i + longest[i])));
+                i += longest[i];
+            } else {
+                result.append(text.charAt(i));
+                i++;
+            }
+        }
+        return result.toString();
+    }
+
+    private synchronized void buildAutomaton() {
+        if (transitions != null) {
+            return;
+        }
+        List<Map<Character, Integer>> goTo = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        List<Boolean> terminals = new ArrayList<>();
+        goTo.add(new HashMap<>());
+        depths.add(0);
+        terminals.add(false);
+        for (String original : pseudonyms.keySet()) {
+            int state = 0;
+            for (int i = 0; i < original.length(); i++) {
+                Integer next = goTo.get(state).get(original.charAt(i));
+                if (next == null) {
+                    next = goTo.size();
+                    goTo.add(new HashMap<>());
+                    depths.add(depths.get(state) + 1);
+                    terminals.add(false);
+                    goTo.get(state).put(original.charAt(i), next);
+                }
+                state = next;
+            }
+            terminals.set(state, true);
+        }
+
+        int size = goTo.size();
+        int[] fail = new int[size];
+        int[] length = new int[size];
+        int[] output = new int[size];
+        for (int state = 0; state < size; state++) {
+            length[state] = terminals.get(state) ? depths.get(state) : 0;
+            output[state] = -1;
+        }
+        // breadth-first, so that the failure state of a state is computed before its children
+        List<Integer> queue = new ArrayList<>(goTo.get(0).values());
+        for (int head = 0; head < queue.size(); head++) {
+            int state = queue.get(head);
+            for (Map.Entry<Character, Integer> transition : goTo.get(state).entrySet()) {
+                int child = transition.getValue();
+                int failure = fail[state];
+                Integer next;
+                while ((next = goTo.get(failure).get(transition.getKey())) == null && failure != 0) {
+                    failure = fail[failure];
+                }
+                fail[child] = (next == null || next == child) ? 0 : next;
+                output[child] = length[fail[child]] > 0 ? fail[child] : output[fail[child]];
+                queue.add(child);
+            }
+        }
+        this.failures = fail;
+        this.lengths = length;
+        this.outputs = output;
+        this.transitions = goTo;
+    }
+}
@@ -0,0 +1,113 @@
+package org.grobid.core.utilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Helpers for labelling several independent sequences with a single call to the sequence labelling engine.
+ * The feature blocks are concatenated with an empty line between each sequence (the usual CRF input format),
+ * and the labelled output is split back into one block per input sequence.
+ */
+public class SequenceBatchUtilities {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SequenceBatchUtilities.class);
+
+    /**
+     * Concatenate the featured sequences into a single input, with the sequences separated by an empty line.
+     * Empty sequences must be filtered out by the caller, as they would not produce any output block.
+     */
+    public static String joinSequences(List<String> featuredSequences) {
+        StringBuilder batch = new StringBuilder();
+        for (String featuredSequence : featuredSequences) {
+            if (featuredSequence == null || featuredSequence.trim().length() == 0) {
+                continue;
+            }
+            batch.append(featuredSequence);
+            if (!featuredSequence.endsWith("\n")) {
+                batch.append("\n");
+            }
+            batch.append("\n");
+        }
+        return batch.toString();
+    }
+
+    /**
+     * Split a labelled batch back into its sequences. Returns null when the number of blocks found in the
+     * labelled output does not match the expected number of sequences, so that the caller can fall back to
+     * labelling each sequence separately.
+     */
+    public static List<String> splitSequences(String labelledBatch, int expectedSize) {
+        List<String> sequences = new ArrayList<>();
+        if (labelledBatch == null) {
+            return expectedSize == 0 ? sequences : null;
+        }
+
+        StringBuilder current = new StringBuilder();
+        int start = 0;
+        int length = labelledBatch.length();
+        while (start < length) {
+            int end = labelledBatch.indexOf('\n', start);
+            if (end == -1) {
+                end = length;
+            }
+            String line = labelledBatch.substring(start, end);
+            if (line.trim().length() == 0) {
+                if (current.length() > 0) {
+                    sequences.add(current.toString());
+                    current.setLength(0);
+                }
+            } else {
+                current.append(line).append("\n");
+            }
+            start = end + 1;
+        }
+        if (current.length() > 0) {
+            sequences.add(current.toString());
+        }
+
+        if (sequences.size() != expectedSize) {
+            return null;
+        }
+        return sequences;
+    }
+
+    /**
+     * Label the featured sequences with a single call to the labelling function (usually the label method of a
+     * parser). The labelled sequences are returned in the order of the input, with null for the blank sequences.
+     * If the labelled batch cannot be split back, the sequences are labelled one by one.
+     */
+    public static List<String> labelSequences(List<String> featuredSequences, Function<String, String> labeller) {
+        List<String> batch = new ArrayList<>();
+        for (String featuredSequence : featuredSequences) {
+            if (featuredSequence != null && featuredSequence.trim().length() > 0) {
+                batch.add(featuredSequence);
+            }
+        }
+
+        List<String> labelledBatch = null;
+        if (batch.size() > 0) {
+            labelledBatch = splitSequences(labeller.apply(joinSequences(batch)), batch.size());
+            if (labelledBatch == null) {
+                LOGGER.warn("Batch labelling failed, labelling the " + batch.size() + " sequences separately");
+                labelledBatch = new ArrayList<>();
+                for (String featuredSequence : batch) {
+                    labelledBatch.add(labeller.apply(featuredSequence));
+                }
+            }
+        }
+
+        List<String> results = new ArrayList<>();
+        int batchIndex = 0;
+        for (String featuredSequence : featuredSequences) {
+            if (featuredSequence != null && featuredSequence.trim().length() > 0) {
+                results.add(labelledBatch.get(batchIndex++));
+            } else {
+                results.add(null);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,106 @@
+package org.grobid.service;
+
+import org.grobid.core.utilities.PipelineMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admission control of the service requests: a global limit on the number of requests being processed
+ * (maxAcceptedRequests) and an optional limit per endpoint (endpointMaxConcurrency), so that a heavy endpoint
+ * such as processFullMedicalText cannot starve the light ones such as processDateline.
+ *
+ * A request beyond a limit is not queued: it is rejected immediately with a 503 status and a Retry-After header.
+ * The endpoint of an accepted request is attached to its thread for the pipeline metrics ({@link PipelineMetrics}).
+ */
+public class AdmissionControlFilter implements Filter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private final Semaphore acceptedRequests;
+    private final Map<String, Semaphore> endpointRequests = new HashMap<>();
+    private final int retryAfterSeconds;
+
+    /**
+     * @param maxAcceptedRequests    maximum number of requests processed at the same time, -1 for no limit
+     * @param endpointMaxConcurrency maximum number of requests processed at the same time for the given endpoints
+     * @param retryAfterSeconds      value of the Retry-After header of the rejected requests
+     */
+    public AdmissionControlFilter(int maxAcceptedRequests, Map<String, Integer> endpointMaxConcurrency, int retryAfterSeconds) {
+        this.acceptedRequests = maxAcceptedRequests > 0 ? new Semaphore(maxAcceptedRequests) : null;
+        if (endpointMaxConcurrency != null) {
+            for (Map.Entry<String, Integer> entry : endpointMaxConcurrency.entrySet()) {
+                if (entry.getValue() != null && entry.getValue() > 0) {
+                    endpointRequests.put(entry.getKey(), new Semaphore(entry.getValue()));
+                }
+            }
+        }
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        String endpoint = getEndpoint((HttpServletRequest) request);
+        Semaphore endpointSemaphore = endpointRequests.get(endpoint);
+
+        if (acceptedRequests != null && !acceptedRequests.tryAcquire()) {
+            reject((HttpServletResponse) response, "the maximum number of accepted requests is reached");
+            return;
+        }
+        try {
+            if (endpointSemaphore != null && !endpointSemaphore.tryAcquire()) {
+                reject((HttpServletResponse) response, "the maximum number of concurrent requests for this endpoint is reached");
+                return;
+            }
+            try {
+                // the stages of the processing are measured per endpoint
+                PipelineMetrics.setEndpoint(endpoint);
+                chain.doFilter(request, response);
+            } finally {
+                PipelineMetrics.setEndpoint(null);
+                if (endpointSemaphore != null) {
+                    endpointSemaphore.release();
+                }
+            }
+        } finally {
+            if (acceptedRequests != null) {
+                acceptedRequests.release();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * @return the endpoint name of the request, i.e. the last segment of its path (e.g. processFullMedicalText)
+     */
+    private static String getEndpoint(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path == null) {
+            return "";
+        }
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private void reject(HttpServletResponse response, String reason) throws IOException {
+        LOGGER.warn("Request rejected, " + reason + ". Sending service unavailable.");
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+}
@@ -53,6 +53,18 @@ public interface GrobidMedicalReportPaths {
      */
     String PATH_MEDICAL_NER = "processNER";
 
+    /**
+     * path extensions for processing JSON arrays of datelines, medics, patients and texts (NER).
+     * $ curl -X POST -H "Content-Type: application/json" -d '["[TEXT]", "[TEXT]"]' localhost:8090/api/processMedicBulk
+     */
+    String PATH_DATELINE_BULK = "processDatelineBulk";
+
+    String PATH_MEDIC_BULK = "processMedicBulk";
+
+    String PATH_PATIENT_BULK = "processPatientBulk";
+
+    String PATH_MEDICAL_NER_BULK = "processNERBulk";
+
     /**
 	 * path extension for processing document headers.
 	 */
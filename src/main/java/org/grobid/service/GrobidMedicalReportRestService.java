@@ -6,6 +6,7 @@ import com.google.inject.Singleton;
 import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 import org.grobid.core.engines.EngineMedical;
+import org.grobid.core.engines.FullMedicalTextParser;
 import org.grobid.core.factory.AbstractEngineMedicalFactory;
 import org.grobid.core.factory.GrobidMedicalPoolingFactory;
 import org.grobid.core.utilities.GrobidProperties;
@@ -58,18 +59,25 @@ public class GrobidMedicalReportRestService implements GrobidMedicalReportPaths
         GrobidProperties.setContextExecutionServer(true);
         LOGGER.info("Initiating servlet grobid-medical-report Rest Service");
         AbstractEngineMedicalFactory.init();
-        EngineMedical engine = null;
-        try {
-            // this will init or not all the models in memory
-            engine = EngineMedical.getEngine(configuration.getModelPreload());
-        } catch (NoSuchElementException nseExp) {
-            LOGGER.error("Could not get an engine from the pool within configured time.");
-        } catch (Exception exp) {
-            LOGGER.error("An unexpected exception occurs when initiating the grobid engine. ", exp);
-        } finally {
-            if (engine != null) {
-                GrobidMedicalPoolingFactory.returnEngine(engine);
+        FullMedicalTextParser.setParallelStages(configuration.getParallelStages());
+        if (configuration.getWarmUp()) {
+            // the models are loaded in the background, the service reports ready once they are all loaded
+            ModelWarmUp.start(configuration);
+        } else {
+            EngineMedical engine = null;
+            try {
+                // this will init or not all the models in memory
+                engine = EngineMedical.getEngine(configuration.getModelPreload());
+            } catch (NoSuchElementException nseExp) {
+                LOGGER.error("Could not get an engine from the pool within configured time.");
+            } catch (Exception exp) {
+                LOGGER.error("An unexpected exception occurs when initiating the grobid engine. ", exp);
+            } finally {
+                if (engine != null) {
+                    GrobidMedicalPoolingFactory.returnEngine(engine);
+                }
             }
+            ModelWarmUp.skip();
         }
 
         LOGGER.info("Initiating of servlet grobid-medical-report rest service finished.");
@@ -231,6 +239,50 @@ public class GrobidMedicalReportRestService implements GrobidMedicalReportPaths
         return restProcessString.processNER(ner);
     }
 
+    /**
+     * @see org.grobid.service.process.GrobidMedicalReportRestProcessString#processDatelineBulk(String)
+     */
+    @Path(PATH_DATELINE_BULK)
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @POST
+    public Response processDatelineBulk(String json) {
+        return restProcessString.processDatelineBulk(json);
+    }
+
+    /**
+     * @see org.grobid.service.process.GrobidMedicalReportRestProcessString#processMedicBulk(String)
+     */
+    @Path(PATH_MEDIC_BULK)
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @POST
+    public Response processMedicBulk(String json) {
+        return restProcessString.processMedicBulk(json);
+    }
+
+    /**
+     * @see org.grobid.service.process.GrobidMedicalReportRestProcessString#processPatientBulk(String)
+     */
+    @Path(PATH_PATIENT_BULK)
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @POST
+    public Response processPatientBulk(String json) {
+        return restProcessString.processPatientBulk(json);
+    }
+
+    /**
+     * @see org.grobid.service.process.GrobidMedicalReportRestProcessString#processNERBulk(String)
+     */
+    @Path(PATH_MEDICAL_NER_BULK)
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @POST
+    public Response processNERBulk(String json) {
+        return restProcessString.processNERBulk(json);
+    }
+
     /**
      * @see org.grobid.service.process.GrobidMedicalReportRestProcessFiles#processHeaderDocument(InputStream)
      */
@@ -12,6 +12,7 @@ import io.prometheus.client.dropwizard.DropwizardExports;
 import io.prometheus.client.exporter.MetricsServlet;
 import org.apache.commons.lang3.ArrayUtils;
 import org.eclipse.jetty.servlets.CrossOriginFilter;
+import org.grobid.core.utilities.PipelineMetrics;
 import org.grobid.service.configuration.GrobidMedicalReportServiceConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +57,10 @@ public class GrobidMedicalReportServiceApplication extends Application<GrobidMed
         new DropwizardExports(environment.metrics()).register();
         ServletRegistration.Dynamic registration = environment.admin().addServlet("Prometheus", new MetricsServlet());
         registration.addMapping("/metrics/prometheus");
+        if (configuration.getPipelineMetrics()) {
+            // timers of the stages of the pipeline, per endpoint (see AdmissionControlFilter)
+            PipelineMetrics.enable(environment.metrics());
+        }
         environment.jersey().setUrlPattern(RESOURCES + "/*");
 
         String allowedOrigins = configuration.getCorsAllowedOrigins();
@@ -73,6 +78,12 @@ public class GrobidMedicalReportServiceApplication extends Application<GrobidMed
 
         // Add URL mapping
         cors.addMappingForUrlPatterns(EnumSet.allOf(DispatcherType.class), true, RESOURCES + "/*");
+
+        // Admission control: requests beyond the global or per-endpoint limits are rejected with a 503 status
+        final FilterRegistration.Dynamic admission = environment.servlets().addFilter("AdmissionControl",
+            new AdmissionControlFilter(configuration.getMaxAcceptedRequests(),
+                configuration.getEndpointMaxConcurrency(), configuration.getRetryAfterSeconds()));
+        admission.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, RESOURCES + "/*");
     }
 
     public static void main(String[] args) throws Exception {
@@ -29,6 +29,7 @@ public class GrobidMedicalReportServiceModule extends DropwizardAwareModule<Grob
         // Core components (text and file processing)
         binder.bind(GrobidMedicalReportRestProcessString.class);
         binder.bind(GrobidMedicalReportRestProcessFiles.class);
+        binder.bind(TeiResultCache.class);
 
 
     }
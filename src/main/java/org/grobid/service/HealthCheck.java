@@ -28,6 +28,25 @@ public class HealthCheck extends com.codahale.metrics.health.HealthCheck {
         return Response.ok().build();
     }
 
+    /**
+     * Readiness of the service: 503 until the models are loaded and warmed up (see {@link ModelWarmUp}),
+     * so that no traffic is routed to an instance still loading its models.
+     */
+    @GET
+    @Path("ready")
+    public Response ready() {
+        if (ModelWarmUp.isReady()) {
+            return Response.ok().build();
+        }
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .entity("{\"status\": \"" + ModelWarmUp.getStatus() + "\"}")
+                .build();
+    }
+
+    /**
+     * Liveness of the service, independent of the warm-up: an instance still loading its models must not be
+     * restarted, only the readiness resource above waits for the warm-up.
+     */
     @Override
     protected Result check() throws Exception {
         return configuration.getGrobidHome() != null ? Result.healthy() :
@@ -0,0 +1,158 @@
+package org.grobid.service;
+
+import org.grobid.core.engines.EngineMedical;
+import org.grobid.core.engines.EngineMedicalParsers;
+import org.grobid.core.engines.config.GrobidAnalysisConfig;
+import org.grobid.core.factory.GrobidMedicalPoolingFactory;
+import org.grobid.service.configuration.GrobidMedicalReportServiceConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Warm-up of the service at startup: all the parsers and lexicons are loaded in parallel, then some synthetic
+ * inputs are processed by each pipeline so that the hot paths are compiled before the first real request.
+ * The service reports ready (see {@link HealthCheck}) only once the warm-up has succeeded: when no engine can be
+ * borrowed or a pipeline fails, the failure is reported in the status and the service stays not ready.
+ */
+public class ModelWarmUp {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModelWarmUp.class);
+
+    private static final String WARM_UP_DATELINE = "Paris, le 12 mars 2019";
+    private static final String WARM_UP_MEDIC = "Dr Jean DUPONT\nService de Cardiologie\nHôpital Saint-Louis\n75010 Paris\nTél : 01 42 49 49 49";
+    private static final String WARM_UP_PATIENT = "Mme Marie MARTIN\nNée le 01/02/1950\n12 rue de la Paix\n75002 Paris";
+    private static final String WARM_UP_NER = "Patiente de 69 ans hospitalisée pour une douleur thoracique. " +
+        "Traitement par aspirine 75 mg et bisoprolol 2,5 mg. Echographie cardiaque normale.";
+    private static final int WARM_UP_ITERATIONS = 3;
+
+    private static volatile boolean ready = false;
+    private static volatile String status = "warm-up not started";
+
+    public static boolean isReady() {
+        return ready;
+    }
+
+    public static String getStatus() {
+        return status;
+    }
+
+    /**
+     * Start the warm-up in a background thread, so that the server can answer the health checks
+     * (as not ready) while the models are loaded.
+     */
+    public static void start(final GrobidMedicalReportServiceConfiguration configuration) {
+        Thread thread = new Thread(() -> run(configuration), "grobid-medical-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Mark the service as ready without warm-up, the models being loaded lazily by the first requests.
+     */
+    public static void skip() {
+        status = "ready (no warm-up)";
+        ready = true;
+    }
+
+    private static void run(GrobidMedicalReportServiceConfiguration configuration) {
+        long start = System.currentTimeMillis();
+        try {
+            status = "loading models";
+            int nbThreads = configuration.getWarmUpThreads() > 0 ?
+                configuration.getWarmUpThreads() : Runtime.getRuntime().availableProcessors();
+            EngineMedicalParsers.getSharedInstance().initAll(nbThreads);
+            LOGGER.info("Models and lexicons loaded in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception exp) {
+            status = "model loading failed: " + exp.getMessage();
+            LOGGER.error("An unexpected exception occurs when loading the models, the service is not ready. ", exp);
+            return;
+        }
+
+        status = "warming up";
+        EngineMedical engine = null;
+        Set<String> failures = new LinkedHashSet<>();
+        try {
+            engine = EngineMedical.getEngine(configuration.getModelPreload());
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                warmUp(engine, configuration, failures);
+            }
+        } catch (NoSuchElementException nseExp) {
+            status = "warm-up failed: no engine available in the pool";
+            LOGGER.error("Could not get an engine from the pool within configured time, the service is not ready.");
+            return;
+        } catch (Exception exp) {
+            status = "warm-up failed: " + exp.getMessage();
+            LOGGER.error("An unexpected exception occurs when warming up the grobid engine, the service is not ready. ", exp);
+            return;
+        } finally {
+            if (engine != null) {
+                GrobidMedicalPoolingFactory.returnEngine(engine);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            status = "warm-up failed: " + String.join(", ", failures);
+            LOGGER.error("The warm-up of the " + String.join(", ", failures) + " pipelines failed, the service is not ready");
+            return;
+        }
+
+        status = "ready";
+        ready = true;
+        LOGGER.info("Warm-up finished in " + (System.currentTimeMillis() - start) + " ms, the service is ready");
+    }
+
+    /**
+     * Run each pipeline once, the names of the failing pipelines being added to failures.
+     */
+    private static void warmUp(EngineMedical engine,
+                               GrobidMedicalReportServiceConfiguration configuration,
+                               Set<String> failures) {
+        // a failing pipeline must not prevent the other ones from being warmed up
+        try {
+            engine.processDateline(WARM_UP_DATELINE);
+        } catch (Exception e) {
+            LOGGER.warn("Warm-up of the dateline parser failed", e);
+            failures.add("dateline");
+        }
+        try {
+            engine.processMedic(WARM_UP_MEDIC);
+        } catch (Exception e) {
+            LOGGER.warn("Warm-up of the medic parser failed", e);
+            failures.add("medic");
+        }
+        try {
+            engine.processPatient(WARM_UP_PATIENT);
+        } catch (Exception e) {
+            LOGGER.warn("Warm-up of the patient parser failed", e);
+            failures.add("patient");
+        }
+        try {
+            engine.processMedicalNER(WARM_UP_NER);
+        } catch (Exception e) {
+            LOGGER.warn("Warm-up of the medical NER parser failed", e);
+            failures.add("medical NER");
+        }
+
+        // the PDF pipelines (header, left-note and full text) need a real document
+        String warmUpDocument = configuration.getWarmUpDocument();
+        if (warmUpDocument == null || warmUpDocument.trim().isEmpty()) {
+            return;
+        }
+        File document = new File(warmUpDocument);
+        if (!document.isFile() || document.length() == 0) {
+            LOGGER.warn("The warm-up document " + warmUpDocument + " is missing or empty, the full text pipeline is not warmed up");
+        } else {
+            try {
+                engine.fullTextToTEIDoc(document, null,
+                    GrobidAnalysisConfig.defaultInstance());
+            } catch (Exception e) {
+                LOGGER.warn("Warm-up of the full text pipeline on " + warmUpDocument + " failed", e);
+                failures.add("full text");
+            }
+        }
+    }
+}
@@ -5,6 +5,9 @@ import io.dropwizard.Configuration;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hibernate.validator.constraints.NotEmpty;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class GrobidMedicalReportServiceConfiguration extends Configuration {
     @JsonProperty
     private String grobidHome;
@@ -12,6 +15,42 @@ public class GrobidMedicalReportServiceConfiguration extends Configuration {
     @JsonProperty
     private boolean modelPreload = false;
 
+    @JsonProperty
+    private boolean warmUp = false;
+
+    @JsonProperty
+    private int warmUpThreads = -1;
+
+    @JsonProperty
+    private String warmUpDocument;
+
+    @JsonProperty
+    private int maxAcceptedRequests = -1;
+
+    @JsonProperty
+    private Map<String, Integer> endpointMaxConcurrency = new HashMap<>();
+
+    @JsonProperty
+    private int retryAfterSeconds = 5;
+
+    @JsonProperty
+    private int parallelStages = 0;
+
+    @JsonProperty
+    private boolean pipelineMetrics = false;
+
+    @JsonProperty
+    private int resultCacheSize = 0;
+
+    @JsonProperty
+    private String resultCacheDirectory;
+
+    @JsonProperty
+    private int resultCacheDiskMaxSizeMB = 1024;
+
+    @JsonProperty
+    private String tmp;
+
     @JsonProperty
     private String corsAllowedOrigins;
 
@@ -60,4 +99,100 @@ public class GrobidMedicalReportServiceConfiguration extends Configuration {
     public void setModelPreload(boolean modelPreload) {
         this.modelPreload = modelPreload;
     }
+
+    public boolean getWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public int getWarmUpThreads() {
+        return warmUpThreads;
+    }
+
+    public void setWarmUpThreads(int warmUpThreads) {
+        this.warmUpThreads = warmUpThreads;
+    }
+
+    public String getWarmUpDocument() {
+        return warmUpDocument;
+    }
+
+    public void setWarmUpDocument(String warmUpDocument) {
+        this.warmUpDocument = warmUpDocument;
+    }
+
+    public int getMaxAcceptedRequests() {
+        return maxAcceptedRequests;
+    }
+
+    public void setMaxAcceptedRequests(int maxAcceptedRequests) {
+        this.maxAcceptedRequests = maxAcceptedRequests;
+    }
+
+    public Map<String, Integer> getEndpointMaxConcurrency() {
+        return endpointMaxConcurrency;
+    }
+
+    public void setEndpointMaxConcurrency(Map<String, Integer> endpointMaxConcurrency) {
+        this.endpointMaxConcurrency = endpointMaxConcurrency;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getParallelStages() {
+        return parallelStages;
+    }
+
+    public void setParallelStages(int parallelStages) {
+        this.parallelStages = parallelStages;
+    }
+
+    public boolean getPipelineMetrics() {
+        return pipelineMetrics;
+    }
+
+    public void setPipelineMetrics(boolean pipelineMetrics) {
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    public int getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    public void setResultCacheSize(int resultCacheSize) {
+        this.resultCacheSize = resultCacheSize;
+    }
+
+    public String getResultCacheDirectory() {
+        return resultCacheDirectory;
+    }
+
+    public void setResultCacheDirectory(String resultCacheDirectory) {
+        this.resultCacheDirectory = resultCacheDirectory;
+    }
+
+    public int getResultCacheDiskMaxSizeMB() {
+        return resultCacheDiskMaxSizeMB;
+    }
+
+    public void setResultCacheDiskMaxSizeMB(int resultCacheDiskMaxSizeMB) {
+        this.resultCacheDiskMaxSizeMB = resultCacheDiskMaxSizeMB;
+    }
+
+    public String getTmp() {
+        return tmp;
+    }
+
+    public void setTmp(String tmp) {
+        this.tmp = tmp;
+    }
 }
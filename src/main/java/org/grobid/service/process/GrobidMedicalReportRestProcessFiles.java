@@ -1,11 +1,17 @@
 package org.grobid.service.process;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.grobid.core.data.HeaderMedicalItem;
 import org.grobid.core.data.LeftNoteMedicalItem;
+import org.grobid.core.document.Document;
 import org.grobid.core.engines.Engine;
 import org.grobid.core.engines.EngineMedical;
+import org.grobid.core.engines.FullMedicalTextParser;
 import org.grobid.core.engines.config.GrobidAnalysisConfig;
 import org.grobid.core.factory.GrobidMedicalPoolingFactory;
 import org.grobid.core.factory.GrobidPoolingFactory;
@@ -21,13 +27,17 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.xml.bind.DatatypeConverter;
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -40,8 +50,67 @@ public class GrobidMedicalReportRestProcessFiles {
     private static final Logger LOGGER = LoggerFactory.getLogger(GrobidMedicalReportRestProcessFiles.class);
 
     @Inject
-    public GrobidMedicalReportRestProcessFiles() {
+    private TeiResultCache resultCache;
 
+    // time during which an engine of the pool is held by a request
+    private final Timer engineHoldTime;
+
+    // time spent by a request waiting for a free engine of the pool
+    private final Timer enginePoolWait;
+
+    @Inject
+    public GrobidMedicalReportRestProcessFiles(MetricRegistry metricRegistry) {
+        this.engineHoldTime = metricRegistry.timer(
+            MetricRegistry.name(GrobidMedicalReportRestProcessFiles.class, "engine-hold-time"));
+        this.enginePoolWait = metricRegistry.timer(
+            MetricRegistry.name(GrobidMedicalReportRestProcessFiles.class, "engine-pool-wait"));
+    }
+
+    /**
+     * Borrow an engine from the pool, once the input document is received. If there is no engine in the pool
+     * within the configured time, a NoSuchElementException is thrown.
+     */
+    private EngineMedical borrowEngine() throws Exception {
+        return borrowEngine(() -> EngineMedical.getEngine(true), "No grobid-medical-report engine available");
+    }
+
+    private <E> E borrowEngine(Callable<E> pool, String unavailableMessage) throws Exception {
+        E engine;
+        Timer.Context poolWait = enginePoolWait.time();
+        try {
+            engine = pool.call();
+        } finally {
+            poolWait.stop();
+        }
+        // conservative check, if no engine is free in the pool a NoSuchElementException is normally thrown
+        if (engine == null) {
+            throw new GrobidServiceException(unavailableMessage, Status.SERVICE_UNAVAILABLE);
+        }
+        return engine;
+    }
+
+    /**
+     * Stream a temporary TEI file to the client, the file being removed once sent.
+     */
+    private static StreamingOutput streamFile(File teiFile) {
+        return output -> {
+            try {
+                Files.copy(teiFile.toPath(), output);
+            } finally {
+                IOUtilities.removeTempFile(teiFile);
+            }
+        };
+    }
+
+    /**
+     * Stream an opened TEI stream to the client, the stream being closed once sent.
+     */
+    private static StreamingOutput streamInput(InputStream teiStream) {
+        return output -> {
+            try (InputStream input = teiStream) {
+                IOUtils.copy(input, output);
+            }
+        };
     }
 
     /**
@@ -55,13 +124,8 @@ public class GrobidMedicalReportRestProcessFiles {
         String retVal = null;
         Response response = null;
         File originFile = null;
-        EngineMedical engine = null;
         try {
-            engine = EngineMedical.getEngine(true);
-            // if there is no engine in the pool, an Exception is thrown
-            if (engine == null) {
-                throw new GrobidServiceException("No grobid-medical-report engine available", Status.SERVICE_UNAVAILABLE);
-            }
+            // the upload is fully received before an engine is borrowed, so that a slow client does not hold it
             // digest the MD5 input
             MessageDigest md = MessageDigest.getInstance("MD5");
             DigestInputStream dis = new DigestInputStream(inputStream, md);
@@ -77,10 +141,25 @@ public class GrobidMedicalReportRestProcessFiles {
 
             String md5Str = DatatypeConverter.printHexBinary(digest).toUpperCase();
 
-            HeaderMedicalItem result = new HeaderMedicalItem();
-
-            // process the Header part
-            retVal = engine.processHeader(originFile.getAbsolutePath(), md5Str, result);
+            // a document already processed is taken from the cache
+            String cacheKey = resultCache.key(md5Str, "processHeaderDocument", null);
+            retVal = resultCache.get(cacheKey);
+            if (retVal == null) {
+                HeaderMedicalItem result = new HeaderMedicalItem();
+                Document doc;
+                EngineMedical engine = borrowEngine();
+                Timer.Context engineHold = engineHoldTime.time();
+                try {
+                    // label the Header part
+                    doc = engine.labelHeader(originFile.getAbsolutePath(), md5Str, result);
+                } finally {
+                    // the engine is returned as soon as the document is labelled, the TEI being built without it
+                    GrobidMedicalPoolingFactory.returnEngine(engine);
+                    engineHold.stop();
+                }
+                retVal = EngineMedical.headerToTEI(doc, result);
+                resultCache.put(cacheKey, retVal);
+            }
 
             if (GrobidRestUtils.isResultNullOrEmpty(retVal)) {
                 response = Response.status(Status.NO_CONTENT).build();
@@ -99,10 +178,6 @@ public class GrobidMedicalReportRestProcessFiles {
         } finally {
             if (originFile != null)
                 IOUtilities.removeTempFile(originFile);
-
-            if (engine != null) {
-                GrobidMedicalPoolingFactory.returnEngine(engine);
-            }
         }
 
         LOGGER.debug(methodLogOut());
@@ -120,13 +195,8 @@ public class GrobidMedicalReportRestProcessFiles {
         String retVal = null;
         Response response = null;
         File originFile = null;
-        EngineMedical engine = null;
         try {
-            engine = EngineMedical.getEngine(true);
-            // if there is no engine in the pool, an Exception is thrown
-            if (engine == null) {
-                throw new GrobidServiceException("No grobid-medical-report engine available", Status.SERVICE_UNAVAILABLE);
-            }
+            // the upload is fully received before an engine is borrowed, so that a slow client does not hold it
             // digest the MD5 input
             MessageDigest md = MessageDigest.getInstance("MD5");
             DigestInputStream dis = new DigestInputStream(inputStream, md);
@@ -142,10 +212,25 @@ public class GrobidMedicalReportRestProcessFiles {
 
             String md5Str = DatatypeConverter.printHexBinary(digest).toUpperCase();
 
-            LeftNoteMedicalItem result = new LeftNoteMedicalItem();
-
-            // process the left-note part
-            retVal = engine.processLeftNote(originFile.getAbsolutePath(), md5Str, result);
+            // a document already processed is taken from the cache
+            String cacheKey = resultCache.key(md5Str, "processLeftNoteDocument", null);
+            retVal = resultCache.get(cacheKey);
+            if (retVal == null) {
+                LeftNoteMedicalItem result = new LeftNoteMedicalItem();
+                Document doc;
+                EngineMedical engine = borrowEngine();
+                Timer.Context engineHold = engineHoldTime.time();
+                try {
+                    // label the left-note part
+                    doc = engine.labelLeftNote(originFile.getAbsolutePath(), md5Str, result);
+                } finally {
+                    // the engine is returned as soon as the document is labelled, the TEI being built without it
+                    GrobidMedicalPoolingFactory.returnEngine(engine);
+                    engineHold.stop();
+                }
+                retVal = EngineMedical.leftNoteToTEI(doc, result);
+                resultCache.put(cacheKey, retVal);
+            }
 
             if (GrobidRestUtils.isResultNullOrEmpty(retVal)) {
                 response = Response.status(Status.NO_CONTENT).build();
@@ -164,10 +249,6 @@ public class GrobidMedicalReportRestProcessFiles {
         } finally {
             if (originFile != null)
                 IOUtilities.removeTempFile(originFile);
-
-            if (engine != null) {
-                GrobidMedicalPoolingFactory.returnEngine(engine);
-            }
         }
 
         LOGGER.debug(methodLogOut());
@@ -177,6 +258,10 @@ public class GrobidMedicalReportRestProcessFiles {
     /**
      * Upload PDF document as input and retrieve extracted data of full medical document in TEI/XML format as output
      *
+     * The TEI is written section by section to a temporary file, then streamed to the client from this file, so that
+     * the whole TEI of a large document is not kept in memory. The engine is returned once the document is labelled,
+     * before the TEI is built and sent.
+     *
      * @param inputStream the data of origin document
      * @return a response object which contains a TEI representation of the full medical document
      */
@@ -191,13 +276,9 @@ public class GrobidMedicalReportRestProcessFiles {
         String retVal = null;
         Response response = null;
         File originFile = null;
-        EngineMedical engine = null;
+        File teiFile = null;
         try {
-            engine = EngineMedical.getEngine(true);
-            // if there is no engine in the pool, an Exception is thrown
-            if (engine == null) {
-                throw new GrobidServiceException("No grobid-medical-report engine available", Status.SERVICE_UNAVAILABLE);
-            }
+            // the upload is fully received before an engine is borrowed, so that a slow client does not hold it
             // digest the MD5 input
             MessageDigest md = MessageDigest.getInstance("MD5");
             DigestInputStream dis = new DigestInputStream(inputStream, md);
@@ -223,9 +304,49 @@ public class GrobidMedicalReportRestProcessFiles {
                     .withSentenceSegmentation(segmentSentences)
                     .build();
 
-            retVal = engine.fullTextToTEI(originFile, md5Str, config);
+            // a document already processed with the same options is taken from the cache
+            String cacheKey = resultCache.key(md5Str, "processFullMedicalText",
+                "startPage=" + startPage + ",endPage=" + endPage + ",generateIDs=" + generateIDs +
+                    ",segmentSentences=" + segmentSentences + ",teiCoordinates=" + teiCoordinates);
+            TeiResultCache.CachedResult cached = resultCache.lookup(cacheKey);
+            InputStream cachedStream = null;
+            if (cached != null) {
+                retVal = cached.getText();
+                // a large result is streamed from its file in the cache, already opened by the cache
+                cachedStream = cached.getStream();
+            } else {
+                FullMedicalTextParser.LabelledDocument labelled;
+                EngineMedical engine = borrowEngine();
+                Timer.Context engineHold = engineHoldTime.time();
+                try {
+                    labelled = engine.labelFullText(originFile, md5Str, config);
+                } finally {
+                    // the engine is returned as soon as the document is labelled, the TEI being built without it
+                    GrobidMedicalPoolingFactory.returnEngine(engine);
+                    engineHold.stop();
+                }
+                teiFile = IOUtilities.newTempFile("tei", ".xml");
+                try (Writer teiWriter = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(teiFile), StandardCharsets.UTF_8))) {
+                    EngineMedical.fullTextToTEI(labelled, config, teiWriter);
+                }
+                resultCache.put(cacheKey, teiFile);
+            }
 
-            if (GrobidRestUtils.isResultNullOrEmpty(retVal)) {
+            if (cachedStream != null) {
+                response = Response.status(Status.OK)
+                    .entity(streamInput(cachedStream))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_XML + "; charset=UTF-8")
+                    .build();
+            } else if (retVal == null && teiFile.length() > 0) {
+                // the temporary file is removed once sent
+                StreamingOutput teiOutput = streamFile(teiFile);
+                teiFile = null;
+                response = Response.status(Status.OK)
+                    .entity(teiOutput)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_XML + "; charset=UTF-8")
+                    .build();
+            } else if (GrobidRestUtils.isResultNullOrEmpty(retVal)) {
                 response = Response.status(Status.NO_CONTENT).build();
             } else {
                 response = Response.status(Status.OK)
@@ -242,10 +363,8 @@ public class GrobidMedicalReportRestProcessFiles {
         } finally {
             if (originFile != null)
                 IOUtilities.removeTempFile(originFile);
-
-            if (engine != null) {
-                GrobidMedicalPoolingFactory.returnEngine(engine);
-            }
+            if (teiFile != null)
+                IOUtilities.removeTempFile(teiFile);
         }
         LOGGER.debug(methodLogOut());
         return response;
@@ -262,13 +381,8 @@ public class GrobidMedicalReportRestProcessFiles {
         String retVal = null;
         Response response = null;
         File originFile = null;
-        EngineMedical engine = null;
         try {
-            engine = EngineMedical.getEngine(true);
-            // if there is no engine in the pool, an Exception is thrown
-            if (engine == null) {
-                throw new GrobidServiceException("No grobid-medical-report engine available", Status.SERVICE_UNAVAILABLE);
-            }
+            // the upload is fully received before an engine is borrowed, so that a slow client does not hold it
             // digest the MD5 input
             MessageDigest md = MessageDigest.getInstance("MD5");
             DigestInputStream dis = new DigestInputStream(inputStream, md);
@@ -284,8 +398,24 @@ public class GrobidMedicalReportRestProcessFiles {
 
             String md5Str = DatatypeConverter.printHexBinary(digest).toUpperCase();
 
-            // process the medical NER
-            retVal = engine.processFrenchNER(originFile.getAbsolutePath(), md5Str);
+            // a document already processed is taken from the cache
+            String cacheKey = resultCache.key(md5Str, "processFrenchMedicalNER", null);
+            retVal = resultCache.get(cacheKey);
+            if (retVal == null) {
+                Pair<String, Document> labelled;
+                EngineMedical engine = borrowEngine();
+                Timer.Context engineHold = engineHoldTime.time();
+                try {
+                    // label the medical terms
+                    labelled = engine.labelFrenchNER(originFile.getAbsolutePath(), md5Str);
+                } finally {
+                    // the engine is returned as soon as the document is labelled, the TEI being built without it
+                    GrobidMedicalPoolingFactory.returnEngine(engine);
+                    engineHold.stop();
+                }
+                retVal = EngineMedical.frenchNERToTEI(labelled);
+                resultCache.put(cacheKey, retVal);
+            }
 
             if (GrobidRestUtils.isResultNullOrEmpty(retVal)) {
                 response = Response.status(Status.NO_CONTENT).build();
@@ -313,10 +443,6 @@ public class GrobidMedicalReportRestProcessFiles {
         } finally {
             if (originFile != null)
                 IOUtilities.removeTempFile(originFile);
-
-            if (engine != null) {
-                GrobidMedicalPoolingFactory.returnEngine(engine);
-            }
         }
 
         LOGGER.debug(methodLogOut());
@@ -356,16 +482,9 @@ public class GrobidMedicalReportRestProcessFiles {
         Response response = null;
         String retVal = null;
         File originFile = null;
-        Engine engine = null;
         String assetPath = null;
         try {
-            engine = Engine.getEngine(true);
-            // conservative check, if no engine is free in the pool a NoSuchElementException is normally thrown
-            if (engine == null) {
-                throw new GrobidServiceException(
-                    "No GROBID engine available", Status.SERVICE_UNAVAILABLE);
-            }
-
+            // the upload is fully received before an engine is borrowed, so that a slow client does not hold it
             MessageDigest md = MessageDigest.getInstance("MD5");
             DigestInputStream dis = new DigestInputStream(inputStream, md);
 
@@ -397,7 +516,15 @@ public class GrobidMedicalReportRestProcessFiles {
                     .withSentenceSegmentation(segmentSentences)
                     .build();
 
-            retVal = engine.fullTextToTEI(originFile, md5Str, config);
+            Engine engine = borrowEngine(() -> Engine.getEngine(true), "No GROBID engine available");
+            Timer.Context engineHold = engineHoldTime.time();
+            try {
+                retVal = engine.fullTextToTEI(originFile, md5Str, config);
+            } finally {
+                // the engine is returned before the assets are zipped
+                GrobidPoolingFactory.returnEngine(engine);
+                engineHold.stop();
+            }
 
             if (GrobidRestUtils.isResultNullOrEmpty(retVal)) {
                 response = Response.status(Status.NO_CONTENT).build();
@@ -458,10 +585,6 @@ public class GrobidMedicalReportRestProcessFiles {
             if (assetPath != null) {
                 IOUtilities.removeTempDirectory(assetPath);
             }
-
-            if (engine != null) {
-                GrobidPoolingFactory.returnEngine(engine);
-            }
         }
 
         LOGGER.debug(methodLogOut());
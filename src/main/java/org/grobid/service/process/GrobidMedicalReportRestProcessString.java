@@ -1,5 +1,7 @@
 package org.grobid.service.process;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Singleton;
 import org.grobid.core.analyzers.GrobidAnalyzer;
 import org.grobid.core.data.MedicalEntity;
@@ -19,6 +21,7 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -30,6 +33,15 @@ public class GrobidMedicalReportRestProcessString {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GrobidMedicalReportRestProcessString.class);
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Processing of a batch of strings by an engine, the results being in the order of the inputs.
+     */
+    private interface BatchProcessing {
+        List<String> process(EngineMedical engine, List<String> inputs) throws Exception;
+    }
+
     @Inject
     public GrobidMedicalReportRestProcessString() {
 
@@ -217,6 +229,105 @@ public class GrobidMedicalReportRestProcessString {
         return response;
     }
 
+    /**
+     * Parse a JSON array of raw datelines, all the datelines being labelled with a single call to the model.
+     *
+     * @param json JSON array of raw dateline strings
+     * @return a response object containing a JSON array with the structured xml representation of each dateline
+     */
+    public Response processDatelineBulk(String json) {
+        return processBulk(json, "dateline", true, EngineMedical::processDatelineAsRawBatch);
+    }
+
+    /**
+     * Parse a JSON array of raw medics, all the medics being labelled with a single call to the model.
+     *
+     * @param json JSON array of raw medic strings
+     * @return a response object containing a JSON array with the structured xml representation of each medic
+     */
+    public Response processMedicBulk(String json) {
+        return processBulk(json, "medic", true, EngineMedical::processMedicAsRawBatch);
+    }
+
+    /**
+     * Parse a JSON array of raw patients, all the patients being labelled with a single call to the model.
+     *
+     * @param json JSON array of raw patient strings
+     * @return a response object containing a JSON array with the structured xml representation of each patient
+     */
+    public Response processPatientBulk(String json) {
+        return processBulk(json, "patient", true, EngineMedical::processPatientAsRawBatch);
+    }
+
+    /**
+     * Parse a JSON array of raw texts, all the texts being labelled with a single call to the NER model.
+     *
+     * @param json JSON array of raw texts
+     * @return a response object containing a JSON array with the structured xml representation of the medical
+     * terminologies (NER) of each text
+     */
+    public Response processNERBulk(String json) {
+        return processBulk(json, "listEntity", false, EngineMedical::processMedicalNERAsRawBatch);
+    }
+
+    /**
+     * Process a JSON array of strings with a single engine and a single call to the model, and return a JSON array
+     * with the result of each string in the same order (null when nothing is extracted from a string).
+     */
+    private Response processBulk(String json, String element, boolean singleLine, BatchProcessing processing) {
+        LOGGER.debug(methodLogIn());
+        Response response = null;
+        EngineMedical engine = null;
+        try {
+            List<String> inputs;
+            try {
+                inputs = MAPPER.readValue(json, new TypeReference<List<String>>() {});
+            } catch (Exception e) {
+                LOGGER.debug("The bulk input is not a JSON array of strings", e);
+                inputs = null;
+            }
+            if (inputs == null) {
+                return Response.status(Status.BAD_REQUEST)
+                    .entity("The input must be a JSON array of strings")
+                    .build();
+            }
+            if (singleLine) {
+                List<String> lines = new ArrayList<>();
+                for (String input : inputs) {
+                    lines.add(input == null ? null : input.replaceAll("\\n", " ").replaceAll("\\t", " "));
+                }
+                inputs = lines;
+            }
+
+            engine = EngineMedical.getEngine(true);
+            List<String> results = processing.process(engine, inputs);
+            GrobidMedicalPoolingFactory.returnEngine(engine);
+            engine = null;
+
+            List<String> retVal = new ArrayList<>();
+            for (String result : results) {
+                retVal.add(GrobidRestUtils.isResultNullOrEmpty(result) ? null :
+                    "<" + element + ">\n\t" + result + "\n</" + element + ">\n");
+            }
+            response = Response.status(Status.OK)
+                .entity(MAPPER.writeValueAsString(retVal))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON + "; charset=UTF-8")
+                .build();
+        } catch (NoSuchElementException nseExp) {
+            LOGGER.error("Could not get an engine from the pool within configured time. Sending service unavailable.");
+            response = Response.status(Status.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            LOGGER.error("An unexpected exception occurs. ", e);
+            response = Response.status(Status.INTERNAL_SERVER_ERROR).build();
+        } finally {
+            if (engine != null) {
+                GrobidMedicalPoolingFactory.returnEngine(engine);
+            }
+        }
+        LOGGER.debug(methodLogOut());
+        return response;
+    }
+
     public String methodLogIn() {
         return ">> " + GrobidMedicalReportRestProcessString.class.getName() + "." + Thread.currentThread().getStackTrace()[1].getMethodName();
     }
@@ -0,0 +1,337 @@
+package org.grobid.service.process;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.commons.io.IOUtils;
+import org.grobid.core.utilities.GrobidMedicalReportProperties;
+import org.grobid.core.utilities.GrobidProperties;
+import org.grobid.service.configuration.GrobidMedicalReportServiceConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Cache of the TEI results of the PDF services, so that a document submitted again (retries, re-indexing, several
+ * consumers) is not processed again.
+ *
+ * The results are addressed by the MD5 of the uploaded document (already computed by the REST layer), the endpoint,
+ * the processing options and the version of the models. They are kept in a LRU memory tier (resultCacheSize
+ * entries) and optionally in a disk tier (resultCacheDirectory), bounded by resultCacheDiskMaxSizeMB: the least
+ * recently used files are removed beyond this size. The results larger than 1MB (in UTF-8) are only kept in the disk
+ * tier, so that the memory tier does not hold the large documents streamed by the full text service: they are
+ * returned by lookup as a stream opened on their cached file, to be sent without being loaded in memory.
+ *
+ * The hits and misses are counted in the metric registry, and thus exported on /metrics/prometheus.
+ */
+@Singleton
+public class TeiResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TeiResultCache.class);
+
+    private static final String FILE_EXTENSION = ".tei.xml";
+    // in bytes of the UTF-8 encoding of the results
+    private static final long MEMORY_MAX_RESULT_BYTES = 1024 * 1024;
+
+    private final int maxEntries;
+    private final Map<String, String> memory;
+    private final File directory;
+    private final long diskMaxSize;
+    private long diskSize = -1;
+
+    private final Counter hits;
+    private final Counter diskHits;
+    private final Counter misses;
+
+    private volatile String modelVersion = null;
+
+    @Inject
+    public TeiResultCache(GrobidMedicalReportServiceConfiguration configuration, MetricRegistry metricRegistry) {
+        this.maxEntries = configuration.getResultCacheSize();
+        this.memory = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        String directoryPath = configuration.getResultCacheDirectory();
+        this.directory = (directoryPath == null || directoryPath.trim().isEmpty()) ? null : new File(directoryPath);
+        this.diskMaxSize = configuration.getResultCacheDiskMaxSizeMB() * 1024L * 1024L;
+
+        this.hits = metricRegistry.counter(MetricRegistry.name(TeiResultCache.class, "hits"));
+        this.diskHits = metricRegistry.counter(MetricRegistry.name(TeiResultCache.class, "disk-hits"));
+        this.misses = metricRegistry.counter(MetricRegistry.name(TeiResultCache.class, "misses"));
+        metricRegistry.register(MetricRegistry.name(TeiResultCache.class, "entries"), (Gauge<Integer>) () -> {
+            synchronized (memory) {
+                return memory.size();
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 || directory != null;
+    }
+
+    /**
+     * Return the key of a result, from the MD5 of the input document, the endpoint and its options.
+     */
+    public String key(String md5, String endpoint, String options) {
+        return sha256(md5 + "\n" + endpoint + "\n" + (options == null ? "" : options) + "\n" + getModelVersion());
+    }
+
+    /**
+     * A cached result: its text, or the file of the disk tier holding it when it is too large to be loaded in memory.
+     */
+    public static class CachedResult {
+        private final String text;
+        private final InputStream stream;
+
+        private CachedResult(String text, InputStream stream) {
+            this.text = text;
+            this.stream = stream;
+        }
+
+        /**
+         * The text of the result, null if the result is to be read from its stream.
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * The stream of the cached file of a large result, to be closed by the caller once read.
+         */
+        public InputStream getStream() {
+            return stream;
+        }
+    }
+
+    /**
+     * Return the cached result of the key, null if there is none.
+     */
+    public String get(String key) {
+        CachedResult result = lookup(key);
+        if (result == null || result.getText() != null) {
+            return result == null ? null : result.getText();
+        }
+        try (InputStream stream = result.getStream()) {
+            return IOUtils.toString(stream, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read the cached result " + key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Return the cached result of the key, null if there is none. The results of the disk tier larger than
+     * MEMORY_MAX_RESULT_BYTES are returned as a stream, opened on their file while no other thread of the cache can
+     * evict or replace it: the stream stays readable when the file is removed afterwards, before being sent.
+     */
+    public CachedResult lookup(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        String result;
+        synchronized (memory) {
+            result = memory.get(key);
+        }
+        if (result != null) {
+            hits.inc();
+            return new CachedResult(result, null);
+        }
+        CachedResult cached = readFromDisk(key);
+        if (cached != null) {
+            hits.inc();
+            diskHits.inc();
+            if (cached.getText() != null) {
+                putInMemory(key, cached.getText(), cached.getText().getBytes(StandardCharsets.UTF_8).length);
+            }
+            return cached;
+        }
+        misses.inc();
+        return null;
+    }
+
+    /**
+     * Cache a result, the empty results are not cached.
+     */
+    public void put(String key, String result) {
+        if (!isEnabled() || result == null || result.trim().isEmpty()) {
+            return;
+        }
+        byte[] content = result.getBytes(StandardCharsets.UTF_8);
+        putInMemory(key, result, content.length);
+        storeOnDisk(key, content.length, tmpFile -> Files.write(tmpFile.toPath(), content));
+    }
+
+    /**
+     * Cache a result written in a file, the file being copied in the disk tier. The empty results are not cached.
+     */
+    public void put(String key, File result) {
+        if (!isEnabled() || result.length() == 0) {
+            return;
+        }
+        if (maxEntries > 0 && result.length() <= MEMORY_MAX_RESULT_BYTES) {
+            try {
+                putInMemory(key, new String(Files.readAllBytes(result.toPath()), StandardCharsets.UTF_8), result.length());
+            } catch (IOException e) {
+                LOGGER.warn("Cannot read the result " + result, e);
+                return;
+            }
+        }
+        copyToDisk(key, result);
+    }
+
+    private void putInMemory(String key, String result, long bytes) {
+        if (maxEntries > 0 && bytes <= MEMORY_MAX_RESULT_BYTES) {
+            synchronized (memory) {
+                memory.put(key, result);
+            }
+        }
+    }
+
+    private CachedResult readFromDisk(String key) {
+        if (directory == null) {
+            return null;
+        }
+        File file = new File(directory, key + FILE_EXTENSION);
+        synchronized (this) {
+            if (!file.exists()) {
+                return null;
+            }
+            try {
+                // the last modification date gives the order of eviction
+                file.setLastModified(System.currentTimeMillis());
+                if (file.length() > MEMORY_MAX_RESULT_BYTES) {
+                    // the large results are streamed from their file
+                    return new CachedResult(null, new FileInputStream(file));
+                }
+                return new CachedResult(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), null);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot read the cached result " + file, e);
+                return null;
+            }
+        }
+    }
+
+    private void copyToDisk(String key, File result) {
+        storeOnDisk(key, result.length(),
+            tmpFile -> Files.copy(result.toPath(), tmpFile.toPath(), StandardCopyOption.REPLACE_EXISTING));
+    }
+
+    private interface TmpFileWriter {
+        void write(File tmpFile) throws IOException;
+    }
+
+    private void storeOnDisk(String key, long length, TmpFileWriter tmpFileWriter) {
+        if (directory == null || length > diskMaxSize) {
+            return;
+        }
+        synchronized (this) {
+            try {
+                if (!directory.exists() && !directory.mkdirs()) {
+                    LOGGER.warn("Cannot create the result cache directory " + directory);
+                    return;
+                }
+                if (diskSize < 0) {
+                    diskSize = 0;
+                    for (File file : listCachedFiles()) {
+                        diskSize += file.length();
+                    }
+                }
+                File file = new File(directory, key + FILE_EXTENSION);
+                if (file.exists()) {
+                    diskSize -= file.length();
+                }
+                // written aside then moved, so that a partial file is never read
+                File tmpFile = new File(directory, key + ".tmp");
+                tmpFileWriter.write(tmpFile);
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                diskSize += length;
+                if (diskSize > diskMaxSize) {
+                    evict();
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Cannot write the cached result " + key, e);
+            }
+        }
+    }
+
+    /**
+     * Remove the least recently used files until the disk tier is within its size limit.
+     */
+    private void evict() {
+        List<File> files = listCachedFiles();
+        files.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (diskSize <= diskMaxSize) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                diskSize -= length;
+            }
+        }
+    }
+
+    private List<File> listCachedFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        return files == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(files));
+    }
+
+    /**
+     * Version of the models: the version of grobid-medical-report and the size and date of the model files, so
+     * that the results of retrained models are not taken from the cache.
+     */
+    private String getModelVersion() {
+        if (modelVersion == null) {
+            StringBuilder version = new StringBuilder(GrobidMedicalReportProperties.getVersion());
+            File modelsDirectory = new File(GrobidProperties.getGrobidHome(), "models");
+            List<File> modelFiles = new ArrayList<>();
+            listFiles(modelsDirectory, modelFiles);
+            modelFiles.sort(Comparator.comparing(File::getPath));
+            for (File modelFile : modelFiles) {
+                version.append('\n').append(modelFile.getPath())
+                    .append(' ').append(modelFile.length())
+                    .append(' ').append(modelFile.lastModified());
+            }
+            modelVersion = sha256(version.toString());
+        }
+        return modelVersion;
+    }
+
+    private static void listFiles(File directory, List<File> files) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                listFiles(child, files);
+            } else {
+                files.add(child);
+            }
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return DatatypeConverter.printHexBinary(md.digest(value.getBytes(StandardCharsets.UTF_8))).toLowerCase();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
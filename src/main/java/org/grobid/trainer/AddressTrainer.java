@@ -91,27 +91,22 @@ public class AddressTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
+            totalExamples = CRFDataPreparation.prepare(model, refFiles, null, (teifile, examples) -> {
+                List<OffsetPosition> locationsPositions;
+                List<OffsetPosition> cityNamePositions;
 
-            List<OffsetPosition> locationsPositions;
-            List<OffsetPosition> cityNamePositions;
-
-            int n = 0;
-            for (; n < refFiles.length; n++) {
-                final File teifile = refFiles[n];
                 String name = teifile.getName();
                 System.out.println(name);
 
                 final TEIAddressSaxParser parser2 = new TEIAddressSaxParser();
 
                 // get a new instance of parser
-                final SAXParser p = spf.newSAXParser();
+                final SAXParser p = SAXParserFactory.newInstance().newSAXParser();
                 p.parse(teifile, parser2);
 
                 final List<List<String>> allLabeled = parser2.getLabeledResult();
                 final List<List<LayoutToken>> allTokens = parser2.getTokensResult();
-                totalExamples += parser2.nbAddress;
+                examples.count(parser2.nbAddress);
 
                 // we can now add the features
                 for (int i = 0; i < allTokens.size(); i++) {
@@ -127,18 +122,9 @@ public class AddressTrainer extends AbstractTrainer {
 
                     String address = FeaturesVectorAddress.addFeaturesAddress(allTokens.get(i), allLabeled.get(i), locationsPositions, cityNamePositions);
 
-                    if ((writer2 == null) && (writer3 != null))
-                        writer3.write(address + "\n \n");
-                    if ((writer2 != null) && (writer3 == null))
-                        writer2.write(address + "\n \n");
-                    else {
-                        if (Math.random() <= splitRatio)
-                            writer2.write(address + "\n \n");
-                        else
-                            writer3.write(address + "\n \n");
-                    }
+                    examples.add(address + "\n \n");
                 }
-            }
+            }, writer2, writer3, splitRatio);
 
             if (writer2 != null) {
                 writer2.close();
@@ -0,0 +1,228 @@
+package org.grobid.trainer;
+
+import org.grobid.core.GrobidModel;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.File;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Preparation of the CRF training and evaluation data of the trainers from their corpus of TEI files.
+ *
+ * The TEI files are parsed and featured in parallel (nbThreads threads, the number of cores by default), while the
+ * examples are written in the order of the file names, as if the files were processed one after the other: the
+ * resulting data do not depend on the number of threads.
+ *
+ * The examples are separated between training and evaluation data with a random generator initialized with a fixed
+ * seed, so that the same corpus and split ratio always give the same training and evaluation data.
+ *
+ * The examples of each TEI file are kept in the {@link CRFFeatureCache} of the model, so that a file not changed
+ * since the previous preparation, nor the raw file read with it, is not parsed and featured again.
+ */
+public class CRFDataPreparation {
+
+    public static final long DEFAULT_SEED = 42L;
+
+    private static int nbThreads = Runtime.getRuntime().availableProcessors();
+    private static long seed = DEFAULT_SEED;
+
+    /**
+     * Set the number of threads featuring the TEI files, the number of cores if nb <= 0.
+     */
+    public static void setNbThreads(int nb) {
+        nbThreads = nb > 0 ? nb : Runtime.getRuntime().availableProcessors();
+    }
+
+    public static int getNbThreads() {
+        return nbThreads;
+    }
+
+    public static void setSeed(long value) {
+        seed = value;
+    }
+
+    public static long getSeed() {
+        return seed;
+    }
+
+    /**
+     * The examples of a TEI file, with their features in the CRF format and their labels.
+     */
+    public static class Examples {
+        final List<String> examples = new ArrayList<>();
+        int count = 0;
+
+        /**
+         * Add an example, with its separator.
+         */
+        public void add(String example) {
+            examples.add(example);
+        }
+
+        /**
+         * Count the corpus items of the file, returned by the preparation.
+         */
+        public void count(int nb) {
+            count += nb;
+        }
+    }
+
+    /**
+     * Parsing and featuring of a TEI file of the corpus, called concurrently for different files.
+     */
+    public interface Featurizer {
+        void featurize(File teiFile, Examples examples) throws Exception;
+    }
+
+    /**
+     * The raw file read by the featurizer with a TEI file of the corpus (the features of its tokens), called
+     * concurrently for different files. The content of the raw file is part of the key of the cached examples.
+     */
+    public interface RawFiles {
+        /**
+         * Return the raw file of a TEI file, null if there is none.
+         */
+        File rawFile(File teiFile) throws Exception;
+    }
+
+    /**
+     * Feature the TEI files and write their examples, each example going to the training data with the probability
+     * splitRatio and to the evaluation data otherwise. When one of the writers is null, all the examples go to the
+     * other one.
+     *
+     * @param model    the model of the examples, whose feature cache is used
+     * @param rawFiles the raw files read by the featurizer with the TEI files, null if none
+     * @return the total number of corpus items counted by the featurizer
+     */
+    public static int prepare(GrobidModel model,
+                              File[] teiFiles,
+                              RawFiles rawFiles,
+                              Featurizer featurizer,
+                              Writer trainingWriter,
+                              Writer evalWriter,
+                              double splitRatio) throws Exception {
+        File[] files = teiFiles.clone();
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        Random random = new Random(seed);
+        int threads = Math.max(1, Math.min(nbThreads, files.length));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Deque<Future<Examples>> pending = new ArrayDeque<>();
+        int next = 0;
+        int totalCount = 0;
+        CRFFeatureCache cache = CRFFeatureCache.of(model, corpus(files));
+        boolean complete = false;
+        try {
+            while (next < files.length || !pending.isEmpty()) {
+                // only a few files are featured ahead of the writing, so that the memory does not grow with the corpus
+                while (next < files.length && pending.size() < 2 * threads) {
+                    final File teiFile = files[next++];
+                    pending.add(executor.submit(() -> featurize(teiFile, rawFiles, featurizer, cache)));
+                }
+                Examples examples = get(pending.poll());
+                totalCount += examples.count;
+                for (String example : examples.examples) {
+                    write(example, trainingWriter, evalWriter, splitRatio, random);
+                }
+            }
+            complete = true;
+        } finally {
+            executor.shutdownNow();
+            if (cache != null) {
+                cache.close(complete);
+            }
+        }
+        return totalCount;
+    }
+
+    /**
+     * The directories of the TEI files, which identify their corpus in the feature cache.
+     */
+    private static String corpus(File[] files) {
+        SortedSet<String> directories = new TreeSet<>();
+        for (File file : files) {
+            directories.add(file.getAbsoluteFile().getParent());
+        }
+        return String.join("\n", directories);
+    }
+
+    private static Examples featurize(File teiFile,
+                                      RawFiles rawFiles,
+                                      Featurizer featurizer,
+                                      CRFFeatureCache cache) throws Exception {
+        String key = null;
+        if (cache != null) {
+            key = cache.key(teiFile, rawFiles == null ? null : rawFiles.rawFile(teiFile));
+            Examples examples = cache.load(key);
+            if (examples != null) {
+                return examples;
+            }
+        }
+        Examples examples = new Examples();
+        featurizer.featurize(teiFile, examples);
+        if (cache != null) {
+            cache.store(key, examples);
+        }
+        return examples;
+    }
+
+    /**
+     * Read the name of the PDF of a TEI file of the corpus, given by the xml:id of its fileDesc, without parsing the
+     * rest of the file. Return null if there is none.
+     */
+    public static String readPDFName(File teiFile) throws Exception {
+        String[] pdfName = {null};
+        try {
+            SAXParserFactory.newInstance().newSAXParser().parse(teiFile, new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+                    if (qName.equals("fileDesc")) {
+                        pdfName[0] = atts.getValue("xml:id");
+                        throw new FileDescFound();
+                    }
+                }
+            });
+        } catch (FileDescFound e) {
+            // the rest of the file is not needed
+        }
+        return pdfName[0];
+    }
+
+    private static class FileDescFound extends SAXException {
+    }
+
+    private static void write(String example,
+                              Writer trainingWriter,
+                              Writer evalWriter,
+                              double splitRatio,
+                              Random random) throws Exception {
+        if (trainingWriter == null) {
+            if (evalWriter != null)
+                evalWriter.write(example);
+        } else if (evalWriter == null) {
+            trainingWriter.write(example);
+        } else if (random.nextDouble() <= splitRatio) {
+            trainingWriter.write(example);
+        } else {
+            evalWriter.write(example);
+        }
+    }
+
+    private static Examples get(Future<Examples> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
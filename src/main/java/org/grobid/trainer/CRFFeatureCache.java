@@ -0,0 +1,240 @@
+package org.grobid.trainer;
+
+import org.grobid.core.GrobidModel;
+import org.grobid.core.lexicon.MedicalLexiconSnapshot;
+import org.grobid.core.lexicon.MedicalNERLexicon;
+import org.grobid.core.utilities.GrobidMedicalReportProperties;
+import org.grobid.core.utilities.GrobidProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk cache of the examples featured from the TEI files of a training corpus, so that when only a few files of
+ * the corpus have changed since the last preparation, only these files are parsed and featured again.
+ *
+ * The examples of a TEI file are stored under grobid-home/tmp/crf-feature-cache/[model]/[corpus], the corpus being
+ * identified by the hash of the path of its TEI files, so that the training and evaluation corpora of a model have
+ * their own entries. An entry is a file named by the
+ * hash of the content of the TEI file, of the content of the raw file read with it for the models taking their
+ * features from raw files, and of the version of the feature extraction: the version of grobid-medical-report and
+ * FEATURES_VERSION and the snapshot of the lexicons (grobid-home/lexicon and the medical gazetteers). Any change
+ * gives another key, and only the changed files are featured again.
+ *
+ * An entry is a gzipped file holding the number of corpus items, the number of examples and each example as
+ * length-prefixed UTF-8 bytes. The entries of a corpus not used by a complete preparation of this corpus are removed
+ * at its end, so that the cache only holds the current version of each corpus.
+ */
+public class CRFFeatureCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CRFFeatureCache.class);
+
+    // to be increased when the features written by the trainers change within a version of grobid-medical-report
+    public static final int FEATURES_VERSION = 1;
+
+    public static final String DIRECTORY_NAME = "crf-feature-cache";
+    private static final String FILE_EXTENSION = ".features.gz";
+    private static final int MAGIC = 0x47434643; // GCFC
+
+    private static boolean enabled = true;
+
+    private final File directory;
+    private final byte[] version;
+    private final Set<String> usedKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private CRFFeatureCache(File directory, byte[] version) {
+        this.directory = directory;
+        this.version = version;
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Return the cache of the examples of a corpus of a model, null when the cache is disabled or cannot be used.
+     *
+     * @param corpus the path of the TEI files of the corpus
+     */
+    public static CRFFeatureCache of(GrobidModel model, String corpus) {
+        if (!enabled || model == null) {
+            return null;
+        }
+        File directory = new File(new File(new File(GrobidProperties.getTempPath(), DIRECTORY_NAME),
+            model.getModelName()), DatatypeConverter.printHexBinary(
+            sha256().digest(corpus.getBytes(StandardCharsets.UTF_8))).toLowerCase().substring(0, 16));
+        if (!directory.exists() && !directory.mkdirs()) {
+            LOGGER.warn("Cannot create the feature cache directory " + directory + ", all the TEI files are featured");
+            return null;
+        }
+        try {
+            return new CRFFeatureCache(directory, featuresVersion());
+        } catch (IOException e) {
+            LOGGER.warn("Cannot compute the version of the features, all the TEI files are featured", e);
+            return null;
+        }
+    }
+
+    /**
+     * Key of the examples of a TEI file.
+     *
+     * @param rawFile the raw file read with the TEI file, null if none
+     */
+    public String key(File teiFile, File rawFile) throws IOException {
+        MessageDigest md = sha256();
+        md.update(version);
+        md.update(Files.readAllBytes(teiFile.toPath()));
+        // the name of the raw file, as it is matched from the TEI file, then its content
+        md.update(("\n" + (rawFile == null ? "" : rawFile.getName()) + "\n").getBytes(StandardCharsets.UTF_8));
+        if (rawFile != null && rawFile.exists()) {
+            md.update(Files.readAllBytes(rawFile.toPath()));
+        }
+        String key = DatatypeConverter.printHexBinary(md.digest()).toLowerCase();
+        usedKeys.add(key);
+        return key;
+    }
+
+    /**
+     * Return the cached examples of a key, null if they are not in the cache.
+     */
+    public CRFDataPreparation.Examples load(String key) {
+        File file = new File(directory, key + FILE_EXTENSION);
+        if (!file.exists()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("unknown format");
+            }
+            CRFDataPreparation.Examples examples = new CRFDataPreparation.Examples();
+            examples.count(in.readInt());
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                examples.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            hits.incrementAndGet();
+            return examples;
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring the cached features " + file + ": " + e.getMessage());
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Store the examples of a key. A failure only means that the file will be featured again.
+     */
+    public void store(String key, CRFDataPreparation.Examples examples) {
+        File file = new File(directory, key + FILE_EXTENSION);
+        File tmpFile = null;
+        try {
+            // written aside and moved, so that a concurrent or interrupted preparation never reads a partial entry
+            tmpFile = File.createTempFile(key, ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(tmpFile))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(examples.count);
+                out.writeInt(examples.examples.size());
+                for (String example : examples.examples) {
+                    byte[] bytes = example.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot cache the features in " + file, e);
+            if (tmpFile != null) {
+                tmpFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Remove the entries not used by a complete preparation of the corpus: the files removed from the corpus and the
+     * previous versions of the changed files. Nothing is removed when the preparation has failed, as the entries of
+     * the files not reached are then not used.
+     */
+    public void close(boolean complete) {
+        File[] files = complete ? directory.listFiles() : null;
+        int removed = 0;
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                boolean used = name.endsWith(FILE_EXTENSION) &&
+                    usedKeys.contains(name.substring(0, name.length() - FILE_EXTENSION.length()));
+                if (!used && file.delete()) {
+                    removed++;
+                }
+            }
+        }
+        LOGGER.info("Feature cache " + directory + ": " + hits.get() + " files taken from the cache, " +
+            misses.get() + " files featured, " + removed + " outdated entries removed");
+    }
+
+    /**
+     * Digest of everything the features depend on, except the TEI file and its raw file.
+     */
+    private static byte[] featuresVersion() throws IOException {
+        StringBuilder version = new StringBuilder();
+        version.append(GrobidMedicalReportProperties.getVersion()).append(' ').append(FEATURES_VERSION);
+        // the lexicons of grobid (cities, names...) by size and date, the medical gazetteers by their checksum
+        appendFiles(version, new File(GrobidProperties.getGrobidHome(), "lexicon"));
+        version.append('\n').append(MedicalLexiconSnapshot.checksum(MedicalNERLexicon.getSourcePaths()));
+        return sha256().digest(version.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendFiles(StringBuilder version, File directory) {
+        List<File> files = new ArrayList<>();
+        listFiles(directory, files);
+        files.sort(Comparator.comparing(File::getPath));
+        for (File file : files) {
+            version.append('\n').append(file.getPath())
+                .append(' ').append(file.length())
+                .append(' ').append(file.lastModified());
+        }
+    }
+
+    private static void listFiles(File directory, List<File> files) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                listFiles(child, files);
+            } else {
+                files.add(child);
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -89,25 +89,21 @@ public class DatelineTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
-            List<OffsetPosition> locationsPositions;
+            totalExamples = CRFDataPreparation.prepare(model, refFiles, null, (teifile, examples) -> {
+                List<OffsetPosition> locationsPositions;
 
-            int n = 0;
-            for (; n < refFiles.length; n++) {
-                final File teifile = refFiles[n];
                 String name = teifile.getName();
                 //System.out.println(name);
 
                 final TEIDatelineSaxParser parser2 = new TEIDatelineSaxParser();
 
                 // get a new instance of parser
-                final SAXParser p = spf.newSAXParser();
+                final SAXParser p = SAXParserFactory.newInstance().newSAXParser();
                 p.parse(teifile, parser2);
 
                 final List<List<String>> allLabeled = parser2.getLabeledResult();
                 final List<List<LayoutToken>> allTokens = parser2.getTokensResult();
-                totalExamples += parser2.nbDatelines;
+                examples.count(parser2.nbDatelines);
 
                 // we can now add the features
                 for (int i = 0; i < allTokens.size(); i++) {
@@ -121,18 +117,9 @@ public class DatelineTrainer extends AbstractTrainer {
 
                     String headerDatelines = FeaturesVectorDateline.addFeaturesDateline(allTokens.get(i), allLabeled.get(i), locationsPositions);
 
-                    if ((writer2 == null) && (writer3 != null))
-                        writer3.write(headerDatelines + "\n \n");
-                    if ((writer2 != null) && (writer3 == null))
-                        writer2.write(headerDatelines + "\n \n");
-                    else {
-                        if (Math.random() <= splitRatio)
-                            writer2.write(headerDatelines + "\n \n");
-                        else
-                            writer3.write(headerDatelines + "\n \n");
-                    }
+                    examples.add(headerDatelines + "\n \n");
                 }
-            }
+            }, writer2, writer3, splitRatio);
 
             if (writer2 != null) {
                 writer2.close();
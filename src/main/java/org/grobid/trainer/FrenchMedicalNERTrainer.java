@@ -103,31 +103,26 @@ public class FrenchMedicalNERTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
-
-            // general lexicon taken from Grobid
-            List<OffsetPosition> locationsPositions;
-            List<OffsetPosition> titlesPositions;
-            List<OffsetPosition> suffixesPositions;
-            List<OffsetPosition> emailPositions;
-            List<OffsetPosition> urlPositions;
-
-            int n = 0;
-            for (; n < refFiles.length; n++) {
-                final File teifile = refFiles[n];
+            totalExamples = CRFDataPreparation.prepare(model, refFiles, null, (teifile, examples) -> {
+                // general lexicon taken from Grobid
+                List<OffsetPosition> locationsPositions;
+                List<OffsetPosition> titlesPositions;
+                List<OffsetPosition> suffixesPositions;
+                List<OffsetPosition> emailPositions;
+                List<OffsetPosition> urlPositions;
+
                 String name = teifile.getName();
                 System.out.println(name);
 
                 final FrenchCorpusSaxHandler parser2 = new FrenchCorpusSaxHandler();
 
                 // get a new instance of parser
-                final SAXParser p = spf.newSAXParser();
+                final SAXParser p = SAXParserFactory.newInstance().newSAXParser();
                 p.parse(teifile, parser2);
 
                 final List<List<String>> allLabeled = parser2.getLabeledResult();
                 final List<List<LayoutToken>> allTokens = parser2.getTokensResult();
-                totalExamples += parser2.nbEntities;
+                examples.count(parser2.nbEntities);
 
                 // we can now add the features
                for(int i=0; i<allTokens.size(); i++) {
@@ -147,18 +142,9 @@ public class FrenchMedicalNERTrainer extends AbstractTrainer {
                    String featuresNER = FeaturesVectorMedicalNER.addFeaturesNER(allTokens.get(i), allLabeled.get(i),
                        locationsPositions, titlesPositions, suffixesPositions, emailPositions, urlPositions);
 
-                    if ( (writer2 == null) && (writer3 != null) )
-                        writer3.write(featuresNER + "\n \n"); // we write and add separators for each document
-                    if ( (writer2 != null) && (writer3 == null) )
-                        writer2.write(featuresNER + "\n \n");
-                    else {
-                        if (Math.random() <= splitRatio) // we randomize the data for training and evaluation
-                            writer2.write(featuresNER + "\n \n");
-                        else
-                            writer3.write(featuresNER + "\n \n");
-                    }
+                    examples.add(featuresNER + "\n \n"); // we add separators for each document
                 }
-            }
+            }, writer2, writer3, splitRatio);
 
             if (writer2 != null) {
                 writer2.close();
@@ -98,17 +98,18 @@ public class FullMedicalTextTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
+            // the raw file of a tei file is part of the key of its cached features
+            CRFDataPreparation.RawFiles rawFiles = teiFile ->
+                new File(sourceRawPathLabel + File.separator + teiFile.getName().replace(".tei.xml", ""));
 
-            for (File tf : refFiles) {
+            totalExamples = CRFDataPreparation.prepare(model, refFiles, rawFiles, (tf, examples) -> {
                 String name = tf.getName();
                 LOGGER.info("Processing: " + name);
 
                 TEIFullMedicalTextSaxParser parser2 = new TEIFullMedicalTextSaxParser();
 
                 //get a new instance of parser
-                SAXParser p = spf.newSAXParser();
+                SAXParser p = SAXParserFactory.newInstance().newSAXParser();
                 p.parse(tf, parser2);
 
                 List<String> labeled = parser2.getLabeledResult();
@@ -120,7 +121,7 @@ public class FullMedicalTextTrainer extends AbstractTrainer {
                         name.replace(".tei.xml", ""));
                     if (!rawFile.exists()) {
                         LOGGER.error("The raw file does not exist: " + rawFile.getPath());
-                        continue;
+                        return;
                     }
 
                     BufferedReader bis = new BufferedReader(
@@ -187,24 +188,15 @@ public class FullMedicalTextTrainer extends AbstractTrainer {
 
                     // format with features for sequence tagging...
                     if (nbInvalid < 10) {
-                        if ((writer2 == null) && (writer3 != null))
-                            writer3.write(fulltext.toString() + "\n");
-                        if ((writer2 != null) && (writer3 == null))
-                            writer2.write(fulltext.toString() + "\n");
-                        else {
-                            if (Math.random() <= splitRatio)
-                                writer2.write(fulltext.toString() + "\n");
-                            else
-                                writer3.write(fulltext.toString() + "\n");
-                        }
-                        totalExamples++;
+                        examples.add(fulltext.toString() + "\n");
+                        examples.count(1);
                     } else {
                         LOGGER.error(name + " / too many synchronization issues, file not used in training data and to be fixed!");
                     }
                 } catch (Exception e) {
                     LOGGER.error("Fail to open or process raw file", e);
                 }
-            }
+            }, writer2, writer3, splitRatio);
 
             if (writer2 != null) {
                 writer2.close();
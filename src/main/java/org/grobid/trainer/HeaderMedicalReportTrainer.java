@@ -111,7 +111,13 @@ public class HeaderMedicalReportTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            for (File teifile : refFiles) {
+            // the header files are listed once for all the tei files
+            final File[] refFiles2 = new File(headerPath).listFiles();
+            // the header file of a tei file is part of the key of its cached features
+            CRFDataPreparation.RawFiles rawFiles = teiFile ->
+                findHeaderFile(refFiles2, CRFDataPreparation.readPDFName(teiFile));
+
+            CRFDataPreparation.prepare(model, refFiles, rawFiles, (teifile, examples) -> {
                 String name = teifile.getName();
 
                 TEIHeaderMedicalSaxParser parser2 = new TEIHeaderMedicalSaxParser();
@@ -125,30 +131,11 @@ public class HeaderMedicalReportTrainer extends AbstractTrainer {
 
                 ArrayList<String> labeled = parser2.getLabeledResult();
 
-                File refDir2 = new File(headerPath);
-                String headerFile = null;
-                File[] refFiles2 = refDir2.listFiles();
-                for (File aRefFiles2 : refFiles2) {
-                    String localFileName = aRefFiles2.getName();
-                    if (localFileName.equals(parser2.getPDFName() + ".header.medical") ||
-                        localFileName.equals(parser2.getPDFName() + ".training.header.medical") ||
-                        localFileName.equals(parser2.getPDFName() + ".anonym.training.header.medical")) {
-                        headerFile = localFileName;
-                        break;
-                    }
-                    if ((localFileName.startsWith(parser2.getPDFName() + "._")) &&
-                        (localFileName.endsWith(".header.medical") ||
-                            localFileName.endsWith(".training.header.medical") ||
-                            localFileName.endsWith(".anonym.training.header.medical"))) {
-                        headerFile = localFileName;
-                        break;
-                    }
-                }
-
+                File headerFile = findHeaderFile(refFiles2, parser2.getPDFName());
                 if (headerFile == null)
-                    continue;
+                    return;
 
-                String pathHeader = headerPath + File.separator + headerFile;
+                String pathHeader = headerFile.getPath();
                 int p = 0;
                 BufferedReader bis = new BufferedReader(
                     new InputStreamReader(new FileInputStream(pathHeader), "UTF8"));
@@ -259,17 +246,8 @@ public class HeaderMedicalReportTrainer extends AbstractTrainer {
                     header2.append("\n");
                 }
 
-                if ((writer2 == null) && (writer3 != null))
-                    writer3.write(header2.toString() + "\n");
-                if ((writer2 != null) && (writer3 == null))
-                    writer2.write(header2.toString() + "\n");
-                else {
-                    if (Math.random() <= splitRatio)
-                        writer2.write(header2.toString() + "\n");
-                    else
-                        writer3.write(header2.toString() + "\n");
-                }
-            }
+                examples.add(header2.toString() + "\n");
+            }, writer2, writer3, splitRatio);
 
             if (writer2 != null) {
                 writer2.close();
@@ -287,6 +265,30 @@ public class HeaderMedicalReportTrainer extends AbstractTrainer {
         return nbExamples;
     }
 
+    /**
+     * The header file of the PDF of a tei file among the given files, null if there is none.
+     */
+    private static File findHeaderFile(File[] files, String pdfName) {
+        if (files == null || pdfName == null) {
+            return null;
+        }
+        for (File file : files) {
+            String localFileName = file.getName();
+            if (localFileName.equals(pdfName + ".header.medical") ||
+                localFileName.equals(pdfName + ".training.header.medical") ||
+                localFileName.equals(pdfName + ".anonym.training.header.medical")) {
+                return file;
+            }
+            if ((localFileName.startsWith(pdfName + "._")) &&
+                (localFileName.endsWith(".header.medical") ||
+                    localFileName.endsWith(".training.header.medical") ||
+                    localFileName.endsWith(".anonym.training.header.medical"))) {
+                return file;
+            }
+        }
+        return null;
+    }
+
     /**
      * Command line execution.
      *
@@ -110,7 +110,13 @@ public class LeftNoteMedicalTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            for (File teifile : refFiles) {
+            // the left-note files are listed once for all the tei files
+            final File[] refFiles2 = new File(leftNotePath).listFiles();
+            // the left-note file of a tei file is part of the key of its cached features
+            CRFDataPreparation.RawFiles rawFiles = teiFile ->
+                findLeftNoteFile(refFiles2, CRFDataPreparation.readPDFName(teiFile));
+
+            CRFDataPreparation.prepare(model, refFiles, rawFiles, (teifile, examples) -> {
                 String name = teifile.getName();
 
                 TEILeftNoteSaxParser parser2 = new TEILeftNoteSaxParser();
@@ -124,30 +130,11 @@ public class LeftNoteMedicalTrainer extends AbstractTrainer {
 
                 ArrayList<String> labeled = parser2.getLabeledResult();
 
-                File refDir2 = new File(leftNotePath);
-                String leftNoteFile = null;
-                File[] refFiles2 = refDir2.listFiles();
-                for (File aRefFiles2 : refFiles2) {
-                    String localFileName = aRefFiles2.getName();
-                    if (localFileName.equals(parser2.getPDFName() + ".left.note.medical") ||
-                        localFileName.equals(parser2.getPDFName() + ".training.left.note.medical") ||
-                        localFileName.equals(parser2.getPDFName() + ".anonym.training.left.note.medical")) {
-                        leftNoteFile = localFileName;
-                        break;
-                    }
-                    if ((localFileName.startsWith(parser2.getPDFName() + "._")) &&
-                        (localFileName.endsWith(".left.note.medical") ||
-                            localFileName.endsWith(".training.left.note.medical") ||
-                            localFileName.endsWith(".anonym.training.left.note.medical"))) {
-                        leftNoteFile = localFileName;
-                        break;
-                    }
-                }
-
+                File leftNoteFile = findLeftNoteFile(refFiles2, parser2.getPDFName());
                 if (leftNoteFile == null)
-                    continue;
+                    return;
 
-                String pathLeftNote = leftNotePath + File.separator + leftNoteFile;
+                String pathLeftNote = leftNoteFile.getPath();
                 int p = 0;
                 BufferedReader bis = new BufferedReader(
                     new InputStreamReader(new FileInputStream(pathLeftNote), "UTF8"));
@@ -265,17 +252,8 @@ public class LeftNoteMedicalTrainer extends AbstractTrainer {
                     leftNote2.append("\n");
                 }
 
-                if ((writer2 == null) && (writer3 != null))
-                    writer3.write(leftNote2.toString() + "\n");
-                if ((writer2 != null) && (writer3 == null))
-                    writer2.write(leftNote2.toString() + "\n");
-                else {
-                    if (Math.random() <= splitRatio)
-                        writer2.write(leftNote2.toString() + "\n");
-                    else
-                        writer3.write(leftNote2.toString() + "\n");
-                }
-            }
+                examples.add(leftNote2.toString() + "\n");
+            }, writer2, writer3, splitRatio);
 
             if (writer2 != null) {
                 writer2.close();
@@ -293,6 +271,30 @@ public class LeftNoteMedicalTrainer extends AbstractTrainer {
         return nbExamples;
     }
 
+    /**
+     * The left-note file of the PDF of a tei file among the given files, null if there is none.
+     */
+    private static File findLeftNoteFile(File[] files, String pdfName) {
+        if (files == null || pdfName == null) {
+            return null;
+        }
+        for (File file : files) {
+            String localFileName = file.getName();
+            if (localFileName.equals(pdfName + ".left.note.medical") ||
+                localFileName.equals(pdfName + ".training.left.note.medical") ||
+                localFileName.equals(pdfName + ".anonym.training.left.note.medical")) {
+                return file;
+            }
+            if ((localFileName.startsWith(pdfName + "._")) &&
+                (localFileName.endsWith(".left.note.medical") ||
+                    localFileName.endsWith(".training.left.note.medical") ||
+                    localFileName.endsWith(".anonym.training.left.note.medical"))) {
+                return file;
+            }
+        }
+        return null;
+    }
+
     /**
      * Command line execution.
      *
@@ -91,30 +91,25 @@ public class MedicTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
-
-            List<OffsetPosition> locationsPositions;
-            List<OffsetPosition> titlesPositions;
-            List<OffsetPosition> suffixesPositions;
-            List<OffsetPosition> emailPositions;
-            List<OffsetPosition> urlPositions;
-
-            int n = 0;
-            for (; n < refFiles.length; n++) {
-                final File teifile = refFiles[n];
+            totalExamples = CRFDataPreparation.prepare(model, refFiles, null, (teifile, examples) -> {
+                List<OffsetPosition> locationsPositions;
+                List<OffsetPosition> titlesPositions;
+                List<OffsetPosition> suffixesPositions;
+                List<OffsetPosition> emailPositions;
+                List<OffsetPosition> urlPositions;
+
                 String name = teifile.getName();
                 System.out.println(name);
 
                 final TEIMedicSaxParser parser2 = new TEIMedicSaxParser();
 
                 // get a new instance of parser
-                final SAXParser p = spf.newSAXParser();
+                final SAXParser p = SAXParserFactory.newInstance().newSAXParser();
                 p.parse(teifile, parser2);
 
                 final List<List<String>> allLabeled = parser2.getLabeledResult();
                 final List<List<LayoutToken>> allTokens = parser2.getTokensResult();
-                totalExamples += parser2.nbMedics;
+                examples.count(parser2.nbMedics);
 
                 // we can now add the features
                 for (int i = 0; i < allTokens.size(); i++) {
@@ -135,18 +130,9 @@ public class MedicTrainer extends AbstractTrainer {
                         allLabeled.get(i), locationsPositions, titlesPositions, suffixesPositions,
                         emailPositions, urlPositions);
 
-                    if ((writer2 == null) && (writer3 != null))
-                        writer3.write(medic + "\n \n");
-                    if ((writer2 != null) && (writer3 == null))
-                        writer2.write(medic + "\n \n");
-                    else {
-                        if (Math.random() <= splitRatio)
-                            writer2.write(medic + "\n \n");
-                        else
-                            writer3.write(medic + "\n \n");
-                    }
+                    examples.add(medic + "\n \n");
                 }
-            }
+            }, writer2, writer3, splitRatio);
 
             if (writer2 != null) {
                 writer2.close();
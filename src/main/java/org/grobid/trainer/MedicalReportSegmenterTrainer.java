@@ -109,17 +109,18 @@ public class MedicalReportSegmenterTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
+            // the raw file of a tei file is part of the key of its cached features
+            CRFDataPreparation.RawFiles rawFiles = teiFile ->
+                new File(sourceRawPathLabel + File.separator + teiFile.getName().replace(".tei.xml", ""));
 
-            for (File tf : refFiles) {
+            CRFDataPreparation.prepare(model, refFiles, rawFiles, (tf, examples) -> {
                 String name = tf.getName();
                 LOGGER.info("Processing: " + name);
 
                 TEIMedicalReportSegmenterSaxParser parser2 = new TEIMedicalReportSegmenterSaxParser();
 
                 //get a new instance of parser
-                SAXParser p = spf.newSAXParser();
+                SAXParser p = SAXParserFactory.newInstance().newSAXParser();
                 p.parse(tf, parser2);
 
                 List<String> labeled = parser2.getLabeledResult();
@@ -130,7 +131,7 @@ public class MedicalReportSegmenterTrainer extends AbstractTrainer {
                     File theRawFile = new File(sourceRawPathLabel + File.separator + name.replace(".tei.xml", ""));
                     if (!theRawFile.exists()) {
                         LOGGER.error("The raw file does not exist: " + theRawFile.getPath());
-                        continue;
+                        return;
                     }
 
                     int q = 0;
@@ -222,23 +223,14 @@ public class MedicalReportSegmenterTrainer extends AbstractTrainer {
                     }
                     bis.close();
                     if (nbInvalid < 10) {
-                        if ((writer2 == null) && (writer3 != null))
-                            writer3.write(medical.toString() + "\n");
-                        if ((writer2 != null) && (writer3 == null))
-                            writer2.write(medical.toString() + "\n");
-                        else {
-                            if (Math.random() <= splitRatio)
-                                writer2.write(medical.toString() + "\n");
-                            else
-                                writer3.write(medical.toString() + "\n");
-                        }
+                        examples.add(medical.toString() + "\n");
                     } else {
                         LOGGER.warn(name + " / too many synchronization issues, file not used in training data and to be fixed!");
                     }
                 } catch (Exception e) {
                     LOGGER.error("Fail to open or process raw file", e);
                 }
-            }
+            }, writer2, writer3, splitRatio);
 
             if (writer2 != null) {
                 writer2.close();
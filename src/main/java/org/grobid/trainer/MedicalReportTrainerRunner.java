@@ -7,6 +7,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -48,7 +50,11 @@ public class MedicalReportTrainerRunner {
         RunType mode = RunType.getRunType(Integer.parseInt(args[0]));
         if ((mode == RunType.SPLIT || mode == RunType.EVAL_N_FOLD) && (args.length < 4)) {
             throw new IllegalStateException(
-                "Usage: {" + String.join(", ", options) + "} {" + String.join(", ", models) + "} -gH /path/to/Grobid/home -s { [0.0 - 1.0] - split ratio, optional} -n {[int, num folds for n-fold evaluation, optional]}");
+                "Usage: {" + String.join(", ", options) + "} {" + String.join(", ", models) + "} -gH /path/to/Grobid/home -s { [0.0 - 1.0] - split ratio, optional} -n {[int, num folds for n-fold evaluation, optional]}" +
+                    " -t {[int, num threads for the data preparation, optional]} -seed {[long, seed of the split, optional]}" +
+                    " -noCache {[no reuse of the features of the unchanged tei files, optional]}" +
+                    " -p {[int, num folds evaluated in parallel, optional]} -ft {[int, num wapiti threads per fold, optional]}" +
+                    " -keepModels {[true|false, keep the fold models, optional]} -o {[path, output file of the n-fold evaluation, optional]}");
         }
 
         // start grobid-home
@@ -56,6 +62,9 @@ public class MedicalReportTrainerRunner {
         String path2GbdHome = null;
         Double split = 0.0;
         int numFolds = 0;
+        int parallelism = 0;
+        int threadsPerFold = 0;
+        boolean keepModels = false;
         String outputFilePath = null;
         GrobidHomeFinder grobidHomeFinder = null;
         for (int i = 0; i < args.length; i++) {
@@ -92,6 +101,54 @@ public class MedicalReportTrainerRunner {
                 }
                 outputFilePath = args[i + 1];
 
+            } else if (args[i].equals("-t")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalStateException("Missing number of threads value. ");
+                }
+                try {
+                    CRFDataPreparation.setNbThreads(Integer.parseInt(args[i + 1]));
+                } catch (NumberFormatException e) {
+                    throw new IllegalStateException("Invalid number of threads value: " + args[i + 1]);
+                }
+
+            } else if (args[i].equals("-seed")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalStateException("Missing seed value. ");
+                }
+                try {
+                    CRFDataPreparation.setSeed(Long.parseLong(args[i + 1]));
+                } catch (NumberFormatException e) {
+                    throw new IllegalStateException("Invalid seed value: " + args[i + 1]);
+                }
+
+            } else if (args[i].equals("-noCache")) {
+                CRFFeatureCache.setEnabled(false);
+
+            } else if (args[i].equals("-p")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalStateException("Missing number of parallel folds value. ");
+                }
+                try {
+                    parallelism = Integer.parseInt(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalStateException("Invalid number of parallel folds value: " + args[i + 1]);
+                }
+
+            } else if (args[i].equals("-ft")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalStateException("Missing number of threads per fold value. ");
+                }
+                try {
+                    threadsPerFold = Integer.parseInt(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalStateException("Invalid number of threads per fold value: " + args[i + 1]);
+                }
+
+            } else if (args[i].equals("-keepModels")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalStateException("Missing keep models value. ");
+                }
+                keepModels = Boolean.parseBoolean(args[i + 1]);
             }
         }
 
@@ -144,13 +201,28 @@ public class MedicalReportTrainerRunner {
                 if (numFolds == 0) {
                     throw new IllegalArgumentException("N should be > 0");
                 }
-                if (StringUtils.isNotEmpty(outputFilePath)) {
-                    Path outputPath = Paths.get(outputFilePath);
-                    if (Files.exists(outputPath)) {
-                        System.err.println("Output file exists. ");
+                Path outputPath = StringUtils.isNotEmpty(outputFilePath) ? Paths.get(outputFilePath) : null;
+                if (outputPath != null && Files.exists(outputPath)) {
+                    System.err.println("Output file exists. ");
+                    break;
+                }
+                String results;
+                try {
+                    results = new NFoldEvaluation(trainer, numFolds)
+                        .setParallelism(parallelism)
+                        .setThreadsPerFold(threadsPerFold)
+                        .setKeepModels(keepModels)
+                        .run();
+                } catch (Exception e) {
+                    throw new IllegalStateException("The n-fold evaluation of " + model + " failed", e);
+                }
+                if (outputPath != null) {
+                    try {
+                        Files.write(outputPath, results.getBytes(StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Cannot write the results to " + outputPath, e);
                     }
                 } else {
-                    String results = AbstractTrainer.runNFoldEvaluation(trainer, numFolds);
                     System.out.println(results);
                 }
                 break;
@@ -0,0 +1,245 @@
+package org.grobid.trainer;
+
+import org.grobid.core.GrobidModel;
+import org.grobid.core.engines.tagging.GrobidCRFEngine;
+import org.grobid.core.jni.WapitiModel;
+import org.grobid.core.utilities.GrobidProperties;
+import org.grobid.trainer.evaluation.EvaluationUtilities;
+import org.grobid.trainer.evaluation.ModelStats;
+import org.grobid.trainer.evaluation.Stats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * N-fold evaluation of a model, the folds being trained and evaluated concurrently.
+ *
+ * The CRF data of the whole corpus are prepared once, shuffled with the seed of the data preparation and split into
+ * n folds. Up to parallelism folds are then trained at the same time, each training with threadsPerFold Wapiti
+ * threads, so that parallelism x threadsPerFold should not exceed the number of cores. The results of each fold are
+ * reported as soon as the fold is evaluated, with the running averages of the folds evaluated so far.
+ *
+ * The fold models are written under grobid-home/tmp/nfold/[model], and removed once evaluated unless they are kept
+ * (keepModels), in which case each fold model is as large as the model trained on the whole corpus.
+ *
+ * Only the models trained with Wapiti are evaluated concurrently, the other engines use the n-fold evaluation of
+ * grobid.
+ */
+public class NFoldEvaluation {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NFoldEvaluation.class);
+
+    private final AbstractTrainer trainer;
+    private final int numFolds;
+    private int parallelism = 0;
+    private int threadsPerFold = 0;
+    private boolean keepModels = false;
+
+    public NFoldEvaluation(AbstractTrainer trainer, int numFolds) {
+        if (numFolds < 2) {
+            throw new IllegalArgumentException("The number of folds should be > 1");
+        }
+        this.trainer = trainer;
+        this.numFolds = numFolds;
+    }
+
+    /**
+     * Set the number of folds trained at the same time, by default the number of cores divided by the threads per
+     * fold.
+     */
+    public NFoldEvaluation setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Set the number of Wapiti threads of the training of a fold, by default the number of cores divided by the
+     * parallelism.
+     */
+    public NFoldEvaluation setThreadsPerFold(int threadsPerFold) {
+        this.threadsPerFold = threadsPerFold;
+        return this;
+    }
+
+    public NFoldEvaluation setKeepModels(boolean keepModels) {
+        this.keepModels = keepModels;
+        return this;
+    }
+
+    /**
+     * The evaluation of a fold.
+     */
+    private static class FoldResult {
+        final int fold;
+        final ModelStats stats;
+        final File modelFile;
+
+        FoldResult(int fold, ModelStats stats, File modelFile) {
+            this.fold = fold;
+            this.stats = stats;
+            this.modelFile = modelFile;
+        }
+    }
+
+    /**
+     * Run the evaluation and return the report of the folds and their averages.
+     */
+    public String run() throws Exception {
+        GrobidModel model = trainer.getModel();
+        if (GrobidProperties.getGrobidCRFEngine(model) != GrobidCRFEngine.WAPITI) {
+            LOGGER.info("The model " + model.getModelName() + " is not trained with Wapiti, the folds are run one after another");
+            return AbstractTrainer.runNFoldEvaluation(trainer, numFolds);
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int folds = parallelism > 0 ? Math.min(parallelism, numFolds) :
+            Math.max(1, Math.min(numFolds, cores / Math.max(1, threadsPerFold)));
+        int threads = threadsPerFold > 0 ? threadsPerFold : Math.max(1, cores / folds);
+
+        File directory = new File(new File(GrobidProperties.getTempPath(), "nfold"), model.getModelName());
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the directory of the fold models " + directory);
+        }
+
+        File dataFile = new File(directory, "data.train");
+        List<File> foldFiles = new ArrayList<>();
+        StringBuilder report = new StringBuilder();
+        ExecutorService executor = Executors.newFixedThreadPool(folds);
+        try {
+            trainer.createCRFPPData(trainer.getCorpusPath(), dataFile);
+            List<String> examples = loadExamples(dataFile);
+            Collections.shuffle(examples, new Random(CRFDataPreparation.getSeed()));
+            System.out.println(examples.size() + " examples, " + numFolds + " folds, " + folds +
+                " folds at a time with " + threads + " threads each");
+
+            CompletionService<FoldResult> completion = new ExecutorCompletionService<>(executor);
+            for (int fold = 0; fold < numFolds; fold++) {
+                File trainingFile = new File(directory, "fold-" + fold + ".train");
+                File evalFile = new File(directory, "fold-" + fold + ".eval");
+                writeFold(examples, fold, trainingFile, evalFile);
+                foldFiles.add(trainingFile);
+                foldFiles.add(evalFile);
+                final int foldNumber = fold;
+                completion.submit(() -> runFold(model, foldNumber, trainingFile, evalFile, directory, threads));
+            }
+
+            // aggregated as the folds complete, so that a long evaluation can be followed and stopped early
+            List<ModelStats> results = new ArrayList<>();
+            for (int i = 0; i < numFolds; i++) {
+                FoldResult result = get(completion.take());
+                results.add(result.stats);
+                String foldReport = "====================== Fold " + result.fold + " ======================\n" +
+                    (keepModels ? "Model kept in " + result.modelFile + "\n" : "") +
+                    result.stats.toString(false) + "\n" +
+                    averages(results, "Average of the " + results.size() + " folds evaluated so far");
+                System.out.println(foldReport);
+                report.append(foldReport).append("\n");
+            }
+            report.append(averages(results, "Average of the " + numFolds + " folds"));
+        } finally {
+            executor.shutdownNow();
+            dataFile.delete();
+            for (File foldFile : foldFiles) {
+                foldFile.delete();
+            }
+        }
+        return report.toString();
+    }
+
+    private FoldResult runFold(GrobidModel model,
+                               int fold,
+                               File trainingFile,
+                               File evalFile,
+                               File directory,
+                               int threads) {
+        File modelFile = new File(directory, "fold-" + fold + ".wapiti");
+        GenericTrainer foldTrainer = TrainerFactory.getTrainer(model);
+        foldTrainer.setEpsilon(GrobidProperties.getEpsilon(model));
+        foldTrainer.setWindow(GrobidProperties.getWindow(model));
+        foldTrainer.setNbMaxIterations(GrobidProperties.getNbMaxIterations(model));
+        foldTrainer.train(trainer.getTemplatePath(), trainingFile, modelFile, threads, model);
+
+        WapitiModel foldModel = new WapitiModel(modelFile);
+        try {
+            ModelStats stats = EvaluationUtilities.evaluateStandard(evalFile.getAbsolutePath(),
+                features -> foldModel.label(String.join("\n", features)));
+            return new FoldResult(fold, stats, modelFile);
+        } finally {
+            foldModel.close();
+            if (!keepModels) {
+                modelFile.delete();
+            }
+        }
+    }
+
+    private static String averages(List<ModelStats> results, String title) {
+        double microPrecision = 0.0;
+        double microRecall = 0.0;
+        double microF1 = 0.0;
+        double macroF1 = 0.0;
+        for (ModelStats result : results) {
+            Stats fieldStats = result.getFieldStats();
+            microPrecision += fieldStats.getMicroAveragePrecision();
+            microRecall += fieldStats.getMicroAverageRecall();
+            microF1 += fieldStats.getMicroAverageF1();
+            macroF1 += fieldStats.getMacroAverageF1();
+        }
+        int n = results.size();
+        return String.format("%s: micro precision %.2f, micro recall %.2f, micro f1 %.2f, macro f1 %.2f\n",
+            title, microPrecision / n, microRecall / n, microF1 / n, macroF1 / n);
+    }
+
+    /**
+     * The examples of a CRF data file, separated by blank lines.
+     */
+    private static List<String> loadExamples(File dataFile) throws IOException {
+        List<String> examples = new ArrayList<>();
+        StringBuilder example = new StringBuilder();
+        try (BufferedReader reader = Files.newBufferedReader(dataFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().length() == 0) {
+                    if (example.length() > 0) {
+                        examples.add(example.toString());
+                        example.setLength(0);
+                    }
+                } else {
+                    example.append(line).append('\n');
+                }
+            }
+        }
+        if (example.length() > 0) {
+            examples.add(example.toString());
+        }
+        return examples;
+    }
+
+    /**
+     * Write the evaluation data of a fold (every numFolds-th example) and its training data (the other examples).
+     */
+    private void writeFold(List<String> examples, int fold, File trainingFile, File evalFile) throws IOException {
+        try (Writer trainingWriter = Files.newBufferedWriter(trainingFile.toPath(), StandardCharsets.UTF_8);
+             Writer evalWriter = Files.newBufferedWriter(evalFile.toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < examples.size(); i++) {
+                Writer writer = i % numFolds == fold ? evalWriter : trainingWriter;
+                writer.write(examples.get(i));
+                writer.write("\n");
+            }
+        }
+    }
+
+    private static FoldResult get(Future<FoldResult> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -91,28 +91,23 @@ public class PatientTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
+            totalExamples = CRFDataPreparation.prepare(model, refFiles, null, (teifile, examples) -> {
+                List<OffsetPosition> locationsPositions;
+                List<OffsetPosition> titlesPositions;
+                List<OffsetPosition> suffixesPositions;
 
-            List<OffsetPosition> locationsPositions;
-            List<OffsetPosition> titlesPositions;
-            List<OffsetPosition> suffixesPositions;
-
-            int n = 0;
-            for (; n < refFiles.length; n++) {
-                final File teifile = refFiles[n];
                 String name = teifile.getName();
                 System.out.println(name);
 
                 final TEIPatientSaxParser parser2 = new TEIPatientSaxParser();
 
                 // get a new instance of parser
-                final SAXParser p = spf.newSAXParser();
+                final SAXParser p = SAXParserFactory.newInstance().newSAXParser();
                 p.parse(teifile, parser2);
 
                 final List<List<String>> allLabeled = parser2.getLabeledResult();
                 final List<List<LayoutToken>> allTokens = parser2.getTokensResult();
-                totalExamples += parser2.nbPatients;
+                examples.count(parser2.nbPatients);
 
                 // we can now add the features
                 for (int i = 0; i < allTokens.size(); i++) {
@@ -131,18 +126,9 @@ public class PatientTrainer extends AbstractTrainer {
                         allLabeled.get(i), locationsPositions,
                         titlesPositions, suffixesPositions);
 
-                    if ((writer2 == null) && (writer3 != null))
-                        writer3.write(patient + "\n \n");
-                    if ((writer2 != null) && (writer3 == null))
-                        writer2.write(patient + "\n \n");
-                    else {
-                        if (Math.random() <= splitRatio)
-                            writer2.write(patient + "\n \n");
-                        else
-                            writer3.write(patient + "\n \n");
-                    }
+                    examples.add(patient + "\n \n");
                 }
-            }
+            }, writer2, writer3, splitRatio);
 
             if (writer2 != null) {
                 writer2.close();
@@ -87,27 +87,22 @@ public class PersonNameMedicalTrainer extends AbstractTrainer {
                 writer3 = new OutputStreamWriter(os3, "UTF8");
             }
 
-            // get a factory for SAX parser
-            SAXParserFactory spf = SAXParserFactory.newInstance();
+            totalExamples = CRFDataPreparation.prepare(model, refFiles, null, (teifile, examples) -> {
+                List<OffsetPosition> titlePositions = null;
+                List<OffsetPosition> suffixPositions = null;
 
-            List<OffsetPosition> titlePositions = null;
-            List<OffsetPosition> suffixPositions = null;
-
-            int n = 0;
-            for (; n < refFiles.length; n++) {
-                final File teifile = refFiles[n];
                 String name = teifile.getName();
                 System.out.println(name);
 
                 final TEIPersonMedicalNameSaxParser parser2 = new TEIPersonMedicalNameSaxParser();
 
                 // get a new instance of parser
-                final SAXParser p = spf.newSAXParser();
+                final SAXParser p = SAXParserFactory.newInstance().newSAXParser();
                 p.parse(teifile, parser2);
 
                 final List<List<String>> allLabeled = parser2.getLabeledResult();
                 final List<List<LayoutToken>> allTokens = parser2.getTokensResult();
-                totalExamples += parser2.nbNames;
+                examples.count(parser2.nbNames);
 
                 // we can now add the features
                 for (int i = 0; i < allTokens.size(); i++) {
@@ -124,18 +119,9 @@ public class PersonNameMedicalTrainer extends AbstractTrainer {
                     final String names = FeaturesVectorPersonName.addFeaturesName(allTokens.get(i),
                         allLabeled.get(i), titlePositions, suffixPositions);
 
-                    if ((writer2 == null) && (writer3 != null))
-                        writer3.write(names + "\n \n");
-                    if ((writer2 != null) && (writer3 == null))
-                        writer2.write(names + "\n \n");
-                    else {
-                        if (Math.random() <= splitRatio)
-                            writer2.write(names + "\n \n");
-                        else
-                            writer3.write(names + "\n \n");
-                    }
+                    examples.add(names + "\n \n");
                 }
-            }
+            }, writer2, writer3, splitRatio);
 
             if (writer2 != null) {
                 writer2.close();
@@ -0,0 +1,39 @@
+package org.grobid.core.features;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FeatureWriterTest {
+    private static final String[] TOKENS = {"Paris", "ÉCHOGRAPHIE", "Œdème", "İSTANBUL", "ΟΔΟΣ", "Straße", "𐐀x", ""};
+
+    private static String lowerCase(String token) {
+        StringBuilder res = new StringBuilder("previous");
+        FeatureWriter.appendLowerCase(res, token);
+        return res.toString();
+    }
+
+    @Test
+    public void testAppendLowerCase_sameAsToLowerCase() {
+        for (String token : TOKENS) {
+            assertThat(lowerCase(token), is("previous " + token.toLowerCase()));
+        }
+    }
+
+    @Test
+    public void testAppendLowerCase_turkishLocale() {
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            for (String token : TOKENS) {
+                assertThat(lowerCase(token), is("previous " + token.toLowerCase()));
+            }
+            assertThat(lowerCase("PARIS"), is("previous parıs"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package org.grobid.core.features;
+
+import org.junit.Test;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The feature vectors must be the same as the ones of the former printVector() implementations (based on
+ * TextUtilities.prefix, TextUtilities.suffix and String.toLowerCase), whether they are returned as strings or
+ * written in the buffer of the sequence. The expected vectors were produced by these former implementations.
+ */
+public class FeaturesVectorPrintTest {
+    private static final String PREVIOUS = "previous vector\n";
+
+    private static void assertVector(String expected, Supplier<String> printVector, Consumer<StringBuilder> appendVector) {
+        assertThat(printVector.get(), is(expected));
+
+        StringBuilder res = new StringBuilder(PREVIOUS);
+        appendVector.accept(res);
+        assertThat(res.toString(), is(PREVIOUS + expected));
+    }
+
+    @Test
+    public void testPrintVector_dateline() {
+        FeaturesVectorDateline features = new FeaturesVectorDateline();
+        features.string = "Évry";
+        features.digit = "NODIGIT";
+        features.capitalisation = "INITCAP";
+        features.punctType = "NOPUNCT";
+        features.lineStatus = "LINESTART";
+        features.wordShape = "Xxxx";
+        features.isKnownCity = true;
+        features.relativePosition = 0;
+        features.label = "<place>";
+
+        assertVector("Évry évry É Év Évr Évry y ry vry Évry LINESTART INITCAP NODIGIT 0 0 0 1 0 0 NOPUNCT Xxxx 0 <place>\n", features::printVector, features::printVector);
+    }
+
+    @Test
+    public void testPrintVector_medic() {
+        FeaturesVectorMedic features = new FeaturesVectorMedic();
+        features.string = "HÉLÈNE";
+        features.digit = "NODIGIT";
+        features.capitalisation = "ALLCAPS";
+        features.punctType = "NOPUNCT";
+        features.lineStatus = "LINEIN";
+        features.firstName = true;
+        features.relativePosition = 3;
+        features.label = "I-<firstname>";
+
+        assertVector("HÉLÈNE hélène H HÉ HÉL HÉLÈ E NE ÈNE LÈNE LINEIN ALLCAPS NODIGIT 0 0 0 0 0 1 0 0 0 0 0 0 NOPUNCT 3 I-<firstname>\n", features::printVector, features::printVector);
+    }
+
+    @Test
+    public void testPrintVector_medicalNER() {
+        FeaturesVectorMedicalNER features = new FeaturesVectorMedicalNER();
+        features.string = "œdème";
+        features.digit = "NODIGIT";
+        features.capitalisation = "NOCAPS";
+        features.punctType = "NOPUNCT";
+        features.wordShape = "xxxx";
+        features.wordShapeTrimmed = "x";
+        features.disorder = true;
+        features.label = "I-<disorder>";
+
+        assertVector("œdème œdème œ œd œdè œdèm œdème e me ème dème œdème NOCAPS NODIGIT 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 1 0 0 0 0 0 0 0 0 0 xxxx x I-<disorder>", features::printVector, features::printVector);
+    }
+
+    @Test
+    public void testPrintVector_organization() {
+        FeaturesVectorOrganization features = new FeaturesVectorOrganization();
+        features.string = "Hôpital";
+        features.digit = "NODIGIT";
+        features.capitalisation = "INITCAP";
+        features.punctType = "NOPUNCT";
+        features.lineStatus = "LINESTART";
+        features.isKnownLocation = true;
+        features.relativePosition = 0;
+
+        assertVector("Hôpital hôpital H Hô Hôp Hôpi l al tal ital LINESTART INITCAP NODIGIT 0 0 0 0 0 0 0 1 0 0 0 0 NOPUNCT 0 0\n", features::printVector, features::printVector);
+    }
+
+    @Test
+    public void testPrintVector_patient() {
+        FeaturesVectorPatient features = new FeaturesVectorPatient();
+        features.string = "1954";
+        features.digit = "ALLDIGIT";
+        features.capitalisation = "NOCAPS";
+        features.punctType = "NOPUNCT";
+        features.lineStatus = "LINEEND";
+        features.year = true;
+        features.relativePosition = 11;
+        features.label = "<birthdate>";
+
+        assertVector("1954 1954 1 19 195 1954 4 54 954 1954 LINEEND NOCAPS ALLDIGIT 0 0 0 0 0 1 0 0 0 0 0 0 NOPUNCT 11 <birthdate>\n", features::printVector, features::printVector);
+    }
+
+    @Test
+    public void testPrintVector_address() {
+        FeaturesVectorAddress features = new FeaturesVectorAddress();
+        features.string = "Créteil";
+        features.digit = "NODIGIT";
+        features.capitalisation = "INITCAP";
+        features.lineStatus = "LINEIN";
+        features.punctType = "NOPUNCT";
+        features.wordShape = "Xxxx";
+        features.isCityNameToken = true;
+        features.label = "I-<settlement>";
+
+        assertVector("Créteil créteil C Cr Cré Crét l il eil teil LINEIN INITCAP NODIGIT 0 0 0 0 0 0 0 NOPUNCT Xxxx I-<settlement>\n", features::printVector, features::printVector);
+    }
+
+    @Test
+    public void testPrintVector_personName() {
+        FeaturesVectorPersonName features = new FeaturesVectorPersonName();
+        features.string = "Zoé";
+        features.digit = "NODIGIT";
+        features.capitalisation = "INITCAP";
+        features.lineStatus = "LINESTART";
+        features.punctType = "NOPUNCT";
+        features.firstName = true;
+        features.label = "I-<forename>";
+
+        assertVector("Zoé zoé Z Zo Zoé Zoé é oé Zoé Zoé LINESTART INITCAP NODIGIT 0 0 1 0 0 0 NOPUNCT I-<forename>\n", features::printVector, features::printVector);
+    }
+
+    @Test
+    public void testPrintVector_headerMedical() {
+        FeaturesVectorHeaderMedical features = new FeaturesVectorHeaderMedical();
+        features.string = "COMPTE-RENDU";
+        features.digit = "NODIGIT";
+        features.capitalisation = "ALLCAPS";
+        features.punctType = "HYPHEN";
+        features.blockStatus = "BLOCKSTART";
+        features.lineStatus = "LINESTART";
+        features.alignmentStatus = "CENTERED";
+        features.fontStatus = "NEWFONT";
+        features.fontSize = "HIGHERFONT";
+        features.bold = true;
+        features.punctuationProfile = "-";
+        features.spacingWithPreviousBlock = 2;
+        features.characterDensity = 3;
+        features.largestFont = true;
+
+        assertVector("COMPTE-RENDU compte-rendu C CO COM COMP U DU NDU ENDU BLOCKSTART LINESTART CENTERED NEWFONT HIGHERFONT 1 0 ALLCAPS NODIGIT 0 0 0 0 0 0 0 0 HYPHEN 1 0 0\n", features::printVector, features::printVector);
+    }
+
+    @Test
+    public void testPrintVector_leftNoteMedical() {
+        FeaturesVectorLeftNoteMedical features = new FeaturesVectorLeftNoteMedical();
+        features.string = "Pédiatrie";
+        features.digit = "NODIGIT";
+        features.capitalisation = "INITCAP";
+        features.punctType = "NOPUNCT";
+        features.blockStatus = "BLOCKIN";
+        features.lineStatus = "LINEIN";
+        features.alignmentStatus = "ALIGNEDLEFT";
+        features.fontStatus = "SAMEFONT";
+        features.fontSize = "LOWERFONT";
+        features.italic = true;
+        features.punctuationProfile = "no";
+        features.spacingWithPreviousBlock = 1;
+        features.characterDensity = 4;
+        features.smallestFont = true;
+
+        assertVector("Pédiatrie pédiatrie P Pé Péd Pédi e ie rie trie BLOCKIN LINEIN ALIGNEDLEFT SAMEFONT LOWERFONT 0 1 INITCAP NODIGIT 0 0 0 0 0 0 0 0 NOPUNCT 0 1 0 0\n", features::printVector, features::printVector);
+    }
+
+    @Test
+    public void testPrintVector_medical() {
+        FeaturesVectorMedical features = new FeaturesVectorMedical();
+        features.string = "Né";
+        features.secondString = "le";
+        features.digit = "NODIGIT";
+        features.capitalisation = "INITCAP";
+        features.punctType = "NOPUNCT";
+        features.blockStatus = "BLOCKSTART";
+        features.lineStatus = "LINESTART";
+        features.fontStatus = "NEWFONT";
+        features.fontSize = "SAMEFONTSIZE";
+        features.pageStatus = "PAGESTART";
+        features.alignmentStatus = "ALIGNEDLEFT";
+        features.relativeDocumentPosition = 2;
+        features.relativePagePositionChar = 5;
+        features.punctuationProfile = "no";
+        features.firstPageBlock = true;
+        features.lineLength = 7;
+        features.inMainArea = true;
+        features.spacingWithPreviousBlock = 1;
+        features.characterDensity = 2;
+
+        assertVector("Né le né N Né Né Né BLOCKSTART LINESTART PAGESTART NEWFONT SAMEFONTSIZE 0 0 INITCAP NODIGIT 0 0 0 0 0 0 0 0 NOPUNCT 2 5 no 2 7 0 0 0 0 1\n", features::printVector, features::printVector);
+    }
+
+    @Test
+    public void testPrintVector_fullMedicalText() {
+        FeaturesVectorFullMedicalText features = new FeaturesVectorFullMedicalText();
+        features.string = "Antécédents";
+        features.digit = "NODIGIT";
+        features.capitalisation = "INITCAP";
+        features.blockStatus = "BLOCKSTART";
+        features.lineStatus = "LINESTART";
+        features.fontStatus = "SAMEFONT";
+        features.fontSize = "SAMEFONTSIZE";
+        features.alignmentStatus = "ALIGNEDLEFT";
+        features.bold = true;
+        features.punctType = "NOPUNCT";
+        features.relativeDocumentPosition = 4;
+        features.relativePagePosition = 6;
+        features.closestGraphicHeight = 1;
+        features.spacingWithPreviousBlock = 3;
+        features.characterDensity = 2;
+        features.calloutType = "UNKNOWN";
+        features.label = "<section>";
+
+        assertVector("Antécédents antécédents A An Ant Anté s ts nts ents BLOCKSTART LINESTART ALIGNEDLEFT SAMEFONT SAMEFONTSIZE 1 0 INITCAP NODIGIT 0 NOPUNCT 4 6 0\n", features::printVector, features::printVector);
+    }
+
+    @Test
+    public void testPrintVector_emptyToken() {
+        FeaturesVectorPatient features = new FeaturesVectorPatient();
+        features.string = "";
+        features.digit = "NODIGIT";
+
+        StringBuilder res = new StringBuilder(PREVIOUS);
+        features.printVector(res);
+        assertThat(res.toString(), is(PREVIOUS));
+        assertTrue(features.printVector() == null);
+    }
+}
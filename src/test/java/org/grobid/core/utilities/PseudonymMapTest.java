@@ -0,0 +1,106 @@
+package org.grobid.core.utilities;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class PseudonymMapTest {
+
+    @Test
+    public void testReplaceAll_substring() {
+        PseudonymMap pseudonyms = PseudonymMap.fromPairs(Arrays.asList("Paris\tLyon", "75013\t69003"));
+
+        assertThat(pseudonyms.replaceAll("12 rue de Tolbiac 75013 Paris"), is("12 rue de Tolbiac 69003 Lyon"));
+        // the originals are also replaced inside a longer word, as with String.replace
+        assertThat(pseudonyms.replaceAll("75013Paris"), is("69003Lyon"));
+        assertThat(pseudonyms.replaceAll("CHU-Paris13"), is("CHU-Lyon13"));
+    }
+
+    @Test
+    public void testReplaceAll_sameAsStringReplace() {
+        PseudonymMap pseudonyms = PseudonymMap.fromPairs(Collections.singletonList("DUPONT\tMARTIN"));
+        String text = "Madame DUPONT, née DUPONT-DURAND, M.DUPONT";
+
+        assertThat(pseudonyms.replaceAll(text), is(text.replace("DUPONT", "MARTIN")));
+    }
+
+    @Test
+    public void testReplaceAll_longestMatch() {
+        PseudonymMap pseudonyms = PseudonymMap.fromPairs(Arrays.asList(
+            "Jean\tPaul", "Jean Pierre\tLouis Marie", "Jean Pierre DUPONT\tAlain MARTIN"));
+
+        assertThat(pseudonyms.replaceAll("Dr Jean Pierre DUPONT"), is("Dr Alain MARTIN"));
+        assertThat(pseudonyms.replaceAll("Dr Jean Pierre DURAND"), is("Dr Louis Marie DURAND"));
+        assertThat(pseudonyms.replaceAll("Dr Jean DUPONT"), is("Dr Paul DUPONT"));
+    }
+
+    @Test
+    public void testReplaceAll_sharedPrefixes() {
+        PseudonymMap pseudonyms = PseudonymMap.fromPairs(Arrays.asList(
+            "Marie\tAnne", "Martin\tBernard", "Mar\tSep"));
+
+        assertThat(pseudonyms.replaceAll("Marie Martin, Mar 2000, Marc"), is("Anne Bernard, Sep 2000, Sepc"));
+        // a failed longer match still finds the shorter original sharing its prefix
+        assertThat(pseudonyms.replaceAll("Marti Mari"), is("Septi Sepi"));
+    }
+
+    @Test
+    public void testReplaceAll_overlappingOriginals() {
+        PseudonymMap pseudonyms = PseudonymMap.fromPairs(Arrays.asList(
+            "DUPONT\tMARTIN", "PONT\tBRIDGE", "rue du Pont\true des Lilas"));
+
+        // an original inside another one is only replaced when the longer one is not found
+        assertThat(pseudonyms.replaceAll("M. DUPONT"), is("M. MARTIN"));
+        assertThat(pseudonyms.replaceAll("LAPONT"), is("LABRIDGE"));
+        assertThat(pseudonyms.replaceAll("3 rue du Pont"), is("3 rue des Lilas"));
+        // when two originals overlap, the leftmost one is replaced
+        PseudonymMap overlapping = PseudonymMap.fromPairs(Arrays.asList("ANNE\tLISE", "NEDELEC\tRIVIERE"));
+        assertThat(overlapping.replaceAll("ANNEDELEC"), is("LISEDELEC"));
+        assertThat(overlapping.replaceAll("ANNE NEDELEC"), is("LISE RIVIERE"));
+    }
+
+    @Test
+    public void testReplaceAll_pseudonymNotReplacedAgain() {
+        PseudonymMap pseudonyms = PseudonymMap.fromPairs(Arrays.asList("DUPONT\tMARTIN", "MARTIN\tDURAND"));
+
+        assertThat(pseudonyms.replaceAll("DUPONT et MARTIN"), is("MARTIN et DURAND"));
+    }
+
+    @Test
+    public void testReplaceAll_firstPairKept() {
+        PseudonymMap pseudonyms = PseudonymMap.of(
+            Arrays.asList("Paris", "Paris", ""), Arrays.asList(" Lyon ", "Nice", "Vide"));
+
+        assertThat(pseudonyms.size(), is(1));
+        assertThat(pseudonyms.get("Paris"), is("Lyon"));
+        assertThat(pseudonyms.replaceAll("Paris"), is("Lyon"));
+    }
+
+    @Test
+    public void testReplaceAll_noOriginal() {
+        PseudonymMap pseudonyms = PseudonymMap.fromPairs(Collections.singletonList("DUPONT\tMARTIN"));
+
+        assertThat(pseudonyms.replaceAll("Madame DURAND"), is("Madame DURAND"));
+        assertThat(pseudonyms.replaceAll(""), is(""));
+        assertThat(pseudonyms.replaceAll(null), is(nullValue()));
+        assertTrue(PseudonymMap.empty().isEmpty());
+        assertThat(PseudonymMap.empty().replaceAll("DUPONT"), is("DUPONT"));
+    }
+
+    @Test
+    public void testReplace_token() {
+        PseudonymMap pseudonyms = PseudonymMap.fromPairs(Arrays.asList("DUPONT\tMARTIN", "malformed pair"));
+
+        assertThat(pseudonyms.size(), is(1));
+        assertThat(pseudonyms.replace("DUPONT"), is("MARTIN"));
+        // a single token is only replaced when it is an original
+        assertThat(pseudonyms.replace("DUPONT-DURAND"), is("DUPONT-DURAND"));
+        assertThat(pseudonyms.get("DURAND"), is(nullValue()));
+    }
+}